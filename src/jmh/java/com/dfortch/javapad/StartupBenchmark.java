@@ -0,0 +1,143 @@
+package com.dfortch.javapad;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Launches the headless training session with {@code java -jar}, through {@link Launcher}, once
+ * {@code --train} has written the class data sharing archive. With {@code cds} set the launcher
+ * starts the session again in a JVM that maps the archive; otherwise {@code -Djavapad.cds=false}
+ * runs it in the launching JVM. Class data sharing only works from jars, so the shaded jar of the
+ * package phase is launched rather than the classes of the benchmark.
+ * <p>
+ * The mean peak resident sets of the launching JVM and of the JVM it starts are printed when the
+ * trial ends, where {@code /proc} has them. With {@code cds} set the launching JVM only waits for
+ * the other one, so its resident set is what the relaunch costs.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StartupBenchmark {
+
+    /**
+     * How often the resident sets are read while the session runs.
+     */
+    private static final long POLL_MILLIS = 5;
+
+    @Param({"false", "true"})
+    private boolean cds;
+
+    private Path jar;
+
+    private Path home;
+
+    private int launches;
+
+    private long launcherKb;
+
+    private long relaunchedKb;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        jar = findJar();
+        home = Files.createTempDirectory("javapad-startup");
+        start(List.of(), Main.TRAIN_ARGUMENT).waitFor();
+        try (DirectoryStream<Path> archives = Files.newDirectoryStream(home.resolve(".javapad").resolve("cds"),
+                "javapad-*.jsa")) {
+            if (!archives.iterator().hasNext()) {
+                throw new IllegalStateException("Training wrote no archive in " + home);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (launches > 0) {
+            System.out.printf("Peak resident set over %d launches: launching JVM %d kB, relaunched JVM %d kB%n",
+                    launches, launcherKb / launches, relaunchedKb / launches);
+        }
+        try (Stream<Path> paths = Files.walk(home)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public int launch() throws Exception {
+        List<String> options = cds ? List.of() : List.of("-D" + Launcher.CDS_PROPERTY + "=false");
+        Process process = start(options, Main.TRAIN_SESSION_ARGUMENT);
+        long launcherPeak = 0;
+        long relaunchedPeak = 0;
+        while (!process.waitFor(POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+            launcherPeak = Math.max(launcherPeak, getPeakResidentKb(process.pid()));
+            for (ProcessHandle child : process.children().toList()) {
+                relaunchedPeak = Math.max(relaunchedPeak, getPeakResidentKb(child.pid()));
+            }
+        }
+        int exitCode = process.exitValue();
+        if (exitCode != 0) {
+            throw new IllegalStateException("The training session exited with code " + exitCode);
+        }
+        launches++;
+        launcherKb += launcherPeak;
+        relaunchedKb += relaunchedPeak;
+        return exitCode;
+    }
+
+    private Process start(List<String> options, String argument) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(options);
+        command.add("-Duser.home=" + home);
+        command.add("-Djava.awt.headless=true");
+        command.add("-jar");
+        command.add(jar.toString());
+        command.add(argument);
+        return new ProcessBuilder(command)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.DISCARD)
+                .start();
+    }
+
+    /**
+     * Returns the peak resident set of the process, or 0 if it has exited or the system does not
+     * tell.
+     */
+    private static long getPeakResidentKb(long pid) {
+        try {
+            for (String line : Files.readAllLines(Paths.get("/proc", Long.toString(pid), "status"))) {
+                if (line.startsWith("VmHWM:")) {
+                    return Long.parseLong(line.replaceAll("\\D", ""));
+                }
+            }
+        } catch (IOException e) {
+            // Exited, or no /proc
+        }
+        return 0;
+    }
+
+    /**
+     * Returns the shaded jar next to the classes of the application.
+     */
+    private static Path findJar() throws Exception {
+        Path classes = Paths.get(Main.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        try (DirectoryStream<Path> jars = Files.newDirectoryStream(classes.getParent(), "javapad-*.jar")) {
+            for (Path candidate : jars) {
+                return candidate.toAbsolutePath();
+            }
+        }
+        throw new IllegalStateException("No javapad jar in " + classes.getParent() + ", run the package phase first");
+    }
+}
@@ -0,0 +1,85 @@
+package com.dfortch.javapad.highlight;
+
+import com.dfortch.javapad.text.PieceTableDocument;
+import org.openjdk.jmh.annotations.*;
+
+import javax.swing.text.BadLocationException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of re-highlighting after an edit: a keystroke in the middle of a YAML document of the
+ * given number of lines, followed by fetching the tokens of the 50 lines a viewport shows, the way
+ * the editor repaints after typing.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SyntaxHighlighterBenchmark {
+
+    private static final int VIEWPORT_LINES = 50;
+
+    @Param({"1000", "200000"})
+    private int lines;
+
+    private PieceTableDocument document;
+
+    private SyntaxHighlighter highlighter;
+
+    private int firstVisibleLine;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < lines; i++) {
+            switch (i % 4) {
+                case 0 -> text.append("item").append(i).append(":\n");
+                case 1 -> text.append("  name: \"entry ").append(i).append("\"\n");
+                case 2 -> text.append("  count: ").append(i).append(" # inline\n");
+                default -> text.append("  enabled: true\n");
+            }
+        }
+        document = new PieceTableDocument(text);
+        highlighter = new SyntaxHighlighter(document, Lexers.YAML);
+        highlighter.install();
+        highlighter.getTokens(lines - 1);
+        firstVisibleLine = lines / 2;
+    }
+
+    @Benchmark
+    public int typeChar() throws BadLocationException {
+        int offset = document.getLineStartOffset(firstVisibleLine + 1) + 4;
+        document.insertString(offset, "x", null);
+        int tokens = paintViewport();
+        document.remove(offset, 1);
+        return tokens + paintViewport();
+    }
+
+    @Benchmark
+    public int typeNewline() throws BadLocationException {
+        int offset = document.getLineStartOffset(firstVisibleLine + 1);
+        document.insertString(offset, "\n", null);
+        int tokens = paintViewport();
+        document.remove(offset, 1);
+        return tokens + paintViewport();
+    }
+
+    @Benchmark
+    public int typeQuote() throws BadLocationException {
+        int offset = document.getLineStartOffset(firstVisibleLine + 2) + 2;
+        document.insertString(offset, "'", null);
+        int tokens = paintViewport();
+        document.remove(offset, 1);
+        return tokens + paintViewport();
+    }
+
+    private int paintViewport() {
+        int tokens = 0;
+        for (int line = firstVisibleLine; line < firstVisibleLine + VIEWPORT_LINES; line++) {
+            tokens += highlighter.getTokens(line).size();
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,64 @@
+package com.dfortch.javapad.i18n;
+
+import com.dfortch.javapad.JavapadConstants;
+import org.openjdk.jmh.annotations.*;
+
+import java.text.MessageFormat;
+import java.util.Locale;
+import java.util.ResourceBundle;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Formats the status bar patterns the way a status bar refresh does, through the provider and
+ * through an uncached look-up and {@link MessageFormat#format(String, Object...)} as a baseline. Run with
+ * {@code -prof gc} to compare the allocation rate as well.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MessageProviderBenchmark {
+
+    @Param({"en", "es", "fr"})
+    private String language;
+
+    @Param({"main.statusbar.linecol", "main.statusbar.characters"})
+    private String key;
+
+    private MessageProvider messageProvider;
+
+    private ResourceBundle resourceBundle;
+
+    private int line;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Locale locale = Locale.forLanguageTag(language);
+        messageProvider = new ResourceBundleMessageProvider(JavapadConstants.MESSAGE_RESOURCE_BUNDLE_BASE_NAME, locale);
+        resourceBundle = ResourceBundle.getBundle(JavapadConstants.MESSAGE_RESOURCE_BUNDLE_BASE_NAME, locale);
+    }
+
+    @Benchmark
+    public String getMessage() {
+        return messageProvider.getMessage("main.menu.file");
+    }
+
+    @Benchmark
+    public String getMessageWithParams() {
+        line++;
+        return messageProvider.getMessage(key, line, line % 80);
+    }
+
+    @Benchmark
+    public String getMessageWithParamsUncached() {
+        line++;
+        return MessageFormat.format(resourceBundle.getString(key), line, line % 80);
+    }
+
+    @Benchmark
+    public String getMissingMessage() {
+        return messageProvider.getMessage("main.statusbar.missing");
+    }
+}
@@ -0,0 +1,85 @@
+package com.dfortch.javapad.io;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads, maps and saves files from 1 KB to 1 GB. Saving writes the mapped file back, the way
+ * the read-only viewer hands large documents to {@link FileOperations#saveToFile}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FileOperationsBenchmark {
+
+    private static final String LINE = "The quick brown fox jumps over the lazy dog, café crème 0123456789\n";
+
+    @Param({"1024", "1048576", "67108864", "1073741824"})
+    private long size;
+
+    private final FileOperations fileOperations = new FileOperationsImpl();
+
+    private Path directory;
+
+    private File source;
+
+    private File target;
+
+    private MappedTextFile content;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("javapad-benchmark");
+        source = directory.resolve("source.txt").toFile();
+        target = directory.resolve("target.txt").toFile();
+        try (Writer writer = Files.newBufferedWriter(source.toPath(), StandardCharsets.UTF_8)) {
+            long written = 0;
+            while (written < size) {
+                writer.write(LINE);
+                written += LINE.getBytes(StandardCharsets.UTF_8).length;
+            }
+        }
+        content = fileOperations.mapFromFile(source);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        content.close();
+        Files.deleteIfExists(source.toPath());
+        Files.deleteIfExists(target.toPath());
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    public long readInChunks(Blackhole blackhole) throws IOException {
+        long[] chars = new long[1];
+        fileOperations.readFromFile(source, (chunk, bytesRead) -> {
+            chars[0] += chunk.length();
+            blackhole.consume(chunk);
+        });
+        return chars[0];
+    }
+
+    @Benchmark
+    public int map() throws IOException {
+        try (MappedTextFile mappedFile = fileOperations.mapFromFile(source)) {
+            return mappedFile.length();
+        }
+    }
+
+    @Benchmark
+    public void save() throws IOException {
+        fileOperations.saveToFile(target, content, null);
+    }
+}
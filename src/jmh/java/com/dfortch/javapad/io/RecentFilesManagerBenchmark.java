@@ -0,0 +1,64 @@
+package com.dfortch.javapad.io;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RecentFilesManagerBenchmark {
+
+    private static final int MAX_RECENT_FILES = 10;
+
+    private Path directory;
+
+    private RecentFilesManager recentFilesManager;
+
+    private File[] files;
+
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("javapad-benchmark");
+        recentFilesManager = new RecentFilesManagerImpl(directory, "recent_files.txt", MAX_RECENT_FILES);
+        files = new File[MAX_RECENT_FILES * 2];
+        for (int i = 0; i < files.length; i++) {
+            files[i] = directory.resolve("file-" + i + ".txt").toFile();
+        }
+        for (int i = 0; i < MAX_RECENT_FILES; i++) {
+            recentFilesManager.addRecentFile(files[i]);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.list(directory)) {
+            for (Path path : paths.toList()) {
+                Files.delete(path);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    @Benchmark
+    public void addRecentFile() throws IOException {
+        recentFilesManager.addRecentFile(files[next]);
+        next = (next + 1) % files.length;
+    }
+
+    @Benchmark
+    public List<File> getRecentFiles() throws IOException {
+        return recentFilesManager.getRecentFiles();
+    }
+}
@@ -0,0 +1,108 @@
+package com.dfortch.javapad.prefs;
+
+import com.dfortch.javapad.JavapadConstants;
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.*;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads the preferences the editor asks for on every repaint or preferences change. Only getters
+ * are measured, so the stored user preferences are left untouched.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PreferencesBenchmark {
+
+    private JavaPadUserPreferences preferences;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        preferences = new JavaPrefBasedJavapadUserPreferences(new JavapadUserPreferencesProperties() {
+            @Override
+            public Locale[] getAvailableLocales() {
+                return new Locale[]{Locale.ENGLISH, Locale.FRENCH, Locale.forLanguageTag("es")};
+            }
+
+            @Override
+            public Locale getDefaultLocale() {
+                return JavapadConstants.DEFAULT_LOCALE;
+            }
+
+            @Override
+            public JavapadTheme getDefaultTheme() {
+                return JavapadConstants.DEFAULT_THEME;
+            }
+
+            @Override
+            public Font getDefaultEditorFont() {
+                return new Font(Font.MONOSPACED, Font.PLAIN, 12);
+            }
+
+            @Override
+            public Color getDefaultEditorForegroundColor() {
+                return Color.BLACK;
+            }
+
+            @Override
+            public Color getDefaultEditorBackgroundColor() {
+                return Color.WHITE;
+            }
+
+            @Override
+            public long getDefaultLargeFileThreshold() {
+                return JavapadConstants.DEFAULT_LARGE_FILE_THRESHOLD;
+            }
+
+            @Override
+            public long getDefaultUndoMemoryLimit() {
+                return JavapadConstants.DEFAULT_UNDO_MEMORY_LIMIT;
+            }
+
+            @Override
+            public long getDefaultTabMemoryBudget() {
+                return JavapadConstants.DEFAULT_TAB_MEMORY_BUDGET;
+            }
+
+            @Override
+            public org.apache.logging.log4j.Level getDefaultLogLevel() {
+                return JavapadConstants.DEFAULT_LOG_LEVEL;
+            }
+        });
+    }
+
+    @Benchmark
+    public Locale getLocale() {
+        return preferences.getLocale();
+    }
+
+    @Benchmark
+    public JavapadTheme getTheme() {
+        return preferences.getTheme();
+    }
+
+    @Benchmark
+    public Font getEditorFont() {
+        return preferences.getEditorFont();
+    }
+
+    @Benchmark
+    public Color getEditorForegroundColor() {
+        return preferences.getEditorForegroundColor();
+    }
+
+    @Benchmark
+    public long getLargeFileThreshold() {
+        return preferences.getLargeFileThreshold();
+    }
+
+    @Benchmark
+    public PreferencesSnapshot getSnapshot() {
+        return preferences.getSnapshot();
+    }
+}
@@ -0,0 +1,93 @@
+package com.dfortch.javapad.search;
+
+import com.dfortch.javapad.io.MappedTextFile;
+import com.dfortch.javapad.text.PieceTableDocument;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Searches a mapped file of up to 1 GB the way the read-only viewer holds it, on the common pool
+ * and on a single thread. The needle is only at the very end, so every benchmark reads it all.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DocumentSearcherBenchmark {
+
+    private static final String LINE = "The quick brown fox jumps over the lazy dog 0123456789\n";
+
+    private static final String NEEDLE = "javapad-needle";
+
+    @Param({"67108864", "1073741824"})
+    private long size;
+
+    private Path file;
+
+    private MappedTextFile mappedFile;
+
+    private PieceTableDocument document;
+
+    private DocumentSearcher parallel;
+
+    private DocumentSearcher sequential;
+
+    private ForkJoinPool singleThreadPool;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = Files.createTempFile("javapad-benchmark", ".txt");
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (long written = 0; written < size; written += LINE.length()) {
+                writer.write(LINE);
+            }
+            writer.write(NEEDLE);
+        }
+        mappedFile = MappedTextFile.open(file.toFile(), StandardCharsets.UTF_8);
+        document = new PieceTableDocument(mappedFile, mappedFile.getLineBreaks());
+        parallel = new DocumentSearcher();
+        singleThreadPool = new ForkJoinPool(1);
+        sequential = new DocumentSearcher(singleThreadPool);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        singleThreadPool.shutdown();
+        mappedFile.close();
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public SearchResults literal() {
+        return parallel.findAll(document, new SearchQuery(NEEDLE, false, true), null).join();
+    }
+
+    @Benchmark
+    public SearchResults literalIgnoreCase() {
+        return parallel.findAll(document, new SearchQuery(NEEDLE, false, false), null).join();
+    }
+
+    @Benchmark
+    public SearchResults literalSingleThread() {
+        return sequential.findAll(document, new SearchQuery(NEEDLE, false, true), null).join();
+    }
+
+    @Benchmark
+    public SearchResults regex() {
+        return parallel.findAll(document, new SearchQuery("java\\w+-needle", true, true), null).join();
+    }
+
+    @Benchmark
+    public SearchResults regexSingleThread() {
+        return sequential.findAll(document, new SearchQuery("java\\w+-needle", true, true), null).join();
+    }
+}
@@ -0,0 +1,52 @@
+package com.dfortch.javapad.text;
+
+import org.openjdk.jmh.annotations.*;
+
+import javax.swing.text.BadLocationException;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Edits the editor model the way typing does: single chars at the end or in the middle of a
+ * document of the given size, each followed by its removal so the size stays put.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PieceTableDocumentBenchmark {
+
+    @Param({"1024", "1048576", "67108864"})
+    private int size;
+
+    private PieceTableDocument document;
+
+    private SplittableRandom random;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        document = new PieceTableDocument("The quick brown fox jumps over the lazy dog\n".repeat(size / 44 + 1));
+        random = new SplittableRandom(42);
+    }
+
+    @Benchmark
+    public int typeAtEnd() throws BadLocationException {
+        document.insertString(document.getLength(), "x", null);
+        return document.getLength();
+    }
+
+    @Benchmark
+    public int insertAndRemoveAtRandom() throws BadLocationException {
+        int offset = random.nextInt(document.getLength());
+        document.insertString(offset, "x", null);
+        document.remove(offset, 1);
+        return document.getLength();
+    }
+
+    @Benchmark
+    public int getLineOfRandomOffset() {
+        return document.getLineOfOffset(random.nextInt(document.getLength()));
+    }
+}
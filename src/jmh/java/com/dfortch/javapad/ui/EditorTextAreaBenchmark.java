@@ -0,0 +1,91 @@
+package com.dfortch.javapad.ui;
+
+import com.dfortch.javapad.highlight.Lexers;
+import com.dfortch.javapad.text.PieceTableDocument;
+import org.openjdk.jmh.annotations.*;
+
+import javax.swing.text.BadLocationException;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of a frame while scrolling a document that is a single line of the given number of chars,
+ * like minified JSON or base64: painting an 800 by 600 viewport at a random horizontal position,
+ * and typing a char in the middle of the line. With {@code lexer} set the line is JSON and is
+ * highlighted, which adds looking up the visible tokens and re-lexing the line after the edit.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class EditorTextAreaBenchmark {
+
+    @Param({"1048576", "104857600"})
+    private int length;
+
+    @Param({"false", "true"})
+    private boolean lexer;
+
+    private PieceTableDocument document;
+
+    private EditorTextArea area;
+
+    private BufferedImage image;
+
+    private SplittableRandom random;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        StringBuilder text = new StringBuilder(length);
+        if (lexer) {
+            text.append('[');
+            for (int i = 0; text.length() < length - 1; i++) {
+                text.append("{\"id\":").append(i).append(",\"on\":true},");
+            }
+            text.setLength(length - 1);
+            text.append(']');
+        } else {
+            for (int i = 0; i < length; i++) {
+                text.append((char) ('A' + i % 26));
+            }
+        }
+        document = new PieceTableDocument(text);
+        area = new EditorTextArea();
+        area.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 13));
+        area.setLexer(lexer ? Lexers.JSON : null);
+        area.setDocument(document);
+        area.setSize(area.getPreferredSize());
+        image = new BufferedImage(800, 600, BufferedImage.TYPE_INT_RGB);
+        random = new SplittableRandom(42);
+    }
+
+    @Benchmark
+    public BufferedImage paintViewport() {
+        int x = random.nextInt(Math.max(1, area.getWidth() - 800));
+        Graphics2D g = image.createGraphics();
+        try {
+            g.translate(-x, 0);
+            g.setClip(x, 0, 800, 600);
+            area.paint(g);
+        } finally {
+            g.dispose();
+        }
+        return image;
+    }
+
+    @Benchmark
+    public float typeInMiddle() throws BadLocationException {
+        int offset = length / 2;
+        document.insertString(offset, "x", null);
+        document.remove(offset, 1);
+        if (lexer) {
+            // As the repaint after the keystroke would
+            area.getSyntaxHighlighter().getTokens(0);
+        }
+        return area.getUI().getRootView(area).getPreferredSpan(0);
+    }
+}
@@ -0,0 +1,29 @@
+package com.dfortch.javapad.util;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.*;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ColorUtilsBenchmark {
+
+    private String colorString = "30, 144, 255";
+
+    private String invalidColorString = "30,144";
+
+    @Benchmark
+    public Color stringToColor() {
+        return ColorUtils.stringToColor(colorString, Color.BLACK);
+    }
+
+    @Benchmark
+    public Color stringToColorInvalid() {
+        return ColorUtils.stringToColor(invalidColorString, Color.BLACK);
+    }
+}
@@ -0,0 +1,13 @@
+package com.dfortch.javapad;
+
+/**
+ * Where {@link Main} gets the objects of the application from, see {@link DirectBeanProvider} and
+ * {@link WeldBeanProvider}.
+ */
+public interface BeanProvider extends AutoCloseable {
+
+    <T> T get(Class<T> type);
+
+    @Override
+    void close();
+}
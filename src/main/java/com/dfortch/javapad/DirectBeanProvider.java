@@ -0,0 +1,100 @@
+package com.dfortch.javapad;
+
+import com.dfortch.javapad.i18n.MessageProvider;
+import com.dfortch.javapad.io.FileOperations;
+import com.dfortch.javapad.io.RecentFilesManager;
+import com.dfortch.javapad.prefs.JavaPadUserPreferences;
+import com.dfortch.javapad.prefs.JavapadUserPreferencesProperties;
+import com.dfortch.javapad.ui.FontCatalog;
+import com.dfortch.javapad.workspace.BufferPool;
+import com.dfortch.javapad.workspace.EditJournal;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Builds the objects of the application from the producers of {@link JavapadConfiguration} without
+ * a CDI container, which saves the bean discovery and proxy generation of Weld at startup. Each
+ * object is created the first time it is asked for, directly or as a dependency of another, and is
+ * shared from then on, also between threads. A producer added to {@link JavapadConfiguration} must be registered here
+ * too.
+ */
+public class DirectBeanProvider implements BeanProvider {
+
+    private static final Logger log = LogManager.getLogger(DirectBeanProvider.class);
+
+    /**
+     * Filled by the constructor only, so it can be read from any thread afterwards.
+     */
+    private final Map<Class<?>, Singleton<?>> singletons = new HashMap<>();
+
+    public DirectBeanProvider() {
+        JavapadConfiguration configuration = new JavapadConfiguration();
+        register(JavapadUserPreferencesProperties.class, configuration::javapadUserPreferencesProperties);
+        register(JavaPadUserPreferences.class,
+                () -> configuration.javaPadUserPreferences(get(JavapadUserPreferencesProperties.class)));
+        register(MessageProvider.class, () -> configuration.messageProvider(get(JavaPadUserPreferences.class)));
+        register(FileOperations.class, configuration::fileOperations);
+        register(RecentFilesManager.class, configuration::recentFilesManager);
+        register(BufferPool.class,
+                () -> configuration.bufferPool(get(FileOperations.class), get(JavaPadUserPreferences.class)));
+        register(EditJournal.class, configuration::editJournal);
+        register(FontCatalog.class, configuration::fontCatalog);
+    }
+
+    @Override
+    public <T> T get(Class<T> type) {
+        Singleton<?> singleton = singletons.get(type);
+        if (singleton == null) {
+            throw new IllegalArgumentException("No producer for " + type.getName());
+        }
+        return type.cast(singleton.get(type));
+    }
+
+    @Override
+    public void close() {
+        // The objects live as long as the application
+    }
+
+    Set<Class<?>> getTypes() {
+        return singletons.keySet();
+    }
+
+    private <T> void register(Class<T> type, Supplier<? extends T> producer) {
+        singletons.put(type, new Singleton<>(producer));
+    }
+
+    /**
+     * The object of one type, created by the first caller. Each type has a lock of its own, so
+     * startup can create independent objects on several threads at once.
+     */
+    private static final class Singleton<T> {
+
+        private final Supplier<? extends T> producer;
+
+        private volatile T instance;
+
+        Singleton(Supplier<? extends T> producer) {
+            this.producer = producer;
+        }
+
+        T get(Class<?> type) {
+            T result = instance;
+            if (result == null) {
+                synchronized (this) {
+                    result = instance;
+                    if (result == null) {
+                        log.debug("Creating {}", type.getName());
+                        result = producer.get();
+                        instance = result;
+                    }
+                }
+            }
+            return result;
+        }
+    }
+}
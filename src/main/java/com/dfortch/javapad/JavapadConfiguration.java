@@ -10,8 +10,12 @@ import com.dfortch.javapad.prefs.JavaPadUserPreferences;
 import com.dfortch.javapad.prefs.JavaPrefBasedJavapadUserPreferences;
 import com.dfortch.javapad.prefs.JavapadTheme;
 import com.dfortch.javapad.prefs.JavapadUserPreferencesProperties;
+import com.dfortch.javapad.ui.FontCatalog;
+import com.dfortch.javapad.workspace.BufferPool;
+import com.dfortch.javapad.workspace.EditJournal;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.enterprise.inject.Produces;
+import org.apache.logging.log4j.Level;
 
 import javax.swing.*;
 import java.awt.*;
@@ -52,6 +56,26 @@ public class JavapadConfiguration {
             public Color getDefaultEditorBackgroundColor() {
                 return null;
             }
+
+            @Override
+            public long getDefaultLargeFileThreshold() {
+                return JavapadConstants.DEFAULT_LARGE_FILE_THRESHOLD;
+            }
+
+            @Override
+            public long getDefaultUndoMemoryLimit() {
+                return JavapadConstants.DEFAULT_UNDO_MEMORY_LIMIT;
+            }
+
+            @Override
+            public long getDefaultTabMemoryBudget() {
+                return JavapadConstants.DEFAULT_TAB_MEMORY_BUDGET;
+            }
+
+            @Override
+            public Level getDefaultLogLevel() {
+                return JavapadConstants.DEFAULT_LOG_LEVEL;
+            }
         };
     }
 
@@ -75,4 +99,20 @@ public class JavapadConfiguration {
         return new RecentFilesManagerImpl(JavapadConstants.CACHE_PATH, JavapadConstants.RECENT_FILES_CACHE_FILE,
                 JavapadConstants.MAX_RECENT_FILES);
     }
+
+    @Produces
+    public BufferPool bufferPool(FileOperations fileOperations, JavaPadUserPreferences preferences) {
+        return new BufferPool(fileOperations, JavapadConstants.SWAP_PATH, preferences.getTabMemoryBudget(),
+                task -> Thread.ofVirtual().name("buffer-swapper").start(task), SwingUtilities::invokeLater);
+    }
+
+    @Produces
+    public EditJournal editJournal() {
+        return new EditJournal(JavapadConstants.JOURNAL_PATH);
+    }
+
+    @Produces
+    public FontCatalog fontCatalog() {
+        return new FontCatalog(JavapadConstants.CACHE_PATH.resolve(JavapadConstants.FONT_CATALOG_CACHE_FILE));
+    }
 }
@@ -1,6 +1,7 @@
 package com.dfortch.javapad;
 
 import com.dfortch.javapad.prefs.JavapadTheme;
+import org.apache.logging.log4j.Level;
 
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -20,10 +21,35 @@ public class JavapadConstants {
 
     public static final Path CACHE_PATH = USER_DATA_PATH.resolve("cache");
 
+    /**
+     * Where log4j2.xml writes the log files.
+     */
+    public static final Path LOG_PATH = USER_DATA_PATH.resolve("logs");
+
     public static final String RECENT_FILES_CACHE_FILE = "recent_files";
 
+    public static final String FONT_CATALOG_CACHE_FILE = "font_catalog";
+
     public static final int MAX_RECENT_FILES = 10;
 
+    public static final long DEFAULT_LARGE_FILE_THRESHOLD = 128L * 1024 * 1024;
+
+    public static final long DEFAULT_UNDO_MEMORY_LIMIT = 32L * 1024 * 1024;
+
+    public static final long DEFAULT_TAB_MEMORY_BUDGET = 256L * 1024 * 1024;
+
+    public static final Level DEFAULT_LOG_LEVEL = Level.INFO;
+
+    public static final Path SWAP_PATH = CACHE_PATH.resolve("swap");
+
+    public static final Path JOURNAL_PATH = CACHE_PATH.resolve("journal");
+
+    /**
+     * System property choosing how the application is wired: {@code weld} starts a CDI container,
+     * anything else builds the objects directly.
+     */
+    public static final String WIRING_PROPERTY = "javapad.wiring";
+
     private JavapadConstants() {
     }
 }
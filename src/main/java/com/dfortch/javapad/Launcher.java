@@ -0,0 +1,169 @@
+package com.dfortch.javapad;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Entry point of the jar. When {@link Main#TRAIN_ARGUMENT} has left a class data sharing archive
+ * for this JVM and class path, the application is started again in a JVM that maps the archive,
+ * which saves loading and verifying the Swing, FlatLaf and log4j classes on every launch.
+ * Otherwise, and with {@code -Djavapad.cds=false}, {@link Main} runs in this JVM.
+ * <p>
+ * Only classes of the JDK are used here, so the relaunch costs little more than starting a JVM.
+ */
+public class Launcher {
+
+    /**
+     * System property that turns the archive off when set to {@code false}.
+     */
+    public static final String CDS_PROPERTY = "javapad.cds";
+
+    /**
+     * Options of the {@code java} command that take their value as the next argument.
+     */
+    private static final Set<String> OPTIONS_WITH_VALUE = Set.of("-p", "--module-path", "--upgrade-module-path",
+            "--add-modules", "--enable-native-access", "--limit-modules", "--add-reads", "--add-exports",
+            "--add-opens", "--patch-module");
+
+    /**
+     * Options the relaunched JVM is given its own of, or that would make it archive instead of map.
+     */
+    private static final List<String> ARCHIVE_OPTIONS = List.of("-XX:SharedArchiveFile", "-XX:ArchiveClassesAtExit",
+            "-XX:+AutoCreateSharedArchive", "-Xlog:cds");
+
+    private Launcher() {
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Path archive = getArchive();
+        boolean training = args.length > 0 && args[0].equals(Main.TRAIN_ARGUMENT);
+        if (training || archive == null || "false".equals(System.getProperty(CDS_PROPERTY))
+                || !Files.isRegularFile(archive)) {
+            Main.main(args);
+            return;
+        }
+        List<String> command = new ArrayList<>();
+        command.add(getJavaCommand());
+        command.addAll(getForwardedOptions());
+        command.add("-XX:SharedArchiveFile=" + archive);
+        command.add("-Xlog:cds=off");
+        command.add("-Xlog:cds+dynamic=off");
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(Main.class.getName());
+        command.addAll(List.of(args));
+        Process process = new ProcessBuilder(command).inheritIO().start();
+        System.exit(process.waitFor());
+    }
+
+    /**
+     * Returns the archive for this JVM and class path, or {@code null} if the class path cannot be
+     * archived. Rebuilding the jar or changing the JDK gives another archive, so a stale one is
+     * never mapped.
+     */
+    public static Path getArchive() {
+        String classPath = System.getProperty("java.class.path");
+        if (!isArchivable(classPath)) {
+            return null;
+        }
+        StringBuilder key = new StringBuilder()
+                .append(System.getProperty("java.home")).append('\n')
+                .append(System.getProperty("java.vm.version")).append('\n');
+        for (String entry : classPath.split(File.pathSeparator)) {
+            File file = new File(entry);
+            key.append(file.getAbsolutePath()).append(':').append(file.length()).append(':')
+                    .append(file.lastModified()).append('\n');
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(key.toString().getBytes(StandardCharsets.UTF_8));
+            return getArchiveDirectory().resolve("javapad-" + HexFormat.of().formatHex(digest, 0, 8) + ".jsa");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Returns where archives are kept, in {@link JavapadConstants#USER_DATA_PATH} without loading
+     * that class.
+     */
+    public static Path getArchiveDirectory() {
+        return Paths.get(System.getProperty("user.home"), ".javapad", "cds");
+    }
+
+    /**
+     * Returns whether the JVM can archive the classes of {@code classPath}, which it only does for
+     * jar files.
+     */
+    static boolean isArchivable(String classPath) {
+        if (classPath == null || classPath.isEmpty()) {
+            return false;
+        }
+        for (String entry : classPath.split(File.pathSeparator)) {
+            if (!entry.endsWith(".jar") || !new File(entry).isFile()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static String getJavaCommand() {
+        return ProcessHandle.current().info().command()
+                .orElse(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+    }
+
+    /**
+     * Returns the options this JVM was started with, which the relaunched one should have too.
+     * They are read from the command line rather than from the runtime bean, whose module costs
+     * more to load than the rest of the launcher. Options in {@code @} files are not read, and
+     * those of {@code JDK_JAVA_OPTIONS} reach the relaunched JVM through the environment.
+     */
+    static List<String> getForwardedOptions() {
+        return getForwardedOptions(ProcessHandle.current().info().arguments().orElse(new String[0]));
+    }
+
+    /**
+     * Returns the options in {@code arguments} of the {@code java} command, up to the main class
+     * or jar, except for the class path and the options of {@link #ARCHIVE_OPTIONS}.
+     */
+    static List<String> getForwardedOptions(String[] arguments) {
+        List<String> options = new ArrayList<>();
+        for (int i = 0; i < arguments.length; i++) {
+            String argument = arguments[i];
+            if (argument.equals("-jar") || argument.equals("-m") || argument.equals("--module")
+                    || !argument.startsWith("-")) {
+                break;
+            }
+            if (argument.equals("-cp") || argument.equals("-classpath") || argument.equals("--class-path")) {
+                i++;
+            } else if (OPTIONS_WITH_VALUE.contains(argument)) {
+                if (i + 1 < arguments.length) {
+                    options.add(argument);
+                    options.add(arguments[++i]);
+                }
+            } else if (!argument.startsWith("--class-path=") && !isArchiveOption(argument)) {
+                options.add(argument);
+            }
+        }
+        return options;
+    }
+
+    private static boolean isArchiveOption(String argument) {
+        for (String option : ARCHIVE_OPTIONS) {
+            if (argument.startsWith(option)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -4,53 +4,178 @@ import com.dfortch.javapad.i18n.MessageProvider;
 import com.dfortch.javapad.prefs.JavaPadUserPreferences;
 import com.dfortch.javapad.io.FileOperations;
 import com.dfortch.javapad.io.RecentFilesManager;
+import com.dfortch.javapad.ui.FontCatalog;
 import com.dfortch.javapad.ui.MainFrame;
+import com.dfortch.javapad.util.LoggingUtils;
+import com.dfortch.javapad.util.StartupTimer;
 import com.dfortch.javapad.util.UIUtils;
+import com.dfortch.javapad.workspace.BufferPool;
+import com.dfortch.javapad.workspace.EditJournal;
+import com.dfortch.javapad.workspace.RecoveredBuffer;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.jboss.weld.environment.se.Weld;
-import org.jboss.weld.environment.se.WeldContainer;
 
 import javax.swing.*;
 
+import java.io.File;
 import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
 
 import static com.dfortch.javapad.util.FileUtils.createDirectoryIfNotExists;
 
 public class Main {
     private static final Logger log = LogManager.getLogger(Main.class);
 
-    public static void main(String[] args) throws IOException {
+    /**
+     * Argument that writes the class data sharing archive of {@link Launcher} instead of starting
+     * the editor.
+     */
+    public static final String TRAIN_ARGUMENT = "--train";
+
+    /**
+     * Argument of the JVM that {@link TrainingSession#train()} starts to run the scripted session.
+     */
+    static final String TRAIN_SESSION_ARGUMENT = "--train-session";
+
+    /**
+     * Threads of the startup pipeline, enough to run all its steps at once.
+     */
+    private static final int STARTUP_THREADS = 6;
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length > 0 && TRAIN_ARGUMENT.equals(args[0])) {
+            System.exit(TrainingSession.train() ? 0 : 1);
+        }
+        if (args.length > 0 && TRAIN_SESSION_ARGUMENT.equals(args[0])) {
+            runTrainingSession();
+        }
         log.trace("Starting main method");
+        StartupTimer startupTimer = StartupTimer.sinceProcessStart();
 
         createDirectoryIfNotExists(JavapadConstants.USER_DATA_PATH);
         createDirectoryIfNotExists(JavapadConstants.CACHE_PATH);
+        startupTimer.mark("directories");
 
-        Weld weld = new Weld();
+        try (BeanProvider beans = createBeanProvider();
+             StartupPipeline pipeline = new StartupPipeline(STARTUP_THREADS)) {
+            startupTimer.mark("wiring");
 
-        try (WeldContainer container = weld.initialize()) {
-            JavaPadUserPreferences preferences = container.select(JavaPadUserPreferences.class).get();
-            MessageProvider messageProvider = container.select(MessageProvider.class).get();
-            FileOperations fileOperations = container.select(FileOperations.class).get();
-            RecentFilesManager recentFilesManager = container.select(RecentFilesManager.class).get();
+            JavaPadUserPreferences preferences = beans.get(JavaPadUserPreferences.class);
+            Runtime.getRuntime().addShutdownHook(
+                    Thread.ofPlatform().name("preferences-flush").unstarted(preferences::flush));
 
+            LoggingUtils.setApplicationLevel(preferences.getLogLevel());
             Locale.setDefault(preferences.getLocale());
+            startupTimer.mark("preferences");
+
+            CompletableFuture<Void> lookAndFeel = pipeline.submit("look-and-feel", () -> {
+                configureLookAndFeel(preferences);
+                return null;
+            });
+            CompletableFuture<MessageProvider> messages = pipeline.submit("messages",
+                    () -> beans.get(MessageProvider.class));
+            CompletableFuture<BufferPool> buffers = pipeline.submit("buffers", () -> beans.get(BufferPool.class));
+            RecentFilesManager recentFilesManager = beans.get(RecentFilesManager.class);
+            CompletableFuture<List<File>> recentFiles = pipeline.submit("recent-files",
+                    recentFilesManager::getRecentFiles);
+            EditJournal editJournal = beans.get(EditJournal.class);
+            CompletableFuture<List<RecoveredBuffer>> recovered = pipeline.submit("recovery",
+                    () -> recoverJournals(editJournal));
+            // For the preferences dialog; nothing waits for it
+            FontCatalog fontCatalog = beans.get(FontCatalog.class);
+            pipeline.submit("fonts", fontCatalog::load);
 
-            try {
-                UIUtils.configureLookAndFeel(preferences.getTheme().getLookAndFeelClassName());
-                log.info("Look and Feel set to {}", preferences.getTheme().getLookAndFeelClassName());
-            } catch (UnsupportedLookAndFeelException | ClassNotFoundException | InstantiationException |
-                     IllegalAccessException e) {
-                log.error("Failed to set Look and Feel from theme {}", preferences.getTheme(), e);
-            }
+            MessageProvider messageProvider = messages.join();
+            BufferPool bufferPool = buffers.join();
+            FileOperations fileOperations = beans.get(FileOperations.class);
+            lookAndFeel.join();
+            startupTimer.mark("background");
 
             SwingUtilities.invokeLater(() -> {
-                MainFrame mainUI = new MainFrame(messageProvider, fileOperations, recentFilesManager, preferences);
+                MainFrame mainUI = new MainFrame(messageProvider, fileOperations, recentFilesManager, preferences,
+                        bufferPool, editJournal, startupTimer, fontCatalog);
 
                 mainUI.setVisible(true);
+                startupTimer.mark("first-frame");
+
+                // Queued behind the first paint of the frame
+                SwingUtilities.invokeLater(() -> {
+                    mainUI.initializeMenus();
+                    startupTimer.mark("menus");
+                    startupTimer.finish();
+
+                    // A failed step has been logged by the pipeline and leaves its part empty
+                    recentFiles.thenAcceptAsync(mainUI::showRecentFiles, SwingUtilities::invokeLater);
+                    recovered.thenAcceptAsync(buffersToRecover -> {
+                        if (!buffersToRecover.isEmpty()) {
+                            offerRecovery(mainUI, messageProvider, editJournal, buffersToRecover);
+                        }
+                    }, SwingUtilities::invokeLater);
+                });
             });
         }
     }
 
+    private static void runTrainingSession() throws InterruptedException {
+        try {
+            TrainingSession.run();
+            System.exit(0);
+        } catch (IOException | InvocationTargetException e) {
+            log.error("The training session failed", e);
+            System.exit(1);
+        }
+    }
+
+    private static void configureLookAndFeel(JavaPadUserPreferences preferences) {
+        try {
+            UIUtils.configureLookAndFeel(preferences.getTheme().getLookAndFeelClassName());
+            log.info("Look and Feel set to {}", preferences.getTheme().getLookAndFeelClassName());
+        } catch (UnsupportedLookAndFeelException | ClassNotFoundException | InstantiationException |
+                 IllegalAccessException e) {
+            log.error("Failed to set Look and Feel from theme {}", preferences.getTheme(), e);
+        }
+    }
+
+    /**
+     * Builds the objects directly unless {@link JavapadConstants#WIRING_PROPERTY} asks for Weld.
+     */
+    private static BeanProvider createBeanProvider() {
+        if ("weld".equals(System.getProperty(JavapadConstants.WIRING_PROPERTY))) {
+            log.info("Wiring the application with Weld");
+            return new WeldBeanProvider();
+        }
+        log.info("Wiring the application directly");
+        return new DirectBeanProvider();
+    }
+
+    private static List<RecoveredBuffer> recoverJournals(EditJournal editJournal) {
+        try {
+            return editJournal.recover();
+        } catch (IOException e) {
+            log.error("Failed to read the edit journals of the last session", e);
+            return List.of();
+        }
+    }
+
+    /**
+     * Asks whether to reopen the unsaved buffers of a session that did not exit cleanly. Their
+     * journals are deleted either way; reopened buffers start journals of their own.
+     */
+    private static void offerRecovery(MainFrame mainUI, MessageProvider messageProvider, EditJournal editJournal,
+                                      List<RecoveredBuffer> recovered) {
+        log.info("Offering to recover {} unsaved buffers", recovered.size());
+        int option = JOptionPane.showConfirmDialog(mainUI,
+                messageProvider.getMessage("main.dialogs.recover", recovered.size()),
+                messageProvider.getMessage("main.dialogs.recover.title"), JOptionPane.YES_NO_OPTION);
+        if (option == JOptionPane.YES_OPTION) {
+            mainUI.openRecovered(recovered);
+        } else {
+            log.info("Recovery declined, discarding the journals");
+        }
+        editJournal.discard(recovered);
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,56 @@
+package com.dfortch.javapad;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the steps of startup that do not depend on each other on background threads, so loading
+ * the message bundle, the look and feel classes, the recent files and the fonts overlap instead of
+ * following one another. The threads are daemons, so a step that is still running, such as
+ * enumerating the fonts, does not keep the application from exiting.
+ */
+class StartupPipeline implements AutoCloseable {
+
+    private static final Logger log = LogManager.getLogger(StartupPipeline.class);
+
+    private final ExecutorService executor;
+
+    StartupPipeline(int threads) {
+        executor = Executors.newFixedThreadPool(threads, Thread.ofPlatform().name("startup-", 0).daemon().factory());
+    }
+
+    /**
+     * Starts {@code task} on a background thread. A task that throws completes the future with a
+     * {@link CompletionException} wrapping what it threw.
+     *
+     * @param name the name the duration of the task is logged with
+     */
+    <T> CompletableFuture<T> submit(String name, Callable<T> task) {
+        return CompletableFuture.supplyAsync(() -> {
+            long start = System.nanoTime();
+            try {
+                T result = task.call();
+                log.info("Startup task {} took {} ms", name, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                return result;
+            } catch (Exception e) {
+                log.error("Startup task {} failed", name, e);
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+    /**
+     * Lets the submitted tasks finish and stops the threads afterwards.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,245 @@
+package com.dfortch.javapad;
+
+import com.dfortch.javapad.highlight.Lexers;
+import com.dfortch.javapad.i18n.MessageProvider;
+import com.dfortch.javapad.io.FileOperations;
+import com.dfortch.javapad.io.RecentFilesManager;
+import com.dfortch.javapad.prefs.JavaPadUserPreferences;
+import com.dfortch.javapad.prefs.JavapadTheme;
+import com.dfortch.javapad.text.PieceTableDocument;
+import com.dfortch.javapad.ui.AppearancePreferencesPanel;
+import com.dfortch.javapad.ui.EditorPreferencesPanel;
+import com.dfortch.javapad.ui.EditorTextArea;
+import com.dfortch.javapad.ui.FontCatalog;
+import com.dfortch.javapad.ui.LocalePreferencesPanel;
+import com.dfortch.javapad.ui.LoggingPreferencesPanel;
+import com.dfortch.javapad.ui.MainFrame;
+import com.dfortch.javapad.ui.PreferencesDialog;
+import com.dfortch.javapad.ui.PreferencesSection;
+import com.dfortch.javapad.ui.StatusBar;
+import com.dfortch.javapad.util.StartupTimer;
+import com.dfortch.javapad.util.UIUtils;
+import com.dfortch.javapad.workspace.BufferPool;
+import com.dfortch.javapad.workspace.EditJournal;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Writes the class data sharing archive that {@link Launcher} maps into later launches.
+ * <p>
+ * {@link #train()} starts a second JVM that runs {@link #run()}, a scripted session that builds
+ * the main frame, opens a sample file, opens the preferences dialog and goes through the themes, and
+ * dumps the classes it loaded when it exits. The session runs with a temporary home, so it leaves
+ * the preferences, recent files and journals of the user alone. Without a display the frame and the
+ * dialog cannot be shown; the session then builds the components they are made of instead.
+ */
+public final class TrainingSession {
+
+    private static final Logger log = LogManager.getLogger(TrainingSession.class);
+
+    /**
+     * Time given to the sample file to load and highlight in the background.
+     */
+    private static final long SETTLE_MILLIS = 500;
+
+    private static final String SAMPLE_TEXT = """
+            # Sample file of the javapad training session
+            app.name=javapad
+            app.greeting=Hello, {0}!
+            editor.font=Monospaced
+            editor.tab-size=4
+            """;
+
+    private TrainingSession() {
+    }
+
+    /**
+     * Runs the session in a new JVM and writes the archive of its classes. Archives of other jars or
+     * JDKs are deleted first.
+     *
+     * @return whether the archive was written
+     */
+    public static boolean train() throws IOException, InterruptedException {
+        Path archive = Launcher.getArchive();
+        if (archive == null) {
+            log.error("Class data sharing needs the application to run from its jar, but the class path is {}",
+                    System.getProperty("java.class.path"));
+            return false;
+        }
+        Files.createDirectories(archive.getParent());
+        deleteArchives(archive.getParent());
+
+        Path home = Files.createTempDirectory("javapad-training");
+        try {
+            List<String> command = new ArrayList<>();
+            command.add(Launcher.getJavaCommand());
+            command.addAll(Launcher.getForwardedOptions());
+            command.add("-XX:ArchiveClassesAtExit=" + archive);
+            // Proxies and JFR event classes cannot be archived, which is expected
+            command.add("-Xlog:cds=off");
+            command.add("-Xlog:cds+dynamic=off");
+            command.add("-Duser.home=" + home);
+            command.add("-cp");
+            command.add(System.getProperty("java.class.path"));
+            command.add(Main.class.getName());
+            command.add(Main.TRAIN_SESSION_ARGUMENT);
+            log.info("Running the training session: {}", command);
+            long start = System.nanoTime();
+            Process process = new ProcessBuilder(command).inheritIO().start();
+            int exitCode = process.waitFor();
+            if (exitCode != 0 || !Files.isRegularFile(archive)) {
+                log.error("The training session exited with code {} and left no archive at {}", exitCode, archive);
+                return false;
+            }
+            log.info("Wrote class data sharing archive {} ({} KB) in {} ms", archive, Files.size(archive) / 1024,
+                    (System.nanoTime() - start) / 1_000_000);
+            return true;
+        } finally {
+            deleteRecursively(home);
+        }
+    }
+
+    private static void deleteArchives(Path directory) throws IOException {
+        try (DirectoryStream<Path> archives = Files.newDirectoryStream(directory, "javapad-*.jsa")) {
+            for (Path archive : archives) {
+                log.info("Deleting class data sharing archive {}", archive);
+                Files.delete(archive);
+            }
+        }
+    }
+
+    private static void deleteRecursively(Path directory) {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            log.warn("Failed to delete the training home {}", directory, e);
+        }
+    }
+
+    /**
+     * Goes through the startup and the screens a user sees first, so their classes are loaded
+     * before the JVM exits.
+     */
+    public static void run() throws IOException, InterruptedException, InvocationTargetException {
+        log.info("Starting the training session");
+        Files.createDirectories(JavapadConstants.CACHE_PATH);
+        Path sample = Files.createTempFile(JavapadConstants.CACHE_PATH, "training", ".properties");
+        Files.writeString(sample, SAMPLE_TEXT, StandardCharsets.UTF_8);
+
+        try (BeanProvider beans = new DirectBeanProvider()) {
+            JavaPadUserPreferences preferences = beans.get(JavaPadUserPreferences.class);
+            MessageProvider messageProvider = beans.get(MessageProvider.class);
+            FontCatalog fontCatalog = beans.get(FontCatalog.class);
+            fontCatalog.load();
+            try {
+                UIUtils.configureLookAndFeel(preferences.getTheme().getLookAndFeelClassName());
+            } catch (UnsupportedLookAndFeelException | ClassNotFoundException | InstantiationException |
+                     IllegalAccessException e) {
+                log.error("Failed to set Look and Feel from theme {}", preferences.getTheme(), e);
+            }
+
+            if (GraphicsEnvironment.isHeadless()) {
+                SwingUtilities.invokeAndWait(() -> runHeadless(sample.toFile(), messageProvider, preferences,
+                        fontCatalog));
+            } else {
+                runWithFrame(sample.toFile(), beans, messageProvider, preferences, fontCatalog);
+            }
+            preferences.flush();
+        } finally {
+            Files.deleteIfExists(sample);
+        }
+        log.info("Training session finished");
+    }
+
+    private static void runWithFrame(File sample, BeanProvider beans, MessageProvider messageProvider,
+                                     JavaPadUserPreferences preferences, FontCatalog fontCatalog)
+            throws InterruptedException, InvocationTargetException {
+        FileOperations fileOperations = beans.get(FileOperations.class);
+        RecentFilesManager recentFilesManager = beans.get(RecentFilesManager.class);
+        BufferPool bufferPool = beans.get(BufferPool.class);
+        EditJournal editJournal = beans.get(EditJournal.class);
+
+        MainFrame[] frame = new MainFrame[1];
+        SwingUtilities.invokeAndWait(() -> {
+            frame[0] = new MainFrame(messageProvider, fileOperations, recentFilesManager, preferences, bufferPool,
+                    editJournal, StartupTimer.sinceProcessStart(), fontCatalog);
+            frame[0].setVisible(true);
+            frame[0].initializeMenus();
+            frame[0].showRecentFiles(List.of(sample));
+            frame[0].openFile(sample);
+        });
+        Thread.sleep(SETTLE_MILLIS);
+        SwingUtilities.invokeAndWait(() -> {
+            // Modal, so it is laid out but never shown
+            PreferencesDialog dialog = new PreferencesDialog(frame[0], messageProvider, preferences, fontCatalog);
+            dialog.pack();
+            for (PreferencesSection section : PreferencesSection.values()) {
+                dialog.changeSection(section);
+            }
+            dialog.dispose();
+            switchThemes(UIUtils::updateUI);
+            frame[0].dispose();
+        });
+    }
+
+    private static void runHeadless(File sample, MessageProvider messageProvider,
+                                    JavaPadUserPreferences preferences, FontCatalog fontCatalog) {
+        EditorTextArea textArea = new EditorTextArea();
+        textArea.setDocument(new PieceTableDocument(SAMPLE_TEXT));
+        textArea.setLexer(Lexers.forFile(sample));
+        textArea.setFont(preferences.getSnapshot().editorFont());
+        JPanel content = new JPanel(new BorderLayout());
+        content.add(new JScrollPane(textArea), BorderLayout.CENTER);
+        content.add(new StatusBar(1, 1, SAMPLE_TEXT.length(), sample.getName(), messageProvider), BorderLayout.SOUTH);
+        content.add(new AppearancePreferencesPanel(messageProvider, preferences), BorderLayout.NORTH);
+        content.add(new EditorPreferencesPanel(messageProvider, preferences, fontCatalog), BorderLayout.EAST);
+        content.add(new LocalePreferencesPanel(messageProvider, preferences), BorderLayout.WEST);
+        content.add(new LoggingPreferencesPanel(messageProvider, preferences), BorderLayout.PAGE_END);
+        paint(content);
+        switchThemes(() -> {
+            SwingUtilities.updateComponentTreeUI(content);
+            paint(content);
+        });
+    }
+
+    private static void paint(JComponent component) {
+        component.setSize(component.getPreferredSize());
+        component.doLayout();
+        component.validate();
+        BufferedImage image = new BufferedImage(Math.max(1, component.getWidth()), Math.max(1, component.getHeight()),
+                BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = image.createGraphics();
+        try {
+            component.paint(graphics);
+        } finally {
+            graphics.dispose();
+        }
+    }
+
+    private static void switchThemes(Runnable update) {
+        for (JavapadTheme theme : JavapadTheme.getMultiplatformThemes()) {
+            try {
+                UIUtils.configureLookAndFeel(theme.getLookAndFeelClassName());
+                update.run();
+                log.debug("Trained theme {}", theme);
+            } catch (Exception e) {
+                log.warn("Failed to train theme {}", theme, e);
+            }
+        }
+    }
+}
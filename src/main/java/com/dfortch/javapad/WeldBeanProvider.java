@@ -0,0 +1,27 @@
+package com.dfortch.javapad;
+
+import org.jboss.weld.environment.se.Weld;
+import org.jboss.weld.environment.se.WeldContainer;
+
+/**
+ * Gets the objects of the application from a Weld SE container, which discovers
+ * {@link JavapadConfiguration} by scanning the classpath.
+ */
+public class WeldBeanProvider implements BeanProvider {
+
+    private final WeldContainer container;
+
+    public WeldBeanProvider() {
+        this.container = new Weld().initialize();
+    }
+
+    @Override
+    public <T> T get(Class<T> type) {
+        return container.select(type).get();
+    }
+
+    @Override
+    public void close() {
+        container.close();
+    }
+}
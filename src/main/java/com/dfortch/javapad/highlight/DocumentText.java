@@ -0,0 +1,82 @@
+package com.dfortch.javapad.highlight;
+
+import com.dfortch.javapad.text.PieceTableDocument;
+
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Segment;
+
+/**
+ * A range of a document read as chars through a partial return {@link Segment}, so the text is
+ * shared with the document one piece at a time instead of being copied into a new array. Reused
+ * by {@link SyntaxHighlighter} for every line it lexes.
+ */
+final class DocumentText implements CharSequence {
+
+    private final PieceTableDocument document;
+
+    private final Segment segment = new Segment();
+
+    private int start;
+
+    private int length;
+
+    /**
+     * Index in the range of the first char in {@link #segment}.
+     */
+    private int segmentStart;
+
+    DocumentText(PieceTableDocument document) {
+        this.document = document;
+        segment.setPartialReturn(true);
+    }
+
+    void reset(int start, int length) {
+        this.start = start;
+        this.length = length;
+        segmentStart = 0;
+        segment.array = null;
+        segment.offset = 0;
+        segment.count = 0;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        int relative = index - segmentStart;
+        if (relative < 0 || relative >= segment.count) {
+            if (index < 0 || index >= length) {
+                throw new IndexOutOfBoundsException("Index " + index + " out of range [0, " + length + ")");
+            }
+            load(index);
+            relative = 0;
+        }
+        return segment.array[segment.offset + relative];
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        StringBuilder text = new StringBuilder(end - start);
+        for (int i = start; i < end; i++) {
+            text.append(charAt(i));
+        }
+        return text.toString();
+    }
+
+    @Override
+    public String toString() {
+        return subSequence(0, length).toString();
+    }
+
+    private void load(int index) {
+        try {
+            document.getText(start + index, length - index, segment);
+        } catch (BadLocationException e) {
+            throw new IllegalStateException("Offset " + (start + index) + " is not in the document", e);
+        }
+        segmentStart = index;
+    }
+}
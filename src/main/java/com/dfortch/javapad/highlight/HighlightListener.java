@@ -0,0 +1,9 @@
+package com.dfortch.javapad.highlight;
+
+public interface HighlightListener {
+    /**
+     * Called when re-lexing after an edit changed the tokens of lines the edit did not touch,
+     * e.g. when a quote was opened and the lines below became a string.
+     */
+    void onHighlightChanged(int firstLine, int lastLine);
+}
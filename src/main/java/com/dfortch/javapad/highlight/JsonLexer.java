@@ -0,0 +1,74 @@
+package com.dfortch.javapad.highlight;
+
+import static com.dfortch.javapad.highlight.LexerSupport.indexOf;
+import static com.dfortch.javapad.highlight.LexerSupport.isBlank;
+import static com.dfortch.javapad.highlight.LexerSupport.scanQuoted;
+import static com.dfortch.javapad.highlight.LexerSupport.skipBlanks;
+import static com.dfortch.javapad.highlight.LexerSupport.startsWith;
+
+/**
+ * Lexer for JSON, telling object keys from string values. The comments many configuration files
+ * allow in JSON are understood too, including block comments over several lines.
+ */
+public class JsonLexer implements Lexer {
+
+    private static final int BLOCK_COMMENT = 1;
+
+    @Override
+    public int lexLine(CharSequence text, int start, int end, int state, TokenSink sink) {
+        int i = start;
+        if (state == BLOCK_COMMENT) {
+            int close = indexOf(text, "*/", i, end);
+            if (close < 0) {
+                sink.addToken(i, end, TokenType.COMMENT);
+                return BLOCK_COMMENT;
+            }
+            sink.addToken(i, close + 2, TokenType.COMMENT);
+            i = close + 2;
+        }
+        while (i < end) {
+            char c = text.charAt(i);
+            if (isBlank(c)) {
+                i++;
+            } else if (c == '"') {
+                int close = scanQuoted(text, i + 1, end, '"', true);
+                if (close < 0) {
+                    close = end;
+                }
+                int after = skipBlanks(text, close, end);
+                boolean key = after < end && text.charAt(after) == ':';
+                sink.addToken(i, close, key ? TokenType.KEY : TokenType.STRING);
+                i = close;
+            } else if (startsWith(text, i, end, "//")) {
+                sink.addToken(i, end, TokenType.COMMENT);
+                return INITIAL_STATE;
+            } else if (startsWith(text, i, end, "/*")) {
+                int close = indexOf(text, "*/", i + 2, end);
+                if (close < 0) {
+                    sink.addToken(i, end, TokenType.COMMENT);
+                    return BLOCK_COMMENT;
+                }
+                sink.addToken(i, close + 2, TokenType.COMMENT);
+                i = close + 2;
+            } else if ("{}[],:".indexOf(c) >= 0) {
+                sink.addToken(i, i + 1, TokenType.OPERATOR);
+                i++;
+            } else {
+                int wordEnd = i;
+                while (wordEnd < end && "{}[],:\" \t/".indexOf(text.charAt(wordEnd)) < 0) {
+                    wordEnd++;
+                }
+                if (wordEnd == i) {
+                    wordEnd++;
+                } else if (LexerSupport.isNumber(text, i, wordEnd)) {
+                    sink.addToken(i, wordEnd, TokenType.NUMBER);
+                } else if (LexerSupport.equals(text, i, wordEnd, "true") || LexerSupport.equals(text, i, wordEnd, "false")
+                        || LexerSupport.equals(text, i, wordEnd, "null")) {
+                    sink.addToken(i, wordEnd, TokenType.LITERAL);
+                }
+                i = wordEnd;
+            }
+        }
+        return INITIAL_STATE;
+    }
+}
@@ -0,0 +1,26 @@
+package com.dfortch.javapad.highlight;
+
+/**
+ * Splits a language into tokens one line at a time.
+ * <p>
+ * Whatever a line needs to know about the lines before it, such as being inside a multi-line
+ * string, is packed into an {@code int} state. Lexing a line from the state at its start must
+ * only depend on that state and the line itself, so {@link SyntaxHighlighter} can keep the state
+ * at the start of every line as a checkpoint and re-lex from any of them.
+ */
+public interface Lexer {
+
+    /**
+     * State at the start of the document.
+     */
+    int INITIAL_STATE = 0;
+
+    /**
+     * Lexes the line in {@code text} from {@code start} to {@code end}, without its line break.
+     *
+     * @param state the state at the start of the line
+     * @param sink  told about the tokens found, with offsets into {@code text}
+     * @return the state at the start of the next line
+     */
+    int lexLine(CharSequence text, int start, int end, int state, TokenSink sink);
+}
@@ -0,0 +1,154 @@
+package com.dfortch.javapad.highlight;
+
+/**
+ * Scanning helpers shared by the lexers. They work on a {@link CharSequence} without copying, so
+ * lexing a line while painting allocates nothing.
+ */
+final class LexerSupport {
+
+    private LexerSupport() {
+    }
+
+    static boolean isBlank(char c) {
+        return c == ' ' || c == '\t';
+    }
+
+    static int skipBlanks(CharSequence text, int from, int end) {
+        int i = from;
+        while (i < end && isBlank(text.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Returns the end of the range without its trailing blanks.
+     */
+    static int trimEnd(CharSequence text, int start, int end) {
+        int i = end;
+        while (i > start && isBlank(text.charAt(i - 1))) {
+            i--;
+        }
+        return i;
+    }
+
+    static int indexOf(CharSequence text, char c, int from, int end) {
+        for (int i = from; i < end; i++) {
+            if (text.charAt(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    static int indexOf(CharSequence text, String s, int from, int end) {
+        for (int i = from; i + s.length() <= end; i++) {
+            if (startsWith(text, i, end, s)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    static boolean startsWith(CharSequence text, int offset, int end, String s) {
+        if (offset + s.length() > end) {
+            return false;
+        }
+        for (int i = 0; i < s.length(); i++) {
+            if (text.charAt(offset + i) != s.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns whether the range is exactly {@code word}.
+     */
+    static boolean equals(CharSequence text, int start, int end, String word) {
+        return end - start == word.length() && startsWith(text, start, end, word);
+    }
+
+    /**
+     * Returns whether the range is exactly {@code word}, ignoring case.
+     */
+    static boolean equalsIgnoreCase(CharSequence text, int start, int end, String word) {
+        if (end - start != word.length()) {
+            return false;
+        }
+        for (int i = 0; i < word.length(); i++) {
+            if (Character.toLowerCase(text.charAt(start + i)) != word.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the offset after the quoted text that starts after its opening quote at
+     * {@code from}, or -1 if the closing {@code quote} is not on this line. A backslash escapes
+     * the next char when {@code escapes} is set.
+     */
+    static int scanQuoted(CharSequence text, int from, int end, char quote, boolean escapes) {
+        int i = from;
+        while (i < end) {
+            char c = text.charAt(i);
+            if (c == '\\' && escapes) {
+                i += 2;
+            } else if (c == quote) {
+                return i + 1;
+            } else {
+                i++;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns whether the range is a decimal or hexadecimal number, optionally signed, with a
+     * fraction and exponent.
+     */
+    static boolean isNumber(CharSequence text, int start, int end) {
+        int i = start;
+        if (i < end && (text.charAt(i) == '-' || text.charAt(i) == '+')) {
+            i++;
+        }
+        if (i + 2 < end && text.charAt(i) == '0' && (text.charAt(i + 1) == 'x' || text.charAt(i + 1) == 'X')) {
+            for (int j = i + 2; j < end; j++) {
+                if (Character.digit(text.charAt(j), 16) < 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        int digits = 0;
+        while (i < end && (Character.isDigit(text.charAt(i)) || text.charAt(i) == '_')) {
+            i++;
+            digits++;
+        }
+        if (i < end && text.charAt(i) == '.') {
+            i++;
+            while (i < end && Character.isDigit(text.charAt(i))) {
+                i++;
+                digits++;
+            }
+        }
+        if (digits == 0) {
+            return false;
+        }
+        if (i < end && (text.charAt(i) == 'e' || text.charAt(i) == 'E')) {
+            i++;
+            if (i < end && (text.charAt(i) == '-' || text.charAt(i) == '+')) {
+                i++;
+            }
+            int exponent = i;
+            while (i < end && Character.isDigit(text.charAt(i))) {
+                i++;
+            }
+            if (i == exponent) {
+                return false;
+            }
+        }
+        return i == end;
+    }
+}
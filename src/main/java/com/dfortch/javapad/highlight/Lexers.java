@@ -0,0 +1,40 @@
+package com.dfortch.javapad.highlight;
+
+import java.io.File;
+import java.util.Locale;
+
+/**
+ * The lexers that come with javapad, picked by file name.
+ */
+public final class Lexers {
+
+    public static final Lexer YAML = new YamlLexer();
+
+    public static final Lexer JSON = new JsonLexer();
+
+    public static final Lexer PROPERTIES = new PropertiesLexer();
+
+    public static final Lexer SHELL = new ShellLexer();
+
+    private Lexers() {
+    }
+
+    /**
+     * Returns the lexer for {@code file}, or {@code null} when it is plain text or {@code null}.
+     */
+    public static Lexer forFile(File file) {
+        if (file == null) {
+            return null;
+        }
+        String name = file.getName().toLowerCase(Locale.ROOT);
+        int dot = name.lastIndexOf('.');
+        String extension = dot >= 0 ? name.substring(dot + 1) : "";
+        return switch (extension) {
+            case "yaml", "yml" -> YAML;
+            case "json" -> JSON;
+            case "properties" -> PROPERTIES;
+            case "sh", "bash", "zsh", "ksh", "bashrc", "profile", "zshrc" -> SHELL;
+            default -> null;
+        };
+    }
+}
@@ -0,0 +1,86 @@
+package com.dfortch.javapad.highlight;
+
+import java.util.Arrays;
+
+/**
+ * The tokens of one line, with offsets into the document. Reused by {@link SyntaxHighlighter}
+ * from one call to the next.
+ */
+public final class LineTokens implements TokenSink {
+
+    private int line = -1;
+
+    private int offset;
+
+    private int count;
+
+    private int[] starts = new int[16];
+
+    private int[] ends = new int[16];
+
+    private TokenType[] types = new TokenType[16];
+
+    public int getLine() {
+        return line;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public int getStart(int index) {
+        return starts[index];
+    }
+
+    public int getEnd(int index) {
+        return ends[index];
+    }
+
+    public TokenType getType(int index) {
+        return types[index];
+    }
+
+    /**
+     * Returns the index of the first token that ends after {@code offset}, or {@link #size()} if
+     * none does. Tokens are in order and do not overlap, so it is found by a binary search.
+     */
+    public int indexAfter(int offset) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (ends[mid] <= offset) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    @Override
+    public void addToken(int start, int end, TokenType type) {
+        if (start >= end) {
+            return;
+        }
+        if (count == starts.length) {
+            starts = Arrays.copyOf(starts, count * 2);
+            ends = Arrays.copyOf(ends, count * 2);
+            types = Arrays.copyOf(types, count * 2);
+        }
+        starts[count] = offset + start;
+        ends[count] = offset + end;
+        types[count] = type;
+        count++;
+    }
+
+    void reset(int line, int offset) {
+        this.line = line;
+        this.offset = offset;
+        this.count = 0;
+    }
+
+    void invalidate() {
+        line = -1;
+    }
+}
@@ -0,0 +1,65 @@
+package com.dfortch.javapad.highlight;
+
+import static com.dfortch.javapad.highlight.LexerSupport.isBlank;
+import static com.dfortch.javapad.highlight.LexerSupport.skipBlanks;
+
+/**
+ * Lexer for Java {@code .properties} files: comments, keys, separators and values, including
+ * values continued on the next line with a trailing backslash.
+ */
+public class PropertiesLexer implements Lexer {
+
+    private static final int CONTINUATION = 1;
+
+    @Override
+    public int lexLine(CharSequence text, int start, int end, int state, TokenSink sink) {
+        int i = skipBlanks(text, start, end);
+        if (state == CONTINUATION) {
+            if (i < end) {
+                sink.addToken(i, end, TokenType.STRING);
+            }
+            return continues(text, i, end) ? CONTINUATION : INITIAL_STATE;
+        }
+        if (i == end) {
+            return INITIAL_STATE;
+        }
+        char first = text.charAt(i);
+        if (first == '#' || first == '!') {
+            sink.addToken(i, end, TokenType.COMMENT);
+            return INITIAL_STATE;
+        }
+        int keyStart = i;
+        while (i < end) {
+            char c = text.charAt(i);
+            if (c == '\\') {
+                i += 2;
+            } else if (c == '=' || c == ':' || isBlank(c)) {
+                break;
+            } else {
+                i++;
+            }
+        }
+        i = Math.min(i, end);
+        sink.addToken(keyStart, i, TokenType.KEY);
+        i = skipBlanks(text, i, end);
+        if (i < end && (text.charAt(i) == '=' || text.charAt(i) == ':')) {
+            sink.addToken(i, i + 1, TokenType.OPERATOR);
+            i = skipBlanks(text, i + 1, end);
+        }
+        if (i < end) {
+            sink.addToken(i, end, TokenType.STRING);
+        }
+        return continues(text, keyStart, end) ? CONTINUATION : INITIAL_STATE;
+    }
+
+    /**
+     * A line continues when it ends with an odd number of backslashes.
+     */
+    private static boolean continues(CharSequence text, int start, int end) {
+        int backslashes = 0;
+        for (int i = end - 1; i >= start && text.charAt(i) == '\\'; i--) {
+            backslashes++;
+        }
+        return backslashes % 2 == 1;
+    }
+}
@@ -0,0 +1,146 @@
+package com.dfortch.javapad.highlight;
+
+import static com.dfortch.javapad.highlight.LexerSupport.isBlank;
+import static com.dfortch.javapad.highlight.LexerSupport.scanQuoted;
+
+/**
+ * Lexer for POSIX shell and bash scripts: comments, keywords, quoted strings that may go on over
+ * several lines, variables and parameter expansions, assignments, operators and backticks.
+ * Here-documents are lexed as ordinary lines.
+ */
+public class ShellLexer implements Lexer {
+
+    private static final int SINGLE_QUOTED = 1;
+
+    private static final int DOUBLE_QUOTED = 2;
+
+    private static final String[] KEYWORDS = {"if", "then", "else", "elif", "fi", "for", "while", "until", "do",
+            "done", "case", "esac", "in", "function", "select", "time", "return", "export", "local", "readonly",
+            "declare", "break", "continue", "exit", "source"};
+
+    private static final String OPERATORS = ";|&<>()";
+
+    private static final String WORD_BREAKS = OPERATORS + "'\"$` \t";
+
+    @Override
+    public int lexLine(CharSequence text, int start, int end, int state, TokenSink sink) {
+        int i = start;
+        if (state == SINGLE_QUOTED || state == DOUBLE_QUOTED) {
+            int close = scanQuoted(text, i, end, state == SINGLE_QUOTED ? '\'' : '"', state == DOUBLE_QUOTED);
+            if (close < 0) {
+                sink.addToken(i, end, TokenType.STRING);
+                return state;
+            }
+            sink.addToken(i, close, TokenType.STRING);
+            i = close;
+        }
+        boolean commandStart = i == start;
+        while (i < end) {
+            char c = text.charAt(i);
+            if (isBlank(c)) {
+                i++;
+            } else if (c == '#' && (i == start || isBlank(text.charAt(i - 1)))) {
+                sink.addToken(i, end, TokenType.COMMENT);
+                return INITIAL_STATE;
+            } else if (c == '\'' || c == '"') {
+                int close = scanQuoted(text, i + 1, end, c, c == '"');
+                if (close < 0) {
+                    sink.addToken(i, end, TokenType.STRING);
+                    return c == '\'' ? SINGLE_QUOTED : DOUBLE_QUOTED;
+                }
+                sink.addToken(i, close, TokenType.STRING);
+                i = close;
+                commandStart = false;
+            } else if (c == '$') {
+                i = lexExpansion(text, i, end, sink);
+                commandStart = false;
+            } else if (c == '`') {
+                // A backtick opens or closes a command substitution, like $( and )
+                sink.addToken(i, i + 1, TokenType.OPERATOR);
+                i++;
+                commandStart = true;
+            } else if (OPERATORS.indexOf(c) >= 0) {
+                int j = i + 1;
+                while (j < end && OPERATORS.indexOf(text.charAt(j)) >= 0) {
+                    j++;
+                }
+                sink.addToken(i, j, TokenType.OPERATOR);
+                i = j;
+                commandStart = true;
+            } else {
+                // A word is at least one char long, so the loop always moves on
+                int j = i;
+                do {
+                    j += text.charAt(j) == '\\' ? 2 : 1;
+                } while (j < end && WORD_BREAKS.indexOf(text.charAt(j)) < 0);
+                j = Math.min(j, end);
+                int equals = LexerSupport.indexOf(text, '=', i, j);
+                if (commandStart && equals > i && isName(text, i, equals)) {
+                    sink.addToken(i, equals, TokenType.VARIABLE);
+                    sink.addToken(equals, equals + 1, TokenType.OPERATOR);
+                } else if (commandStart && isKeyword(text, i, j)) {
+                    sink.addToken(i, j, TokenType.KEYWORD);
+                    // The word after a keyword like then or do starts a command
+                    i = j;
+                    continue;
+                } else if (LexerSupport.isNumber(text, i, j)) {
+                    sink.addToken(i, j, TokenType.NUMBER);
+                }
+                i = j;
+                commandStart = false;
+            }
+        }
+        return INITIAL_STATE;
+    }
+
+    /**
+     * Lexes {@code $name}, {@code ${...}}, a special parameter like {@code $?}, or the
+     * {@code $(} that opens a command substitution.
+     */
+    private static int lexExpansion(CharSequence text, int i, int end, TokenSink sink) {
+        if (i + 1 >= end) {
+            sink.addToken(i, i + 1, TokenType.OPERATOR);
+            return i + 1;
+        }
+        char next = text.charAt(i + 1);
+        int j;
+        if (next == '{') {
+            int close = LexerSupport.indexOf(text, '}', i + 2, end);
+            j = close < 0 ? end : close + 1;
+        } else if (next == '(') {
+            sink.addToken(i, i + 2, TokenType.OPERATOR);
+            return i + 2;
+        } else if (Character.isLetter(next) || next == '_') {
+            j = i + 2;
+            while (j < end && (Character.isLetterOrDigit(text.charAt(j)) || text.charAt(j) == '_')) {
+                j++;
+            }
+        } else if ("0123456789?@#*!$-".indexOf(next) >= 0) {
+            j = i + 2;
+        } else {
+            sink.addToken(i, i + 1, TokenType.OPERATOR);
+            return i + 1;
+        }
+        sink.addToken(i, j, TokenType.VARIABLE);
+        return j;
+    }
+
+    private static boolean isName(CharSequence text, int start, int end) {
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (!(c == '_' || Character.isLetter(c) || (i > start && Character.isDigit(c)))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isKeyword(CharSequence text, int start, int end) {
+        for (String keyword : KEYWORDS) {
+            if (LexerSupport.equals(text, start, end, keyword)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,268 @@
+package com.dfortch.javapad.highlight;
+
+import com.dfortch.javapad.text.PieceTableDocument;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Splits the lines of a document into tokens with a {@link Lexer}, lexing no more of it than
+ * what is asked for.
+ * <p>
+ * The lexer state at the start of every line lexed so far is kept as a checkpoint. An edit only
+ * marks the checkpoints after the edited line as stale and shifts them by the number of lines
+ * added or removed; nothing is lexed until {@link #getTokens(int)} asks for a line past them. Then
+ * lexing restarts at the edited line and stops as soon as it is past the edited lines and the
+ * state it computes for a line equals the stale checkpoint, since every line after that lexes the
+ * same as before. Typing in a large file thus re-lexes a line or two, and opening a quote re-lexes
+ * as far as the lines asked for, which are the visible ones when painting.
+ * <p>
+ * Only the first {@link #LEXED_LINE_CHARS} chars of a line are lexed and the rest of it is plain
+ * text, so a document that is one huge line, like minified JSON, costs no more to lex after an
+ * edit than a line of that length. Such a line is taken to leave the state as it found it.
+ * <p>
+ * Lines are read through a partial return segment, so their text is not copied, and the tokens of
+ * the last {@link #CACHED_LINES} lines asked for are kept until an edit at or above them, so
+ * repainting the visible lines lexes none of them again.
+ * <p>
+ * Like the document, it must only be used on the EDT.
+ */
+public class SyntaxHighlighter implements DocumentListener {
+
+    private static final Logger log = LogManager.getLogger(SyntaxHighlighter.class);
+
+    /**
+     * Most chars lexed of a line.
+     */
+    public static final int LEXED_LINE_CHARS = 64 * 1024;
+
+    /**
+     * Number of lines whose tokens are kept, a power of two larger than a screen of lines.
+     */
+    static final int CACHED_LINES = 256;
+
+    private final PieceTableDocument document;
+
+    private final Lexer lexer;
+
+    private final List<HighlightListener> listeners = new ArrayList<>();
+
+    private final DocumentText text;
+
+    /**
+     * Tokens of the lines asked for, each at the slot of its line modulo the array length.
+     */
+    private final LineTokens[] tokens = new LineTokens[CACHED_LINES];
+
+    /**
+     * The state at the start of each line, for the first {@link #lexedLines} lines.
+     */
+    private int[] states = new int[1024];
+
+    /**
+     * Number of lines with a checkpoint in {@link #states}, stale or not.
+     */
+    private int lexedLines = 1;
+
+    /**
+     * Number of lines whose checkpoint is up to date.
+     */
+    private int validLines = 1;
+
+    /**
+     * Last line changed by edits not yet re-lexed, or at least the line before the first stale
+     * checkpoint; lexing only compares checkpoints after it. -1 when no checkpoint is stale.
+     */
+    private int damageEnd = -1;
+
+    private int lineCount;
+
+    private long linesLexed;
+
+    public SyntaxHighlighter(PieceTableDocument document, Lexer lexer) {
+        this.document = document;
+        this.lexer = lexer;
+        this.lineCount = document.getLineCount();
+        this.text = new DocumentText(document);
+        states[0] = Lexer.INITIAL_STATE;
+    }
+
+    /**
+     * Starts following the edits of the document.
+     */
+    public void install() {
+        document.addDocumentListener(this);
+    }
+
+    /**
+     * Stops following the edits of the document.
+     */
+    public void uninstall() {
+        document.removeDocumentListener(this);
+    }
+
+    public PieceTableDocument getDocument() {
+        return document;
+    }
+
+    public Lexer getLexer() {
+        return lexer;
+    }
+
+    public void addHighlightListener(HighlightListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeHighlightListener(HighlightListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Returns how many times a line was lexed, for tests and benchmarks.
+     */
+    public long getLinesLexed() {
+        return linesLexed;
+    }
+
+    /**
+     * Returns the tokens of {@code line}, lexing the lines before it that are not up to date. The
+     * result is only valid until the next call or edit.
+     */
+    public LineTokens getTokens(int line) {
+        if (line < 0 || line >= lineCount) {
+            throw new IndexOutOfBoundsException("Line " + line + " not in [0, " + lineCount + ")");
+        }
+        int slot = line & (CACHED_LINES - 1);
+        LineTokens lineTokens = tokens[slot];
+        if (lineTokens == null) {
+            lineTokens = new LineTokens();
+            tokens[slot] = lineTokens;
+        }
+        if (lineTokens.getLine() != line) {
+            int state = getState(line);
+            lineTokens.reset(line, document.getLineStartOffset(line));
+            lexLine(line, state, lineTokens);
+        }
+        return lineTokens;
+    }
+
+    /**
+     * Returns the lexer state at the start of {@code line}.
+     */
+    public int getState(int line) {
+        if (line >= validLines) {
+            relex(line);
+        }
+        return states[line];
+    }
+
+    @Override
+    public void insertUpdate(DocumentEvent e) {
+        edited(e.getOffset());
+    }
+
+    @Override
+    public void removeUpdate(DocumentEvent e) {
+        edited(e.getOffset());
+    }
+
+    @Override
+    public void changedUpdate(DocumentEvent e) {
+        // Attributes do not change the tokens
+    }
+
+    private void edited(int offset) {
+        int line = document.getLineOfOffset(offset);
+        for (LineTokens lineTokens : tokens) {
+            // The lines above keep their text, offsets and states
+            if (lineTokens != null && lineTokens.getLine() >= line) {
+                lineTokens.invalidate();
+            }
+        }
+        int newLineCount = document.getLineCount();
+        int delta = newLineCount - lineCount;
+        lineCount = newLineCount;
+        if (line + 1 >= lexedLines) {
+            // Past the lexed lines, which keep their checkpoints
+            return;
+        }
+        int next = line + 1;
+        if (delta > 0) {
+            ensureCapacity(lexedLines + delta);
+            System.arraycopy(states, next, states, next + delta, lexedLines - next);
+        } else if (delta < 0) {
+            int from = Math.min(next - delta, lexedLines);
+            System.arraycopy(states, from, states, next, lexedLines - from);
+        }
+        lexedLines = Math.max(next, lexedLines + delta);
+        validLines = Math.min(validLines, next);
+        int editEnd = line + Math.max(delta, 0);
+        damageEnd = damageEnd < line ? editEnd : Math.max(damageEnd + delta, editEnd);
+        damageEnd = Math.min(damageEnd, lexedLines - 1);
+    }
+
+    /**
+     * Lexes from the last up to date checkpoint until the checkpoint of {@code target} is up to
+     * date too.
+     */
+    private void relex(int target) {
+        int firstChanged = Integer.MAX_VALUE;
+        int lastChanged = -1;
+        int line = validLines - 1;
+        int start = line;
+        while (validLines <= target) {
+            int nextState = lexLine(line, states[line], TokenSink.NONE);
+            int next = line + 1;
+            if (next < lexedLines && next > damageEnd) {
+                if (states[next] == nextState) {
+                    // Every line after this one lexes the same as before the edit
+                    validLines = lexedLines;
+                    damageEnd = -1;
+                    line = lexedLines - 1;
+                    continue;
+                }
+                firstChanged = Math.min(firstChanged, next);
+                lastChanged = next;
+            }
+            ensureCapacity(next + 1);
+            states[next] = nextState;
+            lexedLines = Math.max(lexedLines, next + 1);
+            validLines = next + 1;
+            line = next;
+        }
+        // The stale checkpoints left belong to the text before the edits, so an edit above them
+        // must not converge on the up to date checkpoints in between
+        damageEnd = validLines < lexedLines ? Math.max(damageEnd, validLines - 1) : -1;
+        log.trace("Lexed lines {} to {} for line {}", start, line, target);
+        if (lastChanged >= 0) {
+            for (HighlightListener listener : List.copyOf(listeners)) {
+                listener.onHighlightChanged(firstChanged, lastChanged);
+            }
+        }
+    }
+
+    /**
+     * Lexes {@code line} from {@code state}, or as much of it as is lexed, and returns the state
+     * at the start of the next line.
+     */
+    private int lexLine(int line, int state, TokenSink sink) {
+        int start = document.getLineStartOffset(line);
+        int end = line + 1 < lineCount ? document.getLineStartOffset(line + 1) - 1 : document.getLength();
+        int length = Math.min(end - start, LEXED_LINE_CHARS);
+        text.reset(start, length);
+        int nextState = lexer.lexLine(text, 0, length, state, sink);
+        linesLexed++;
+        return length < end - start ? state : nextState;
+    }
+
+    private void ensureCapacity(int size) {
+        if (size > states.length) {
+            states = Arrays.copyOf(states, Math.max(size, states.length + (states.length >> 1)));
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.dfortch.javapad.highlight;
+
+/**
+ * Receives the tokens a {@link Lexer} finds in a line, in order. Text between tokens is plain.
+ */
+@FunctionalInterface
+public interface TokenSink {
+
+    /**
+     * Sink for when only the state at the end of a line is wanted.
+     */
+    TokenSink NONE = (start, end, type) -> {
+    };
+
+    void addToken(int start, int end, TokenType type);
+}
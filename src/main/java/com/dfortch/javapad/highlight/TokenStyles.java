@@ -0,0 +1,56 @@
+package com.dfortch.javapad.highlight;
+
+import java.awt.Color;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * The colour of each token type, from a light or dark palette depending on the background the
+ * text is drawn on.
+ */
+public final class TokenStyles {
+
+    private final Color background;
+
+    private final Map<TokenType, Color> colors = new EnumMap<>(TokenType.class);
+
+    private TokenStyles(Color background, boolean dark) {
+        this.background = background;
+        if (dark) {
+            colors.put(TokenType.COMMENT, new Color(0x7F8C8D));
+            colors.put(TokenType.KEYWORD, new Color(0xCC7832));
+            colors.put(TokenType.KEY, new Color(0x9876AA));
+            colors.put(TokenType.STRING, new Color(0x6A8759));
+            colors.put(TokenType.NUMBER, new Color(0x6897BB));
+            colors.put(TokenType.LITERAL, new Color(0xCC7832));
+            colors.put(TokenType.VARIABLE, new Color(0xFFC66D));
+            colors.put(TokenType.OPERATOR, new Color(0xA9B7C6));
+        } else {
+            colors.put(TokenType.COMMENT, new Color(0x8C8C8C));
+            colors.put(TokenType.KEYWORD, new Color(0x0033B3));
+            colors.put(TokenType.KEY, new Color(0x871094));
+            colors.put(TokenType.STRING, new Color(0x067D17));
+            colors.put(TokenType.NUMBER, new Color(0x1750EB));
+            colors.put(TokenType.LITERAL, new Color(0x0033B3));
+            colors.put(TokenType.VARIABLE, new Color(0x9E5B00));
+            colors.put(TokenType.OPERATOR, new Color(0x505050));
+        }
+    }
+
+    /**
+     * Returns the styles that read well on {@code background}.
+     */
+    public static TokenStyles forBackground(Color background) {
+        double luminance = (0.299 * background.getRed() + 0.587 * background.getGreen()
+                + 0.114 * background.getBlue()) / 255;
+        return new TokenStyles(background, luminance < 0.5);
+    }
+
+    public Color getBackground() {
+        return background;
+    }
+
+    public Color getColor(TokenType type) {
+        return colors.get(type);
+    }
+}
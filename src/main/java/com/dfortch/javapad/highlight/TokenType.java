@@ -0,0 +1,15 @@
+package com.dfortch.javapad.highlight;
+
+/**
+ * What a run of text is, which decides the color it is painted in.
+ */
+public enum TokenType {
+    COMMENT,
+    KEYWORD,
+    KEY,
+    STRING,
+    NUMBER,
+    LITERAL,
+    VARIABLE,
+    OPERATOR
+}
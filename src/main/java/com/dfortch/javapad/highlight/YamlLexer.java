@@ -0,0 +1,154 @@
+package com.dfortch.javapad.highlight;
+
+import static com.dfortch.javapad.highlight.LexerSupport.equalsIgnoreCase;
+import static com.dfortch.javapad.highlight.LexerSupport.isBlank;
+import static com.dfortch.javapad.highlight.LexerSupport.scanQuoted;
+import static com.dfortch.javapad.highlight.LexerSupport.skipBlanks;
+import static com.dfortch.javapad.highlight.LexerSupport.startsWith;
+import static com.dfortch.javapad.highlight.LexerSupport.trimEnd;
+
+/**
+ * Lexer for YAML: keys, comments, quoted strings, document markers, anchors, aliases, tags and
+ * the usual scalars. Quoted strings may go on over several lines, and the lines of a literal or
+ * folded block scalar ({@code |} or {@code >}) are strings for as long as they are indented
+ * deeper than the line that started it.
+ */
+public class YamlLexer implements Lexer {
+
+    private static final int SINGLE_QUOTED = 1;
+
+    private static final int DOUBLE_QUOTED = 2;
+
+    /**
+     * Inside a block scalar, plus the indentation of the line that started it.
+     */
+    private static final int BLOCK_SCALAR = 1 << 16;
+
+    private static final String[] LITERALS = {"true", "false", "null", "~", "yes", "no", "on", "off"};
+
+    @Override
+    public int lexLine(CharSequence text, int start, int end, int state, TokenSink sink) {
+        int indentEnd = skipBlanks(text, start, end);
+        if (state >= BLOCK_SCALAR) {
+            int parentIndent = state - BLOCK_SCALAR;
+            if (indentEnd == end) {
+                return state;
+            }
+            if (indentEnd - start > parentIndent) {
+                sink.addToken(indentEnd, end, TokenType.STRING);
+                return state;
+            }
+            state = INITIAL_STATE;
+        }
+        int i = start;
+        if (state == SINGLE_QUOTED || state == DOUBLE_QUOTED) {
+            int close = scanQuoted(text, i, end, state == SINGLE_QUOTED ? '\'' : '"', state == DOUBLE_QUOTED);
+            if (close < 0) {
+                sink.addToken(i, end, TokenType.STRING);
+                return state;
+            }
+            sink.addToken(i, close, TokenType.STRING);
+            i = close;
+        } else {
+            i = indentEnd;
+            if (i == start && (startsWith(text, i, end, "---") || startsWith(text, i, end, "..."))
+                    && (i + 3 == end || isBlank(text.charAt(i + 3)))) {
+                sink.addToken(i, i + 3, TokenType.KEYWORD);
+                i += 3;
+            }
+        }
+        int flowDepth = 0;
+        while (i < end) {
+            char c = text.charAt(i);
+            if (isBlank(c)) {
+                i++;
+            } else if (c == '#' && (i == start || isBlank(text.charAt(i - 1)))) {
+                sink.addToken(i, end, TokenType.COMMENT);
+                return INITIAL_STATE;
+            } else if ((c == '-' || c == '?') && (i + 1 == end || isBlank(text.charAt(i + 1)))) {
+                sink.addToken(i, i + 1, TokenType.OPERATOR);
+                i++;
+            } else if (c == '\'' || c == '"') {
+                int close = scanQuoted(text, i + 1, end, c, c == '"');
+                if (close < 0) {
+                    sink.addToken(i, end, TokenType.STRING);
+                    return c == '\'' ? SINGLE_QUOTED : DOUBLE_QUOTED;
+                }
+                int after = skipBlanks(text, close, end);
+                sink.addToken(i, close, isMappingIndicator(text, after, end) ? TokenType.KEY : TokenType.STRING);
+                i = close;
+            } else if ((c == '|' || c == '>') && flowDepth == 0) {
+                int j = i + 1;
+                while (j < end && "+-0123456789".indexOf(text.charAt(j)) >= 0) {
+                    j++;
+                }
+                int k = skipBlanks(text, j, end);
+                sink.addToken(i, j, TokenType.OPERATOR);
+                if (k < end && text.charAt(k) == '#') {
+                    sink.addToken(k, end, TokenType.COMMENT);
+                } else if (k < end) {
+                    // Not a block scalar header after all, e.g. a value starting with '>'
+                    i = j;
+                    continue;
+                }
+                return BLOCK_SCALAR + (indentEnd - start);
+            } else if (c == '&' || c == '*' || c == '!') {
+                int j = i + 1;
+                while (j < end && !isBlank(text.charAt(j)) && ",[]{}".indexOf(text.charAt(j)) < 0) {
+                    j++;
+                }
+                sink.addToken(i, j, TokenType.VARIABLE);
+                i = j;
+            } else if ("{}[],".indexOf(c) >= 0) {
+                flowDepth += c == '{' || c == '[' ? 1 : c == '}' || c == ']' ? -1 : 0;
+                sink.addToken(i, i + 1, TokenType.OPERATOR);
+                i++;
+            } else {
+                i = lexPlainScalar(text, i, end, flowDepth > 0, sink);
+            }
+        }
+        return INITIAL_STATE;
+    }
+
+    /**
+     * Lexes an unquoted key or value and returns where it ends.
+     */
+    private static int lexPlainScalar(CharSequence text, int start, int end, boolean inFlow, TokenSink sink) {
+        int j = start;
+        while (j < end) {
+            char d = text.charAt(j);
+            if (isMappingIndicator(text, j, end)) {
+                sink.addToken(start, trimEnd(text, start, j), TokenType.KEY);
+                sink.addToken(j, j + 1, TokenType.OPERATOR);
+                return j + 1;
+            }
+            if (d == '#' && j > start && isBlank(text.charAt(j - 1))) {
+                break;
+            }
+            if (inFlow && ",[]{}".indexOf(d) >= 0) {
+                break;
+            }
+            j++;
+        }
+        int valueEnd = trimEnd(text, start, j);
+        if (LexerSupport.isNumber(text, start, valueEnd)) {
+            sink.addToken(start, valueEnd, TokenType.NUMBER);
+        } else if (isLiteral(text, start, valueEnd)) {
+            sink.addToken(start, valueEnd, TokenType.LITERAL);
+        }
+        return j;
+    }
+
+    private static boolean isMappingIndicator(CharSequence text, int i, int end) {
+        return i < end && text.charAt(i) == ':' && (i + 1 == end || isBlank(text.charAt(i + 1)));
+    }
+
+    private static boolean isLiteral(CharSequence text, int start, int end) {
+        for (String literal : LITERALS) {
+            if (equalsIgnoreCase(text, start, end, literal)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -3,48 +3,147 @@ package com.dfortch.javapad.i18n;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.text.Format;
 import java.text.MessageFormat;
+import java.text.NumberFormat;
 import java.util.Locale;
+import java.util.MissingResourceException;
 import java.util.ResourceBundle;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
+/**
+ * Messages from a resource bundle of one locale.
+ * <p>
+ * Patterns are compiled into a {@link MessageFormat} the first time they are formatted and kept
+ * for the lifetime of the provider, so the status bar, which formats its labels on every refresh,
+ * and other frequent callers do not parse the pattern again on every call. Numbers passed to a pattern without formats of its own, such as
+ * {@code Line: {0}, Col: {1}}, are formatted with one {@link NumberFormat} per pattern instead of a
+ * new one per call. A key missing from the bundle is logged once and answered from memory
+ * afterwards. Both caches are safe to use from any thread.
+ */
 public class ResourceBundleMessageProvider implements MessageProvider {
 
     private static final Logger log = LogManager.getLogger(ResourceBundleMessageProvider.class);
 
+    private static final String KEY_NOT_FOUND = "Key not found: ";
+
     private final ResourceBundle resourceBundle;
 
+    private final Locale locale;
+
+    /**
+     * Compiled patterns by key.
+     */
+    private final ConcurrentMap<String, CompiledMessage> formats = new ConcurrentHashMap<>();
+
+    private final Set<String> missingKeys = ConcurrentHashMap.newKeySet();
+
     public ResourceBundleMessageProvider(String baseName, Locale locale) {
+        this(loadBundle(baseName, locale), locale);
+    }
+
+    ResourceBundleMessageProvider(ResourceBundle resourceBundle, Locale locale) {
+        this.resourceBundle = resourceBundle;
+        this.locale = locale;
+    }
+
+    private static ResourceBundle loadBundle(String baseName, Locale locale) {
         log.info("Initializing ResourceBundleMessageProvider with baseName: {} and locale: {}", baseName, locale);
-        this.resourceBundle = ResourceBundle.getBundle(baseName, locale);
+        ResourceBundle resourceBundle = ResourceBundle.getBundle(baseName, locale);
         log.info("ResourceBundle loaded successfully");
+        return resourceBundle;
     }
 
     @Override
     public String getMessage(String key) {
         log.trace("Fetching message with key: {}", key);
-        String message;
-        try {
-            message = resourceBundle.getString(key);
+        String message = lookUp(key);
+        if (message == null) {
+            return KEY_NOT_FOUND + key;
+        }
+        if (log.isDebugEnabled()) {
             log.debug("Message found for key {}: {}", key, message);
-        } catch (java.util.MissingResourceException e) {
-            log.error("Message key not found: {}", key, e);
-            message = "Key not found: " + key;
         }
         return message;
     }
 
     @Override
     public String getMessage(String key, Object... params) {
-        log.trace("Fetching message with key: {} and params: {}", key, params);
-        String message;
-        try {
-            String pattern = resourceBundle.getString(key);
-            message = MessageFormat.format(pattern, params);
+        if (log.isTraceEnabled()) {
+            log.trace("Fetching message with key: {} and params: {}", key, params);
+        }
+        CompiledMessage compiled = formats.get(key);
+        if (compiled == null) {
+            String pattern = lookUp(key);
+            if (pattern == null) {
+                return KEY_NOT_FOUND + key;
+            }
+            compiled = formats.computeIfAbsent(key, k -> new CompiledMessage(new MessageFormat(pattern, locale)));
+        }
+        String message = compiled.format(params);
+        if (log.isDebugEnabled()) {
             log.debug("Formatted message for key {}: {}", key, message);
-        } catch (java.util.MissingResourceException e) {
-            log.error("Message key not found: {}", key, e);
-            message = "Key not found: " + key;
         }
         return message;
     }
+
+    /**
+     * Returns the string for {@code key}, or {@code null} if the bundle does not have it.
+     */
+    private String lookUp(String key) {
+        if (missingKeys.contains(key)) {
+            return null;
+        }
+        try {
+            return resourceBundle.getString(key);
+        } catch (MissingResourceException e) {
+            if (missingKeys.add(key)) {
+                log.error("Message key not found: {}", key, e);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * A compiled pattern. Neither {@link MessageFormat} nor {@link NumberFormat} is thread-safe, so
+     * the message is locked while it formats.
+     */
+    private static final class CompiledMessage {
+
+        private final MessageFormat format;
+
+        /**
+         * Formats numbers when no argument of the pattern has a format of its own, in which case
+         * {@link MessageFormat} would create a number format for every number passed to it, or
+         * {@code null} otherwise.
+         */
+        private final NumberFormat numberFormat;
+
+        CompiledMessage(MessageFormat format) {
+            this.format = format;
+            boolean unformatted = true;
+            for (Format argumentFormat : format.getFormats()) {
+                unformatted &= argumentFormat == null;
+            }
+            numberFormat = unformatted ? NumberFormat.getInstance(format.getLocale()) : null;
+        }
+
+        synchronized String format(Object[] params) {
+            if (numberFormat == null || params == null) {
+                return format.format(params);
+            }
+            Object[] arguments = params;
+            for (int i = 0; i < params.length; i++) {
+                if (params[i] instanceof Number number) {
+                    if (arguments == params) {
+                        arguments = params.clone();
+                    }
+                    arguments[i] = numberFormat.format(number);
+                }
+            }
+            return format.format(arguments);
+        }
+    }
 }
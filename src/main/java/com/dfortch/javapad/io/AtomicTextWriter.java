@@ -0,0 +1,189 @@
+package com.dfortch.javapad.io;
+
+import com.dfortch.javapad.text.BulkCharSequence;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Writes text so that the target file always holds either its old or its new content.
+ * <p>
+ * The text is encoded in chunks into a temporary file next to the target, which is forced to disk
+ * and then moved over the target in one atomic step. A crash or a cancelled write leaves the
+ * target untouched. Writing stops with an {@link InterruptedIOException} when the writing thread
+ * is interrupted.
+ */
+public class AtomicTextWriter {
+
+    private static final Logger log = LogManager.getLogger(AtomicTextWriter.class);
+
+    static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+
+    private final Charset charset;
+
+    private final byte[] byteOrderMark;
+
+    private final int chunkSize;
+
+    public AtomicTextWriter(Charset charset) {
+        this(charset, DEFAULT_CHUNK_SIZE);
+    }
+
+    public AtomicTextWriter(Charset charset, int chunkSize) {
+        this(new TextEncoding(charset, false), chunkSize);
+    }
+
+    /**
+     * Creates a writer that starts the file with a byte order mark if {@code encoding} asks for one.
+     */
+    public AtomicTextWriter(TextEncoding encoding) {
+        this(encoding, DEFAULT_CHUNK_SIZE);
+    }
+
+    public AtomicTextWriter(TextEncoding encoding, int chunkSize) {
+        Objects.requireNonNull(encoding, "Encoding must not be null");
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive");
+        }
+        this.charset = encoding.charset();
+        this.byteOrderMark = encoding.getByteOrderMarkBytes();
+        this.chunkSize = chunkSize;
+    }
+
+    public void write(Path target, CharSequence content, ProgressListener listener) throws IOException {
+        Objects.requireNonNull(target, "Target must not be null");
+        Objects.requireNonNull(content, "Content must not be null");
+        log.trace("Entering write method");
+
+        // Replace the file a symbolic link points to, not the link
+        Path resolvedTarget = Files.exists(target) ? target.toRealPath() : target.toAbsolutePath();
+        Path temp = resolvedTarget.resolveSibling("." + resolvedTarget.getFileName() + "."
+                + Long.toHexString(ThreadLocalRandom.current().nextLong()) + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                ByteBuffer mark = ByteBuffer.wrap(byteOrderMark);
+                while (mark.hasRemaining()) {
+                    channel.write(mark);
+                }
+                encode(content, channel, listener);
+                channel.force(true);
+            }
+            copyPermissions(resolvedTarget, temp);
+            move(temp, resolvedTarget);
+            syncDirectory(resolvedTarget.getParent());
+            log.debug("Wrote {} chars to {}", content.length(), resolvedTarget);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        } finally {
+            log.trace("Exiting write method");
+        }
+    }
+
+    private void encode(CharSequence content, FileChannel channel, ProgressListener listener) throws IOException {
+        CharsetEncoder encoder = charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        char[] chars = new char[chunkSize];
+        CharBuffer charBuffer = CharBuffer.wrap(chars);
+        ByteBuffer bytes = ByteBuffer.allocate((int) Math.ceil(chunkSize * (double) encoder.maxBytesPerChar()));
+        int length = content.length();
+        int offset = 0;
+
+        while (true) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedIOException("Writing was cancelled");
+            }
+            int count = Math.min(chunkSize - charBuffer.position(), length - offset);
+            copyChars(content, offset, count, chars, charBuffer.position());
+            charBuffer.limit(charBuffer.position() + count);
+            charBuffer.position(0);
+            offset += count;
+            boolean endOfInput = offset == length;
+
+            CoderResult result = encoder.encode(charBuffer, bytes, endOfInput);
+            if (result.isError()) {
+                result.throwException();
+            }
+            if (endOfInput) {
+                encoder.flush(bytes);
+            }
+            // A trailing high surrogate stays behind until its pair arrives with the next chunk
+            charBuffer.compact();
+
+            bytes.flip();
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            bytes.clear();
+            if (listener != null) {
+                listener.onProgress(offset, length);
+            }
+            if (endOfInput) {
+                return;
+            }
+        }
+    }
+
+    private static void copyChars(CharSequence content, int offset, int count, char[] dst, int dstOffset) {
+        if (content instanceof BulkCharSequence bulk) {
+            bulk.getChars(offset, offset + count, dst, dstOffset);
+        } else if (content instanceof String string) {
+            string.getChars(offset, offset + count, dst, dstOffset);
+        } else {
+            for (int i = 0; i < count; i++) {
+                dst[dstOffset + i] = content.charAt(offset + i);
+            }
+        }
+    }
+
+    private static void copyPermissions(Path from, Path to) {
+        if (!Files.exists(from)) {
+            return;
+        }
+        PosixFileAttributeView view = Files.getFileAttributeView(from, PosixFileAttributeView.class);
+        if (view == null) {
+            return;
+        }
+        try {
+            Files.setPosixFilePermissions(to, Files.getPosixFilePermissions(from));
+        } catch (IOException e) {
+            log.warn("Failed to keep the permissions of {}", from, e);
+        }
+    }
+
+    private static void move(Path temp, Path target) throws IOException {
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            log.warn("Atomic move not supported for {}, replacing it non-atomically", target);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static void syncDirectory(Path directory) {
+        // Makes the rename itself durable; not every platform allows opening a directory
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            log.debug("Could not sync directory {}", directory, e);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.dfortch.javapad.io;
+
+import java.io.IOException;
+
+/**
+ * Thrown when a file to be opened as text looks like binary data.
+ */
+public class BinaryFileException extends IOException {
+
+    public BinaryFileException(String file) {
+        super("Not a text file: " + file);
+    }
+}
@@ -0,0 +1,152 @@
+package com.dfortch.javapad.io;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Guesses the encoding of a file from its first bytes.
+ * <p>
+ * A byte order mark decides on its own. Otherwise a bounded prefix is inspected: text with a zero
+ * byte in most odd or most even positions is taken for BOM-less UTF-16, other zero bytes or many
+ * control chars mark the file as binary, and the prefix is then tried as UTF-8. Anything that is
+ * not valid UTF-8 is read as ISO-8859-1, which maps every byte and so round-trips unchanged.
+ * <p>
+ * Only the prefix is validated for files larger than it, so a file taken for UTF-8 may still hold
+ * invalid bytes further on; readers then start over as ISO-8859-1.
+ */
+public class CharsetDetector {
+
+    private static final Logger log = LogManager.getLogger(CharsetDetector.class);
+
+    static final int PREFIX_SIZE = 64 * 1024;
+
+    /**
+     * Share of control chars above which a file is taken for binary.
+     */
+    private static final double MAX_CONTROL_RATIO = 0.05;
+
+    /**
+     * Share of zero bytes in one of the two byte positions that marks BOM-less UTF-16.
+     */
+    private static final double MIN_UTF16_ZERO_RATIO = 0.3;
+
+    /**
+     * Share of zero bytes tolerated in the other position, for chars such as U+0100.
+     */
+    private static final double MAX_UTF16_OTHER_ZERO_RATIO = 0.05;
+
+    private final ByteBuffer prefix = ByteBuffer.allocateDirect(PREFIX_SIZE);
+
+    private final CharsetDecoder utf8Decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPORT)
+            .onUnmappableCharacter(CodingErrorAction.REPORT);
+
+    private final CharBuffer scratch = CharBuffer.allocate(4 * 1024);
+
+    /**
+     * Detects the encoding of the file behind {@code channel} without moving its position.
+     *
+     * @throws BinaryFileException if the file does not look like text
+     */
+    public TextEncoding detect(FileChannel channel, String fileName) throws IOException {
+        prefix.clear();
+        long position = 0;
+        while (prefix.hasRemaining()) {
+            int read = channel.read(prefix, position);
+            if (read < 0) {
+                break;
+            }
+            position += read;
+        }
+        prefix.flip();
+        boolean wholeFile = position >= channel.size();
+        TextEncoding encoding = detect(prefix, wholeFile);
+        if (encoding == null) {
+            log.info("File {} looks binary", fileName);
+            throw new BinaryFileException(fileName);
+        }
+        log.debug("Detected encoding {} for {}", encoding, fileName);
+        return encoding;
+    }
+
+    /**
+     * Detects the encoding of {@code bytes}, the start of a file, or of the whole file when
+     * {@code wholeFile} is set. Returns {@code null} for binary data. The buffer position is not
+     * moved.
+     */
+    TextEncoding detect(ByteBuffer bytes, boolean wholeFile) {
+        int start = bytes.position();
+        int length = bytes.remaining();
+        if (length >= 3 && byteAt(bytes, 0) == 0xEF && byteAt(bytes, 1) == 0xBB && byteAt(bytes, 2) == 0xBF) {
+            return new TextEncoding(StandardCharsets.UTF_8, true);
+        }
+        if (length >= 2 && byteAt(bytes, 0) == 0xFE && byteAt(bytes, 1) == 0xFF) {
+            return new TextEncoding(StandardCharsets.UTF_16BE, true);
+        }
+        if (length >= 2 && byteAt(bytes, 0) == 0xFF && byteAt(bytes, 1) == 0xFE) {
+            return new TextEncoding(StandardCharsets.UTF_16LE, true);
+        }
+
+        int evenZeros = 0;
+        int oddZeros = 0;
+        int controls = 0;
+        for (int i = 0; i < length; i++) {
+            int b = byteAt(bytes, i);
+            if (b == 0) {
+                if ((i & 1) == 0) {
+                    evenZeros++;
+                } else {
+                    oddZeros++;
+                }
+            } else if (b < 0x20 && b != '\t' && b != '\n' && b != '\r' && b != '\f' && b != 0x1B) {
+                controls++;
+            }
+        }
+        int pairs = length / 2;
+        if (pairs > 0 && evenZeros + oddZeros > 0) {
+            if (oddZeros >= pairs * MIN_UTF16_ZERO_RATIO && evenZeros <= pairs * MAX_UTF16_OTHER_ZERO_RATIO) {
+                return new TextEncoding(StandardCharsets.UTF_16LE, false);
+            }
+            if (evenZeros >= pairs * MIN_UTF16_ZERO_RATIO && oddZeros <= pairs * MAX_UTF16_OTHER_ZERO_RATIO) {
+                return new TextEncoding(StandardCharsets.UTF_16BE, false);
+            }
+            return null;
+        }
+        if (controls > length * MAX_CONTROL_RATIO) {
+            return null;
+        }
+
+        bytes.position(start);
+        boolean utf8 = isUtf8(bytes, wholeFile);
+        bytes.position(start);
+        return utf8 ? TextEncoding.DEFAULT : TextEncoding.LATIN_1;
+    }
+
+    private boolean isUtf8(ByteBuffer bytes, boolean wholeFile) {
+        utf8Decoder.reset();
+        while (true) {
+            scratch.clear();
+            CoderResult result = utf8Decoder.decode(bytes, scratch, wholeFile);
+            if (result.isError()) {
+                return false;
+            }
+            if (result.isUnderflow()) {
+                // Without the end of the file a sequence cut off by the prefix is fine
+                return !wholeFile || utf8Decoder.flush(scratch).isUnderflow();
+            }
+        }
+    }
+
+    private static int byteAt(ByteBuffer bytes, int index) {
+        return bytes.get(bytes.position() + index) & 0xFF;
+    }
+}
@@ -3,8 +3,41 @@ package com.dfortch.javapad.io;
 import java.io.File;
 import java.io.IOException;
 
+/**
+ * Reads and writes text files. Reading detects the encoding of a file, see {@link CharsetDetector},
+ * and fails with a {@link BinaryFileException} for files that do not look like text.
+ */
 public interface FileOperations {
     String readFromFile(File file) throws IOException;
 
+    /**
+     * Reads {@code file} in chunks, passing each decoded chunk to {@code listener} as soon as it is
+     * available. Runs on the calling thread and stops when that thread is interrupted.
+     *
+     * @return the encoding the file was read with, to be passed on when it is saved
+     */
+    TextEncoding readFromFile(File file, TextChunkListener listener) throws IOException;
+
+    /**
+     * Opens {@code file} as a read-only, memory-mapped text view that decodes only the parts being
+     * read. Meant for files too large to be loaded with {@link #readFromFile(File)}; the caller
+     * owns the returned view and must close it.
+     */
+    MappedTextFile mapFromFile(File file) throws IOException;
+
     void saveToFile(File file, String content, boolean createFileIfNotExists) throws IOException;
+
+    /**
+     * Writes {@code content} to a temporary file next to {@code file} and atomically moves it over
+     * {@code file}, so a failed save never leaves a truncated file behind. {@code listener}, which
+     * may be {@code null}, is told how many chars were written after each chunk. Runs on the
+     * calling thread and stops when that thread is interrupted.
+     */
+    void saveToFile(File file, CharSequence content, ProgressListener listener) throws IOException;
+
+    /**
+     * Like {@link #saveToFile(File, CharSequence, ProgressListener)}, writing in {@code encoding}
+     * instead of {@link TextEncoding#DEFAULT}.
+     */
+    void saveToFile(File file, CharSequence content, TextEncoding encoding, ProgressListener listener) throws IOException;
 }
@@ -5,9 +5,12 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.nio.file.Files;
+import java.io.InterruptedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
 import java.util.Objects;
 
 @Vetoed
@@ -21,11 +24,22 @@ public class FileOperationsImpl implements FileOperations {
         log.trace("Entering readFromFile method");
         log.info("Attempting to read from file: {}", file.getAbsolutePath());
 
-        try {
-            String content = Files.readString(file.toPath());
-            log.debug("File read successfully: {}", file.getAbsolutePath());
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            StringBuilder content = new StringBuilder((int) Math.min(channel.size(), Integer.MAX_VALUE - 16));
+            TextEncoding encoding = readAsText(channel, file, new TextChunkListener() {
+                @Override
+                public void onChunk(String chunk, long bytesRead) {
+                    content.append(chunk);
+                }
+
+                @Override
+                public void onRestart() {
+                    content.setLength(0);
+                }
+            });
+            log.debug("File read successfully: {} ({})", file.getAbsolutePath(), encoding);
             log.trace("Exiting readFromFile method");
-            return content;
+            return content.toString();
         } catch (IOException e) {
             log.error("Failed to read from file: {}", file.getAbsolutePath(), e);
             log.fatal("Critical error occurred while reading file: {}", file.getAbsolutePath(), e);
@@ -33,30 +47,80 @@ public class FileOperationsImpl implements FileOperations {
         }
     }
 
+    @Override
+    public TextEncoding readFromFile(File file, TextChunkListener listener) throws IOException {
+        Objects.requireNonNull(file, "File must not be null");
+        Objects.requireNonNull(listener, "Listener must not be null");
+        log.trace("Entering readFromFile method");
+        log.info("Attempting to stream from file: {}", file.getAbsolutePath());
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            TextEncoding encoding = readAsText(channel, file, listener);
+            log.debug("File streamed successfully: {} ({})", file.getAbsolutePath(), encoding);
+            return encoding;
+        } catch (InterruptedIOException e) {
+            log.info("Streaming from file cancelled: {}", file.getAbsolutePath());
+            throw e;
+        } catch (IOException e) {
+            log.error("Failed to stream from file: {}", file.getAbsolutePath(), e);
+            throw e;
+        } finally {
+            log.trace("Exiting readFromFile method");
+        }
+    }
+
+    @Override
+    public MappedTextFile mapFromFile(File file) throws IOException {
+        Objects.requireNonNull(file, "File must not be null");
+        log.trace("Entering mapFromFile method");
+        log.info("Attempting to map file: {}", file.getAbsolutePath());
+
+        try {
+            TextEncoding encoding;
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                encoding = new CharsetDetector().detect(channel, file.getAbsolutePath());
+            }
+            MappedTextFile mappedFile = MappedTextFile.open(file, encoding);
+            log.debug("File mapped successfully: {} ({})", file.getAbsolutePath(), encoding);
+            log.trace("Exiting mapFromFile method");
+            return mappedFile;
+        } catch (IOException e) {
+            log.error("Failed to map file: {}", file.getAbsolutePath(), e);
+            throw e;
+        }
+    }
+
     @Override
     public void saveToFile(File file, String content, boolean createFileIfNotExists) throws IOException {
         Objects.requireNonNull(file, "File must not be null");
         Objects.requireNonNull(content, "Content must not be null");
-        log.trace("Entering saveToFile method");
 
-        if (createFileIfNotExists && !file.exists()) {
-            try {
-                if (file.createNewFile()) {
-                    log.info("File created successfully: {}", file.getAbsolutePath());
-                } else {
-                    log.warn("File already exists and was not created: {}", file.getAbsolutePath());
-                }
-            } catch (IOException e) {
-                log.error("Failed to create file: {}", file.getAbsolutePath(), e);
-                throw e;
-            }
+        if (!createFileIfNotExists && !file.exists()) {
+            log.error("File does not exist and must not be created: {}", file.getAbsolutePath());
+            throw new NoSuchFileException(file.getAbsolutePath());
         }
+        saveToFile(file, (CharSequence) content, null);
+    }
 
-        log.info("Attempting to write to file: {}", file.getAbsolutePath());
+    @Override
+    public void saveToFile(File file, CharSequence content, ProgressListener listener) throws IOException {
+        saveToFile(file, content, TextEncoding.DEFAULT, listener);
+    }
 
-        try (FileOutputStream outputStream = new FileOutputStream(file)) {
-            outputStream.write(content.getBytes());
+    @Override
+    public void saveToFile(File file, CharSequence content, TextEncoding encoding, ProgressListener listener) throws IOException {
+        Objects.requireNonNull(file, "File must not be null");
+        Objects.requireNonNull(content, "Content must not be null");
+        Objects.requireNonNull(encoding, "Encoding must not be null");
+        log.trace("Entering saveToFile method");
+        log.info("Attempting to write to file: {} ({})", file.getAbsolutePath(), encoding);
+
+        try {
+            new AtomicTextWriter(encoding).write(file.toPath(), content, listener);
             log.debug("File written successfully: {}", file.getAbsolutePath());
+        } catch (InterruptedIOException e) {
+            log.info("Writing to file cancelled: {}", file.getAbsolutePath());
+            throw e;
         } catch (IOException e) {
             log.error("Failed to write to file: {}", file.getAbsolutePath(), e);
             log.fatal("Critical error occurred while writing to file: {}", file.getAbsolutePath(), e);
@@ -65,4 +129,31 @@ public class FileOperationsImpl implements FileOperations {
             log.trace("Exiting saveToFile method");
         }
     }
+
+    /**
+     * Detects the encoding of the file behind {@code channel} and reads it past its byte order mark.
+     * A file taken for UTF-8 from its first bytes that turns out not to be is read again as
+     * ISO-8859-1 rather than with replaced chars, which would corrupt it on the next save.
+     *
+     * @return the encoding the text was read in
+     */
+    private static TextEncoding readAsText(FileChannel channel, File file, TextChunkListener listener)
+            throws IOException {
+        TextEncoding encoding = new CharsetDetector().detect(channel, file.getAbsolutePath());
+        channel.position(encoding.getByteOrderMarkBytes().length);
+        try {
+            new StreamingTextReader(encoding.charset()).read(channel, listener);
+            return encoding;
+        } catch (CharacterCodingException e) {
+            if (!encoding.equals(TextEncoding.DEFAULT)) {
+                throw e;
+            }
+            log.info("File {} is not UTF-8 past its first bytes, reading it again as {}", file.getAbsolutePath(),
+                    TextEncoding.LATIN_1);
+            listener.onRestart();
+            channel.position(0);
+            new StreamingTextReader(TextEncoding.LATIN_1.charset()).read(channel, listener);
+            return TextEncoding.LATIN_1;
+        }
+    }
 }
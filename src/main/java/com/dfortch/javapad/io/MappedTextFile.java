@@ -0,0 +1,334 @@
+package com.dfortch.javapad.io;
+
+import com.dfortch.javapad.text.BulkCharSequence;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Read-only text view over a memory-mapped file.
+ * <p>
+ * The file is cut into windows of about {@value #DEFAULT_WINDOW_SIZE} bytes that end on character
+ * boundaries. Opening scans the file once to record where every window starts and where the line
+ * breaks are; after that only the windows that are actually read are decoded, and only a handful of
+ * them are kept on the heap. Swing documents are addressed with {@code int} offsets, so text past
+ * {@link Integer#MAX_VALUE} chars is cut off and {@link #isTruncated()} reports it.
+ * <p>
+ * The charset must decode each window independently, which holds for UTF-8, the single byte
+ * charsets and UTF-16 with an explicit byte order.
+ */
+public class MappedTextFile implements BulkCharSequence, Closeable {
+
+    private static final Logger log = LogManager.getLogger(MappedTextFile.class);
+
+    static final int DEFAULT_WINDOW_SIZE = 1 << 20;
+
+    private static final int CACHED_WINDOWS = 8;
+
+    private static final int MAX_LENGTH = Integer.MAX_VALUE - 16;
+
+    private final File file;
+
+    private final FileChannel channel;
+
+    private final Charset charset;
+
+    private final long[] windowByteStarts;
+
+    private final int[] windowCharStarts;
+
+    private final int windowCount;
+
+    private final int[] lineBreaks;
+
+    private final boolean truncated;
+
+    private final Map<Integer, char[]> windows = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, char[]> eldest) {
+            return size() > CACHED_WINDOWS;
+        }
+    };
+
+    private int lastWindowIndex = -1;
+
+    private char[] lastWindow;
+
+    private long windowsDecoded;
+
+    private MappedTextFile(File file, FileChannel channel, Charset charset, long[] windowByteStarts,
+                           int[] windowCharStarts, int windowCount, int[] lineBreaks, boolean truncated) {
+        this.file = file;
+        this.channel = channel;
+        this.charset = charset;
+        this.windowByteStarts = windowByteStarts;
+        this.windowCharStarts = windowCharStarts;
+        this.windowCount = windowCount;
+        this.lineBreaks = lineBreaks;
+        this.truncated = truncated;
+    }
+
+    public static MappedTextFile open(File file, Charset charset) throws IOException {
+        return open(file, charset, 0, DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * Opens {@code file} in the given encoding, leaving out its byte order mark if it has one.
+     */
+    public static MappedTextFile open(File file, TextEncoding encoding) throws IOException {
+        Objects.requireNonNull(encoding, "Encoding must not be null");
+        return open(file, encoding.charset(), encoding.getByteOrderMarkBytes().length, DEFAULT_WINDOW_SIZE);
+    }
+
+    static MappedTextFile open(File file, Charset charset, int windowSize) throws IOException {
+        return open(file, charset, 0, windowSize);
+    }
+
+    private static MappedTextFile open(File file, Charset charset, long start, int windowSize) throws IOException {
+        Objects.requireNonNull(file, "File must not be null");
+        Objects.requireNonNull(charset, "Charset must not be null");
+        log.trace("Entering open method");
+
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            CharsetDecoder decoder = newDecoder(charset);
+            CharBuffer chars = CharBuffer.allocate(windowSize);
+
+            long[] byteStarts = new long[16];
+            int[] charStarts = new int[16];
+            int[] breaks = new int[1024];
+            int windowCount = 0;
+            int breakCount = 0;
+            int length = 0;
+            long position = start;
+            boolean truncated = false;
+
+            while (position < size) {
+                int span = (int) Math.min(windowSize, size - position);
+                boolean endOfInput = position + span == size;
+                MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, position, span);
+
+                decoder.reset();
+                chars.clear();
+                decode(decoder, bytes, chars, endOfInput);
+                chars.flip();
+                int consumed = bytes.position();
+                if (consumed == 0) {
+                    throw new CharacterCodingException();
+                }
+                if ((long) length + chars.remaining() > MAX_LENGTH) {
+                    log.warn("File {} is longer than {} chars, showing only the beginning", file.getAbsolutePath(), MAX_LENGTH);
+                    truncated = true;
+                    break;
+                }
+
+                if (windowCount + 1 >= byteStarts.length) {
+                    byteStarts = Arrays.copyOf(byteStarts, byteStarts.length * 2);
+                    charStarts = Arrays.copyOf(charStarts, charStarts.length * 2);
+                }
+                byteStarts[windowCount] = position;
+                charStarts[windowCount] = length;
+                windowCount++;
+
+                for (int i = 0; i < chars.remaining(); i++) {
+                    if (chars.get(i) == '\n') {
+                        if (breakCount == breaks.length) {
+                            breaks = Arrays.copyOf(breaks, breaks.length * 2);
+                        }
+                        breaks[breakCount++] = length + i;
+                    }
+                }
+                length += chars.remaining();
+                position += consumed;
+            }
+            byteStarts[windowCount] = position;
+            charStarts[windowCount] = length;
+
+            log.info("Mapped file {} ({} bytes, {} chars, {} windows)", file.getAbsolutePath(), size, length, windowCount);
+            log.trace("Exiting open method");
+            return new MappedTextFile(file, channel, charset, byteStarts, charStarts, windowCount,
+                    Arrays.copyOf(breaks, breakCount), truncated);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public Charset getCharset() {
+        return charset;
+    }
+
+    /**
+     * Returns the encoding of the file, with a byte order mark if one was skipped on open.
+     */
+    public TextEncoding getEncoding() {
+        return new TextEncoding(charset, windowByteStarts[0] > 0);
+    }
+
+    /**
+     * Returns the sorted offsets of every {@code '\n'} in the text, collected while the file was
+     * scanned so the document does not have to scan it again.
+     */
+    public int[] getLineBreaks() {
+        return lineBreaks;
+    }
+
+    /**
+     * Returns a rough estimate of the heap this view keeps alive: the decoded windows it caches and
+     * its window and line break offsets. The mapped file itself is not counted.
+     */
+    public synchronized long estimateMemoryUsage() {
+        long bytes = 12L * windowCount + 4L * lineBreaks.length;
+        for (char[] window : windows.values()) {
+            bytes += 2L * window.length;
+        }
+        return bytes;
+    }
+
+    /**
+     * Returns how many times a window was decoded, for tests and benchmarks.
+     */
+    public synchronized long getWindowsDecoded() {
+        return windowsDecoded;
+    }
+
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    @Override
+    public int length() {
+        return windowCharStarts[windowCount];
+    }
+
+    @Override
+    public synchronized char charAt(int index) {
+        if (index < 0 || index >= length()) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of range [0, " + length() + ")");
+        }
+        int window = lastWindowIndex >= 0 && index >= windowCharStarts[lastWindowIndex]
+                && index < windowCharStarts[lastWindowIndex + 1] ? lastWindowIndex : findWindow(index);
+        return window(window)[index - windowCharStarts[window]];
+    }
+
+    @Override
+    public synchronized void getChars(int srcBegin, int srcEnd, char[] dst, int dstBegin) {
+        if (srcBegin < 0 || srcEnd > length() || srcBegin > srcEnd) {
+            throw new IndexOutOfBoundsException("Range [" + srcBegin + ", " + srcEnd + ") out of range [0, " + length() + ")");
+        }
+        int index = srcBegin;
+        while (index < srcEnd) {
+            int window = findWindow(index);
+            char[] chars = window(window);
+            int from = index - windowCharStarts[window];
+            int count = Math.min(srcEnd - index, chars.length - from);
+            System.arraycopy(chars, from, dst, dstBegin + index - srcBegin, count);
+            index += count;
+        }
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        char[] chars = new char[end - start];
+        getChars(start, end, chars, 0);
+        return new String(chars);
+    }
+
+    /**
+     * Describes the file instead of returning its text, which may be larger than the heap.
+     */
+    @Override
+    public String toString() {
+        return "MappedTextFile[" + file.getAbsolutePath() + ", " + length() + " chars]";
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        windows.clear();
+        lastWindow = null;
+        lastWindowIndex = -1;
+        channel.close();
+        log.debug("Closed mapped file {}", file.getAbsolutePath());
+    }
+
+    private int findWindow(int index) {
+        int window = Arrays.binarySearch(windowCharStarts, 0, windowCount + 1, index);
+        if (window < 0) {
+            window = -window - 2;
+        }
+        // Skip empty windows so the index always falls inside the returned one
+        while (windowCharStarts[window + 1] <= index) {
+            window++;
+        }
+        return window;
+    }
+
+    private char[] window(int window) {
+        if (window == lastWindowIndex) {
+            return lastWindow;
+        }
+        char[] chars = windows.get(window);
+        if (chars == null) {
+            chars = decodeWindow(window);
+            windows.put(window, chars);
+        }
+        lastWindowIndex = window;
+        lastWindow = chars;
+        return chars;
+    }
+
+    private char[] decodeWindow(int window) {
+        long start = windowByteStarts[window];
+        int span = (int) (windowByteStarts[window + 1] - start);
+        char[] chars = new char[windowCharStarts[window + 1] - windowCharStarts[window]];
+        windowsDecoded++;
+        try {
+            MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, start, span);
+            CharsetDecoder decoder = newDecoder(charset);
+            decode(decoder, bytes, CharBuffer.wrap(chars), true);
+            log.trace("Decoded window {} of {}", window, file.getAbsolutePath());
+            return chars;
+        } catch (IOException e) {
+            log.error("Failed to decode window {} of {}", window, file.getAbsolutePath(), e);
+            throw new IllegalStateException("Failed to read " + file.getAbsolutePath(), e);
+        }
+    }
+
+    private static void decode(CharsetDecoder decoder, MappedByteBuffer bytes, CharBuffer chars, boolean endOfInput)
+            throws CharacterCodingException {
+        CoderResult result = decoder.decode(bytes, chars, endOfInput);
+        if (result.isError()) {
+            result.throwException();
+        }
+        if (endOfInput) {
+            decoder.flush(chars);
+        }
+    }
+
+    private static CharsetDecoder newDecoder(Charset charset) {
+        return charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+}
@@ -0,0 +1,5 @@
+package com.dfortch.javapad.io;
+
+public interface ProgressListener {
+    void onProgress(long done, long total);
+}
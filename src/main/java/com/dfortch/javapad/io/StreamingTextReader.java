@@ -0,0 +1,163 @@
+package com.dfortch.javapad.io;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.Objects;
+
+/**
+ * Decodes a byte stream into text chunks of bounded size.
+ * <p>
+ * Chunks are handed to a {@link TextChunkListener} as soon as they are decoded, so callers can show
+ * the beginning of a file while the rest is still being read. Reading stops with an
+ * {@link InterruptedIOException} when the reading thread is interrupted.
+ * <p>
+ * Bytes are read into a direct buffer and decoded straight into the char buffer the chunks are
+ * built from, so the raw bytes of a file are never held next to its text. The decoder and both
+ * buffers are reused by every read, which makes a reader unsafe to share between threads.
+ */
+public class StreamingTextReader {
+
+    private static final Logger log = LogManager.getLogger(StreamingTextReader.class);
+
+    static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+
+    /**
+     * Roughly a screenful of text; the first chunk is emitted as soon as this much is decoded.
+     */
+    private static final int FIRST_CHUNK_SIZE = 8 * 1024;
+
+    private final Charset charset;
+
+    private final int chunkSize;
+
+    private final CharsetDecoder decoder;
+
+    private final ByteBuffer bytes;
+
+    private final CharBuffer chars;
+
+    public StreamingTextReader(Charset charset) {
+        this(charset, DEFAULT_CHUNK_SIZE);
+    }
+
+    public StreamingTextReader(Charset charset, int chunkSize) {
+        this.charset = Objects.requireNonNull(charset, "Charset must not be null");
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive");
+        }
+        this.chunkSize = chunkSize;
+        this.decoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT);
+        this.bytes = ByteBuffer.allocateDirect(chunkSize);
+        this.chars = CharBuffer.allocate(chunkSize);
+    }
+
+    /**
+     * Reads {@code inputStream} to the end, passing every decoded chunk to {@code listener}.
+     * The stream is not closed.
+     *
+     * @return the number of chars read
+     */
+    public long read(InputStream inputStream, TextChunkListener listener) throws IOException {
+        Objects.requireNonNull(inputStream, "Input stream must not be null");
+        return read(Channels.newChannel(inputStream), listener);
+    }
+
+    /**
+     * Reads {@code channel} from its current position to the end, passing every decoded chunk to
+     * {@code listener}. The channel is not closed unless reading is interrupted, in which case
+     * interruptible channels close themselves.
+     *
+     * @return the number of chars read
+     */
+    public long read(ReadableByteChannel channel, TextChunkListener listener) throws IOException {
+        Objects.requireNonNull(channel, "Channel must not be null");
+        Objects.requireNonNull(listener, "Listener must not be null");
+        log.trace("Entering read method");
+
+        decoder.reset();
+        bytes.clear();
+        chars.clear();
+        long bytesRead = 0;
+        long charsRead = 0;
+        boolean endOfInput = false;
+
+        while (!endOfInput) {
+            checkInterrupted();
+            int read = readSome(channel);
+            if (read < 0) {
+                endOfInput = true;
+            } else {
+                bytesRead += read;
+            }
+
+            bytes.flip();
+            while (decode(decoder.decode(bytes, chars, endOfInput))) {
+                charsRead += emit(chars, listener, bytesRead);
+            }
+            if (endOfInput) {
+                while (decode(decoder.flush(chars))) {
+                    charsRead += emit(chars, listener, bytesRead);
+                }
+            }
+            bytes.compact();
+
+            boolean firstScreen = charsRead == 0 && chars.position() >= FIRST_CHUNK_SIZE;
+            if (chars.position() > 0 && (endOfInput || firstScreen || chars.remaining() < chunkSize / 4)) {
+                charsRead += emit(chars, listener, bytesRead);
+            }
+        }
+
+        log.debug("Read {} bytes into {} chars", bytesRead, charsRead);
+        log.trace("Exiting read method");
+        return charsRead;
+    }
+
+    private int readSome(ReadableByteChannel channel) throws IOException {
+        try {
+            return channel.read(bytes);
+        } catch (ClosedByInterruptException e) {
+            InterruptedIOException cancelled = new InterruptedIOException("Reading was cancelled");
+            cancelled.initCause(e);
+            throw cancelled;
+        }
+    }
+
+    /**
+     * Returns {@code true} when the char buffer is full and has to be emitted before decoding on.
+     */
+    private static boolean decode(CoderResult result) throws IOException {
+        if (result.isError()) {
+            result.throwException();
+        }
+        return result.isOverflow();
+    }
+
+    private static int emit(CharBuffer chars, TextChunkListener listener, long bytesRead) throws IOException {
+        chars.flip();
+        int count = chars.remaining();
+        listener.onChunk(chars.toString(), bytesRead);
+        chars.clear();
+        return count;
+    }
+
+    private static void checkInterrupted() throws InterruptedIOException {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new InterruptedIOException("Reading was cancelled");
+        }
+    }
+}
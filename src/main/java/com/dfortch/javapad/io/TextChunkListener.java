@@ -0,0 +1,15 @@
+package com.dfortch.javapad.io;
+
+import java.io.IOException;
+
+public interface TextChunkListener {
+    void onChunk(String chunk, long bytesRead) throws IOException;
+
+    /**
+     * Discards every chunk passed so far, because the file is read again from the start in
+     * another encoding. Listeners that cannot discard text fail the read instead.
+     */
+    default void onRestart() throws IOException {
+        throw new IOException("The text read so far cannot be discarded");
+    }
+}
@@ -0,0 +1,35 @@
+package com.dfortch.javapad.io;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+/**
+ * How the text of a file is stored: its charset and whether it starts with a byte order mark.
+ * Detected when a file is read and used again when it is saved, so a file keeps its encoding.
+ */
+public record TextEncoding(Charset charset, boolean byteOrderMark) {
+
+    public static final TextEncoding DEFAULT = new TextEncoding(StandardCharsets.UTF_8, false);
+
+    /**
+     * Used for text that is not valid UTF-8; it maps every byte, so the file round-trips unchanged.
+     */
+    public static final TextEncoding LATIN_1 = new TextEncoding(StandardCharsets.ISO_8859_1, false);
+
+    public TextEncoding {
+        Objects.requireNonNull(charset, "Charset must not be null");
+    }
+
+    /**
+     * Returns the bytes written before the text, empty when there is no byte order mark.
+     */
+    public byte[] getByteOrderMarkBytes() {
+        return byteOrderMark ? "\uFEFF".getBytes(charset) : new byte[0];
+    }
+
+    @Override
+    public String toString() {
+        return byteOrderMark ? charset.name() + " with BOM" : charset.name();
+    }
+}
@@ -1,5 +1,7 @@
 package com.dfortch.javapad.prefs;
 
+import org.apache.logging.log4j.Level;
+
 import java.awt.*;
 import java.util.Locale;
 
@@ -40,4 +42,24 @@ public abstract class DynamicJavapadUserPreferences implements JavaPadUserPrefer
     public Color getDefaultEditorBackgroundColor() {
         return properties.getDefaultEditorBackgroundColor();
     }
+
+    @Override
+    public long getDefaultLargeFileThreshold() {
+        return properties.getDefaultLargeFileThreshold();
+    }
+
+    @Override
+    public long getDefaultUndoMemoryLimit() {
+        return properties.getDefaultUndoMemoryLimit();
+    }
+
+    @Override
+    public long getDefaultTabMemoryBudget() {
+        return properties.getDefaultTabMemoryBudget();
+    }
+
+    @Override
+    public Level getDefaultLogLevel() {
+        return properties.getDefaultLogLevel();
+    }
 }
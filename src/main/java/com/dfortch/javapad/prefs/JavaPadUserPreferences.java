@@ -1,5 +1,7 @@
 package com.dfortch.javapad.prefs;
 
+import org.apache.logging.log4j.Level;
+
 import java.awt.*;
 import java.util.Locale;
 
@@ -27,6 +29,22 @@ public interface JavaPadUserPreferences {
 
     void setEditorBackgroundColor(Color color);
 
+    long getLargeFileThreshold();
+
+    void setLargeFileThreshold(long threshold);
+
+    long getUndoMemoryLimit();
+
+    void setUndoMemoryLimit(long limit);
+
+    long getTabMemoryBudget();
+
+    void setTabMemoryBudget(long budget);
+
+    Level getLogLevel();
+
+    void setLogLevel(Level level);
+
     Locale getDefaultLocale();
 
     void resetLocale();
@@ -47,8 +65,40 @@ public interface JavaPadUserPreferences {
 
     void resetEditorBackgroundColor();
 
+    long getDefaultLargeFileThreshold();
+
+    void resetLargeFileThreshold();
+
+    long getDefaultUndoMemoryLimit();
+
+    void resetUndoMemoryLimit();
+
+    long getDefaultTabMemoryBudget();
+
+    void resetTabMemoryBudget();
+
+    Level getDefaultLogLevel();
+
+    void resetLogLevel();
+
     void resetAll();
 
+    /**
+     * Returns the current value of every preference at once.
+     */
+    PreferencesSnapshot getSnapshot();
+
+    /**
+     * Blocks until every change made so far is in the backing store.
+     */
+    void flush();
+
+    /**
+     * Runs {@code changes} and tells the listeners about everything they changed in one event.
+     * Transactions can be nested; the outermost one delivers the event.
+     */
+    void transaction(Runnable changes);
+
     void addPreferencesChangeListener(PreferencesChangeListener listener);
 
     void removePreferencesChangeListener(PreferencesChangeListener listener);
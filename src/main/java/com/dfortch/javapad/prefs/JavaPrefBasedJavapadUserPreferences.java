@@ -2,14 +2,21 @@ package com.dfortch.javapad.prefs;
 
 
 import com.dfortch.javapad.Main;
+import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.awt.*;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+import java.util.prefs.BackingStoreException;
 import java.util.prefs.Preferences;
 
 import static com.dfortch.javapad.util.ColorUtils.colorToString;
@@ -17,12 +24,18 @@ import static com.dfortch.javapad.util.ColorUtils.stringToColor;
 
 /**
  * Uses {@link java.util.prefs.Preferences} to store preferences
+ * <p>
+ * The stored values are read once, into a {@link PreferencesSnapshot} that getters return from
+ * without touching the backing store. Setters publish a new snapshot and queue the changed keys
+ * for a writer thread, which puts them in the backing store and flushes it. Changes made while
+ * the writer is busy are written together on its next pass. {@link #flush()} waits for the writer,
+ * and is run on exit so no change is lost.
  */
 public class JavaPrefBasedJavapadUserPreferences extends DynamicJavapadUserPreferences {
 
     private static final Logger log = LogManager.getLogger(JavaPrefBasedJavapadUserPreferences.class);
 
-    private static final Preferences preferences = Preferences.userNodeForPackage(Main.class);
+    private final Preferences preferences;
 
     private final List<PreferencesChangeListener> listeners = new ArrayList<>();
 
@@ -33,35 +46,62 @@ public class JavaPrefBasedJavapadUserPreferences extends DynamicJavapadUserPrefe
     private static final String KEY_EDITOR_FONT_SIZE = "editor_font_size";
     private static final String KEY_EDITOR_FOREGROUND_COLOR = "editor_foreground";
     private static final String KEY_EDITOR_BACKGROUND_COLOR = "editor_background";
+    private static final String KEY_LARGE_FILE_THRESHOLD = "large_file_threshold";
+    private static final String KEY_UNDO_MEMORY_LIMIT = "undo_memory_limit";
+    private static final String KEY_TAB_MEMORY_BUDGET = "tab_memory_budget";
+    private static final String KEY_LOG_LEVEL = "log_level";
+
+    private final Set<Locale> availableLocales;
+
+    private final AtomicReference<PreferencesSnapshot> snapshot;
+
+    private final Object lock = new Object();
+
+    /**
+     * Values not yet in the backing store, by key.
+     */
+    private final Map<String, String> pending = new LinkedHashMap<>();
+
+    /**
+     * The thread writing {@link #pending}, or {@code null} if there is nothing to write.
+     */
+    private Thread writer;
+
+    /**
+     * Nesting of the open transactions. Like the listeners, transactions belong to the EDT.
+     */
+    private int transactionDepth;
+
+    /**
+     * The snapshot before the outermost open transaction.
+     */
+    private PreferencesSnapshot transactionStart;
 
     public JavaPrefBasedJavapadUserPreferences(JavapadUserPreferencesProperties properties) {
+        this(properties, Preferences.userNodeForPackage(Main.class));
+    }
+
+    JavaPrefBasedJavapadUserPreferences(JavapadUserPreferencesProperties properties, Preferences preferences) {
         super(properties);
+        this.preferences = preferences;
+        this.availableLocales = Set.copyOf(Arrays.asList(properties.getAvailableLocales()));
+        this.snapshot = new AtomicReference<>(load());
         log.info("Initialized JavaPrefBasedJavapadUserPreferences with properties: {}", properties);
     }
 
     @Override
     public Locale getLocale() {
-        log.trace("Retrieving locale");
-        String localeString = preferences.get(KEY_LOCALE, getDefaultLocale().toLanguageTag());
-        Locale locale = Locale.forLanguageTag(localeString);
-
-        if (Arrays.asList(properties.getAvailableLocales()).contains(locale)) {
-            log.debug("Locale found: {}", locale);
-        } else {
-            log.warn("Locale not supported, reverting to default locale: {}", properties.getDefaultLocale());
-            locale = properties.getDefaultLocale();
-        }
-        log.trace("Locale retrieved: {}", locale);
-        return locale;
+        return snapshot.get().locale();
     }
 
     @Override
     public void setLocale(Locale locale) {
         log.trace("Setting locale: {}", locale);
-        if (Arrays.asList(getAvailableLocales()).contains(locale)) {
-            preferences.put(KEY_LOCALE, locale.toLanguageTag());
+        if (availableLocales.contains(locale)) {
+            PreferencesSnapshot old = update(current -> current.withLocale(locale),
+                    Map.of(KEY_LOCALE, locale.toLanguageTag()));
             log.info("Locale set to: {}", locale);
-            notifyPreferencesChanged();
+            notifyPreferencesChanged(old);
         } else {
             log.error("Unsupported locale: {}", locale);
             throw new IllegalArgumentException("Unsupported locale: " + locale);
@@ -70,128 +110,268 @@ public class JavaPrefBasedJavapadUserPreferences extends DynamicJavapadUserPrefe
 
     @Override
     public JavapadTheme getTheme() {
-        log.trace("Retrieving theme");
-        String themeString = preferences.get(KEY_THEME, getDefaultTheme().name());
-        JavapadTheme theme = JavapadTheme.valueOf(themeString);
-        log.debug("Theme retrieved: {}", theme);
-        return theme;
+        return snapshot.get().theme();
     }
 
     @Override
     public void setTheme(JavapadTheme theme) {
         log.trace("Setting theme: {}", theme);
-        preferences.put(KEY_THEME, theme.name());
+        PreferencesSnapshot old = update(current -> current.withTheme(theme), Map.of(KEY_THEME, theme.name()));
         log.info("Theme set to: {}", theme);
-        notifyPreferencesChanged();
+        notifyPreferencesChanged(old);
     }
 
     @Override
     public Font getEditorFont() {
-        log.trace("Retrieving editor font");
-        String fontFamily = preferences.get(KEY_EDITOR_FONT_FAMILY, getDefaultEditorFont().getFamily());
-        int fontStyle = preferences.getInt(KEY_EDITOR_FONT_STYLE, getDefaultEditorFont().getStyle());
-        int fontSize = preferences.getInt(KEY_EDITOR_FONT_SIZE, getDefaultEditorFont().getSize());
-        Font font = new Font(fontFamily, fontStyle, fontSize);
-        log.debug("Editor font retrieved: {}", font);
-        return font;
+        return snapshot.get().editorFont();
     }
 
     @Override
     public void setEditorFont(Font font) {
         log.trace("Setting editor font: {}", font);
-        preferences.put(KEY_EDITOR_FONT_FAMILY, font.getFamily());
-        preferences.putInt(KEY_EDITOR_FONT_STYLE, font.getStyle());
-        preferences.putInt(KEY_EDITOR_FONT_SIZE, font.getSize());
+        PreferencesSnapshot old = update(current -> current.withEditorFont(font), fontValues(font));
         log.info("Editor font set to: {}", font);
-        notifyPreferencesChanged();
+        notifyPreferencesChanged(old);
     }
 
     @Override
     public Color getEditorForegroundColor() {
-        log.trace("Retrieving editor foreground color");
-        Color color = getColorFromPreferences(KEY_EDITOR_FOREGROUND_COLOR, getDefaultEditorForegroundColor());
-        log.debug("Editor foreground color retrieved: {}", color);
-        return color;
+        return snapshot.get().editorForegroundColor();
     }
 
     @Override
     public void setEditorForegroundColor(Color color) {
         log.trace("Setting editor foreground color: {}", color);
-        setColorInPreferences(KEY_EDITOR_FOREGROUND_COLOR, color);
+        PreferencesSnapshot old = update(current -> current.withEditorForegroundColor(color),
+                Map.of(KEY_EDITOR_FOREGROUND_COLOR, colorToString(color)));
         log.info("Editor foreground color set to: {}", color);
-        notifyPreferencesChanged();
+        notifyPreferencesChanged(old);
     }
 
     @Override
     public Color getEditorBackgroundColor() {
-        log.trace("Retrieving editor background color");
-        Color color = getColorFromPreferences(KEY_EDITOR_BACKGROUND_COLOR, getDefaultEditorBackgroundColor());
-        log.debug("Editor background color retrieved: {}", color);
-        return color;
+        return snapshot.get().editorBackgroundColor();
     }
 
     @Override
     public void setEditorBackgroundColor(Color color) {
         log.trace("Setting editor background color: {}", color);
-        setColorInPreferences(KEY_EDITOR_BACKGROUND_COLOR, color);
+        PreferencesSnapshot old = update(current -> current.withEditorBackgroundColor(color),
+                Map.of(KEY_EDITOR_BACKGROUND_COLOR, colorToString(color)));
         log.info("Editor background color set to: {}", color);
-        notifyPreferencesChanged();
+        notifyPreferencesChanged(old);
+    }
+
+    @Override
+    public long getLargeFileThreshold() {
+        return snapshot.get().largeFileThreshold();
+    }
+
+    @Override
+    public void setLargeFileThreshold(long threshold) {
+        log.trace("Setting large file threshold: {}", threshold);
+        if (threshold <= 0) {
+            log.error("Invalid large file threshold: {}", threshold);
+            throw new IllegalArgumentException("Large file threshold must be positive: " + threshold);
+        }
+        PreferencesSnapshot old = update(current -> current.withLargeFileThreshold(threshold),
+                Map.of(KEY_LARGE_FILE_THRESHOLD, Long.toString(threshold)));
+        log.info("Large file threshold set to: {}", threshold);
+        notifyPreferencesChanged(old);
+    }
+
+    @Override
+    public long getUndoMemoryLimit() {
+        return snapshot.get().undoMemoryLimit();
+    }
+
+    @Override
+    public void setUndoMemoryLimit(long limit) {
+        log.trace("Setting undo memory limit: {}", limit);
+        if (limit <= 0) {
+            log.error("Invalid undo memory limit: {}", limit);
+            throw new IllegalArgumentException("Undo memory limit must be positive: " + limit);
+        }
+        PreferencesSnapshot old = update(current -> current.withUndoMemoryLimit(limit),
+                Map.of(KEY_UNDO_MEMORY_LIMIT, Long.toString(limit)));
+        log.info("Undo memory limit set to: {}", limit);
+        notifyPreferencesChanged(old);
+    }
+
+    @Override
+    public long getTabMemoryBudget() {
+        return snapshot.get().tabMemoryBudget();
+    }
+
+    @Override
+    public void setTabMemoryBudget(long budget) {
+        log.trace("Setting tab memory budget: {}", budget);
+        if (budget <= 0) {
+            log.error("Invalid tab memory budget: {}", budget);
+            throw new IllegalArgumentException("Tab memory budget must be positive: " + budget);
+        }
+        PreferencesSnapshot old = update(current -> current.withTabMemoryBudget(budget),
+                Map.of(KEY_TAB_MEMORY_BUDGET, Long.toString(budget)));
+        log.info("Tab memory budget set to: {}", budget);
+        notifyPreferencesChanged(old);
+    }
+
+    @Override
+    public Level getLogLevel() {
+        return snapshot.get().logLevel();
+    }
+
+    @Override
+    public void setLogLevel(Level level) {
+        log.trace("Setting log level: {}", level);
+        PreferencesSnapshot old = update(current -> current.withLogLevel(level), Map.of(KEY_LOG_LEVEL, level.name()));
+        log.info("Log level set to: {}", level);
+        notifyPreferencesChanged(old);
     }
 
     @Override
     public void resetLocale() {
         log.trace("Resetting locale to default");
-        preferences.put(KEY_LOCALE, getDefaultLocale().toLanguageTag());
-        notifyPreferencesChanged();
+        PreferencesSnapshot old = update(current -> current.withLocale(getDefaultLocale()),
+                Map.of(KEY_LOCALE, getDefaultLocale().toLanguageTag()));
+        notifyPreferencesChanged(old);
         log.info("Locale reset to default: {}", getDefaultLocale());
     }
 
     @Override
     public void resetTheme() {
         log.trace("Resetting theme to default");
-        preferences.put(KEY_THEME, getDefaultTheme().name());
-        notifyPreferencesChanged();
+        PreferencesSnapshot old = update(current -> current.withTheme(getDefaultTheme()),
+                Map.of(KEY_THEME, getDefaultTheme().name()));
+        notifyPreferencesChanged(old);
         log.info("Theme reset to default: {}", getDefaultTheme());
     }
 
     @Override
     public void resetEditorFont() {
         log.trace("Resetting editor font to default");
-        preferences.put(KEY_EDITOR_FONT_FAMILY, getDefaultEditorFont().getFamily());
-        preferences.putInt(KEY_EDITOR_FONT_STYLE, getDefaultEditorFont().getStyle());
-        preferences.putInt(KEY_EDITOR_FONT_SIZE, getDefaultEditorFont().getSize());
-        notifyPreferencesChanged();
+        PreferencesSnapshot old = update(current -> current.withEditorFont(getDefaultEditorFont()),
+                fontValues(getDefaultEditorFont()));
+        notifyPreferencesChanged(old);
         log.info("Editor font reset to default: {}", getDefaultEditorFont());
     }
 
     @Override
     public void resetEditorForegroundColor() {
         log.trace("Resetting editor foreground color to default");
-        preferences.put(KEY_EDITOR_FOREGROUND_COLOR, colorToString(getDefaultEditorForegroundColor()));
-        notifyPreferencesChanged();
+        PreferencesSnapshot old = update(
+                current -> current.withEditorForegroundColor(getDefaultEditorForegroundColor()),
+                Map.of(KEY_EDITOR_FOREGROUND_COLOR, colorToString(getDefaultEditorForegroundColor())));
+        notifyPreferencesChanged(old);
         log.info("Editor foreground color reset to default: {}", getDefaultEditorForegroundColor());
     }
 
     @Override
     public void resetEditorBackgroundColor() {
         log.trace("Resetting editor background color to default");
-        preferences.put(KEY_EDITOR_BACKGROUND_COLOR, colorToString(getDefaultEditorBackgroundColor()));
-        notifyPreferencesChanged();
+        PreferencesSnapshot old = update(
+                current -> current.withEditorBackgroundColor(getDefaultEditorBackgroundColor()),
+                Map.of(KEY_EDITOR_BACKGROUND_COLOR, colorToString(getDefaultEditorBackgroundColor())));
+        notifyPreferencesChanged(old);
         log.info("Editor background color reset to default: {}", getDefaultEditorBackgroundColor());
     }
 
+    @Override
+    public void resetLargeFileThreshold() {
+        log.trace("Resetting large file threshold to default");
+        PreferencesSnapshot old = update(current -> current.withLargeFileThreshold(getDefaultLargeFileThreshold()),
+                Map.of(KEY_LARGE_FILE_THRESHOLD, Long.toString(getDefaultLargeFileThreshold())));
+        notifyPreferencesChanged(old);
+        log.info("Large file threshold reset to default: {}", getDefaultLargeFileThreshold());
+    }
+
+    @Override
+    public void resetUndoMemoryLimit() {
+        log.trace("Resetting undo memory limit to default");
+        PreferencesSnapshot old = update(current -> current.withUndoMemoryLimit(getDefaultUndoMemoryLimit()),
+                Map.of(KEY_UNDO_MEMORY_LIMIT, Long.toString(getDefaultUndoMemoryLimit())));
+        notifyPreferencesChanged(old);
+        log.info("Undo memory limit reset to default: {}", getDefaultUndoMemoryLimit());
+    }
+
+    @Override
+    public void resetTabMemoryBudget() {
+        log.trace("Resetting tab memory budget to default");
+        PreferencesSnapshot old = update(current -> current.withTabMemoryBudget(getDefaultTabMemoryBudget()),
+                Map.of(KEY_TAB_MEMORY_BUDGET, Long.toString(getDefaultTabMemoryBudget())));
+        notifyPreferencesChanged(old);
+        log.info("Tab memory budget reset to default: {}", getDefaultTabMemoryBudget());
+    }
+
+    @Override
+    public void resetLogLevel() {
+        log.trace("Resetting log level to default");
+        PreferencesSnapshot old = update(current -> current.withLogLevel(getDefaultLogLevel()),
+                Map.of(KEY_LOG_LEVEL, getDefaultLogLevel().name()));
+        notifyPreferencesChanged(old);
+        log.info("Log level reset to default: {}", getDefaultLogLevel());
+    }
+
     @Override
     public void resetAll() {
         log.trace("Resetting all preferences to default");
-        resetLocale();
-        resetTheme();
-        resetEditorFont();
-        resetEditorForegroundColor();
-        resetEditorBackgroundColor();
-        notifyPreferencesChanged();
+        transaction(() -> {
+            resetLocale();
+            resetTheme();
+            resetEditorFont();
+            resetEditorForegroundColor();
+            resetEditorBackgroundColor();
+            resetLargeFileThreshold();
+            resetUndoMemoryLimit();
+            resetTabMemoryBudget();
+            resetLogLevel();
+        });
         log.info("All preferences reset to default");
     }
 
+    @Override
+    public PreferencesSnapshot getSnapshot() {
+        return snapshot.get();
+    }
+
+    @Override
+    public void flush() {
+        log.trace("Enter flush");
+        while (true) {
+            Thread running;
+            synchronized (lock) {
+                running = writer;
+            }
+            if (running == null || running == Thread.currentThread()) {
+                break;
+            }
+            try {
+                running.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.warn("Interrupted while flushing preferences", e);
+                return;
+            }
+        }
+        log.trace("Exit flush");
+    }
+
+    @Override
+    public void transaction(Runnable changes) {
+        if (transactionDepth++ == 0) {
+            transactionStart = snapshot.get();
+        }
+        try {
+            changes.run();
+        } finally {
+            if (--transactionDepth == 0) {
+                PreferencesSnapshot start = transactionStart;
+                transactionStart = null;
+                notifyPreferencesChanged(start);
+            }
+        }
+    }
+
     @Override
     public void addPreferencesChangeListener(PreferencesChangeListener listener) {
         log.trace("Adding preferences change listener: {}", listener);
@@ -206,24 +386,122 @@ public class JavaPrefBasedJavapadUserPreferences extends DynamicJavapadUserPrefe
         log.debug("Preferences change listener removed: {}", listener);
     }
 
+    /**
+     * Returns how many listeners are registered.
+     */
+    public int getPreferencesChangeListenerCount() {
+        return listeners.size();
+    }
+
+    /**
+     * Reads the stored preferences, falling back to the default of every value that is missing or
+     * not valid.
+     */
+    private PreferencesSnapshot load() {
+        log.trace("Loading preferences from the backing store");
+        Locale locale = Locale.forLanguageTag(preferences.get(KEY_LOCALE, getDefaultLocale().toLanguageTag()));
+        if (!availableLocales.contains(locale)) {
+            log.warn("Locale not supported, reverting to default locale: {}", getDefaultLocale());
+            locale = getDefaultLocale();
+        }
+
+        JavapadTheme theme;
+        String themeString = preferences.get(KEY_THEME, getDefaultTheme().name());
+        try {
+            theme = JavapadTheme.valueOf(themeString);
+        } catch (IllegalArgumentException e) {
+            log.warn("Theme not supported, reverting to default theme: {}", getDefaultTheme());
+            theme = getDefaultTheme();
+        }
+
+        Font defaultFont = getDefaultEditorFont();
+        Font font = new Font(preferences.get(KEY_EDITOR_FONT_FAMILY, defaultFont.getFamily()),
+                preferences.getInt(KEY_EDITOR_FONT_STYLE, defaultFont.getStyle()),
+                preferences.getInt(KEY_EDITOR_FONT_SIZE, defaultFont.getSize()));
+
+        PreferencesSnapshot loaded = new PreferencesSnapshot(locale, theme, font,
+                getColorFromPreferences(KEY_EDITOR_FOREGROUND_COLOR, getDefaultEditorForegroundColor()),
+                getColorFromPreferences(KEY_EDITOR_BACKGROUND_COLOR, getDefaultEditorBackgroundColor()),
+                preferences.getLong(KEY_LARGE_FILE_THRESHOLD, getDefaultLargeFileThreshold()),
+                preferences.getLong(KEY_UNDO_MEMORY_LIMIT, getDefaultUndoMemoryLimit()),
+                preferences.getLong(KEY_TAB_MEMORY_BUDGET, getDefaultTabMemoryBudget()),
+                Level.toLevel(preferences.get(KEY_LOG_LEVEL, getDefaultLogLevel().name()), getDefaultLogLevel()));
+        if (log.isDebugEnabled()) {
+            log.debug("Preferences loaded: {}", loaded);
+        }
+        return loaded;
+    }
+
     private Color getColorFromPreferences(String key, Color defaultColor) {
-        log.trace("Getting color from preferences for key: {}", key);
-        String colorString = preferences.get(key, colorToString(defaultColor));
-        Color color = stringToColor(colorString, defaultColor);
-        log.debug("Color retrieved from preferences for key {}: {}", key, color);
-        return color;
+        return stringToColor(preferences.get(key, colorToString(defaultColor)), defaultColor);
     }
 
-    private void setColorInPreferences(String key, Color color) {
-        log.trace("Setting color in preferences for key: {}", key);
-        preferences.put(key, colorToString(color));
-        log.debug("Color set in preferences for key {}: {}", key, color);
+    private static Map<String, String> fontValues(Font font) {
+        return Map.of(KEY_EDITOR_FONT_FAMILY, font.getFamily(),
+                KEY_EDITOR_FONT_STYLE, Integer.toString(font.getStyle()),
+                KEY_EDITOR_FONT_SIZE, Integer.toString(font.getSize()));
     }
 
-    private void notifyPreferencesChanged() {
-        log.trace("Notifying preferences change listeners");
+    /**
+     * Publishes the snapshot {@code change} makes of the current one, then queues {@code values}
+     * for the backing store.
+     *
+     * @return the snapshot before the change
+     */
+    private PreferencesSnapshot update(UnaryOperator<PreferencesSnapshot> change, Map<String, String> values) {
+        PreferencesSnapshot old = snapshot.getAndUpdate(change);
+        synchronized (lock) {
+            pending.putAll(values);
+            if (writer == null) {
+                writer = Thread.ofPlatform().daemon().name("preferences-writer").start(this::writeLoop);
+            }
+        }
+        return old;
+    }
+
+    private void writeLoop() {
+        while (true) {
+            Map<String, String> batch;
+            synchronized (lock) {
+                if (pending.isEmpty()) {
+                    writer = null;
+                    return;
+                }
+                batch = new LinkedHashMap<>(pending);
+                pending.clear();
+            }
+            write(batch);
+        }
+    }
+
+    private void write(Map<String, String> batch) {
+        if (log.isDebugEnabled()) {
+            log.debug("Writing preferences: {}", batch.keySet());
+        }
+        batch.forEach(preferences::put);
+        try {
+            preferences.flush();
+        } catch (BackingStoreException e) {
+            log.error("Failed to write preferences to the backing store", e);
+        }
+    }
+
+    /**
+     * Tells the listeners what changed since {@code oldSnapshot}, unless a transaction is open or
+     * nothing did.
+     */
+    private void notifyPreferencesChanged(PreferencesSnapshot oldSnapshot) {
+        if (transactionDepth > 0) {
+            return;
+        }
+        PreferencesChangeEvent event = PreferencesChangeEvent.between(oldSnapshot, snapshot.get());
+        if (event.isEmpty()) {
+            log.debug("Preferences unchanged, not notifying listeners");
+            return;
+        }
+        log.trace("Notifying preferences change listeners of {}", event.changedKeys());
         for (PreferencesChangeListener listener : listeners) {
-            listener.onPreferencesChanged();
+            listener.onPreferencesChanged(event);
         }
         log.debug("Preferences change listeners notified");
     }
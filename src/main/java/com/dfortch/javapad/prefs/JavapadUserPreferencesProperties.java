@@ -1,5 +1,7 @@
 package com.dfortch.javapad.prefs;
 
+import org.apache.logging.log4j.Level;
+
 import java.awt.*;
 import java.util.Locale;
 
@@ -16,4 +18,12 @@ public interface JavapadUserPreferencesProperties {
     Color getDefaultEditorForegroundColor();
 
     Color getDefaultEditorBackgroundColor();
+
+    long getDefaultLargeFileThreshold();
+
+    long getDefaultUndoMemoryLimit();
+
+    long getDefaultTabMemoryBudget();
+
+    Level getDefaultLogLevel();
 }
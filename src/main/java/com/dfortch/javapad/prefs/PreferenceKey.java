@@ -0,0 +1,31 @@
+package com.dfortch.javapad.prefs;
+
+import java.util.function.Function;
+
+/**
+ * A preference that can change, read from a {@link PreferencesSnapshot}.
+ */
+public enum PreferenceKey {
+    LOCALE(PreferencesSnapshot::locale),
+    THEME(PreferencesSnapshot::theme),
+    EDITOR_FONT(PreferencesSnapshot::editorFont),
+    EDITOR_FOREGROUND_COLOR(PreferencesSnapshot::editorForegroundColor),
+    EDITOR_BACKGROUND_COLOR(PreferencesSnapshot::editorBackgroundColor),
+    LARGE_FILE_THRESHOLD(PreferencesSnapshot::largeFileThreshold),
+    UNDO_MEMORY_LIMIT(PreferencesSnapshot::undoMemoryLimit),
+    TAB_MEMORY_BUDGET(PreferencesSnapshot::tabMemoryBudget),
+    LOG_LEVEL(PreferencesSnapshot::logLevel);
+
+    private final Function<PreferencesSnapshot, Object> accessor;
+
+    PreferenceKey(Function<PreferencesSnapshot, Object> accessor) {
+        this.accessor = accessor;
+    }
+
+    /**
+     * Returns the value of this preference in {@code snapshot}.
+     */
+    public Object getValue(PreferencesSnapshot snapshot) {
+        return accessor.apply(snapshot);
+    }
+}
@@ -0,0 +1,59 @@
+package com.dfortch.javapad.prefs;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * The preferences that changed in one setter call or one
+ * {@link JavaPadUserPreferences#transaction(Runnable) transaction}.
+ *
+ * @param oldSnapshot the preferences before the change
+ * @param newSnapshot the preferences after the change
+ * @param changedKeys the preferences whose value differs between the two
+ */
+public record PreferencesChangeEvent(PreferencesSnapshot oldSnapshot, PreferencesSnapshot newSnapshot,
+                                     Set<PreferenceKey> changedKeys) {
+
+    /**
+     * Compares two snapshots for the preferences that changed.
+     */
+    public static PreferencesChangeEvent between(PreferencesSnapshot oldSnapshot, PreferencesSnapshot newSnapshot) {
+        Set<PreferenceKey> changedKeys = EnumSet.noneOf(PreferenceKey.class);
+        for (PreferenceKey key : PreferenceKey.values()) {
+            if (!Objects.equals(key.getValue(oldSnapshot), key.getValue(newSnapshot))) {
+                changedKeys.add(key);
+            }
+        }
+        return new PreferencesChangeEvent(oldSnapshot, newSnapshot, Collections.unmodifiableSet(changedKeys));
+    }
+
+    public boolean isEmpty() {
+        return changedKeys.isEmpty();
+    }
+
+    public boolean isChanged(PreferenceKey key) {
+        return changedKeys.contains(key);
+    }
+
+    /**
+     * Returns whether any of {@code keys} changed.
+     */
+    public boolean isAnyChanged(PreferenceKey... keys) {
+        for (PreferenceKey key : keys) {
+            if (changedKeys.contains(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public Object getOldValue(PreferenceKey key) {
+        return key.getValue(oldSnapshot);
+    }
+
+    public Object getNewValue(PreferenceKey key) {
+        return key.getValue(newSnapshot);
+    }
+}
@@ -1,5 +1,5 @@
 package com.dfortch.javapad.prefs;
 
 public interface PreferencesChangeListener {
-    void onPreferencesChanged();
+    void onPreferencesChanged(PreferencesChangeEvent event);
 }
@@ -0,0 +1,70 @@
+package com.dfortch.javapad.prefs;
+
+import org.apache.logging.log4j.Level;
+
+import java.awt.*;
+import java.util.Locale;
+
+/**
+ * The values of every preference at one point in time. Setters publish a new snapshot instead of
+ * changing one, so a snapshot can be read from any thread and its values always belong together.
+ *
+ * @param locale                the locale of the user interface
+ * @param theme                 the look and feel
+ * @param editorFont            the font of the text area
+ * @param editorForegroundColor the text color of the text area
+ * @param editorBackgroundColor the background color of the text area
+ * @param largeFileThreshold    the size in bytes above which files open read-only
+ * @param undoMemoryLimit       the memory in bytes the undo history of a buffer may use
+ * @param tabMemoryBudget       the memory in bytes the text of open tabs may use
+ * @param logLevel              the level of the application loggers
+ */
+public record PreferencesSnapshot(Locale locale, JavapadTheme theme, Font editorFont, Color editorForegroundColor,
+                                  Color editorBackgroundColor, long largeFileThreshold, long undoMemoryLimit,
+                                  long tabMemoryBudget, Level logLevel) {
+
+    public PreferencesSnapshot withLocale(Locale locale) {
+        return new PreferencesSnapshot(locale, theme, editorFont, editorForegroundColor, editorBackgroundColor,
+                largeFileThreshold, undoMemoryLimit, tabMemoryBudget, logLevel);
+    }
+
+    public PreferencesSnapshot withTheme(JavapadTheme theme) {
+        return new PreferencesSnapshot(locale, theme, editorFont, editorForegroundColor, editorBackgroundColor,
+                largeFileThreshold, undoMemoryLimit, tabMemoryBudget, logLevel);
+    }
+
+    public PreferencesSnapshot withEditorFont(Font editorFont) {
+        return new PreferencesSnapshot(locale, theme, editorFont, editorForegroundColor, editorBackgroundColor,
+                largeFileThreshold, undoMemoryLimit, tabMemoryBudget, logLevel);
+    }
+
+    public PreferencesSnapshot withEditorForegroundColor(Color editorForegroundColor) {
+        return new PreferencesSnapshot(locale, theme, editorFont, editorForegroundColor, editorBackgroundColor,
+                largeFileThreshold, undoMemoryLimit, tabMemoryBudget, logLevel);
+    }
+
+    public PreferencesSnapshot withEditorBackgroundColor(Color editorBackgroundColor) {
+        return new PreferencesSnapshot(locale, theme, editorFont, editorForegroundColor, editorBackgroundColor,
+                largeFileThreshold, undoMemoryLimit, tabMemoryBudget, logLevel);
+    }
+
+    public PreferencesSnapshot withLargeFileThreshold(long largeFileThreshold) {
+        return new PreferencesSnapshot(locale, theme, editorFont, editorForegroundColor, editorBackgroundColor,
+                largeFileThreshold, undoMemoryLimit, tabMemoryBudget, logLevel);
+    }
+
+    public PreferencesSnapshot withUndoMemoryLimit(long undoMemoryLimit) {
+        return new PreferencesSnapshot(locale, theme, editorFont, editorForegroundColor, editorBackgroundColor,
+                largeFileThreshold, undoMemoryLimit, tabMemoryBudget, logLevel);
+    }
+
+    public PreferencesSnapshot withTabMemoryBudget(long tabMemoryBudget) {
+        return new PreferencesSnapshot(locale, theme, editorFont, editorForegroundColor, editorBackgroundColor,
+                largeFileThreshold, undoMemoryLimit, tabMemoryBudget, logLevel);
+    }
+
+    public PreferencesSnapshot withLogLevel(Level logLevel) {
+        return new PreferencesSnapshot(locale, theme, editorFont, editorForegroundColor, editorBackgroundColor,
+                largeFileThreshold, undoMemoryLimit, tabMemoryBudget, logLevel);
+    }
+}
@@ -0,0 +1,30 @@
+package com.dfortch.javapad.search;
+
+import com.dfortch.javapad.text.BulkCharSequence;
+
+import javax.swing.text.Segment;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * View of a {@link BulkCharSequence}, such as a mapped file, that copies one segment at a time
+ * into a buffer it reuses.
+ */
+class BulkText extends SegmentedText {
+
+    private final BulkCharSequence text;
+
+    private final char[] buffer = new char[SEGMENT_SIZE];
+
+    BulkText(BulkCharSequence text, AtomicBoolean cancelled) {
+        super(text.length(), cancelled);
+        this.text = text;
+    }
+
+    @Override
+    protected void fetch(int start, int count, Segment segment) {
+        text.getChars(start, start + count, buffer, 0);
+        segment.array = buffer;
+        segment.offset = 0;
+        segment.count = count;
+    }
+}
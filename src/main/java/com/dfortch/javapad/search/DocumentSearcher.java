@@ -0,0 +1,342 @@
+package com.dfortch.javapad.search;
+
+import com.dfortch.javapad.text.BulkCharSequence;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.swing.text.Document;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Searches a document in place, without copying it into a string.
+ * <p>
+ * The text is read through {@link SegmentedText}, one segment at a time. Literal queries use
+ * {@link HorspoolMatcher}; regex queries run a {@link Matcher} over the same view. Documents larger
+ * than {@link #CHUNK_SIZE} are split into chunks that are searched in parallel on a
+ * {@link ForkJoinPool}. Each chunk reports the matches that start in it, and results are joined in
+ * document order. Where a match runs into the next chunk, that chunk is scanned again from the
+ * end of the match until it meets a match it already found. Apart from the regex limit described
+ * at {@link #REGION_SLACK}, the results are those of a sequential scan.
+ * <p>
+ * Edits made while a search runs are not seen consistently; callers should keep the document
+ * unchanged or discard results for an older version.
+ */
+public class DocumentSearcher {
+
+    private static final Logger log = LogManager.getLogger(DocumentSearcher.class);
+
+    static final int CHUNK_SIZE = 1 << 20;
+
+    /**
+     * How far past its chunk a regex scan reads. Without a bound, a chunk with no match would
+     * scan on to the end of the document. A match that reaches the bound is looked for again
+     * without it. A match that the engine could only recognise by reading further than this is
+     * missed. That takes a single match of more than 64K chars starting in one chunk of a
+     * multi-chunk document.
+     */
+    private static final int REGION_SLACK = SegmentedText.SEGMENT_SIZE;
+
+    private final ForkJoinPool pool;
+
+    public DocumentSearcher() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public DocumentSearcher(ForkJoinPool pool) {
+        this.pool = Objects.requireNonNull(pool, "Pool must not be null");
+    }
+
+    /**
+     * Starts looking for the first match at or after {@code from}. The results hold at most one
+     * match, with its replacement as in {@link #findAll} when {@code replacement} is not
+     * {@code null}.
+     *
+     * @throws java.util.regex.PatternSyntaxException if a regex query is invalid
+     */
+    public SearchTask findNext(Document document, SearchQuery query, String replacement, int from) {
+        return start(document, query, replacement, from, true);
+    }
+
+    /**
+     * Starts looking for all matches. When {@code replacement} is not {@code null} every match
+     * carries the text that replaces it; for regex queries {@code $n}, {@code ${name}} and
+     * {@code \} escapes are expanded as in {@link Matcher#appendReplacement}.
+     *
+     * @throws java.util.regex.PatternSyntaxException if a regex query is invalid
+     */
+    public SearchTask findAll(Document document, SearchQuery query, String replacement) {
+        return start(document, query, replacement, 0, false);
+    }
+
+    /**
+     * Finds all matches in {@code text} and waits for them, for callers that already run in the
+     * background.
+     *
+     * @throws java.util.concurrent.CancellationException once {@code cancelled} is set
+     */
+    SearchResults findAll(BulkCharSequence text, SearchQuery query, AtomicBoolean cancelled) {
+        Search search = new Search(null, text, query, null, false, cancelled);
+        return pool.invoke(new ChunkTask(search, 0, search.length));
+    }
+
+    private SearchTask start(Document document, SearchQuery query, String replacement, int from, boolean firstOnly) {
+        Objects.requireNonNull(document, "Document must not be null");
+        Objects.requireNonNull(query, "Query must not be null");
+        Search search = new Search(document, null, query, replacement, firstOnly, new AtomicBoolean());
+        int length = search.length;
+        log.debug("Searching {} chars from {} for {}", length, from, query);
+        long startNanos = System.nanoTime();
+        CompletableFuture<SearchResults> future = CompletableFuture.supplyAsync(() -> {
+            SearchResults results = new ChunkTask(search, Math.min(from, length), length).invoke();
+            log.debug("Search finished with {} matches in {} ms", results.size(), (System.nanoTime() - startNanos) / 1_000_000);
+            return results;
+        }, pool);
+        return new SearchTask(search.cancelled, future);
+    }
+
+    /**
+     * State shared by the chunks of one search.
+     */
+    private static final class Search {
+
+        private final Document document;
+
+        private final BulkCharSequence text;
+
+        private final int length;
+
+        private final HorspoolMatcher literal;
+
+        private final Pattern pattern;
+
+        private final String replacement;
+
+        private final boolean firstOnly;
+
+        private final AtomicBoolean cancelled;
+
+        /**
+         * Start of the earliest match found so far when only the first one is wanted.
+         */
+        private final AtomicInteger firstMatch = new AtomicInteger(Integer.MAX_VALUE);
+
+        /**
+         * Searches {@code document}, or {@code text} when the document is {@code null}.
+         */
+        private Search(Document document, BulkCharSequence text, SearchQuery query, String replacement,
+                       boolean firstOnly, AtomicBoolean cancelled) {
+            this.document = document;
+            this.text = text;
+            this.length = document != null ? document.getLength() : text.length();
+            this.literal = query.regex() ? null : new HorspoolMatcher(query.text(), query.matchCase());
+            this.pattern = query.regex() ? query.compile() : null;
+            this.replacement = replacement;
+            this.firstOnly = firstOnly;
+            this.cancelled = cancelled;
+        }
+
+        private SegmentedText newText() {
+            return document != null ? new DocumentText(document, cancelled) : new BulkText(text, cancelled);
+        }
+    }
+
+    private static final class ChunkTask extends RecursiveTask<SearchResults> {
+
+        private final transient Search search;
+
+        private final int start;
+
+        private final int end;
+
+        private ChunkTask(Search search, int start, int end) {
+            this.search = search;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected SearchResults compute() {
+            if (end - start <= CHUNK_SIZE) {
+                return scan();
+            }
+            int middle = start + (end - start) / 2;
+            ChunkTask left = new ChunkTask(search, start, middle);
+            ChunkTask right = new ChunkTask(search, middle, end);
+            right.fork();
+            SearchResults leftResults = left.compute();
+            SearchResults rightResults = right.join();
+            return merge(leftResults, rightResults, middle);
+        }
+
+        /**
+         * Matches have to start before the end of the chunk; only the last chunk also takes an
+         * empty match at the very end of the document.
+         */
+        private int limit() {
+            return end == search.length ? end + 1 : end;
+        }
+
+        private SearchResults scan() {
+            SearchResults results = new SearchResults();
+            if (search.firstOnly && search.firstMatch.get() < start) {
+                return results;
+            }
+            Scanner scanner = new Scanner(search);
+            int from = start;
+            while (from <= end && scanner.find(from, limit())) {
+                results.add(scanner.start, scanner.end, scanner.replacement);
+                if (search.firstOnly) {
+                    search.firstMatch.accumulateAndGet(scanner.start, Math::min);
+                    break;
+                }
+                from = scanner.resumeOffset();
+            }
+            return results;
+        }
+
+        private SearchResults merge(SearchResults left, SearchResults right, int middle) {
+            if (search.firstOnly) {
+                return left.isEmpty() ? right : left;
+            }
+            if (left.isEmpty()) {
+                return right;
+            }
+            int resume = resumeOffset(left.getStart(left.size() - 1), left.getEnd(left.size() - 1));
+            Scanner scanner = null;
+            while (true) {
+                int index = right.indexAtOrAfter(resume);
+                if (resume <= middle || index == 0 || right.getEnd(index - 1) <= resume) {
+                    // Every position from resume up to the next known match was scanned already
+                    left.addAll(right, index);
+                    return left;
+                }
+                // The last match runs into a match of the right chunk, whose text was never tried
+                if (scanner == null) {
+                    scanner = new Scanner(search);
+                }
+                if (resume > end || !scanner.find(resume, limit())) {
+                    return left;
+                }
+                left.add(scanner.start, scanner.end, scanner.replacement);
+                resume = scanner.resumeOffset();
+            }
+        }
+    }
+
+    /**
+     * Finds one match after another over its own view of the document.
+     */
+    private static final class Scanner {
+
+        private final Search search;
+
+        private final SegmentedText text;
+
+        private final Matcher matcher;
+
+        private int start;
+
+        private int end;
+
+        private String replacement;
+
+        private Scanner(Search search) {
+            this.search = search;
+            this.text = search.newText();
+            this.matcher = search.pattern == null ? null
+                    : search.pattern.matcher(text).useTransparentBounds(true).useAnchoringBounds(false);
+        }
+
+        /**
+         * Looks for the first match starting in {@code [from, limit)}.
+         */
+        private boolean find(int from, int limit) {
+            text.checkCancelled();
+            if (matcher == null) {
+                HorspoolMatcher literal = search.literal;
+                int index = literal.indexOf(text, from, (int) Math.min(text.length(), (long) limit + literal.length() - 1));
+                if (index < 0) {
+                    return false;
+                }
+                start = index;
+                end = index + literal.length();
+                replacement = search.replacement;
+                return true;
+            }
+            int regionEnd = (int) Math.min(text.length(), (long) limit + REGION_SLACK);
+            matcher.region(from, regionEnd);
+            if (!matcher.find() || matcher.start() >= limit) {
+                return false;
+            }
+            if (matcher.end() == regionEnd && regionEnd < text.length()) {
+                // The end of the region may have cut the match short
+                matcher.region(from, text.length());
+                if (!matcher.find() || matcher.start() >= limit) {
+                    return false;
+                }
+            }
+            start = matcher.start();
+            end = matcher.end();
+            replacement = search.replacement == null ? null : expand(matcher, search.replacement);
+            return true;
+        }
+
+        private int resumeOffset() {
+            return DocumentSearcher.resumeOffset(start, end);
+        }
+    }
+
+    /**
+     * Returns where the scan goes on after a match; an empty match moves on by one char, as
+     * {@link Matcher#find()} does.
+     */
+    private static int resumeOffset(int start, int end) {
+        return end == start ? end + 1 : end;
+    }
+
+    static String expand(Matcher matcher, String replacement) {
+        StringBuilder result = new StringBuilder();
+        int i = 0;
+        while (i < replacement.length()) {
+            char c = replacement.charAt(i++);
+            if (c == '\\' && i < replacement.length()) {
+                result.append(replacement.charAt(i++));
+            } else if (c == '$' && i < replacement.length() && replacement.charAt(i) == '{') {
+                int close = replacement.indexOf('}', i);
+                if (close < 0) {
+                    throw new IllegalArgumentException("Named group is missing a closing brace: " + replacement);
+                }
+                appendGroup(result, matcher.group(replacement.substring(i + 1, close)));
+                i = close + 1;
+            } else if (c == '$' && i < replacement.length() && Character.isDigit(replacement.charAt(i))) {
+                int group = replacement.charAt(i++) - '0';
+                // Take more digits while they still name an existing group
+                while (i < replacement.length() && Character.isDigit(replacement.charAt(i))) {
+                    int next = group * 10 + replacement.charAt(i) - '0';
+                    if (next > matcher.groupCount()) {
+                        break;
+                    }
+                    group = next;
+                    i++;
+                }
+                appendGroup(result, matcher.group(group));
+            } else {
+                result.append(c);
+            }
+        }
+        return result.toString();
+    }
+
+    private static void appendGroup(StringBuilder result, String group) {
+        if (group != null) {
+            result.append(group);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.dfortch.javapad.search;
+
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Segment;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * View of a document that reads it through {@link Document#getText(int, int, Segment)} with
+ * partial returns, so a {@link com.dfortch.javapad.text.PieceTableDocument} hands out its own
+ * buffers and nothing is copied. Each segment is fetched under the document's read lock.
+ */
+class DocumentText extends SegmentedText {
+
+    private final Document document;
+
+    private BadLocationException failure;
+
+    DocumentText(Document document, AtomicBoolean cancelled) {
+        super(document.getLength(), cancelled);
+        this.document = document;
+    }
+
+    @Override
+    protected void fetch(int start, int count, Segment segment) {
+        document.render(() -> {
+            try {
+                document.getText(start, count, segment);
+            } catch (BadLocationException e) {
+                failure = e;
+            }
+        });
+        if (failure != null) {
+            BadLocationException e = failure;
+            failure = null;
+            throw new IllegalStateException("Document changed during the search", e);
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.dfortch.javapad.search;
+
+import java.io.File;
+
+/**
+ * A match found by {@link FileSearcher}: char offsets into the decoded text of {@code file}, its
+ * 0-based line and a preview of that line.
+ */
+public record FileMatch(File file, int start, int end, int line, String preview) {
+}
@@ -0,0 +1,62 @@
+package com.dfortch.javapad.search;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A running {@link FileSearcher} search.
+ */
+public class FileSearch {
+
+    private final AtomicBoolean cancelled;
+
+    private final CountDownLatch finished = new CountDownLatch(1);
+
+    private volatile Thread walker;
+
+    FileSearch(AtomicBoolean cancelled) {
+        this.cancelled = cancelled;
+    }
+
+    /**
+     * Stops walking the tree and searching files. The listener is still told when the search has
+     * wound down.
+     */
+    public void cancel() {
+        cancelled.set(true);
+        if (walker != null) {
+            walker.interrupt();
+        }
+    }
+
+    public boolean isCancelled() {
+        return cancelled.get();
+    }
+
+    public boolean isDone() {
+        return finished.getCount() == 0;
+    }
+
+    /**
+     * Waits up to {@code timeout} for the search to finish and returns whether it did.
+     */
+    public boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+        return finished.await(timeout, unit);
+    }
+
+    void started(Thread walker) {
+        this.walker = walker;
+    }
+
+    void finished() {
+        finished.countDown();
+    }
+
+    /**
+     * What a finished search went through. {@code skippedFiles} counts binary files and files that
+     * could not be read.
+     */
+    public record Summary(int searchedFiles, int skippedFiles, int matches, boolean cancelled) {
+    }
+}
@@ -0,0 +1,13 @@
+package com.dfortch.javapad.search;
+
+import java.util.List;
+
+/**
+ * Told about a running {@link FileSearch}. Methods are called from background threads, possibly
+ * several at once.
+ */
+public interface FileSearchListener {
+    void onMatches(List<FileMatch> matches);
+
+    void onFinished(FileSearch.Summary summary);
+}
@@ -0,0 +1,231 @@
+package com.dfortch.javapad.search;
+
+import com.dfortch.javapad.io.BinaryFileException;
+import com.dfortch.javapad.io.FileOperations;
+import com.dfortch.javapad.io.MappedTextFile;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Searches every file under a directory.
+ * <p>
+ * One virtual thread walks the tree with {@link Files#walkFileTree} and starts a virtual thread for
+ * each file whose name matches the glob, at most {@link #MAX_CONCURRENT_FILES} at a time. Files are
+ * opened with {@link FileOperations#mapFromFile}, which rejects binary files after looking at their
+ * first bytes and maps the rest, so no file is copied into a string. Matches are reported per
+ * file as soon as it has been searched.
+ */
+public class FileSearcher {
+
+    private static final Logger log = LogManager.getLogger(FileSearcher.class);
+
+    static final int MAX_CONCURRENT_FILES = 16;
+
+    /**
+     * Matches reported per file, so a huge log cannot flood the results.
+     */
+    static final int MAX_MATCHES_PER_FILE = 1000;
+
+    private static final int MAX_PREVIEW_LENGTH = 200;
+
+    /**
+     * Chars kept before the match when a long line has to be cut for the preview.
+     */
+    private static final int PREVIEW_CONTEXT = 40;
+
+    private final FileOperations fileOperations;
+
+    private final DocumentSearcher searcher;
+
+    public FileSearcher(FileOperations fileOperations) {
+        this(fileOperations, new DocumentSearcher());
+    }
+
+    public FileSearcher(FileOperations fileOperations, DocumentSearcher searcher) {
+        this.fileOperations = Objects.requireNonNull(fileOperations, "File operations must not be null");
+        this.searcher = Objects.requireNonNull(searcher, "Searcher must not be null");
+    }
+
+    /**
+     * Starts searching the files under {@code root} whose names match {@code fileGlob}, e.g.
+     * {@code *.properties}.
+     *
+     * @throws java.util.regex.PatternSyntaxException if a regex query is invalid
+     * @throws IllegalArgumentException               if the glob is invalid
+     */
+    public FileSearch start(Path root, String fileGlob, SearchQuery query, FileSearchListener listener) {
+        Objects.requireNonNull(root, "Root must not be null");
+        Objects.requireNonNull(query, "Query must not be null");
+        Objects.requireNonNull(listener, "Listener must not be null");
+        if (query.regex()) {
+            query.compile();
+        }
+        PathMatcher nameMatcher = FileSystems.getDefault().getPathMatcher("glob:" + fileGlob);
+        AtomicBoolean cancelled = new AtomicBoolean();
+        FileSearch search = new FileSearch(cancelled);
+        Run run = new Run(query, nameMatcher, listener, cancelled);
+        log.info("Searching files under {} matching {} for {}", root, fileGlob, query);
+        Thread walker = Thread.ofVirtual().name("file-search").unstarted(() -> {
+            try {
+                run.walk(root);
+            } finally {
+                search.finished();
+            }
+        });
+        search.started(walker);
+        walker.start();
+        return search;
+    }
+
+    /**
+     * State of one search.
+     */
+    private final class Run {
+
+        private final SearchQuery query;
+
+        private final PathMatcher nameMatcher;
+
+        private final FileSearchListener listener;
+
+        private final AtomicBoolean cancelled;
+
+        private final Semaphore permits = new Semaphore(MAX_CONCURRENT_FILES);
+
+        private final AtomicInteger searchedFiles = new AtomicInteger();
+
+        private final AtomicInteger skippedFiles = new AtomicInteger();
+
+        private final AtomicInteger matches = new AtomicInteger();
+
+        private Run(SearchQuery query, PathMatcher nameMatcher, FileSearchListener listener, AtomicBoolean cancelled) {
+            this.query = query;
+            this.nameMatcher = nameMatcher;
+            this.listener = listener;
+            this.cancelled = cancelled;
+        }
+
+        private void walk(Path root) {
+            long startNanos = System.nanoTime();
+            try {
+                Files.walkFileTree(root, new SimpleFileVisitor<>() {
+                    @Override
+                    public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                        return cancelled.get() ? FileVisitResult.TERMINATE : FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                        if (cancelled.get()) {
+                            return FileVisitResult.TERMINATE;
+                        }
+                        if (attrs.isRegularFile() && nameMatcher.matches(file.getFileName())) {
+                            submit(file);
+                        }
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFileFailed(Path file, IOException e) {
+                        log.warn("Skipping {}: {}", file, e.toString());
+                        skippedFiles.incrementAndGet();
+                        return FileVisitResult.CONTINUE;
+                    }
+                });
+            } catch (IOException e) {
+                log.error("Failed to walk {}", root, e);
+            } catch (CancellationException e) {
+                log.debug("File search cancelled while walking {}", root);
+            }
+            // Every permit is back once the last file has been searched
+            permits.acquireUninterruptibly(MAX_CONCURRENT_FILES);
+            FileSearch.Summary summary = new FileSearch.Summary(searchedFiles.get(), skippedFiles.get(), matches.get(),
+                    cancelled.get());
+            log.info("File search finished in {} ms: {}", (System.nanoTime() - startNanos) / 1_000_000, summary);
+            listener.onFinished(summary);
+        }
+
+        private void submit(Path file) {
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CancellationException("File search cancelled");
+            }
+            Thread.ofVirtual().name("file-search-worker").start(() -> {
+                try {
+                    searchFile(file.toFile());
+                } finally {
+                    permits.release();
+                }
+            });
+        }
+
+        private void searchFile(File file) {
+            if (cancelled.get()) {
+                return;
+            }
+            try (MappedTextFile text = fileOperations.mapFromFile(file)) {
+                SearchResults results = searcher.findAll(text, query, cancelled);
+                searchedFiles.incrementAndGet();
+                if (!results.isEmpty()) {
+                    List<FileMatch> fileMatches = toFileMatches(file, text, results);
+                    matches.addAndGet(fileMatches.size());
+                    listener.onMatches(fileMatches);
+                }
+            } catch (BinaryFileException e) {
+                log.debug("Skipping binary file {}", file);
+                skippedFiles.incrementAndGet();
+            } catch (IOException e) {
+                log.warn("Skipping {}: {}", file, e.toString());
+                skippedFiles.incrementAndGet();
+            } catch (CancellationException e) {
+                log.trace("Search of {} cancelled", file);
+            }
+        }
+    }
+
+    private static List<FileMatch> toFileMatches(File file, MappedTextFile text, SearchResults results) {
+        int[] lineBreaks = text.getLineBreaks();
+        int count = Math.min(results.size(), MAX_MATCHES_PER_FILE);
+        List<FileMatch> fileMatches = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int start = results.getStart(i);
+            int line = lineOf(lineBreaks, start);
+            int lineStart = line == 0 ? 0 : lineBreaks[line - 1] + 1;
+            int lineEnd = line < lineBreaks.length ? lineBreaks[line] : text.length();
+            fileMatches.add(new FileMatch(file, start, results.getEnd(i), line, preview(text, lineStart, lineEnd, start)));
+        }
+        return fileMatches;
+    }
+
+    /**
+     * Returns the number of line breaks before {@code offset}.
+     */
+    private static int lineOf(int[] lineBreaks, int offset) {
+        int index = Arrays.binarySearch(lineBreaks, offset);
+        return index < 0 ? -index - 1 : index;
+    }
+
+    private static String preview(MappedTextFile text, int lineStart, int lineEnd, int matchStart) {
+        int start = lineStart;
+        if (lineEnd - lineStart > MAX_PREVIEW_LENGTH) {
+            start = Math.max(lineStart, Math.min(matchStart - PREVIEW_CONTEXT, lineEnd - MAX_PREVIEW_LENGTH));
+        }
+        int end = Math.min(lineEnd, start + MAX_PREVIEW_LENGTH);
+        return text.subSequence(start, end).toString().strip();
+    }
+}
@@ -0,0 +1,76 @@
+package com.dfortch.javapad.search;
+
+import java.util.Arrays;
+
+/**
+ * Finds a literal pattern with the Boyer-Moore-Horspool algorithm.
+ * <p>
+ * The bad character table has 256 entries indexed by the low byte of a char; chars sharing an
+ * entry keep the smallest shift, which is always safe. Searching allocates nothing.
+ */
+public class HorspoolMatcher {
+
+    private static final int TABLE_SIZE = 256;
+
+    private final char[] pattern;
+
+    private final boolean matchCase;
+
+    private final int[] shifts = new int[TABLE_SIZE];
+
+    public HorspoolMatcher(String pattern, boolean matchCase) {
+        if (pattern.isEmpty()) {
+            throw new IllegalArgumentException("Pattern must not be empty");
+        }
+        this.matchCase = matchCase;
+        this.pattern = pattern.toCharArray();
+        if (!matchCase) {
+            for (int i = 0; i < this.pattern.length; i++) {
+                this.pattern[i] = fold(this.pattern[i]);
+            }
+        }
+        int last = this.pattern.length - 1;
+        Arrays.fill(shifts, this.pattern.length);
+        for (int i = 0; i < last; i++) {
+            shifts[this.pattern[i] & (TABLE_SIZE - 1)] = last - i;
+        }
+    }
+
+    public int length() {
+        return pattern.length;
+    }
+
+    /**
+     * Returns the index of the first match starting in {@code [from, to - length())}, or
+     * {@code -1}; the whole match has to lie before {@code to}.
+     */
+    public int indexOf(CharSequence text, int from, int to) {
+        int last = pattern.length - 1;
+        int position = from;
+        while (position + last < to) {
+            char c = text.charAt(position + last);
+            if (!matchCase) {
+                c = fold(c);
+            }
+            if (c == pattern[last] && matchesBefore(text, position, last)) {
+                return position;
+            }
+            position += shifts[c & (TABLE_SIZE - 1)];
+        }
+        return -1;
+    }
+
+    private boolean matchesBefore(CharSequence text, int position, int last) {
+        for (int i = last - 1; i >= 0; i--) {
+            char c = text.charAt(position + i);
+            if ((matchCase ? c : fold(c)) != pattern[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static char fold(char c) {
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+}
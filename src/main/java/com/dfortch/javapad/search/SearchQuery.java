@@ -0,0 +1,26 @@
+package com.dfortch.javapad.search;
+
+import java.util.Objects;
+import java.util.regex.Pattern;
+
+/**
+ * What to look for: literal text, searched with {@link HorspoolMatcher}, or a regular expression.
+ */
+public record SearchQuery(String text, boolean regex, boolean matchCase) {
+
+    public SearchQuery {
+        Objects.requireNonNull(text, "Text must not be null");
+        if (text.isEmpty()) {
+            throw new IllegalArgumentException("Text must not be empty");
+        }
+    }
+
+    /**
+     * Compiles the regular expression of a regex query.
+     *
+     * @throws java.util.regex.PatternSyntaxException if the expression is invalid
+     */
+    public Pattern compile() {
+        return Pattern.compile(text, matchCase ? 0 : Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+    }
+}
@@ -0,0 +1,101 @@
+package com.dfortch.javapad.search;
+
+import java.util.Arrays;
+
+/**
+ * Matches in document order, kept in int arrays so that millions of them stay cheap.
+ */
+public class SearchResults {
+
+    private int[] starts;
+
+    private int[] ends;
+
+    private String[] replacements;
+
+    private int size;
+
+    SearchResults() {
+        this(16);
+    }
+
+    SearchResults(int capacity) {
+        starts = new int[capacity];
+        ends = new int[capacity];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int getStart(int index) {
+        checkIndex(index);
+        return starts[index];
+    }
+
+    public int getEnd(int index) {
+        checkIndex(index);
+        return ends[index];
+    }
+
+    /**
+     * Returns the text that replaces match {@code index}, or {@code null} if none was asked for.
+     */
+    public String getReplacement(int index) {
+        checkIndex(index);
+        return replacements == null ? null : replacements[index];
+    }
+
+    void add(int start, int end, String replacement) {
+        if (size == starts.length) {
+            int capacity = Math.max(16, size * 2);
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+            if (replacements != null) {
+                replacements = Arrays.copyOf(replacements, capacity);
+            }
+        }
+        if (replacement != null && replacements == null) {
+            replacements = new String[starts.length];
+        }
+        starts[size] = start;
+        ends[size] = end;
+        if (replacements != null) {
+            replacements[size] = replacement;
+        }
+        size++;
+    }
+
+    /**
+     * Appends the matches of {@code other} from {@code from} on.
+     */
+    void addAll(SearchResults other, int from) {
+        for (int i = from; i < other.size; i++) {
+            add(other.starts[i], other.ends[i], other.getReplacement(i));
+        }
+    }
+
+    /**
+     * Returns the index of the first match starting at or after {@code offset}, or {@link #size()}.
+     */
+    int indexAtOrAfter(int offset) {
+        int index = Arrays.binarySearch(starts, 0, size, offset);
+        if (index < 0) {
+            return -index - 1;
+        }
+        while (index > 0 && starts[index - 1] == offset) {
+            index--;
+        }
+        return index;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+    }
+}
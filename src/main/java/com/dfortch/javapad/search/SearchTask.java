@@ -0,0 +1,61 @@
+package com.dfortch.javapad.search;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+
+/**
+ * A running search. Cancelling it stops every chunk at its next check, including a regular
+ * expression that is stuck backtracking.
+ */
+public class SearchTask {
+
+    private final AtomicBoolean cancelled;
+
+    private final CompletableFuture<SearchResults> future;
+
+    SearchTask(AtomicBoolean cancelled, CompletableFuture<SearchResults> future) {
+        this.cancelled = cancelled;
+        this.future = future;
+    }
+
+    public void cancel() {
+        cancelled.set(true);
+        future.cancel(false);
+    }
+
+    public boolean isCancelled() {
+        return cancelled.get();
+    }
+
+    public boolean isDone() {
+        return future.isDone();
+    }
+
+    /**
+     * Waits for the search and returns its matches.
+     *
+     * @throws CancellationException if the search was cancelled
+     */
+    public SearchResults join() {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Calls {@code action} with the matches or the failure once the search ends, on the thread that
+     * ended it. A cancelled search fails with {@link CancellationException}.
+     */
+    public void whenComplete(BiConsumer<SearchResults, Throwable> action) {
+        future.whenComplete((results, failure) ->
+                action.accept(results, failure instanceof CompletionException e ? e.getCause() : failure));
+    }
+}
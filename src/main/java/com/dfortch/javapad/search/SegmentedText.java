@@ -0,0 +1,107 @@
+package com.dfortch.javapad.search;
+
+import javax.swing.text.Segment;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Read-only {@link CharSequence} that fetches its text one {@link Segment} at a time, so searching
+ * never needs the whole text in one array.
+ * <p>
+ * Every few thousand reads the view checks its cancel flag and throws
+ * {@link CancellationException}; regular expressions read the text through {@link #charAt}, so this
+ * also stops one that backtracks forever. Instances are not thread-safe.
+ */
+abstract class SegmentedText implements CharSequence {
+
+    static final int SEGMENT_SIZE = 64 * 1024;
+
+    /**
+     * Chars fetched before the requested index, so that stepping back a little, as regular
+     * expressions and the Horspool window do, does not fetch the segment again.
+     */
+    private static final int LOOK_BEHIND = 256;
+
+    private static final int CANCEL_CHECK_MASK = 4096 - 1;
+
+    private final int length;
+
+    private final AtomicBoolean cancelled;
+
+    private final Segment segment = new Segment();
+
+    private int segmentStart;
+
+    private int segmentEnd;
+
+    private int reads;
+
+    SegmentedText(int length, AtomicBoolean cancelled) {
+        this.length = length;
+        this.cancelled = cancelled;
+        segment.setPartialReturn(true);
+    }
+
+    /**
+     * Points {@code segment} at up to {@code count} chars from {@code start}; with partial returns
+     * fewer chars are fine.
+     */
+    protected abstract void fetch(int start, int count, Segment segment);
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if ((++reads & CANCEL_CHECK_MASK) == 0) {
+            checkCancelled();
+        }
+        if (index < segmentStart || index >= segmentEnd) {
+            if (index < 0 || index >= length) {
+                throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + length);
+            }
+            load(index);
+        }
+        return segment.array[segment.offset + index - segmentStart];
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        if (start < 0 || end > length || start > end) {
+            throw new IndexOutOfBoundsException("Range [" + start + ", " + end + ") out of bounds for length " + length);
+        }
+        StringBuilder builder = new StringBuilder(end - start);
+        for (int i = start; i < end; i++) {
+            builder.append(charAt(i));
+        }
+        return builder.toString();
+    }
+
+    @Override
+    public String toString() {
+        return subSequence(0, length).toString();
+    }
+
+    void checkCancelled() {
+        if (cancelled.get()) {
+            throw new CancellationException("Search cancelled");
+        }
+    }
+
+    private void load(int index) {
+        checkCancelled();
+        fetchAt(Math.max(0, index - LOOK_BEHIND));
+        if (index >= segmentEnd) {
+            // The look behind ended at a piece boundary
+            fetchAt(index);
+        }
+    }
+
+    private void fetchAt(int start) {
+        fetch(start, Math.min(SEGMENT_SIZE, length - start), segment);
+        segmentStart = start;
+        segmentEnd = start + segment.count;
+    }
+}
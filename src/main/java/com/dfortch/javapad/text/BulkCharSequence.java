@@ -0,0 +1,10 @@
+package com.dfortch.javapad.text;
+
+/**
+ * A {@link CharSequence} that can copy a range of chars in one call, so {@link PieceTable} does not
+ * have to go through {@link #charAt(int)} for every char of a large original buffer.
+ */
+public interface BulkCharSequence extends CharSequence {
+
+    void getChars(int srcBegin, int srcEnd, char[] dst, int dstBegin);
+}
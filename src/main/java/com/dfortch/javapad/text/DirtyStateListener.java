@@ -0,0 +1,5 @@
+package com.dfortch.javapad.text;
+
+public interface DirtyStateListener {
+    void onDirtyStateChanged(boolean dirty);
+}
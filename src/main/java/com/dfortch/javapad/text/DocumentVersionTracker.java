@@ -0,0 +1,288 @@
+package com.dfortch.javapad.text;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.swing.event.UndoableEditEvent;
+import javax.swing.event.UndoableEditListener;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Segment;
+import javax.swing.undo.CannotRedoException;
+import javax.swing.undo.CannotUndoException;
+import javax.swing.undo.UndoableEdit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Tracks whether a document differs from its last saved state without looking at its text.
+ * <p>
+ * Every edit gets a new version number and is handed on to the undo listener wrapped in an edit
+ * that moves the current version back and forth when it is undone or redone. The document is clean
+ * when the current version is the saved one, so undoing back to the saved state makes it clean
+ * again at no cost.
+ * <p>
+ * Optionally a copy of the saved text catches edits that cancel each other out without undo,
+ * such as typing a character and deleting it. The copy is only kept for documents up to
+ * {@link #setContentMatchLimit(int)} chars, and the text is only compared with it when the length
+ * matches the saved length. The comparison stops at the first char that differs.
+ */
+public class DocumentVersionTracker implements UndoableEditListener {
+
+    private static final Logger log = LogManager.getLogger(DocumentVersionTracker.class);
+
+    private final Document document;
+
+    private final UndoableEditListener undoListener;
+
+    private final List<DirtyStateListener> listeners = new ArrayList<>();
+
+    private final Segment segment = new Segment();
+
+    private long nextVersion;
+
+    private long version;
+
+    private long savedVersion;
+
+    private long editCount;
+
+    private int contentMatchLimit;
+
+    /**
+     * The saved text, or {@code null} when it is unknown or longer than the limit.
+     */
+    private String savedText;
+
+    private boolean dirty;
+
+    public DocumentVersionTracker(Document document, UndoableEditListener undoListener) {
+        this.document = Objects.requireNonNull(document, "Document must not be null");
+        this.undoListener = Objects.requireNonNull(undoListener, "Undo listener must not be null");
+        document.addUndoableEditListener(this);
+        markSaved();
+    }
+
+    /**
+     * Stops tracking the document. Edits already handed to the undo listener keep working.
+     */
+    public void detach() {
+        document.removeUndoableEditListener(this);
+        listeners.clear();
+    }
+
+    /**
+     * Enables comparing the text with the saved text for documents of at most {@code limit} chars;
+     * {@code 0} disables it.
+     */
+    public void setContentMatchLimit(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Content match limit must not be negative");
+        }
+        this.contentMatchLimit = limit;
+        if (savedVersion == version) {
+            captureSavedText();
+        }
+    }
+
+    public void addDirtyStateListener(DirtyStateListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeDirtyStateListener(DirtyStateListener listener) {
+        listeners.remove(listener);
+    }
+
+    public boolean isDirty() {
+        return dirty;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns how many edits, undos and redos were applied since the tracker was created.
+     */
+    public long getEditCount() {
+        return editCount;
+    }
+
+    /**
+     * Records the current version as the saved one.
+     */
+    public void markSaved() {
+        markSaved(version);
+    }
+
+    /**
+     * Records {@code savedVersion} as the saved one, for saves that wrote a snapshot taken at that
+     * version while editing went on. The document stays dirty if it was edited since.
+     */
+    public void markSaved(long savedVersion) {
+        this.savedVersion = savedVersion;
+        if (savedVersion == version) {
+            captureSavedText();
+        } else {
+            savedText = null;
+        }
+        setDirty(savedVersion != version);
+        log.debug("Document marked saved at version {}", savedVersion);
+    }
+
+    /**
+     * Records that no version of the document matches the saved file, e.g. for text restored from
+     * a swap file that held unsaved changes. The document stays dirty until the next save.
+     */
+    public void markUnsaved() {
+        this.savedVersion = -1;
+        savedText = null;
+        setDirty(true);
+        log.debug("Document marked unsaved");
+    }
+
+    @Override
+    public void undoableEditHappened(UndoableEditEvent e) {
+        long before = version;
+        long after = ++nextVersion;
+        moveTo(after);
+        undoListener.undoableEditHappened(new UndoableEditEvent(e.getSource(), new VersionedEdit(e.getEdit(), before, after)));
+    }
+
+    private void moveTo(long newVersion) {
+        version = newVersion;
+        editCount++;
+        setDirty(version != savedVersion && !matchesSavedContent());
+    }
+
+    private void setDirty(boolean dirty) {
+        if (this.dirty == dirty) {
+            return;
+        }
+        this.dirty = dirty;
+        log.debug("Document dirty state changed to {}", dirty);
+        for (DirtyStateListener listener : List.copyOf(listeners)) {
+            listener.onDirtyStateChanged(dirty);
+        }
+    }
+
+    private void captureSavedText() {
+        int length = document.getLength();
+        if (length > contentMatchLimit) {
+            savedText = null;
+            return;
+        }
+        try {
+            savedText = document.getText(0, length);
+        } catch (BadLocationException e) {
+            throw new IllegalStateException("Failed to copy document content", e);
+        }
+    }
+
+    private boolean matchesSavedContent() {
+        if (savedText == null || document.getLength() != savedText.length()) {
+            return false;
+        }
+        int offset = 0;
+        int length = savedText.length();
+        segment.setPartialReturn(true);
+        try {
+            while (offset < length) {
+                document.getText(offset, length - offset, segment);
+                for (int i = 0; i < segment.count; i++) {
+                    if (segment.array[segment.offset + i] != savedText.charAt(offset + i)) {
+                        return false;
+                    }
+                }
+                offset += segment.count;
+            }
+        } catch (BadLocationException e) {
+            throw new IllegalStateException("Failed to compare document content", e);
+        }
+        return true;
+    }
+
+    /**
+     * Moves the tracked version along with the wrapped edit.
+     */
+    class VersionedEdit implements UndoableEdit {
+
+        private final UndoableEdit edit;
+
+        private final long before;
+
+        private long after;
+
+        private VersionedEdit(UndoableEdit edit, long before, long after) {
+            this.edit = edit;
+            this.before = before;
+            this.after = after;
+        }
+
+        UndoableEdit getEdit() {
+            return edit;
+        }
+
+        @Override
+        public void undo() throws CannotUndoException {
+            edit.undo();
+            moveTo(before);
+        }
+
+        @Override
+        public boolean canUndo() {
+            return edit.canUndo();
+        }
+
+        @Override
+        public void redo() throws CannotRedoException {
+            edit.redo();
+            moveTo(after);
+        }
+
+        @Override
+        public boolean canRedo() {
+            return edit.canRedo();
+        }
+
+        @Override
+        public void die() {
+            edit.die();
+        }
+
+        @Override
+        public boolean addEdit(UndoableEdit anEdit) {
+            if (anEdit instanceof VersionedEdit other && edit.addEdit(other.edit)) {
+                after = other.after;
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public boolean replaceEdit(UndoableEdit anEdit) {
+            return false;
+        }
+
+        @Override
+        public boolean isSignificant() {
+            return edit.isSignificant();
+        }
+
+        @Override
+        public String getPresentationName() {
+            return edit.getPresentationName();
+        }
+
+        @Override
+        public String getUndoPresentationName() {
+            return edit.getUndoPresentationName();
+        }
+
+        @Override
+        public String getRedoPresentationName() {
+            return edit.getRedoPresentationName();
+        }
+    }
+}
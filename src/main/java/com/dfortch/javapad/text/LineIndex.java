@@ -0,0 +1,34 @@
+package com.dfortch.javapad.text;
+
+/**
+ * Maps between char offsets and zero based line numbers of a text.
+ * <p>
+ * Lines are separated by {@code '\n'}; an offset right after a line break belongs to the next line,
+ * and the length of the text is a valid offset on the last line. Implementations answer every
+ * query in logarithmic time, so callers such as the status bar may ask on every caret move.
+ */
+public interface LineIndex {
+
+    int getLineCount();
+
+    /**
+     * Returns the line containing {@code offset}.
+     *
+     * @throws IndexOutOfBoundsException if {@code offset} is negative or past the end of the text
+     */
+    int getLineOfOffset(int offset);
+
+    /**
+     * Returns the offset of the first char of {@code line}.
+     *
+     * @throws IndexOutOfBoundsException if there is no such line
+     */
+    int getLineStartOffset(int line);
+
+    /**
+     * Returns the distance of {@code offset} from the start of its line.
+     */
+    default int getColumnOfOffset(int offset) {
+        return offset - getLineStartOffset(getLineOfOffset(offset));
+    }
+}
@@ -0,0 +1,716 @@
+package com.dfortch.javapad.text;
+
+import javax.swing.text.Segment;
+import java.nio.CharBuffer;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Piece table over an immutable original buffer and an append-only add buffer.
+ * <p>
+ * Pieces are kept in an implicit treap ordered by document position, where every node caches the
+ * length and the number of line breaks of its subtree. Edits, offset lookups and line lookups are
+ * therefore {@code O(log pieces)}, and the original text is never copied.
+ * <p>
+ * This class is not thread-safe; {@link PieceTableContent} relies on the document lock.
+ */
+public class PieceTable {
+
+    private static final int INITIAL_ADD_CAPACITY = 1024;
+
+    private static final int[] NO_LINE_BREAKS = new int[0];
+
+    /**
+     * Rough size of a piece, for {@link #estimateMemoryUsage()}.
+     */
+    private static final long PIECE_BYTES = 48;
+
+    private final CharSequence original;
+
+    private final int[] originalLineBreaks;
+
+    private char[] addBuffer = new char[INITIAL_ADD_CAPACITY];
+
+    private int addLength;
+
+    private int[] addLineBreaks = new int[64];
+
+    private int addLineBreakCount;
+
+    private Piece root;
+
+    private Piece splitLeft;
+
+    private Piece splitRight;
+
+    public PieceTable() {
+        this("");
+    }
+
+    public PieceTable(CharSequence original) {
+        this(original, null);
+    }
+
+    /**
+     * Creates a table over {@code original} using the given sorted offsets of its line breaks, for
+     * callers that already scanned the text while loading it. When {@code originalLineBreaks} is
+     * {@code null} the text is scanned here.
+     */
+    public PieceTable(CharSequence original, int[] originalLineBreaks) {
+        this.original = Objects.requireNonNull(original, "Original text must not be null");
+        this.originalLineBreaks = originalLineBreaks != null ? originalLineBreaks : indexLineBreaks(original);
+        if (original.length() > 0) {
+            root = new Piece(false, 0, original.length(), this.originalLineBreaks.length);
+        }
+    }
+
+    public int length() {
+        return totalLength(root);
+    }
+
+    public int getLineBreakCount() {
+        return totalLineBreaks(root);
+    }
+
+    public int getPieceCount() {
+        return totalPieces(root);
+    }
+
+    /**
+     * Returns the number of pieces holding the chars in {@code [offset, offset + length)}, which is
+     * what {@link #remove} would detach apart from splitting the two boundary pieces.
+     */
+    public int countPieces(int offset, int length) {
+        checkRange(offset, length);
+        if (length == 0) {
+            return 0;
+        }
+        return pieceIndexAt(offset + length - 1) - pieceIndexAt(offset) + 1;
+    }
+
+    /**
+     * Returns the number of chars held by the add buffer, i.e. the text typed or pasted since the
+     * table was created. The original buffer is not included.
+     */
+    public int getAddBufferLength() {
+        return addLength;
+    }
+
+    /**
+     * Returns a rough estimate of the heap the table keeps alive: the add buffer, the line break
+     * offsets, the pieces and the original text when it is a string. An original that lives
+     * elsewhere, such as a mapped file, is not counted.
+     */
+    public long estimateMemoryUsage() {
+        long bytes = 2L * addBuffer.length + 4L * (originalLineBreaks.length + addLineBreaks.length)
+                + PIECE_BYTES * getPieceCount();
+        if (original instanceof String) {
+            bytes += 2L * original.length();
+        }
+        return bytes;
+    }
+
+    /**
+     * Grows the add buffer so that {@code capacity} chars can be appended without reallocating it.
+     * Loaders call this before the table is shared so that growing never happens on a hot path.
+     */
+    public void ensureAddCapacity(int capacity) {
+        if (capacity > addBuffer.length) {
+            addBuffer = Arrays.copyOf(addBuffer, Math.min(capacity, Integer.MAX_VALUE - 8));
+        }
+    }
+
+    public char charAt(int offset) {
+        checkOffset(offset, length() - 1);
+        Piece node = root;
+        int relative = offset;
+        while (true) {
+            int leftLength = totalLength(node.left);
+            if (relative < leftLength) {
+                node = node.left;
+            } else if (relative < leftLength + node.length) {
+                return bufferCharAt(node.added, node.start + relative - leftLength);
+            } else {
+                relative -= leftLength + node.length;
+                node = node.right;
+            }
+        }
+    }
+
+    public void getChars(int offset, int length, char[] dst, int dstOffset) {
+        checkRange(offset, length);
+        copyChars(root, offset, length, dst, dstOffset);
+    }
+
+    /**
+     * Fills {@code segment} with {@code length} chars starting at {@code offset}. When the range lies
+     * inside a single piece whose buffer is array backed, the segment points straight into that
+     * buffer instead of copying. With {@link Segment#isPartialReturn()} set, only the part that lies
+     * in the first piece is returned so callers can walk the text without copies.
+     */
+    public void getText(int offset, int length, Segment segment) {
+        checkRange(offset, length);
+        Piece node = root;
+        int relative = offset;
+        while (node != null) {
+            int leftLength = totalLength(node.left);
+            if (relative < leftLength) {
+                node = node.left;
+            } else if (relative < leftLength + node.length) {
+                int pieceOffset = relative - leftLength;
+                int available = Math.min(length, node.length - pieceOffset);
+                if ((available == length || segment.isPartialReturn())
+                        && shareBuffer(node, node.start + pieceOffset, available, segment)) {
+                    return;
+                }
+                break;
+            } else {
+                relative -= leftLength + node.length;
+                node = node.right;
+            }
+        }
+
+        char[] chars = new char[length];
+        copyChars(root, offset, length, chars, 0);
+        segment.array = chars;
+        segment.offset = 0;
+        segment.count = length;
+    }
+
+    /**
+     * Returns an immutable view of the current text that stays valid while the table keeps being
+     * edited, so it can be read on another thread. Taking it costs {@code O(pieces)}: both buffers
+     * are never overwritten, so only the piece boundaries are copied.
+     */
+    public Snapshot snapshot() {
+        int count = getPieceCount();
+        Snapshot snapshot = new Snapshot(original, addBuffer, count);
+        collectPieces(root, snapshot, 0);
+        snapshot.offsets[count] = length();
+        return snapshot;
+    }
+
+    private static int collectPieces(Piece node, Snapshot snapshot, int index) {
+        while (node != null) {
+            index = collectPieces(node.left, snapshot, index);
+            snapshot.added[index] = node.added;
+            snapshot.starts[index] = node.start;
+            snapshot.offsets[index + 1] = snapshot.offsets[index] + node.length;
+            index++;
+            node = node.right;
+        }
+        return index;
+    }
+
+    public String getString(int offset, int length) {
+        char[] chars = new char[length];
+        getChars(offset, length, chars, 0);
+        return new String(chars);
+    }
+
+    public void insert(int offset, CharSequence text) {
+        checkOffset(offset, length());
+        Objects.requireNonNull(text, "Text must not be null");
+        if (text.isEmpty()) {
+            return;
+        }
+
+        int start = addLength;
+        int lineBreaks = appendToAddBuffer(text);
+
+        if (offset > 0 && extendPieceEndingAt(offset, start, text.length(), lineBreaks)) {
+            return;
+        }
+
+        split(root, offset);
+        Piece left = splitLeft;
+        Piece right = splitRight;
+        root = merge(merge(left, new Piece(true, start, text.length(), lineBreaks)), right);
+    }
+
+    /**
+     * Removes {@code length} chars at {@code offset} and returns the detached pieces. The returned
+     * handle still references the immutable buffers, so it can be put back with {@link #restore}
+     * without the removed text ever being copied.
+     */
+    public Piece remove(int offset, int length) {
+        checkRange(offset, length);
+        if (length == 0) {
+            return null;
+        }
+
+        split(root, offset);
+        Piece head = splitLeft;
+        split(splitRight, length);
+        Piece removed = splitLeft;
+        Piece tail = splitRight;
+        root = merge(head, tail);
+        return removed;
+    }
+
+    /**
+     * Inserts pieces previously detached by {@link #remove} back at {@code offset}.
+     */
+    public void restore(int offset, Piece pieces) {
+        checkOffset(offset, length());
+        if (pieces == null) {
+            return;
+        }
+        split(root, offset);
+        Piece left = splitLeft;
+        Piece right = splitRight;
+        root = merge(merge(left, pieces), right);
+    }
+
+    public int getLineCount() {
+        return totalLineBreaks(root) + 1;
+    }
+
+    /**
+     * Returns the zero based line containing {@code offset}. An offset right after a line break
+     * belongs to the next line.
+     */
+    public int getLineOfOffset(int offset) {
+        checkOffset(offset, length());
+        int line = 0;
+        Piece node = root;
+        int relative = offset;
+        while (node != null) {
+            int leftLength = totalLength(node.left);
+            if (relative < leftLength) {
+                node = node.left;
+            } else if (relative <= leftLength + node.length) {
+                line += totalLineBreaks(node.left);
+                int pieceOffset = relative - leftLength;
+                if (pieceOffset == node.length) {
+                    line += node.lineBreaks;
+                    relative -= leftLength + node.length;
+                    node = node.right;
+                    continue;
+                }
+                return line + countLineBreaks(node.added, node.start, node.start + pieceOffset);
+            } else {
+                line += totalLineBreaks(node.left) + node.lineBreaks;
+                relative -= leftLength + node.length;
+                node = node.right;
+            }
+        }
+        return line;
+    }
+
+    /**
+     * Returns the offset of the first char of {@code line}.
+     */
+    public int getLineStartOffset(int line) {
+        if (line < 0 || line >= getLineCount()) {
+            throw new IndexOutOfBoundsException("Line " + line + " out of range [0, " + getLineCount() + ")");
+        }
+        if (line == 0) {
+            return 0;
+        }
+
+        int remaining = line;
+        int offset = 0;
+        Piece node = root;
+        while (true) {
+            int leftBreaks = totalLineBreaks(node.left);
+            if (remaining <= leftBreaks) {
+                node = node.left;
+            } else if (remaining <= leftBreaks + node.lineBreaks) {
+                offset += totalLength(node.left);
+                int[] breaks = lineBreaks(node.added);
+                int first = lowerBound(breaks, lineBreakCount(node.added), node.start);
+                int breakPosition = breaks[first + remaining - leftBreaks - 1];
+                return offset + breakPosition - node.start + 1;
+            } else {
+                remaining -= leftBreaks + node.lineBreaks;
+                offset += totalLength(node.left) + node.length;
+                node = node.right;
+            }
+        }
+    }
+
+    private boolean extendPieceEndingAt(int offset, int addStart, int length, int lineBreaks) {
+        Piece[] path = new Piece[64];
+        int depth = 0;
+        Piece node = root;
+        int relative = offset;
+        while (node != null && depth < path.length) {
+            path[depth++] = node;
+            int leftLength = totalLength(node.left);
+            if (relative <= leftLength) {
+                node = node.left;
+            } else if (relative <= leftLength + node.length) {
+                if (relative != leftLength + node.length || !node.added || node.start + node.length != addStart) {
+                    return false;
+                }
+                node.length += length;
+                node.lineBreaks += lineBreaks;
+                for (int i = 0; i < depth; i++) {
+                    path[i].totalLength += length;
+                    path[i].totalLineBreaks += lineBreaks;
+                }
+                return true;
+            } else {
+                relative -= leftLength + node.length;
+                node = node.right;
+            }
+        }
+        return false;
+    }
+
+    private int appendToAddBuffer(CharSequence text) {
+        int length = text.length();
+        if (addLength + length > addBuffer.length) {
+            long newCapacity = Math.max((long) addBuffer.length * 2, (long) addLength + length);
+            addBuffer = Arrays.copyOf(addBuffer, (int) Math.min(newCapacity, Integer.MAX_VALUE - 8));
+        }
+
+        int lineBreaks = 0;
+        if (text instanceof String string) {
+            string.getChars(0, length, addBuffer, addLength);
+        } else {
+            for (int i = 0; i < length; i++) {
+                addBuffer[addLength + i] = text.charAt(i);
+            }
+        }
+        for (int i = 0; i < length; i++) {
+            if (addBuffer[addLength + i] == '\n') {
+                if (addLineBreakCount == addLineBreaks.length) {
+                    addLineBreaks = Arrays.copyOf(addLineBreaks, addLineBreaks.length * 2);
+                }
+                addLineBreaks[addLineBreakCount++] = addLength + i;
+                lineBreaks++;
+            }
+        }
+        addLength += length;
+        return lineBreaks;
+    }
+
+    private void split(Piece node, int offset) {
+        if (node == null) {
+            splitLeft = null;
+            splitRight = null;
+            return;
+        }
+
+        int leftLength = totalLength(node.left);
+        if (offset <= leftLength) {
+            split(node.left, offset);
+            node.left = splitRight;
+            update(node);
+            splitRight = node;
+        } else if (offset >= leftLength + node.length) {
+            split(node.right, offset - leftLength - node.length);
+            node.right = splitLeft;
+            update(node);
+            splitLeft = node;
+        } else {
+            int cut = offset - leftLength;
+            Piece tail = new Piece(node.added, node.start + cut, node.length - cut,
+                    countLineBreaks(node.added, node.start + cut, node.start + node.length));
+            Piece right = node.right;
+            node.length = cut;
+            node.lineBreaks -= tail.lineBreaks;
+            node.right = null;
+            update(node);
+            splitLeft = node;
+            splitRight = merge(tail, right);
+        }
+    }
+
+    private Piece merge(Piece left, Piece right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            update(left);
+            return left;
+        }
+        right.left = merge(left, right.left);
+        update(right);
+        return right;
+    }
+
+    private void copyChars(Piece node, int offset, int length, char[] dst, int dstOffset) {
+        while (node != null && length > 0) {
+            int leftLength = totalLength(node.left);
+            if (offset < leftLength) {
+                int fromLeft = Math.min(length, leftLength - offset);
+                copyChars(node.left, offset, fromLeft, dst, dstOffset);
+                offset += fromLeft;
+                length -= fromLeft;
+                dstOffset += fromLeft;
+                continue;
+            }
+            int pieceOffset = offset - leftLength;
+            if (pieceOffset < node.length) {
+                int fromPiece = Math.min(length, node.length - pieceOffset);
+                copyFromBuffer(node.added, node.start + pieceOffset, fromPiece, dst, dstOffset);
+                offset += fromPiece;
+                length -= fromPiece;
+                dstOffset += fromPiece;
+            }
+            offset -= leftLength + node.length;
+            node = node.right;
+        }
+    }
+
+    private void copyFromBuffer(boolean added, int start, int length, char[] dst, int dstOffset) {
+        copyFromBuffer(original, addBuffer, added, start, length, dst, dstOffset);
+    }
+
+    private static void copyFromBuffer(CharSequence original, char[] addBuffer, boolean added, int start, int length,
+                                       char[] dst, int dstOffset) {
+        if (added) {
+            System.arraycopy(addBuffer, start, dst, dstOffset, length);
+        } else if (original instanceof String string) {
+            string.getChars(start, start + length, dst, dstOffset);
+        } else if (original instanceof CharBuffer buffer && buffer.hasArray()) {
+            System.arraycopy(buffer.array(), buffer.arrayOffset() + buffer.position() + start, dst, dstOffset, length);
+        } else if (original instanceof BulkCharSequence bulk) {
+            bulk.getChars(start, start + length, dst, dstOffset);
+        } else {
+            for (int i = 0; i < length; i++) {
+                dst[dstOffset + i] = original.charAt(start + i);
+            }
+        }
+    }
+
+    private boolean shareBuffer(Piece node, int start, int length, Segment segment) {
+        if (node.added) {
+            segment.array = addBuffer;
+            segment.offset = start;
+        } else if (original instanceof CharBuffer buffer && buffer.hasArray()) {
+            segment.array = buffer.array();
+            segment.offset = buffer.arrayOffset() + buffer.position() + start;
+        } else {
+            return false;
+        }
+        segment.count = length;
+        return true;
+    }
+
+    private char bufferCharAt(boolean added, int index) {
+        return added ? addBuffer[index] : original.charAt(index);
+    }
+
+    private int countLineBreaks(boolean added, int from, int to) {
+        int[] breaks = lineBreaks(added);
+        int count = lineBreakCount(added);
+        return lowerBound(breaks, count, to) - lowerBound(breaks, count, from);
+    }
+
+    private int[] lineBreaks(boolean added) {
+        return added ? addLineBreaks : originalLineBreaks;
+    }
+
+    private int lineBreakCount(boolean added) {
+        return added ? addLineBreakCount : originalLineBreaks.length;
+    }
+
+    private void checkOffset(int offset, int max) {
+        if (offset < 0 || offset > max) {
+            throw new IndexOutOfBoundsException("Offset " + offset + " out of range [0, " + max + "]");
+        }
+    }
+
+    private void checkRange(int offset, int length) {
+        if (offset < 0 || length < 0 || offset + length > length()) {
+            throw new IndexOutOfBoundsException("Range [" + offset + ", " + (offset + length) + ") out of range [0, "
+                    + length() + "]");
+        }
+    }
+
+    private static int[] indexLineBreaks(CharSequence text) {
+        int length = text.length();
+        int count = 0;
+        for (int i = 0; i < length; i++) {
+            if (text.charAt(i) == '\n') {
+                count++;
+            }
+        }
+        if (count == 0) {
+            return NO_LINE_BREAKS;
+        }
+        int[] breaks = new int[count];
+        int index = 0;
+        for (int i = 0; i < length; i++) {
+            if (text.charAt(i) == '\n') {
+                breaks[index++] = i;
+            }
+        }
+        return breaks;
+    }
+
+    private static int lowerBound(int[] values, int count, int key) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (values[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int pieceIndexAt(int offset) {
+        int index = 0;
+        Piece node = root;
+        int relative = offset;
+        while (true) {
+            int leftLength = totalLength(node.left);
+            if (relative < leftLength) {
+                node = node.left;
+            } else if (relative < leftLength + node.length) {
+                return index + totalPieces(node.left);
+            } else {
+                index += totalPieces(node.left) + 1;
+                relative -= leftLength + node.length;
+                node = node.right;
+            }
+        }
+    }
+
+    private static int totalPieces(Piece node) {
+        return node == null ? 0 : node.totalPieces;
+    }
+
+    private static int totalLength(Piece node) {
+        return node == null ? 0 : node.totalLength;
+    }
+
+    private static int totalLineBreaks(Piece node) {
+        return node == null ? 0 : node.totalLineBreaks;
+    }
+
+    private static void update(Piece node) {
+        node.totalLength = totalLength(node.left) + node.length + totalLength(node.right);
+        node.totalLineBreaks = totalLineBreaks(node.left) + node.lineBreaks + totalLineBreaks(node.right);
+        node.totalPieces = totalPieces(node.left) + 1 + totalPieces(node.right);
+    }
+
+    /**
+     * A span of one of the two buffers. Also used as the handle for text detached by
+     * {@link PieceTable#remove}, in which case it is the root of the detached subtree.
+     */
+    public static final class Piece {
+
+        private final boolean added;
+
+        private final int start;
+
+        private final int priority;
+
+        private int length;
+
+        private int lineBreaks;
+
+        private Piece left;
+
+        private Piece right;
+
+        private int totalLength;
+
+        private int totalLineBreaks;
+
+        private int totalPieces;
+
+        private Piece(boolean added, int start, int length, int lineBreaks) {
+            this.added = added;
+            this.start = start;
+            this.length = length;
+            this.lineBreaks = lineBreaks;
+            this.priority = ThreadLocalRandom.current().nextInt();
+            this.totalLength = length;
+            this.totalLineBreaks = lineBreaks;
+            this.totalPieces = 1;
+        }
+
+        public int getTotalLength() {
+            return totalLength;
+        }
+    }
+
+    /**
+     * Point-in-time view of the text, see {@link PieceTable#snapshot()}.
+     */
+    public static final class Snapshot implements BulkCharSequence {
+
+        private final CharSequence original;
+
+        private final char[] addBuffer;
+
+        private final boolean[] added;
+
+        private final int[] starts;
+
+        private final int[] offsets;
+
+        private Snapshot(CharSequence original, char[] addBuffer, int pieces) {
+            this.original = original;
+            this.addBuffer = addBuffer;
+            this.added = new boolean[pieces];
+            this.starts = new int[pieces];
+            this.offsets = new int[pieces + 1];
+        }
+
+        @Override
+        public int length() {
+            return offsets[offsets.length - 1];
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= length()) {
+                throw new IndexOutOfBoundsException("Index " + index + " out of range [0, " + length() + ")");
+            }
+            int piece = pieceAt(index);
+            int position = starts[piece] + index - offsets[piece];
+            return added[piece] ? addBuffer[position] : original.charAt(position);
+        }
+
+        @Override
+        public void getChars(int srcBegin, int srcEnd, char[] dst, int dstBegin) {
+            if (srcBegin < 0 || srcEnd > length() || srcBegin > srcEnd) {
+                throw new IndexOutOfBoundsException("Range [" + srcBegin + ", " + srcEnd + ") out of range [0, " + length() + ")");
+            }
+            int index = srcBegin;
+            int piece = srcBegin < srcEnd ? pieceAt(srcBegin) : 0;
+            while (index < srcEnd) {
+                int pieceOffset = index - offsets[piece];
+                int count = Math.min(srcEnd, offsets[piece + 1]) - index;
+                copyFromBuffer(original, addBuffer, added[piece], starts[piece] + pieceOffset, count, dst,
+                        dstBegin + index - srcBegin);
+                index += count;
+                piece++;
+            }
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            char[] chars = new char[end - start];
+            getChars(start, end, chars, 0);
+            return new String(chars);
+        }
+
+        @Override
+        public String toString() {
+            return subSequence(0, length()).toString();
+        }
+
+        private int pieceAt(int index) {
+            int piece = Arrays.binarySearch(offsets, index);
+            // Equal offsets belong to the piece that starts there
+            return piece >= 0 ? piece : -piece - 2;
+        }
+    }
+}
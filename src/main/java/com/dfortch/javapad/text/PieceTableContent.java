@@ -0,0 +1,243 @@
+package com.dfortch.javapad.text;
+
+import javax.swing.text.AbstractDocument;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Position;
+import javax.swing.text.Segment;
+import javax.swing.undo.AbstractUndoableEdit;
+import javax.swing.undo.CannotRedoException;
+import javax.swing.undo.CannotUndoException;
+import javax.swing.undo.UndoableEdit;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link AbstractDocument.Content} backed by a {@link PieceTable}.
+ * <p>
+ * Like {@link javax.swing.text.GapContent} it exposes an implied trailing newline, so
+ * {@link #length()} is one more than the text length. Undo and redo move detached pieces back and
+ * forth instead of keeping copies of the removed text.
+ */
+public class PieceTableContent implements AbstractDocument.Content {
+
+    private final PieceTable table;
+
+    private final List<MarkReference> marks = new ArrayList<>();
+
+    public PieceTableContent() {
+        this("");
+    }
+
+    public PieceTableContent(CharSequence original) {
+        this(original, null);
+    }
+
+    public PieceTableContent(CharSequence original, int[] originalLineBreaks) {
+        this.table = new PieceTable(original, originalLineBreaks);
+    }
+
+    public PieceTable getPieceTable() {
+        return table;
+    }
+
+    @Override
+    public Position createPosition(int offset) throws BadLocationException {
+        if (offset < 0 || offset > length()) {
+            throw new BadLocationException("Invalid position", offset);
+        }
+        Mark mark = new Mark(offset);
+        marks.add(new MarkReference(mark));
+        return mark;
+    }
+
+    @Override
+    public int length() {
+        return table.length() + 1;
+    }
+
+    @Override
+    public UndoableEdit insertString(int where, String str) throws BadLocationException {
+        if (where < 0 || where > table.length()) {
+            throw new BadLocationException("Invalid insert", where);
+        }
+        table.insert(where, str);
+        updateMarksForInsert(where, str.length());
+        return new InsertEdit(where, str.length());
+    }
+
+    @Override
+    public UndoableEdit remove(int where, int nitems) throws BadLocationException {
+        if (where < 0 || nitems < 0 || where + nitems > table.length()) {
+            throw new BadLocationException("Invalid remove", where + nitems);
+        }
+        PieceTable.Piece removed = table.remove(where, nitems);
+        updateMarksForRemove(where, nitems);
+        return new RemoveEdit(where, nitems, removed);
+    }
+
+    @Override
+    public String getString(int where, int len) throws BadLocationException {
+        checkRange(where, len);
+        if (where + len <= table.length()) {
+            return table.getString(where, len);
+        }
+        char[] chars = new char[len];
+        table.getChars(where, len - 1, chars, 0);
+        chars[len - 1] = '\n';
+        return new String(chars);
+    }
+
+    @Override
+    public void getChars(int where, int len, Segment txt) throws BadLocationException {
+        checkRange(where, len);
+        if (where + len <= table.length()) {
+            table.getText(where, len, txt);
+            return;
+        }
+        if (txt.isPartialReturn() && where < table.length()) {
+            table.getText(where, table.length() - where, txt);
+            return;
+        }
+        char[] chars = new char[len];
+        table.getChars(where, len - 1, chars, 0);
+        chars[len - 1] = '\n';
+        txt.array = chars;
+        txt.offset = 0;
+        txt.count = len;
+    }
+
+    private void checkRange(int where, int len) throws BadLocationException {
+        if (where < 0 || len < 0 || where + len > length()) {
+            throw new BadLocationException("Invalid range", where + len);
+        }
+    }
+
+    private void updateMarksForInsert(int offset, int length) {
+        // Marks at zero stay in place, like they do in StringContent and GapContent
+        int from = offset == 0 ? 1 : offset;
+        int live = 0;
+        for (int i = 0; i < marks.size(); i++) {
+            MarkReference reference = marks.get(i);
+            Mark mark = reference.get();
+            if (mark == null) {
+                continue;
+            }
+            if (mark.offset >= from) {
+                mark.offset += length;
+            }
+            marks.set(live++, reference);
+        }
+        trimMarks(live);
+    }
+
+    private void updateMarksForRemove(int offset, int length) {
+        int end = offset + length;
+        int live = 0;
+        for (int i = 0; i < marks.size(); i++) {
+            MarkReference reference = marks.get(i);
+            Mark mark = reference.get();
+            if (mark == null) {
+                continue;
+            }
+            if (mark.offset >= end) {
+                mark.offset -= length;
+            } else if (mark.offset >= offset) {
+                mark.offset = offset;
+            }
+            marks.set(live++, reference);
+        }
+        trimMarks(live);
+    }
+
+    private void trimMarks(int live) {
+        if (live < marks.size()) {
+            marks.subList(live, marks.size()).clear();
+        }
+    }
+
+    private static final class Mark implements Position {
+
+        private int offset;
+
+        private Mark(int offset) {
+            this.offset = offset;
+        }
+
+        @Override
+        public int getOffset() {
+            return offset;
+        }
+
+        @Override
+        public String toString() {
+            return Integer.toString(offset);
+        }
+    }
+
+    private static final class MarkReference extends WeakReference<Mark> {
+
+        private MarkReference(Mark mark) {
+            super(mark);
+        }
+    }
+
+    private class InsertEdit extends AbstractUndoableEdit {
+
+        private final int offset;
+
+        private final int length;
+
+        private transient PieceTable.Piece detached;
+
+        private InsertEdit(int offset, int length) {
+            this.offset = offset;
+            this.length = length;
+        }
+
+        @Override
+        public void undo() throws CannotUndoException {
+            super.undo();
+            detached = table.remove(offset, length);
+            updateMarksForRemove(offset, length);
+        }
+
+        @Override
+        public void redo() throws CannotRedoException {
+            super.redo();
+            table.restore(offset, detached);
+            detached = null;
+            updateMarksForInsert(offset, length);
+        }
+    }
+
+    private class RemoveEdit extends AbstractUndoableEdit {
+
+        private final int offset;
+
+        private final int length;
+
+        private transient PieceTable.Piece detached;
+
+        private RemoveEdit(int offset, int length, PieceTable.Piece detached) {
+            this.offset = offset;
+            this.length = length;
+            this.detached = detached;
+        }
+
+        @Override
+        public void undo() throws CannotUndoException {
+            super.undo();
+            table.restore(offset, detached);
+            detached = null;
+            updateMarksForInsert(offset, length);
+        }
+
+        @Override
+        public void redo() throws CannotRedoException {
+            super.redo();
+            detached = table.remove(offset, length);
+            updateMarksForRemove(offset, length);
+        }
+    }
+}
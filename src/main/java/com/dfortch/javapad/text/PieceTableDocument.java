@@ -0,0 +1,344 @@
+package com.dfortch.javapad.text;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.swing.event.DocumentEvent;
+import javax.swing.text.AbstractDocument;
+import javax.swing.text.AttributeSet;
+import javax.swing.text.Element;
+import javax.swing.text.PlainDocument;
+import javax.swing.text.SimpleAttributeSet;
+import javax.swing.undo.AbstractUndoableEdit;
+import javax.swing.undo.CannotRedoException;
+import javax.swing.undo.CannotUndoException;
+
+/**
+ * Plain text document whose content lives in a {@link PieceTable}.
+ * <p>
+ * Opening a file hands the decoded text to the table as its original buffer, so no further copy
+ * of the text is made. Line elements are not stored either: the root element answers line queries
+ * from the line break counts cached in the table and creates lightweight elements on demand. Those
+ * elements are addressed by line index and every call returns a new one, so views that keep
+ * element references across edits (such as {@link javax.swing.text.WrappedPlainView}) are not
+ * supported. {@link javax.swing.text.PlainView} paints as with {@link PlainDocument}, but it finds
+ * its longest line again by comparing elements by identity, so views built on it have to track the
+ * longest line themselves.
+ * <p>
+ * The same line break counts make the document its own {@link LineIndex}: the table updates them
+ * on every edit before the {@link DocumentEvent} is fired, so listeners see an index that already
+ * matches the new text. Like the rest of the document, the index must be queried on the EDT or
+ * under the read lock.
+ */
+public class PieceTableDocument extends AbstractDocument implements LineIndex {
+
+    private static final Logger log = LogManager.getLogger(PieceTableDocument.class);
+
+    private static final String I18N_PROPERTY = "i18n";
+
+    private final transient PieceTable table;
+
+    private final LineRootElement root;
+
+    private boolean bidiIndexed;
+
+    private int lastRemovedPieces;
+
+    public PieceTableDocument() {
+        this("");
+    }
+
+    public PieceTableDocument(CharSequence text) {
+        this(new PieceTableContent(text));
+    }
+
+    /**
+     * Creates a document over {@code text} whose line break offsets are already known.
+     *
+     * @see PieceTable#PieceTable(CharSequence, int[])
+     */
+    public PieceTableDocument(CharSequence text, int[] lineBreaks) {
+        this(new PieceTableContent(text, lineBreaks));
+    }
+
+    private PieceTableDocument(PieceTableContent content) {
+        super(content);
+        this.table = content.getPieceTable();
+        this.root = new LineRootElement();
+        putProperty(PlainDocument.tabSizeAttribute, 8);
+        log.debug("PieceTableDocument created with {} chars in {} lines", table.length(), table.getLineCount());
+    }
+
+    public PieceTable getPieceTable() {
+        return table;
+    }
+
+    /**
+     * Returns an immutable view of the current text that can be read on any thread while the
+     * document keeps being edited.
+     *
+     * @see PieceTable#snapshot()
+     */
+    public PieceTable.Snapshot createSnapshot() {
+        readLock();
+        try {
+            return table.snapshot();
+        } finally {
+            readUnlock();
+        }
+    }
+
+    @Override
+    public int getLineCount() {
+        return table.getLineCount();
+    }
+
+    @Override
+    public int getLineOfOffset(int offset) {
+        return table.getLineOfOffset(offset);
+    }
+
+    @Override
+    public int getLineStartOffset(int line) {
+        return table.getLineStartOffset(line);
+    }
+
+    /**
+     * Returns how many pieces the last removal detached; they are what its undo record keeps alive.
+     */
+    int getLastRemovedPieceCount() {
+        return lastRemovedPieces;
+    }
+
+    @Override
+    public Element getDefaultRootElement() {
+        return root;
+    }
+
+    @Override
+    public Element getParagraphElement(int pos) {
+        return root.getElement(root.getElementIndex(pos));
+    }
+
+    @Override
+    protected void insertUpdate(DefaultDocumentEvent chng, AttributeSet attr) {
+        int offset = chng.getOffset();
+        int firstLine = table.getLineOfOffset(offset);
+        int addedBreaks = table.getLineOfOffset(offset + chng.getLength()) - firstLine;
+        if (addedBreaks > 0) {
+            chng.addEdit(new LineChange(firstLine, 1, addedBreaks + 1));
+        }
+        if (!bidiIndexed && Boolean.TRUE.equals(getProperty(I18N_PROPERTY))) {
+            // The original buffer never went through insertUpdate, so the bidi structure only knows
+            // about edits. Rebuild it for the whole text once complex layout is first needed.
+            log.debug("Complex text detected, rebuilding bidi structure");
+            bidiIndexed = true;
+            super.insertUpdate(new DefaultDocumentEvent(0, getLength(), DocumentEvent.EventType.INSERT), null);
+        }
+        super.insertUpdate(chng, attr);
+    }
+
+    @Override
+    protected void removeUpdate(DefaultDocumentEvent chng) {
+        int offset = chng.getOffset();
+        int firstLine = table.getLineOfOffset(offset);
+        int removedBreaks = table.getLineOfOffset(offset + chng.getLength()) - firstLine;
+        if (removedBreaks > 0) {
+            chng.addEdit(new LineChange(firstLine, removedBreaks + 1, 1));
+        }
+        lastRemovedPieces = table.countPieces(offset, chng.getLength());
+        super.removeUpdate(chng);
+    }
+
+    private Element[] lines(int first, int count) {
+        Element[] lines = new Element[count];
+        for (int i = 0; i < count; i++) {
+            lines[i] = new LineElement(first + i);
+        }
+        return lines;
+    }
+
+    private class LineRootElement implements Element {
+
+        @Override
+        public javax.swing.text.Document getDocument() {
+            return PieceTableDocument.this;
+        }
+
+        @Override
+        public Element getParentElement() {
+            return null;
+        }
+
+        @Override
+        public String getName() {
+            return ParagraphElementName;
+        }
+
+        @Override
+        public AttributeSet getAttributes() {
+            return SimpleAttributeSet.EMPTY;
+        }
+
+        @Override
+        public int getStartOffset() {
+            return 0;
+        }
+
+        @Override
+        public int getEndOffset() {
+            return table.length() + 1;
+        }
+
+        @Override
+        public int getElementIndex(int offset) {
+            if (offset <= 0) {
+                return 0;
+            }
+            return table.getLineOfOffset(Math.min(offset, table.length()));
+        }
+
+        @Override
+        public int getElementCount() {
+            return table.getLineCount();
+        }
+
+        @Override
+        public Element getElement(int index) {
+            return index >= 0 && index < table.getLineCount() ? new LineElement(index) : null;
+        }
+
+        @Override
+        public boolean isLeaf() {
+            return false;
+        }
+
+        @Override
+        public String toString() {
+            return "LineRootElement(" + getElementCount() + " lines)";
+        }
+    }
+
+    private class LineElement implements Element {
+
+        private final int line;
+
+        private LineElement(int line) {
+            this.line = line;
+        }
+
+        @Override
+        public javax.swing.text.Document getDocument() {
+            return PieceTableDocument.this;
+        }
+
+        @Override
+        public Element getParentElement() {
+            return root;
+        }
+
+        @Override
+        public String getName() {
+            return ContentElementName;
+        }
+
+        @Override
+        public AttributeSet getAttributes() {
+            return SimpleAttributeSet.EMPTY;
+        }
+
+        @Override
+        public int getStartOffset() {
+            return line < table.getLineCount() ? table.getLineStartOffset(line) : table.length();
+        }
+
+        @Override
+        public int getEndOffset() {
+            return line + 1 < table.getLineCount() ? table.getLineStartOffset(line + 1) : table.length() + 1;
+        }
+
+        @Override
+        public int getElementIndex(int offset) {
+            return -1;
+        }
+
+        @Override
+        public int getElementCount() {
+            return 0;
+        }
+
+        @Override
+        public Element getElement(int index) {
+            return null;
+        }
+
+        @Override
+        public boolean isLeaf() {
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            return "LineElement(" + line + ")";
+        }
+    }
+
+    /**
+     * Describes the lines replaced by an edit. The line structure itself is derived from the piece
+     * table, so undoing the content edit is enough; this only swaps what it reports. Only the line
+     * counts are kept, so a removal spanning millions of lines does not keep as many elements
+     * alive in the undo history.
+     */
+    private class LineChange extends AbstractUndoableEdit implements DocumentEvent.ElementChange {
+
+        private final int index;
+
+        private int removed;
+
+        private int added;
+
+        private LineChange(int index, int removed, int added) {
+            this.index = index;
+            this.removed = removed;
+            this.added = added;
+        }
+
+        @Override
+        public Element getElement() {
+            return root;
+        }
+
+        @Override
+        public int getIndex() {
+            return index;
+        }
+
+        @Override
+        public Element[] getChildrenRemoved() {
+            return lines(index, removed);
+        }
+
+        @Override
+        public Element[] getChildrenAdded() {
+            return lines(index, added);
+        }
+
+        @Override
+        public void undo() throws CannotUndoException {
+            super.undo();
+            swap();
+        }
+
+        @Override
+        public void redo() throws CannotRedoException {
+            super.redo();
+            swap();
+        }
+
+        private void swap() {
+            int tmp = removed;
+            removed = added;
+            added = tmp;
+        }
+    }
+}
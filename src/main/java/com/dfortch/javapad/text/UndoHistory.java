@@ -0,0 +1,294 @@
+package com.dfortch.javapad.text;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.UndoableEditEvent;
+import javax.swing.text.BadLocationException;
+import javax.swing.undo.CompoundEdit;
+import javax.swing.undo.UndoManager;
+import javax.swing.undo.UndoableEdit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * Undo manager that merges typing into word sized steps and keeps its history within a memory
+ * budget.
+ * <p>
+ * Consecutive single char inserts are merged until a new word starts, the caret jumps or typing
+ * pauses for {@link #TYPING_PAUSE_NANOS}; runs of backspace or delete are merged the same way.
+ * Every step is charged with an estimate of the memory its edits keep alive, and the oldest steps
+ * are dropped once the total exceeds the budget. The newest step is always kept.
+ * <p>
+ * Removals from a {@link PieceTableDocument} keep only the detached pieces, which point into the
+ * buffers the table keeps anyway, so they are charged per piece rather than per char.
+ */
+public class UndoHistory extends UndoManager {
+
+    private static final Logger log = LogManager.getLogger(UndoHistory.class);
+
+    /**
+     * Rough size of the records kept for one edit: the document event, the content edit and the
+     * version tracking wrapper.
+     */
+    static final long EDIT_BYTES = 256;
+
+    /**
+     * Rough size of a detached piece.
+     */
+    static final long PIECE_BYTES = 48;
+
+    static final long TYPING_PAUSE_NANOS = 1_000_000_000L;
+
+    private final transient LongSupplier clock;
+
+    private final transient List<ChangeListener> listeners = new ArrayList<>();
+
+    private long memoryLimit;
+
+    private long memoryUsage;
+
+    private transient Step typing;
+
+    private transient Step compound;
+
+    public UndoHistory(long memoryLimit) {
+        this(memoryLimit, System::nanoTime);
+    }
+
+    UndoHistory(long memoryLimit, LongSupplier clock) {
+        this.clock = clock;
+        setMemoryLimit(memoryLimit);
+        // Steps are limited by memory, not by count
+        setLimit(-1);
+    }
+
+    public synchronized long getMemoryLimit() {
+        return memoryLimit;
+    }
+
+    public synchronized void setMemoryLimit(long memoryLimit) {
+        if (memoryLimit <= 0) {
+            throw new IllegalArgumentException("Memory limit must be positive: " + memoryLimit);
+        }
+        this.memoryLimit = memoryLimit;
+        trimForMemoryLimit();
+        fireStateChanged();
+    }
+
+    /**
+     * Returns the estimated number of bytes kept alive by the undo and redo history.
+     */
+    public synchronized long getMemoryUsage() {
+        return memoryUsage;
+    }
+
+    /**
+     * Adds a listener told whenever {@link #getMemoryUsage()} may have changed.
+     */
+    public void addChangeListener(ChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeChangeListener(ChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    @Override
+    public void undoableEditHappened(UndoableEditEvent e) {
+        UndoableEdit edit = e.getEdit();
+        DocumentEvent change = documentEvent(edit);
+        long bytes = estimateBytes(change);
+        long now = clock.getAsLong();
+        synchronized (this) {
+            if (compound != null) {
+                compound.append(edit, change, bytes, now);
+            } else if (typing != null && typing.accepts(change, now)) {
+                typing.append(edit, change, bytes, now);
+            } else {
+                closeTyping();
+                Step step = new Step(change, now);
+                step.append(edit, change, bytes, now);
+                addEdit(step);
+                if (step.isTyping()) {
+                    typing = step;
+                } else {
+                    step.end();
+                }
+            }
+            memoryUsage += bytes;
+            trimForMemoryLimit();
+        }
+        fireStateChanged();
+    }
+
+    /**
+     * Merges every edit until {@link #endCompoundEdit()} into a single step, e.g. for replace all.
+     */
+    public synchronized void beginCompoundEdit() {
+        if (compound != null) {
+            throw new IllegalStateException("A compound edit is already in progress");
+        }
+        closeTyping();
+        compound = new Step(null, clock.getAsLong());
+        addEdit(compound);
+    }
+
+    public synchronized void endCompoundEdit() {
+        if (compound == null) {
+            throw new IllegalStateException("No compound edit in progress");
+        }
+        compound.end();
+        compound = null;
+        fireStateChanged();
+    }
+
+    @Override
+    public synchronized void discardAllEdits() {
+        closeTyping();
+        compound = null;
+        super.discardAllEdits();
+        memoryUsage = 0;
+        log.debug("Undo history discarded");
+        fireStateChanged();
+    }
+
+    @Override
+    protected void trimEdits(int from, int to) {
+        for (int i = from; i <= to; i++) {
+            UndoableEdit edit = edits.elementAt(i);
+            memoryUsage -= bytesOf(edit);
+            if (edit == typing) {
+                typing = null;
+            }
+            if (edit == compound) {
+                compound = null;
+            }
+        }
+        super.trimEdits(from, to);
+    }
+
+    private void trimForMemoryLimit() {
+        int dropped = 0;
+        long remaining = memoryUsage;
+        while (remaining > memoryLimit && edits.size() - dropped > 1) {
+            remaining -= bytesOf(edits.elementAt(dropped));
+            dropped++;
+        }
+        if (dropped > 0) {
+            trimEdits(0, dropped - 1);
+            log.debug("Dropped {} undo steps to stay within {} bytes", dropped, memoryLimit);
+        }
+    }
+
+    private void fireStateChanged() {
+        ChangeEvent event = new ChangeEvent(this);
+        for (ChangeListener listener : List.copyOf(listeners)) {
+            listener.stateChanged(event);
+        }
+    }
+
+    private void closeTyping() {
+        if (typing != null) {
+            typing.end();
+            typing = null;
+        }
+    }
+
+    private static DocumentEvent documentEvent(UndoableEdit edit) {
+        UndoableEdit unwrapped = edit instanceof DocumentVersionTracker.VersionedEdit versioned ? versioned.getEdit() : edit;
+        return unwrapped instanceof DocumentEvent change ? change : null;
+    }
+
+    private static long bytesOf(UndoableEdit edit) {
+        return edit instanceof Step step ? step.bytes : EDIT_BYTES;
+    }
+
+    private static long estimateBytes(DocumentEvent change) {
+        if (change != null && change.getType() == DocumentEvent.EventType.REMOVE
+                && change.getDocument() instanceof PieceTableDocument document) {
+            return EDIT_BYTES + PIECE_BYTES * document.getLastRemovedPieceCount();
+        }
+        return EDIT_BYTES;
+    }
+
+    private static char typedChar(DocumentEvent change) {
+        try {
+            return change.getDocument().getText(change.getOffset(), 1).charAt(0);
+        } catch (BadLocationException e) {
+            throw new IllegalStateException("Inserted text is not in the document", e);
+        }
+    }
+
+    private static boolean isSingleChar(DocumentEvent change) {
+        return change != null && change.getLength() == 1;
+    }
+
+    /**
+     * One undo step: a single edit, or a run of typing that is still open while {@link #typing}
+     * points at it. Open steps can be undone; undoing one closes it.
+     */
+    private class Step extends CompoundEdit {
+
+        private final DocumentEvent.EventType type;
+
+        private long bytes;
+
+        private long lastEditNanos;
+
+        private int nextOffset;
+
+        private boolean lastWasWhitespace;
+
+        private Step(DocumentEvent change, long now) {
+            this.type = isSingleChar(change) ? change.getType() : null;
+            this.lastEditNanos = now;
+        }
+
+        private boolean isTyping() {
+            return type == DocumentEvent.EventType.INSERT || type == DocumentEvent.EventType.REMOVE;
+        }
+
+        private boolean accepts(DocumentEvent change, long now) {
+            if (!isInProgress() || !isSingleChar(change) || change.getType() != type
+                    || now - lastEditNanos > TYPING_PAUSE_NANOS) {
+                return false;
+            }
+            if (type == DocumentEvent.EventType.INSERT) {
+                return change.getOffset() == nextOffset
+                        && !(lastWasWhitespace && !Character.isWhitespace(typedChar(change)));
+            }
+            // Backspace moves left, delete stays in place
+            return change.getOffset() == nextOffset - 1 || change.getOffset() == nextOffset;
+        }
+
+        private void append(UndoableEdit edit, DocumentEvent change, long bytes, long now) {
+            addEdit(edit);
+            this.bytes += bytes;
+            this.lastEditNanos = now;
+            if (type == DocumentEvent.EventType.INSERT) {
+                nextOffset = change.getOffset() + 1;
+                lastWasWhitespace = Character.isWhitespace(typedChar(change));
+            } else if (change != null) {
+                nextOffset = change.getOffset();
+            }
+        }
+
+        @Override
+        public boolean canUndo() {
+            return isInProgress() || super.canUndo();
+        }
+
+        @Override
+        public void undo() {
+            if (isInProgress()) {
+                end();
+            }
+            super.undo();
+        }
+    }
+}
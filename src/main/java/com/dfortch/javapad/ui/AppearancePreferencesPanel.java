@@ -3,6 +3,8 @@ package com.dfortch.javapad.ui;
 import com.dfortch.javapad.i18n.MessageProvider;
 import com.dfortch.javapad.prefs.JavaPadUserPreferences;
 import com.dfortch.javapad.prefs.JavapadTheme;
+import com.dfortch.javapad.prefs.PreferenceKey;
+import com.dfortch.javapad.prefs.PreferencesChangeEvent;
 import com.dfortch.javapad.prefs.PreferencesChangeListener;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -65,8 +67,6 @@ public class AppearancePreferencesPanel extends JPanel implements PreferencesCha
 
             updateForm();
 
-            preferences.addPreferencesChangeListener(this);
-
             log.trace("AppearancePreferencesPanel initialized successfully");
         } catch (Exception e) {
             log.error("Error initializing AppearancePreferencesPanel", e);
@@ -127,7 +127,23 @@ public class AppearancePreferencesPanel extends JPanel implements PreferencesCha
     }
 
     @Override
-    public void onPreferencesChanged() {
+    public void addNotify() {
+        super.addNotify();
+        updateForm();
+        preferences.addPreferencesChangeListener(this);
+    }
+
+    @Override
+    public void removeNotify() {
+        preferences.removePreferencesChangeListener(this);
+        super.removeNotify();
+    }
+
+    @Override
+    public void onPreferencesChanged(PreferencesChangeEvent event) {
+        if (!event.isChanged(PreferenceKey.THEME)) {
+            return;
+        }
         log.trace("Preferences have been changed, updating form");
         updateForm();
     }
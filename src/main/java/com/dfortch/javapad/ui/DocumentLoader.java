@@ -0,0 +1,225 @@
+package com.dfortch.javapad.ui;
+
+import com.dfortch.javapad.io.TextChunkListener;
+import com.dfortch.javapad.text.PieceTableDocument;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.swing.*;
+import javax.swing.text.BadLocationException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Loads text into a new document on a virtual thread while the Event Dispatch Thread stays
+ * responsive.
+ * <p>
+ * The background thread decodes the file into chunks and queues them; the EDT appends queued text in
+ * slices for at most {@link #FRAME_BUDGET_NANOS} per event before yielding, so painting and input are never
+ * held up for more than a frame. The document is created and sized on the background thread before
+ * it is handed over, so the EDT never pays for growing its buffer. All {@link Listener} methods are
+ * called on the EDT.
+ */
+public class DocumentLoader {
+
+    private static final Logger log = LogManager.getLogger(DocumentLoader.class);
+
+    private static final long FRAME_BUDGET_NANOS = 5_000_000L;
+
+    private static final int QUEUE_CAPACITY = 16;
+
+    /**
+     * Views measure every inserted line, so chunks are appended in slices small enough to keep a
+     * single insert well below the frame budget.
+     */
+    private static final int SLICE_SIZE = 8 * 1024;
+
+    /**
+     * Queued when the source starts over; the text appended before it is removed again. Compared
+     * by identity, so it cannot be mistaken for an empty chunk.
+     */
+    private static final String RESTART = new String("");
+
+    private final Source source;
+
+    private final Listener listener;
+
+    private final BlockingQueue<String> chunks = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+
+    private volatile long bytesRead;
+
+    private volatile boolean readFinished;
+
+    private volatile IOException failure;
+
+    private boolean done;
+
+    private PieceTableDocument document;
+
+    private String pendingChunk;
+
+    private int pendingOffset;
+
+    private Thread thread;
+
+    public DocumentLoader(Source source, Listener listener) {
+        this.source = source;
+        this.listener = listener;
+    }
+
+    /**
+     * Starts loading. {@code expectedLength} is an upper bound of the number of chars, used to size
+     * the document up front; pass {@code 0} when unknown.
+     */
+    public void start(long expectedLength) {
+        log.debug("Starting document loader, expecting up to {} chars", expectedLength);
+        thread = Thread.ofVirtual().name("document-loader").start(() -> load(expectedLength));
+    }
+
+    /**
+     * Stops loading and discards whatever was not appended yet. Must be called on the EDT.
+     */
+    public void cancel() {
+        if (done) {
+            return;
+        }
+        log.info("Cancelling document loader");
+        done = true;
+        if (thread != null) {
+            thread.interrupt();
+        }
+        chunks.clear();
+        listener.onCancelled();
+    }
+
+    private void load(long expectedLength) {
+        PieceTableDocument newDocument = new PieceTableDocument();
+        newDocument.getPieceTable().ensureAddCapacity((int) Math.min(expectedLength, Integer.MAX_VALUE));
+        SwingUtilities.invokeLater(() -> {
+            if (!done) {
+                document = newDocument;
+                listener.onDocumentCreated(newDocument);
+            }
+        });
+
+        try {
+            source.read(new TextChunkListener() {
+                @Override
+                public void onChunk(String chunk, long read) throws IOException {
+                    enqueue(chunk);
+                    bytesRead = read;
+                    scheduleDrain();
+                }
+
+                @Override
+                public void onRestart() throws IOException {
+                    log.debug("Document loader restarted after {} bytes", bytesRead);
+                    enqueue(RESTART);
+                    bytesRead = 0;
+                    scheduleDrain();
+                }
+            });
+        } catch (InterruptedIOException e) {
+            log.debug("Document loader interrupted");
+        } catch (IOException e) {
+            failure = e;
+        } catch (RuntimeException e) {
+            failure = new IOException(e);
+        }
+        readFinished = true;
+        scheduleDrain();
+    }
+
+    private void enqueue(String chunk) throws InterruptedIOException {
+        try {
+            chunks.put(chunk);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Loading was cancelled");
+        }
+    }
+
+    private void scheduleDrain() {
+        if (drainScheduled.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(this::drain);
+        }
+    }
+
+    private void drain() {
+        drainScheduled.set(false);
+        if (done) {
+            return;
+        }
+        // Read the flag first: every chunk queued before it was set is then visible below
+        boolean finished = readFinished;
+
+        long start = System.nanoTime();
+        while (System.nanoTime() - start < FRAME_BUDGET_NANOS && nextSlice()) {
+            int end = Math.min(pendingChunk.length(), pendingOffset + SLICE_SIZE);
+            try {
+                document.insertString(document.getLength(), pendingChunk.substring(pendingOffset, end), null);
+            } catch (BadLocationException e) {
+                throw new IllegalStateException("Failed to append loaded text", e);
+            }
+            pendingOffset = end;
+        }
+        listener.onProgress(bytesRead);
+
+        if (pendingChunk != null || !chunks.isEmpty()) {
+            scheduleDrain();
+        } else if (finished) {
+            finish();
+        }
+    }
+
+    private boolean nextSlice() {
+        if (pendingChunk != null && pendingOffset < pendingChunk.length()) {
+            return true;
+        }
+        pendingChunk = chunks.poll();
+        pendingOffset = 0;
+        if (pendingChunk == RESTART) {
+            try {
+                document.remove(0, document.getLength());
+            } catch (BadLocationException e) {
+                throw new IllegalStateException("Failed to discard loaded text", e);
+            }
+        }
+        return pendingChunk != null;
+    }
+
+    private void finish() {
+        done = true;
+        if (failure != null) {
+            log.warn("Document loader failed after {} bytes", bytesRead, failure);
+            listener.onFailed(failure);
+        } else {
+            log.debug("Document loader finished after {} bytes", bytesRead);
+            listener.onFinished();
+        }
+    }
+
+    /**
+     * Produces the text; called once on the background thread.
+     */
+    public interface Source {
+        void read(TextChunkListener listener) throws IOException;
+    }
+
+    public interface Listener {
+        void onDocumentCreated(PieceTableDocument document);
+
+        void onProgress(long bytesRead);
+
+        void onFinished();
+
+        void onFailed(IOException e);
+
+        void onCancelled();
+    }
+}
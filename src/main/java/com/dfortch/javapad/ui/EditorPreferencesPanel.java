@@ -2,11 +2,14 @@ package com.dfortch.javapad.ui;
 
 import com.dfortch.javapad.i18n.MessageProvider;
 import com.dfortch.javapad.prefs.JavaPadUserPreferences;
+import com.dfortch.javapad.prefs.PreferenceKey;
+import com.dfortch.javapad.prefs.PreferencesChangeEvent;
 import com.dfortch.javapad.prefs.PreferencesChangeListener;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import javax.swing.*;
+import javax.swing.event.ChangeListener;
 import java.awt.*;
 import java.awt.event.ActionListener;
 import java.util.Objects;
@@ -19,22 +22,32 @@ public class EditorPreferencesPanel extends JPanel implements PreferencesChangeL
 
     private final transient JavaPadUserPreferences preferences;
 
+    private final transient FontCatalog fontCatalog;
+
     private static final Integer[] fontSizes = {8, 10, 12, 14, 16, 18, 20, 22, 24, 26, 28, 30, 32, 34, 36, 38, 40};
     private static final String[] fontStyles = {"Plain", "Bold", "Italic", "Bold Italic"};
 
-    private JComboBox<String> fontFamilyComboBox;
+    private static final long BYTES_PER_MEGABYTE = 1024L * 1024;
+
+    private FontFamilyChooser fontFamilyChooser;
     private  JComboBox<String> fontStyleComboBox;
     private JComboBox<Integer> fontSizeComboBox;
     private JButton foregroundColorButton;
     private JButton backgroundColorButton;
+    private JSpinner largeFileThresholdSpinner;
+    private JSpinner undoMemoryLimitSpinner;
+
+    private JSpinner tabMemoryBudgetSpinner;
     private JTextArea previewArea;
 
     private Color selectedForegroundColor;
     private Color selectedBackgroundColor;
 
-    public EditorPreferencesPanel(MessageProvider messageProvider, JavaPadUserPreferences preferences) {
+    public EditorPreferencesPanel(MessageProvider messageProvider, JavaPadUserPreferences preferences,
+                                  FontCatalog fontCatalog) {
         this.messageProvider = messageProvider;
         this.preferences = preferences;
+        this.fontCatalog = fontCatalog;
         initialize();
     }
 
@@ -62,13 +75,14 @@ public class EditorPreferencesPanel extends JPanel implements PreferencesChangeL
             gbc.weightx = 0;
             gbc.gridx = 1;
             gbc.gridwidth = 2;
-            fontFamilyComboBox = new JComboBox<>(getAllSystemFonts());
-            fontFamilyComboBox.addActionListener(e -> {
-                log.info("Font family changed to {}", fontFamilyComboBox.getSelectedItem());
+            fontFamilyChooser = new FontFamilyChooser(messageProvider);
+            fontFamilyChooser.addActionListener(e -> {
+                log.info("Font family changed to {}", fontFamilyChooser.getSelectedFamily());
                 updatePreview();
             });
+            loadFontFamilies();
 
-            formPanel.add(fontFamilyComboBox, gbc);
+            formPanel.add(fontFamilyChooser, gbc);
 
             gbc.weightx = 1.0;
             gbc.gridx = 0;
@@ -168,6 +182,50 @@ public class EditorPreferencesPanel extends JPanel implements PreferencesChangeL
             });
             formPanel.add(resetBackgroundColorButton, gbc);
 
+            gbc.weightx = 1.0;
+            gbc.gridx = 0;
+            gbc.gridy = 5;
+            JLabel largeFileThresholdLabel = new JLabel(messageProvider.getMessage("preferences.editor.large-file-threshold")+":");
+            formPanel.add(largeFileThresholdLabel, gbc);
+
+            gbc.weightx = 0;
+            gbc.gridx = 1;
+            gbc.gridwidth = 2;
+            largeFileThresholdSpinner = new JSpinner(new SpinnerNumberModel(1, 1, 1024 * 1024, 16));
+            largeFileThresholdSpinner.addChangeListener(e ->
+                    log.info("Large file threshold changed to {} MB", largeFileThresholdSpinner.getValue()));
+            formPanel.add(largeFileThresholdSpinner, gbc);
+
+            gbc.weightx = 1.0;
+            gbc.gridx = 0;
+            gbc.gridy = 6;
+            gbc.gridwidth = 1;
+            JLabel undoMemoryLimitLabel = new JLabel(messageProvider.getMessage("preferences.editor.undo-memory-limit")+":");
+            formPanel.add(undoMemoryLimitLabel, gbc);
+
+            gbc.weightx = 0;
+            gbc.gridx = 1;
+            gbc.gridwidth = 2;
+            undoMemoryLimitSpinner = new JSpinner(new SpinnerNumberModel(1, 1, 64 * 1024, 8));
+            undoMemoryLimitSpinner.addChangeListener(e ->
+                    log.info("Undo memory limit changed to {} MB", undoMemoryLimitSpinner.getValue()));
+            formPanel.add(undoMemoryLimitSpinner, gbc);
+
+            gbc.weightx = 1.0;
+            gbc.gridx = 0;
+            gbc.gridy = 7;
+            gbc.gridwidth = 1;
+            JLabel tabMemoryBudgetLabel = new JLabel(messageProvider.getMessage("preferences.editor.tab-memory-budget")+":");
+            formPanel.add(tabMemoryBudgetLabel, gbc);
+
+            gbc.weightx = 0;
+            gbc.gridx = 1;
+            gbc.gridwidth = 2;
+            tabMemoryBudgetSpinner = new JSpinner(new SpinnerNumberModel(1, 1, 64 * 1024, 32));
+            tabMemoryBudgetSpinner.addChangeListener(e ->
+                    log.info("Tab memory budget changed to {} MB", tabMemoryBudgetSpinner.getValue()));
+            formPanel.add(tabMemoryBudgetSpinner, gbc);
+
             JPanel previewPanel = new JPanel(new BorderLayout());
             previewPanel.setBorder(BorderFactory.createTitledBorder(messageProvider.getMessage("preferences.editor.preview")));
 
@@ -180,7 +238,7 @@ public class EditorPreferencesPanel extends JPanel implements PreferencesChangeL
             previewPanel.add(scrollPane, BorderLayout.CENTER);
 
             gbc.gridx = 0;
-            gbc.gridy = 5;
+            gbc.gridy = 8;
             gbc.gridwidth = 3;
             gbc.weightx = 1.0;
             gbc.weighty = 1.0;
@@ -192,8 +250,6 @@ public class EditorPreferencesPanel extends JPanel implements PreferencesChangeL
 
             updatePreview();
 
-            preferences.addPreferencesChangeListener(this);
-
             log.trace("EditorPreferencesPanel initialized successfully");
         } catch (Exception e) {
             log.error("Error initializing EditorPreferencesPanel", e);
@@ -205,7 +261,7 @@ public class EditorPreferencesPanel extends JPanel implements PreferencesChangeL
 
         try {
             Font defaultFont = preferences.getEditorFont();
-            fontFamilyComboBox.setSelectedItem(defaultFont.getFamily());
+            fontFamilyChooser.setSelectedFamily(defaultFont.getFamily());
             fontStyleComboBox.setSelectedIndex(getFontStyleIndex(defaultFont.getStyle()));
             fontSizeComboBox.setSelectedItem(defaultFont.getSize());
 
@@ -215,6 +271,10 @@ public class EditorPreferencesPanel extends JPanel implements PreferencesChangeL
             foregroundColorButton.setBackground(selectedForegroundColor);
             backgroundColorButton.setBackground(selectedBackgroundColor);
 
+            largeFileThresholdSpinner.setValue((int) Math.max(1, preferences.getLargeFileThreshold() / BYTES_PER_MEGABYTE));
+            undoMemoryLimitSpinner.setValue((int) Math.max(1, preferences.getUndoMemoryLimit() / BYTES_PER_MEGABYTE));
+            tabMemoryBudgetSpinner.setValue((int) Math.max(1, preferences.getTabMemoryBudget() / BYTES_PER_MEGABYTE));
+
             updatePreview();
             log.debug("Form updated with current preferences");
         } catch (Exception e) {
@@ -223,7 +283,7 @@ public class EditorPreferencesPanel extends JPanel implements PreferencesChangeL
     }
 
     public Font getSelectedFont() {
-        String fontFamily = (String) fontFamilyComboBox.getSelectedItem();
+        String fontFamily = fontFamilyChooser.getSelectedFamily();
         int fontStyle = getFontStyleFromComboBox();
         int fontSize = (Integer) fontSizeComboBox.getSelectedItem();
 
@@ -242,6 +302,24 @@ public class EditorPreferencesPanel extends JPanel implements PreferencesChangeL
         return selectedBackgroundColor;
     }
 
+    public long getSelectedLargeFileThreshold() {
+        long threshold = ((Number) largeFileThresholdSpinner.getValue()).longValue() * BYTES_PER_MEGABYTE;
+        log.trace("Selected large file threshold retrieved: {}", threshold);
+        return threshold;
+    }
+
+    public long getSelectedUndoMemoryLimit() {
+        long limit = ((Number) undoMemoryLimitSpinner.getValue()).longValue() * BYTES_PER_MEGABYTE;
+        log.trace("Selected undo memory limit retrieved: {}", limit);
+        return limit;
+    }
+
+    public long getSelectedTabMemoryBudget() {
+        long budget = ((Number) tabMemoryBudgetSpinner.getValue()).longValue() * BYTES_PER_MEGABYTE;
+        log.trace("Selected tab memory budget retrieved: {}", budget);
+        return budget;
+    }
+
     public boolean isFontChanged() {
         Font prefFont = preferences.getEditorFont();
         boolean fontChanged = !Objects.equals(prefFont, getSelectedFont());
@@ -275,8 +353,43 @@ public class EditorPreferencesPanel extends JPanel implements PreferencesChangeL
         return backgroundColorChanged;
     }
 
+    public boolean isLargeFileThresholdChanged() {
+        long prefThresholdMegabytes = Math.max(1, preferences.getLargeFileThreshold() / BYTES_PER_MEGABYTE);
+        boolean thresholdChanged = prefThresholdMegabytes * BYTES_PER_MEGABYTE != getSelectedLargeFileThreshold();
+        if (thresholdChanged) {
+            log.info("Large file threshold change detected: {}", getSelectedLargeFileThreshold());
+        } else {
+            log.debug("No change in large file threshold detected");
+        }
+        return thresholdChanged;
+    }
+
+    public boolean isUndoMemoryLimitChanged() {
+        long prefLimitMegabytes = Math.max(1, preferences.getUndoMemoryLimit() / BYTES_PER_MEGABYTE);
+        boolean limitChanged = prefLimitMegabytes * BYTES_PER_MEGABYTE != getSelectedUndoMemoryLimit();
+        if (limitChanged) {
+            log.info("Undo memory limit change detected: {}", getSelectedUndoMemoryLimit());
+        } else {
+            log.debug("No change in undo memory limit detected");
+        }
+        return limitChanged;
+    }
+
+    public boolean isTabMemoryBudgetChanged() {
+        long prefBudgetMegabytes = Math.max(1, preferences.getTabMemoryBudget() / BYTES_PER_MEGABYTE);
+        boolean budgetChanged = prefBudgetMegabytes * BYTES_PER_MEGABYTE != getSelectedTabMemoryBudget();
+        if (budgetChanged) {
+            log.info("Tab memory budget change detected: {}", getSelectedTabMemoryBudget());
+        } else {
+            log.debug("No change in tab memory budget detected");
+        }
+        return budgetChanged;
+    }
+
     public boolean isChanged() {
-        boolean changed = isFontChanged() || isForegroundColorChanged() || isBackgroundColorChanged();
+        boolean changed = isFontChanged() || isForegroundColorChanged() || isBackgroundColorChanged()
+                || isLargeFileThresholdChanged() || isUndoMemoryLimitChanged()
+                || isTabMemoryBudgetChanged();
         log.trace("Checking if any preferences have changed: {}", changed);
         return changed;
     }
@@ -312,7 +425,7 @@ public class EditorPreferencesPanel extends JPanel implements PreferencesChangeL
     protected void updatePreview() {
         log.trace("Updating preview with selected font and colors");
         try {
-            String selectedFont = (String) fontFamilyComboBox.getSelectedItem();
+            String selectedFont = fontFamilyChooser.getSelectedFamily();
             int selectedStyle = getFontStyleFromComboBox();
             int selectedSize = (Integer) fontSizeComboBox.getSelectedItem();
 
@@ -330,17 +443,16 @@ public class EditorPreferencesPanel extends JPanel implements PreferencesChangeL
         }
     }
 
-    private String[] getAllSystemFonts() {
+    /**
+     * Fills the font families in once the catalogue has them, which it usually has by the time
+     * the panel is built. The selected family is shown meanwhile.
+     */
+    private void loadFontFamilies() {
         log.trace("Retrieving all system fonts");
-        try {
-            GraphicsEnvironment ge = GraphicsEnvironment.getLocalGraphicsEnvironment();
-            String[] fonts = ge.getAvailableFontFamilyNames();
-            log.debug("System fonts retrieved: {}", (Object) fonts);
-            return fonts;
-        } catch (Exception e) {
-            log.error("Error retrieving system fonts", e);
-            return new String[0];
-        }
+        fontCatalog.getFamilies().thenAcceptAsync(families -> {
+            log.debug("{} system fonts retrieved", families.size());
+            fontFamilyChooser.setFamilies(families);
+        }, SwingUtilities::invokeLater);
     }
 
     public void addFontFamilyChangeListener(ActionListener listener) {
@@ -367,8 +479,41 @@ public class EditorPreferencesPanel extends JPanel implements PreferencesChangeL
         backgroundColorButton.addActionListener(listener);
     }
 
+    public void addLargeFileThresholdChangeListener(ChangeListener listener) {
+        largeFileThresholdSpinner.addChangeListener(listener);
+        log.trace("Large file threshold change listener added");
+    }
+
+    public void addUndoMemoryLimitChangeListener(ChangeListener listener) {
+        undoMemoryLimitSpinner.addChangeListener(listener);
+        log.trace("Undo memory limit change listener added");
+    }
+
+    public void addTabMemoryBudgetChangeListener(ChangeListener listener) {
+        tabMemoryBudgetSpinner.addChangeListener(listener);
+        log.trace("Tab memory budget change listener added");
+    }
+
     @Override
-    public void onPreferencesChanged() {
+    public void addNotify() {
+        super.addNotify();
+        updateForm();
+        preferences.addPreferencesChangeListener(this);
+    }
+
+    @Override
+    public void removeNotify() {
+        preferences.removePreferencesChangeListener(this);
+        super.removeNotify();
+    }
+
+    @Override
+    public void onPreferencesChanged(PreferencesChangeEvent event) {
+        if (!event.isAnyChanged(PreferenceKey.EDITOR_FONT, PreferenceKey.EDITOR_FOREGROUND_COLOR,
+                PreferenceKey.EDITOR_BACKGROUND_COLOR, PreferenceKey.LARGE_FILE_THRESHOLD, PreferenceKey.UNDO_MEMORY_LIMIT,
+                PreferenceKey.TAB_MEMORY_BUDGET)) {
+            return;
+        }
         log.trace("Preferences have changed, updating form");
         updateForm();
     }
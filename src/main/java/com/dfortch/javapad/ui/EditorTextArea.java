@@ -0,0 +1,338 @@
+package com.dfortch.javapad.ui;
+
+import com.dfortch.javapad.highlight.HighlightListener;
+import com.dfortch.javapad.highlight.Lexer;
+import com.dfortch.javapad.highlight.LineTokens;
+import com.dfortch.javapad.highlight.SyntaxHighlighter;
+import com.dfortch.javapad.highlight.TokenStyles;
+import com.dfortch.javapad.text.PieceTableDocument;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.plaf.basic.BasicTextAreaUI;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Element;
+import javax.swing.text.JTextComponent;
+import javax.swing.text.PlainView;
+import javax.swing.text.Segment;
+import javax.swing.text.TabExpander;
+import javax.swing.text.Utilities;
+import javax.swing.text.View;
+import javax.swing.text.ViewFactory;
+import java.awt.*;
+import java.awt.geom.Rectangle2D;
+
+/**
+ * Text area that colours the text of documents with a {@link Lexer}.
+ * <p>
+ * Tokens are asked from a {@link SyntaxHighlighter} while painting, so only the visible lines are
+ * styled and only as much of the document is lexed as it takes to reach them. Text in a monospaced
+ * font, or in a {@link #setViewer(boolean) viewer}, is shown by a {@link MonospacedView}, which
+ * measures and paints only the visible slice of long lines; other fonts fall back to a
+ * {@link PlainView}. To create its own views the area installs a {@link BasicTextAreaUI} of its own
+ * instead of the one of the look and feel, which still takes its colours, font and margins from the
+ * look and feel defaults.
+ */
+public class EditorTextArea extends JTextArea implements HighlightListener {
+
+    private static final Logger log = LogManager.getLogger(EditorTextArea.class);
+
+    private transient Lexer lexer;
+
+    private transient SyntaxHighlighter syntaxHighlighter;
+
+    private transient TokenStyles tokenStyles;
+
+    private boolean viewer;
+
+    private transient Font viewerFont;
+
+    @Override
+    public void updateUI() {
+        setUI(new EditorTextAreaUI());
+        invalidate();
+    }
+
+    public Lexer getLexer() {
+        return lexer;
+    }
+
+    /**
+     * Sets the lexer for the text, or {@code null} to show it plain.
+     */
+    public void setLexer(Lexer lexer) {
+        if (this.lexer == lexer) {
+            return;
+        }
+        log.debug("Lexer set to {}", lexer != null ? lexer.getClass().getSimpleName() : null);
+        this.lexer = lexer;
+        updateSyntaxHighlighter();
+        repaint();
+    }
+
+    public boolean isViewer() {
+        return viewer;
+    }
+
+    /**
+     * Lays the text out without reading all of it, for read-only documents whose text is decoded
+     * on demand. Lines are measured when they are first shown, and text in a proportional font is
+     * shown in a monospaced font of the same size, since the width of proportional text cannot be
+     * known without measuring every char of it.
+     */
+    public void setViewer(boolean viewer) {
+        if (this.viewer == viewer) {
+            return;
+        }
+        log.debug("Viewer layout set to {}", viewer);
+        this.viewer = viewer;
+        if (getUI() instanceof EditorTextAreaUI ui) {
+            ui.rebuildView();
+        }
+    }
+
+    /**
+     * Returns the font the text is laid out in, which is the font of the area unless a viewer
+     * replaces a proportional one.
+     */
+    Font getLayoutFont() {
+        Font font = getFont();
+        if (!viewer || MonospacedView.isMonospaced(this)) {
+            return font;
+        }
+        if (viewerFont == null || viewerFont.getSize() != font.getSize() || viewerFont.getStyle() != font.getStyle()) {
+            viewerFont = new Font(Font.MONOSPACED, font.getStyle(), font.getSize());
+        }
+        return viewerFont;
+    }
+
+    public SyntaxHighlighter getSyntaxHighlighter() {
+        return syntaxHighlighter;
+    }
+
+    @Override
+    public void setDocument(Document doc) {
+        super.setDocument(doc);
+        updateSyntaxHighlighter();
+    }
+
+    @Override
+    public void onHighlightChanged(int firstLine, int lastLine) {
+        Rectangle visible = getVisibleRect();
+        try {
+            Rectangle2D first = modelToView2D(getLineStartOffset(firstLine));
+            Rectangle2D last = modelToView2D(getLineStartOffset(lastLine));
+            int top = (int) Math.max(first.getY(), visible.y);
+            int bottom = (int) Math.min(last.getMaxY(), visible.getMaxY());
+            if (top < bottom) {
+                repaint(0, top, getWidth(), bottom - top);
+            }
+        } catch (BadLocationException e) {
+            repaint();
+        }
+    }
+
+    private void updateSyntaxHighlighter() {
+        if (syntaxHighlighter != null) {
+            syntaxHighlighter.removeHighlightListener(this);
+            syntaxHighlighter.uninstall();
+            syntaxHighlighter = null;
+        }
+        // Also called by the JTextArea constructor, before the lexer can be set
+        if (lexer != null && getDocument() instanceof PieceTableDocument pieceTableDocument) {
+            syntaxHighlighter = new SyntaxHighlighter(pieceTableDocument, lexer);
+            syntaxHighlighter.install();
+            syntaxHighlighter.addHighlightListener(this);
+        }
+    }
+
+    /**
+     * Returns whether the text of {@code document} is drawn in token colours.
+     */
+    boolean isHighlighting(Document document) {
+        return syntaxHighlighter != null && isEnabled() && syntaxHighlighter.getDocument() == document;
+    }
+
+    /**
+     * Draws the text from {@code p0} to {@code p1}, which must be on one line, as runs of token
+     * colours and returns where it ends.
+     *
+     * @param text segment to load the text into
+     */
+    float drawTokens(Graphics2D g, float x, float y, int p0, int p1, TabExpander expander, Segment text)
+            throws BadLocationException {
+        TokenStyles styles = getTokenStyles();
+        Color plain = getForeground();
+        LineTokens tokens = syntaxHighlighter.getTokens(syntaxHighlighter.getDocument().getLineOfOffset(p0));
+        int pos = p0;
+        for (int i = tokens.indexAfter(p0); i < tokens.size() && tokens.getStart(i) < p1; i++) {
+            int start = Math.max(tokens.getStart(i), pos);
+            int end = Math.min(tokens.getEnd(i), p1);
+            if (start >= end) {
+                continue;
+            }
+            if (pos < start) {
+                x = drawRun(g, x, y, pos, start, plain, expander, text);
+            }
+            x = drawRun(g, x, y, start, end, styles.getColor(tokens.getType(i)), expander, text);
+            pos = end;
+        }
+        if (pos < p1) {
+            x = drawRun(g, x, y, pos, p1, plain, expander, text);
+        }
+        return x;
+    }
+
+    private float drawRun(Graphics2D g, float x, float y, int p0, int p1, Color color, TabExpander expander,
+                          Segment text) throws BadLocationException {
+        g.setColor(color);
+        getDocument().getText(p0, p1 - p0, text);
+        return Utilities.drawTabbedText(text, x, y, g, expander, p0);
+    }
+
+    private TokenStyles getTokenStyles() {
+        Color background = getBackground();
+        if (tokenStyles == null || !tokenStyles.getBackground().equals(background)) {
+            tokenStyles = TokenStyles.forBackground(background);
+        }
+        return tokenStyles;
+    }
+
+    private static class EditorTextAreaUI extends BasicTextAreaUI {
+        @Override
+        public View create(Element elem) {
+            JTextComponent component = getComponent();
+            if (component instanceof JTextArea area && area.getLineWrap()) {
+                return super.create(elem);
+            }
+            // Rebuilt by the UI when the font changes
+            if ((component instanceof EditorTextArea area && area.isViewer()) || MonospacedView.isMonospaced(component)) {
+                return new MonospacedView(elem);
+            }
+            return new HighlightingView(elem);
+        }
+
+        void rebuildView() {
+            modelChanged();
+        }
+    }
+
+    /**
+     * Draws the text of each line as runs of token colours.
+     * <p>
+     * {@link PlainView} remembers its longest line as an element and compares elements by identity,
+     * but the line elements of a {@link PieceTableDocument} are created on demand, so it would go
+     * on measuring whatever line takes the place of the longest one. The longest line is tracked
+     * by index here instead.
+     */
+    private static class HighlightingView extends PlainView {
+
+        private final Segment text = new Segment();
+
+        private final Segment measured = new Segment();
+
+        /**
+         * Index of the widest line, or -1 when it has to be looked for again.
+         */
+        private int longestLine = -1;
+
+        private float longestWidth;
+
+        private Font measuredFont;
+
+        HighlightingView(Element elem) {
+            super(elem);
+        }
+
+        @Override
+        protected float drawUnselectedText(Graphics2D g, float x, float y, int p0, int p1) throws BadLocationException {
+            EditorTextArea host = (EditorTextArea) getContainer();
+            if (!host.isHighlighting(getDocument())) {
+                return super.drawUnselectedText(g, x, y, p0, p1);
+            }
+            return host.drawTokens(g, x, y, p0, p1, this, text);
+        }
+
+        @Override
+        public float getPreferredSpan(int axis) {
+            if (axis != X_AXIS) {
+                return super.getPreferredSpan(axis);
+            }
+            updateMetrics();
+            Font font = getContainer().getFont();
+            if (longestLine < 0 || !font.equals(measuredFont)) {
+                measuredFont = font;
+                findLongestLine();
+            }
+            return longestWidth;
+        }
+
+        @Override
+        protected void updateDamage(DocumentEvent changes, Shape a, ViewFactory f) {
+            super.updateDamage(changes, a, f);
+            if (longestLine < 0) {
+                return;
+            }
+            float oldWidth = longestWidth;
+            Element root = getElement();
+            DocumentEvent.ElementChange change = changes.getChange(root);
+            if (change != null) {
+                int index = change.getIndex();
+                int removed = change.getChildrenRemoved().length;
+                int added = change.getChildrenAdded().length;
+                if (longestLine >= index + removed) {
+                    longestLine += added - removed;
+                } else if (longestLine >= index) {
+                    longestLine = -1;
+                }
+                for (int line = index; longestLine >= 0 && line < index + added; line++) {
+                    measureLine(line);
+                }
+            } else {
+                int line = root.getElementIndex(changes.getOffset());
+                if (line == longestLine && getLineWidth(line) < longestWidth) {
+                    longestLine = -1;
+                } else {
+                    measureLine(line);
+                }
+            }
+            if (longestLine < 0 || longestWidth != oldWidth) {
+                preferenceChanged(null, true, false);
+            }
+        }
+
+        private void findLongestLine() {
+            longestLine = 0;
+            longestWidth = 0;
+            int lineCount = getElement().getElementCount();
+            for (int line = 0; line < lineCount; line++) {
+                measureLine(line);
+            }
+        }
+
+        private void measureLine(int line) {
+            float width = getLineWidth(line);
+            if (width > longestWidth || line == longestLine) {
+                longestLine = line;
+                longestWidth = width;
+            }
+        }
+
+        private float getLineWidth(int line) {
+            Element lineElement = getElement().getElement(line);
+            int start = lineElement.getStartOffset();
+            // Leave out the line break
+            int end = lineElement.getEndOffset() - 1;
+            try {
+                getDocument().getText(start, end - start, measured);
+            } catch (BadLocationException e) {
+                throw new IllegalStateException("Line " + line + " is not in the document", e);
+            }
+            Container host = getContainer();
+            return Utilities.getTabbedTextWidth(measured, host.getFontMetrics(host.getFont()), 0f, this, start);
+        }
+    }
+}
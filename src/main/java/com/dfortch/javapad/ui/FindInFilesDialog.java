@@ -0,0 +1,331 @@
+package com.dfortch.javapad.ui;
+
+import com.dfortch.javapad.i18n.MessageProvider;
+import com.dfortch.javapad.search.FileMatch;
+import com.dfortch.javapad.search.FileSearch;
+import com.dfortch.javapad.search.FileSearchListener;
+import com.dfortch.javapad.search.FileSearcher;
+import com.dfortch.javapad.search.SearchQuery;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Non modal dialog that searches the files under a directory with a {@link FileSearcher} and lists
+ * the matches as they are found. Opening a match is left to a {@link FindInFilesListener}.
+ * <p>
+ * Matches arrive from many threads at once; they are queued and moved to the list by a single
+ * pending EDT task, so a burst of matches costs one repaint rather than one per file.
+ */
+public class FindInFilesDialog extends JDialog {
+
+    private static final Logger log = LogManager.getLogger(FindInFilesDialog.class);
+
+    private static final String DEFAULT_FILE_PATTERN = "*";
+
+    private final transient MessageProvider messageProvider;
+
+    private final transient FileSearcher fileSearcher;
+
+    private final transient FindInFilesListener listener;
+
+    private final transient Queue<FileMatch> pendingMatches = new ConcurrentLinkedQueue<>();
+
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+
+    private final DefaultListModel<FileMatch> resultsModel = new DefaultListModel<>();
+
+    private transient FileSearch search;
+
+    private JTextField directoryField;
+
+    private JTextField filePatternField;
+
+    private JTextField findField;
+
+    private JCheckBox regexCheckBox;
+
+    private JCheckBox matchCaseCheckBox;
+
+    private JButton searchButton;
+
+    private JButton stopButton;
+
+    private JList<FileMatch> resultsList;
+
+    private JLabel statusLabel;
+
+    public FindInFilesDialog(Frame owner, MessageProvider messageProvider, FileSearcher fileSearcher,
+                             FindInFilesListener listener) {
+        super(owner, false);
+        this.messageProvider = messageProvider;
+        this.fileSearcher = fileSearcher;
+        this.listener = listener;
+        initialize();
+    }
+
+    private void initialize() {
+        log.trace("Initializing FindInFilesDialog");
+        setTitle(messageProvider.getMessage("find-in-files.title"));
+        setDefaultCloseOperation(HIDE_ON_CLOSE);
+
+        JPanel formPanel = new JPanel(new GridBagLayout());
+        formPanel.setBorder(BorderFactory.createEmptyBorder(5, 5, 5, 5));
+        GridBagConstraints gbc = new GridBagConstraints();
+        gbc.insets = new Insets(5, 5, 5, 5);
+        gbc.anchor = GridBagConstraints.WEST;
+        gbc.fill = GridBagConstraints.HORIZONTAL;
+
+        gbc.gridx = 0;
+        gbc.gridy = 0;
+        formPanel.add(new JLabel(messageProvider.getMessage("find.find")), gbc);
+        gbc.gridx = 1;
+        gbc.weightx = 1.0;
+        findField = new JTextField(30);
+        findField.addActionListener(e -> startSearch());
+        formPanel.add(findField, gbc);
+
+        gbc.gridx = 0;
+        gbc.gridy = 1;
+        gbc.weightx = 0;
+        formPanel.add(new JLabel(messageProvider.getMessage("find-in-files.directory")), gbc);
+        gbc.gridx = 1;
+        gbc.weightx = 1.0;
+        directoryField = new JTextField(30);
+        formPanel.add(directoryField, gbc);
+        gbc.gridx = 2;
+        gbc.weightx = 0;
+        JButton browseButton = new JButton(messageProvider.getMessage("find-in-files.browse"));
+        browseButton.addActionListener(e -> chooseDirectory());
+        formPanel.add(browseButton, gbc);
+
+        gbc.gridx = 0;
+        gbc.gridy = 2;
+        formPanel.add(new JLabel(messageProvider.getMessage("find-in-files.file-pattern")), gbc);
+        gbc.gridx = 1;
+        gbc.weightx = 1.0;
+        filePatternField = new JTextField(DEFAULT_FILE_PATTERN, 30);
+        formPanel.add(filePatternField, gbc);
+
+        gbc.gridx = 1;
+        gbc.gridy = 3;
+        JPanel optionsPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 0, 0));
+        matchCaseCheckBox = new JCheckBox(messageProvider.getMessage("find.match-case"));
+        regexCheckBox = new JCheckBox(messageProvider.getMessage("find.regex"));
+        optionsPanel.add(matchCaseCheckBox);
+        optionsPanel.add(Box.createHorizontalStrut(10));
+        optionsPanel.add(regexCheckBox);
+        formPanel.add(optionsPanel, gbc);
+
+        JPanel buttonsPanel = new JPanel(new GridLayout(0, 1, 5, 5));
+        buttonsPanel.setBorder(BorderFactory.createEmptyBorder(10, 5, 10, 10));
+        searchButton = new JButton(messageProvider.getMessage("find-in-files.search"));
+        searchButton.addActionListener(e -> startSearch());
+        stopButton = new JButton(messageProvider.getMessage("find-in-files.stop"));
+        stopButton.setEnabled(false);
+        stopButton.addActionListener(e -> stopSearch());
+        JButton closeButton = new JButton(messageProvider.getMessage("find.close"));
+        closeButton.addActionListener(e -> setVisible(false));
+        buttonsPanel.add(searchButton);
+        buttonsPanel.add(stopButton);
+        buttonsPanel.add(closeButton);
+
+        JPanel eastPanel = new JPanel(new BorderLayout());
+        eastPanel.add(buttonsPanel, BorderLayout.NORTH);
+
+        JPanel northPanel = new JPanel(new BorderLayout());
+        northPanel.add(formPanel, BorderLayout.CENTER);
+        northPanel.add(eastPanel, BorderLayout.EAST);
+
+        resultsList = new JList<>(resultsModel);
+        resultsList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        resultsList.setCellRenderer(new MatchRenderer());
+        // Fixed cell sizes keep the list from measuring every match it holds
+        resultsList.setPrototypeCellValue(new FileMatch(new File("prototype.txt"), 0, 0, 0, "x".repeat(80)));
+        resultsList.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (e.getClickCount() == 2) {
+                    openSelectedMatch();
+                }
+            }
+        });
+        resultsList.registerKeyboardAction(e -> openSelectedMatch(),
+                KeyStroke.getKeyStroke(KeyEvent.VK_ENTER, 0), JComponent.WHEN_FOCUSED);
+        JScrollPane resultsScrollPane = new JScrollPane(resultsList);
+        resultsScrollPane.setPreferredSize(new Dimension(700, 300));
+        resultsScrollPane.setBorder(BorderFactory.createCompoundBorder(
+                BorderFactory.createEmptyBorder(0, 10, 0, 10), resultsScrollPane.getBorder()));
+
+        statusLabel = new JLabel(" ");
+        statusLabel.setBorder(BorderFactory.createEmptyBorder(5, 10, 10, 10));
+
+        setLayout(new BorderLayout());
+        add(northPanel, BorderLayout.NORTH);
+        add(resultsScrollPane, BorderLayout.CENTER);
+        add(statusLabel, BorderLayout.SOUTH);
+
+        getRootPane().registerKeyboardAction(e -> setVisible(false),
+                KeyStroke.getKeyStroke(KeyEvent.VK_ESCAPE, 0), JComponent.WHEN_IN_FOCUSED_WINDOW);
+        getRootPane().setDefaultButton(searchButton);
+        pack();
+        setLocationRelativeTo(getOwner());
+        log.trace("FindInFilesDialog initialized successfully");
+    }
+
+    /**
+     * Shows the dialog, searching under {@code directory} unless a directory was already entered.
+     */
+    public void open(File directory, String text) {
+        if (directory != null && directoryField.getText().isEmpty()) {
+            directoryField.setText(directory.getAbsolutePath());
+        }
+        if (text != null && !text.isEmpty()) {
+            findField.setText(text);
+        }
+        setVisible(true);
+        findField.requestFocusInWindow();
+        findField.selectAll();
+    }
+
+    @Override
+    public void setVisible(boolean visible) {
+        if (!visible) {
+            stopSearch();
+        }
+        super.setVisible(visible);
+    }
+
+    private void chooseDirectory() {
+        JFileChooser fileChooser = new JFileChooser(directoryField.getText());
+        fileChooser.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY);
+        if (fileChooser.showOpenDialog(this) == JFileChooser.APPROVE_OPTION) {
+            directoryField.setText(fileChooser.getSelectedFile().getAbsolutePath());
+        }
+    }
+
+    private void startSearch() {
+        String text = findField.getText();
+        File directory = new File(directoryField.getText().trim()).getAbsoluteFile();
+        if (text.isEmpty()) {
+            return;
+        }
+        if (!directory.isDirectory()) {
+            statusLabel.setText(messageProvider.getMessage("find-in-files.status.no-directory", directory.getPath()));
+            return;
+        }
+        String filePattern = filePatternField.getText().trim();
+        SearchQuery query = new SearchQuery(text, regexCheckBox.isSelected(), matchCaseCheckBox.isSelected());
+
+        stopSearch();
+        pendingMatches.clear();
+        resultsModel.clear();
+        try {
+            FileSearch[] started = new FileSearch[1];
+            started[0] = fileSearcher.start(directory.toPath(), filePattern.isEmpty() ? DEFAULT_FILE_PATTERN : filePattern,
+                    query, new FileSearchListener() {
+                        @Override
+                        public void onMatches(List<FileMatch> matches) {
+                            pendingMatches.addAll(matches);
+                            scheduleDrain();
+                        }
+
+                        @Override
+                        public void onFinished(FileSearch.Summary summary) {
+                            SwingUtilities.invokeLater(() -> searchFinished(started[0], summary));
+                        }
+                    });
+            search = started[0];
+        } catch (PatternSyntaxException e) {
+            log.debug("Invalid regular expression", e);
+            statusLabel.setText(messageProvider.getMessage("find.status.invalid-regex", e.getDescription()));
+            return;
+        } catch (IllegalArgumentException e) {
+            log.debug("Invalid file pattern", e);
+            statusLabel.setText(messageProvider.getMessage("find-in-files.status.invalid-pattern", filePattern));
+            return;
+        }
+        searchButton.setEnabled(false);
+        stopButton.setEnabled(true);
+        statusLabel.setText(messageProvider.getMessage("find.status.searching"));
+    }
+
+    private void stopSearch() {
+        if (search != null) {
+            log.info("Find in files stopped");
+            search.cancel();
+            search = null;
+            searchButton.setEnabled(true);
+            stopButton.setEnabled(false);
+            statusLabel.setText(messageProvider.getMessage("find.status.cancelled"));
+        }
+    }
+
+    private void searchFinished(FileSearch finished, FileSearch.Summary summary) {
+        if (finished != search) {
+            // Stopped or replaced by a newer search
+            return;
+        }
+        drain();
+        search = null;
+        searchButton.setEnabled(true);
+        stopButton.setEnabled(false);
+        statusLabel.setText(messageProvider.getMessage("find-in-files.status.finished", summary.matches(),
+                summary.searchedFiles(), summary.skippedFiles()));
+    }
+
+    private void scheduleDrain() {
+        if (drainScheduled.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(this::drain);
+        }
+    }
+
+    private void drain() {
+        drainScheduled.set(false);
+        if (search == null) {
+            pendingMatches.clear();
+            return;
+        }
+        List<FileMatch> matches = new ArrayList<>();
+        FileMatch match;
+        while ((match = pendingMatches.poll()) != null) {
+            matches.add(match);
+        }
+        if (!matches.isEmpty()) {
+            resultsModel.addAll(matches);
+        }
+    }
+
+    private void openSelectedMatch() {
+        FileMatch match = resultsList.getSelectedValue();
+        if (match != null) {
+            log.info("Opening match in {} at line {}", match.file().getAbsolutePath(), match.line() + 1);
+            listener.onOpenMatch(match);
+        }
+    }
+
+    private static class MatchRenderer extends DefaultListCellRenderer {
+
+        @Override
+        public Component getListCellRendererComponent(JList<?> list, Object value, int index, boolean isSelected,
+                                                      boolean cellHasFocus) {
+            Object text = value;
+            if (value instanceof FileMatch match) {
+                text = match.file().getPath() + ":" + (match.line() + 1) + ": " + match.preview();
+            }
+            return super.getListCellRendererComponent(list, text, index, isSelected, cellHasFocus);
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.dfortch.javapad.ui;
+
+import com.dfortch.javapad.search.FileMatch;
+
+public interface FindInFilesListener {
+    void onOpenMatch(FileMatch match);
+}
@@ -0,0 +1,165 @@
+package com.dfortch.javapad.ui;
+
+import com.dfortch.javapad.i18n.MessageProvider;
+import com.dfortch.javapad.search.SearchQuery;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.KeyEvent;
+
+/**
+ * Non modal dialog that collects a {@link SearchQuery} and hands it to a
+ * {@link FindReplaceListener}; the searching itself is left to the listener.
+ */
+public class FindReplaceDialog extends JDialog {
+
+    private static final Logger log = LogManager.getLogger(FindReplaceDialog.class);
+
+    private final transient MessageProvider messageProvider;
+
+    private final transient FindReplaceListener listener;
+
+    private JTextField findField;
+
+    private JTextField replaceField;
+
+    private JCheckBox regexCheckBox;
+
+    private JCheckBox matchCaseCheckBox;
+
+    private JLabel statusLabel;
+
+    public FindReplaceDialog(Frame owner, MessageProvider messageProvider, FindReplaceListener listener) {
+        super(owner, false);
+        this.messageProvider = messageProvider;
+        this.listener = listener;
+        initialize();
+    }
+
+    private void initialize() {
+        log.trace("Initializing FindReplaceDialog");
+        setTitle(messageProvider.getMessage("find.title"));
+        setDefaultCloseOperation(HIDE_ON_CLOSE);
+
+        JPanel formPanel = new JPanel(new GridBagLayout());
+        formPanel.setBorder(BorderFactory.createEmptyBorder(5, 5, 5, 5));
+        GridBagConstraints gbc = new GridBagConstraints();
+        gbc.insets = new Insets(5, 5, 5, 5);
+        gbc.anchor = GridBagConstraints.WEST;
+        gbc.fill = GridBagConstraints.HORIZONTAL;
+
+        gbc.gridx = 0;
+        gbc.gridy = 0;
+        formPanel.add(new JLabel(messageProvider.getMessage("find.find")), gbc);
+        gbc.gridx = 1;
+        gbc.weightx = 1.0;
+        findField = new JTextField(25);
+        findField.addActionListener(e -> findNext());
+        formPanel.add(findField, gbc);
+
+        gbc.gridx = 0;
+        gbc.gridy = 1;
+        gbc.weightx = 0;
+        formPanel.add(new JLabel(messageProvider.getMessage("find.replace")), gbc);
+        gbc.gridx = 1;
+        gbc.weightx = 1.0;
+        replaceField = new JTextField(25);
+        formPanel.add(replaceField, gbc);
+
+        gbc.gridx = 1;
+        gbc.gridy = 2;
+        JPanel optionsPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 0, 0));
+        matchCaseCheckBox = new JCheckBox(messageProvider.getMessage("find.match-case"));
+        regexCheckBox = new JCheckBox(messageProvider.getMessage("find.regex"));
+        optionsPanel.add(matchCaseCheckBox);
+        optionsPanel.add(Box.createHorizontalStrut(10));
+        optionsPanel.add(regexCheckBox);
+        formPanel.add(optionsPanel, gbc);
+
+        gbc.gridx = 0;
+        gbc.gridy = 3;
+        gbc.gridwidth = 2;
+        statusLabel = new JLabel(" ");
+        formPanel.add(statusLabel, gbc);
+
+        JPanel buttonsPanel = new JPanel(new GridLayout(0, 1, 5, 5));
+        buttonsPanel.setBorder(BorderFactory.createEmptyBorder(10, 5, 10, 10));
+        JButton findNextButton = new JButton(messageProvider.getMessage("find.find-next"));
+        findNextButton.addActionListener(e -> findNext());
+        JButton replaceButton = new JButton(messageProvider.getMessage("find.replace-button"));
+        replaceButton.addActionListener(e -> replace());
+        JButton replaceAllButton = new JButton(messageProvider.getMessage("find.replace-all"));
+        replaceAllButton.addActionListener(e -> replaceAll());
+        JButton closeButton = new JButton(messageProvider.getMessage("find.close"));
+        closeButton.addActionListener(e -> setVisible(false));
+        buttonsPanel.add(findNextButton);
+        buttonsPanel.add(replaceButton);
+        buttonsPanel.add(replaceAllButton);
+        buttonsPanel.add(closeButton);
+
+        JPanel eastPanel = new JPanel(new BorderLayout());
+        eastPanel.add(buttonsPanel, BorderLayout.NORTH);
+
+        setLayout(new BorderLayout());
+        add(formPanel, BorderLayout.CENTER);
+        add(eastPanel, BorderLayout.EAST);
+
+        getRootPane().registerKeyboardAction(e -> setVisible(false),
+                KeyStroke.getKeyStroke(KeyEvent.VK_ESCAPE, 0), JComponent.WHEN_IN_FOCUSED_WINDOW);
+        getRootPane().setDefaultButton(findNextButton);
+        pack();
+        setLocationRelativeTo(getOwner());
+        log.trace("FindReplaceDialog initialized successfully");
+    }
+
+    /**
+     * Shows the dialog with {@code text}, if not empty, as the text to find.
+     */
+    public void open(String text) {
+        if (text != null && !text.isEmpty()) {
+            findField.setText(text);
+        }
+        setStatus(" ");
+        setVisible(true);
+        findField.requestFocusInWindow();
+        findField.selectAll();
+    }
+
+    /**
+     * Returns the query in the form, or {@code null} when there is nothing to find.
+     */
+    public SearchQuery getQuery() {
+        String text = findField.getText();
+        if (text.isEmpty()) {
+            return null;
+        }
+        return new SearchQuery(text, regexCheckBox.isSelected(), matchCaseCheckBox.isSelected());
+    }
+
+    public void setStatus(String status) {
+        statusLabel.setText(status);
+    }
+
+    private void findNext() {
+        SearchQuery query = getQuery();
+        if (query != null) {
+            listener.onFindNext(query);
+        }
+    }
+
+    private void replace() {
+        SearchQuery query = getQuery();
+        if (query != null) {
+            listener.onReplace(query, replaceField.getText());
+        }
+    }
+
+    private void replaceAll() {
+        SearchQuery query = getQuery();
+        if (query != null) {
+            listener.onReplaceAll(query, replaceField.getText());
+        }
+    }
+}
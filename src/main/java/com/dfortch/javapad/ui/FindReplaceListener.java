@@ -0,0 +1,11 @@
+package com.dfortch.javapad.ui;
+
+import com.dfortch.javapad.search.SearchQuery;
+
+public interface FindReplaceListener {
+    void onFindNext(SearchQuery query);
+
+    void onReplace(SearchQuery query, String replacement);
+
+    void onReplaceAll(SearchQuery query, String replacement);
+}
@@ -0,0 +1,207 @@
+package com.dfortch.javapad.ui;
+
+import com.dfortch.javapad.io.AtomicTextWriter;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.awt.*;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * The font families installed on the system, enumerated once per run.
+ * <p>
+ * Asking {@link GraphicsEnvironment} for the families takes seconds on systems with thousands of
+ * fonts, so startup {@link #load() loads} the catalogue on a background thread and the preferences
+ * dialog takes it from {@link #getFamilies()} when it opens. The families are also written to a
+ * cache file together with a fingerprint of the font directories, the locale and the JDK, which
+ * spares later runs the enumeration until fonts are installed or removed.
+ */
+public class FontCatalog {
+
+    private static final Logger log = LogManager.getLogger(FontCatalog.class);
+
+    /**
+     * How deep below a font directory the fingerprint looks for changed directories.
+     */
+    private static final int FINGERPRINT_DEPTH = 4;
+
+    private final Path cacheFile;
+
+    private final Supplier<String[]> enumerator;
+
+    private final Supplier<String> fingerprint;
+
+    private final AtomicBoolean loading = new AtomicBoolean();
+
+    private final CompletableFuture<List<String>> families = new CompletableFuture<>();
+
+    public FontCatalog(Path cacheFile) {
+        this(cacheFile, () -> GraphicsEnvironment.getLocalGraphicsEnvironment().getAvailableFontFamilyNames(),
+                () -> fingerprint(getFontDirectories()));
+    }
+
+    FontCatalog(Path cacheFile, Supplier<String[]> enumerator, Supplier<String> fingerprint) {
+        this.cacheFile = cacheFile;
+        this.enumerator = enumerator;
+        this.fingerprint = fingerprint;
+    }
+
+    /**
+     * Loads the families on the calling thread, or waits for the thread already loading them.
+     *
+     * @return the families in the order of the system
+     */
+    public List<String> load() {
+        if (loading.compareAndSet(false, true)) {
+            try {
+                families.complete(readOrEnumerate());
+            } catch (RuntimeException e) {
+                log.error("Failed to enumerate the system fonts", e);
+                families.complete(List.of());
+            }
+        }
+        return families.join();
+    }
+
+    /**
+     * Returns the families, loading them on a thread of their own unless that has been started
+     * already.
+     */
+    public CompletableFuture<List<String>> getFamilies() {
+        if (!loading.get()) {
+            Thread.ofPlatform().name("font-catalog").daemon().start(this::load);
+        }
+        return families;
+    }
+
+    private List<String> readOrEnumerate() {
+        String key = fingerprint.get();
+        List<String> cached = readCache(key);
+        if (cached != null) {
+            log.info("Read {} font families from {}", cached.size(), cacheFile);
+            return cached;
+        }
+        long start = System.nanoTime();
+        List<String> enumerated = List.of(enumerator.get());
+        log.info("Enumerated {} font families in {} ms", enumerated.size(), (System.nanoTime() - start) / 1_000_000);
+        writeCache(key, enumerated);
+        return enumerated;
+    }
+
+    /**
+     * Returns the families of the cache file, or {@code null} if it is missing, unreadable or was
+     * written for another fingerprint.
+     */
+    private List<String> readCache(String key) {
+        try {
+            List<String> lines = Files.readAllLines(cacheFile, StandardCharsets.UTF_8);
+            if (lines.isEmpty() || !lines.getFirst().equals(key)) {
+                log.debug("Font catalogue cache {} is stale", cacheFile);
+                return null;
+            }
+            return List.copyOf(lines.subList(1, lines.size()));
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            log.warn("Failed to read the font catalogue cache {}", cacheFile, e);
+            return null;
+        }
+    }
+
+    private void writeCache(String key, List<String> families) {
+        StringBuilder content = new StringBuilder(key).append('\n');
+        for (String family : families) {
+            content.append(family).append('\n');
+        }
+        try {
+            Files.createDirectories(cacheFile.getParent());
+            new AtomicTextWriter(StandardCharsets.UTF_8).write(cacheFile, content, (done, total) -> {
+            });
+        } catch (IOException e) {
+            log.warn("Failed to write the font catalogue cache {}", cacheFile, e);
+        }
+    }
+
+    /**
+     * Returns a fingerprint of {@code directories} that changes when fonts are added to or removed
+     * from them, which changes the modification time of the directory holding the font. The
+     * locale and the JDK are part of it too, as family names are localized and the JDK adds
+     * logical fonts of its own.
+     */
+    static String fingerprint(List<Path> directories) {
+        StringBuilder key = new StringBuilder()
+                .append(Locale.getDefault()).append('\n')
+                .append(System.getProperty("java.home")).append('\n')
+                .append(System.getProperty("java.vm.version")).append('\n');
+        for (Path directory : directories) {
+            if (!Files.isDirectory(directory)) {
+                continue;
+            }
+            try (Stream<Path> paths = Files.find(directory, FINGERPRINT_DEPTH,
+                    (path, attributes) -> attributes.isDirectory())) {
+                paths.sorted().forEach(path -> key.append(path).append(':').append(lastModified(path)).append('\n'));
+            } catch (IOException | UncheckedIOException e) {
+                key.append(directory).append(":?\n");
+            }
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static long lastModified(Path path) {
+        try {
+            return Files.readAttributes(path, BasicFileAttributes.class).lastModifiedTime().toMillis();
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Returns the directories the JDK takes fonts from on this platform.
+     */
+    static List<Path> getFontDirectories() {
+        String os = System.getProperty("os.name", "").toLowerCase(Locale.ROOT);
+        String home = System.getProperty("user.home");
+        List<Path> directories = new ArrayList<>();
+        directories.add(Paths.get(System.getProperty("java.home"), "lib", "fonts"));
+        if (os.startsWith("windows")) {
+            String windows = System.getenv().getOrDefault("WINDIR", "C:\\Windows");
+            directories.add(Paths.get(windows, "Fonts"));
+            String localAppData = System.getenv("LOCALAPPDATA");
+            if (localAppData != null) {
+                directories.add(Paths.get(localAppData, "Microsoft", "Windows", "Fonts"));
+            }
+        } else if (os.startsWith("mac")) {
+            directories.add(Paths.get("/System/Library/Fonts"));
+            directories.add(Paths.get("/Library/Fonts"));
+            directories.add(Paths.get(home, "Library", "Fonts"));
+        } else {
+            directories.add(Paths.get("/usr/share/fonts"));
+            directories.add(Paths.get("/usr/local/share/fonts"));
+            directories.add(Paths.get(home, ".fonts"));
+            directories.add(Paths.get(home, ".local", "share", "fonts"));
+        }
+        return directories;
+    }
+}
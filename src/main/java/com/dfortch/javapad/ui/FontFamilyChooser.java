@@ -0,0 +1,268 @@
+package com.dfortch.javapad.ui;
+
+import com.dfortch.javapad.i18n.MessageProvider;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.event.PopupMenuEvent;
+import javax.swing.event.PopupMenuListener;
+import javax.swing.plaf.basic.ComboPopup;
+import java.awt.*;
+import java.awt.event.ActionListener;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Picks a font family from a list that can be narrowed by typing part of its name.
+ * <p>
+ * The list is filled once the {@link FontCatalog} has the families; until then it holds the
+ * selected family only, so the selection can be shown and read right away. The combo box measures
+ * a prototype instead of every family, and its popup has rows of a fixed height, so only the rows
+ * that scroll into view are rendered, each in the font it names.
+ */
+public class FontFamilyChooser extends JPanel {
+
+    private static final Logger log = LogManager.getLogger(FontFamilyChooser.class);
+
+    private static final String PROTOTYPE_FAMILY = "Monospaced Bold Italic Sample";
+
+    private static final int VISIBLE_ROWS = 12;
+
+    private final FamilyModel model = new FamilyModel();
+
+    private final JComboBox<String> comboBox = new JComboBox<>(model);
+
+    private final JTextField filterField = new JTextField(8);
+
+    private final FamilyRenderer renderer = new FamilyRenderer();
+
+    public FontFamilyChooser(MessageProvider messageProvider) {
+        super(new BorderLayout(5, 0));
+
+        comboBox.setPrototypeDisplayValue(PROTOTYPE_FAMILY);
+        comboBox.setMaximumRowCount(VISIBLE_ROWS);
+        comboBox.setRenderer(renderer);
+        comboBox.addPopupMenuListener(new PopupMenuListener() {
+            @Override
+            public void popupMenuWillBecomeVisible(PopupMenuEvent e) {
+                fixPopupRowHeight();
+            }
+
+            @Override
+            public void popupMenuWillBecomeInvisible(PopupMenuEvent e) {
+                // Nothing to do when the popup closes
+            }
+
+            @Override
+            public void popupMenuCanceled(PopupMenuEvent e) {
+                // Nothing to do when the popup closes
+            }
+        });
+
+        filterField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                filterChanged();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                filterChanged();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                filterChanged();
+            }
+        });
+        filterField.addActionListener(e -> selectFirstMatch());
+        String filterHint = messageProvider.getMessage("preferences.editor.font.filter");
+        filterField.setToolTipText(filterHint);
+        filterField.putClientProperty("JTextField.placeholderText", filterHint);
+
+        add(filterField, BorderLayout.WEST);
+        add(comboBox, BorderLayout.CENTER);
+    }
+
+    /**
+     * Fills the list with {@code families}, keeping the selected family.
+     */
+    public void setFamilies(List<String> families) {
+        log.debug("Showing {} font families", families.size());
+        model.setFamilies(families);
+    }
+
+    public String getSelectedFamily() {
+        return (String) model.getSelectedItem();
+    }
+
+    /**
+     * Selects {@code family}, which need not be in the list yet.
+     */
+    public void setSelectedFamily(String family) {
+        // The combo box would ignore a family that is not in the list
+        model.setSelectedItem(family);
+    }
+
+    /**
+     * Narrows the list to the families containing {@code filter}, ignoring case.
+     */
+    public void setFilter(String filter) {
+        filterField.setText(filter);
+    }
+
+    /**
+     * Returns the families the list shows with the current filter.
+     */
+    List<String> getShownFamilies() {
+        List<String> shown = new ArrayList<>(model.getSize());
+        for (int i = 0; i < model.getSize(); i++) {
+            shown.add(model.getElementAt(i));
+        }
+        return shown;
+    }
+
+    public void addActionListener(ActionListener listener) {
+        comboBox.addActionListener(listener);
+    }
+
+    private void filterChanged() {
+        model.setFilter(filterField.getText());
+        if (comboBox.isShowing() && model.getSize() > 0) {
+            comboBox.hidePopup();
+            comboBox.showPopup();
+        }
+    }
+
+    void selectFirstMatch() {
+        if (model.getSize() > 0) {
+            comboBox.setSelectedItem(model.getElementAt(0));
+            comboBox.hidePopup();
+        }
+    }
+
+    /**
+     * Gives the rows of the popup list the height of the prototype, so the list does not measure
+     * every family to lay itself out.
+     */
+    private void fixPopupRowHeight() {
+        Object child = comboBox.getUI().getAccessibleChild(comboBox, 0);
+        if (child instanceof ComboPopup popup) {
+            JList<?> list = popup.getList();
+            if (list.getFixedCellHeight() < 0) {
+                Component prototype = renderer.getListCellRendererComponent(list, PROTOTYPE_FAMILY, -1, false, false);
+                list.setFixedCellHeight(prototype.getPreferredSize().height);
+                list.setFixedCellWidth(prototype.getPreferredSize().width);
+            }
+        }
+    }
+
+    /**
+     * The families containing the filter, or the selected family alone while there are no families
+     * yet. The selected family stays selected when the filter hides it.
+     */
+    static final class FamilyModel extends AbstractListModel<String> implements ComboBoxModel<String> {
+
+        private List<String> families = List.of();
+
+        private List<String> shown = List.of();
+
+        private String filter = "";
+
+        private Object selected;
+
+        void setFamilies(List<String> families) {
+            this.families = List.copyOf(families);
+            update();
+        }
+
+        void setFilter(String filter) {
+            this.filter = filter.strip().toLowerCase(Locale.ROOT);
+            update();
+        }
+
+        private void update() {
+            int oldSize = shown.size();
+            if (families.isEmpty()) {
+                shown = selected != null ? List.of(selected.toString()) : List.of();
+            } else if (filter.isEmpty()) {
+                shown = families;
+            } else {
+                List<String> matches = new ArrayList<>();
+                for (String family : families) {
+                    if (family.toLowerCase(Locale.ROOT).contains(filter)) {
+                        matches.add(family);
+                    }
+                }
+                shown = matches;
+            }
+            if (oldSize > 0) {
+                fireIntervalRemoved(this, 0, oldSize - 1);
+            }
+            if (!shown.isEmpty()) {
+                fireIntervalAdded(this, 0, shown.size() - 1);
+            }
+        }
+
+        @Override
+        public int getSize() {
+            return shown.size();
+        }
+
+        @Override
+        public String getElementAt(int index) {
+            return shown.get(index);
+        }
+
+        @Override
+        public void setSelectedItem(Object item) {
+            if (!Objects.equals(selected, item)) {
+                selected = item;
+                if (families.isEmpty()) {
+                    update();
+                }
+                fireContentsChanged(this, -1, -1);
+            }
+        }
+
+        @Override
+        public Object getSelectedItem() {
+            return selected;
+        }
+    }
+
+    /**
+     * Shows each family in its own font, at the size of the list font. Fonts are created for the
+     * rows that are painted and kept for the next time they are.
+     */
+    private static final class FamilyRenderer extends DefaultListCellRenderer {
+
+        private final Map<String, Font> fonts = new HashMap<>();
+
+        @Override
+        public Component getListCellRendererComponent(JList<?> list, Object value, int index, boolean isSelected,
+                                                      boolean cellHasFocus) {
+            super.getListCellRendererComponent(list, value, index, isSelected, cellHasFocus);
+            // The closed combo box and the prototype keep the font of the list
+            if (index >= 0 && value != null && !PROTOTYPE_FAMILY.equals(value)) {
+                Font listFont = list.getFont();
+                Font font = fonts.computeIfAbsent(value.toString(),
+                        family -> new Font(family, Font.PLAIN, listFont.getSize()));
+                if (font.getSize() != listFont.getSize()) {
+                    font = font.deriveFont((float) listFont.getSize());
+                    fonts.put(value.toString(), font);
+                }
+                // Symbol fonts cannot show their own name
+                setFont(font.canDisplayUpTo(value.toString()) == -1 ? font : listFont);
+            }
+            return this;
+        }
+    }
+}
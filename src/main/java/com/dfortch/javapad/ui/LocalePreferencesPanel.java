@@ -2,6 +2,8 @@ package com.dfortch.javapad.ui;
 
 import com.dfortch.javapad.i18n.MessageProvider;
 import com.dfortch.javapad.prefs.JavaPadUserPreferences;
+import com.dfortch.javapad.prefs.PreferenceKey;
+import com.dfortch.javapad.prefs.PreferencesChangeEvent;
 import com.dfortch.javapad.prefs.PreferencesChangeListener;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -74,8 +76,6 @@ public class LocalePreferencesPanel extends JPanel implements PreferencesChangeL
 
             updateForm();
 
-            preferences.addPreferencesChangeListener(this);
-
             log.trace("LocalePreferencesPanel initialized successfully");
         } catch (Exception e) {
             log.error("Error initializing LocalePreferencesPanel", e);
@@ -126,7 +126,23 @@ public class LocalePreferencesPanel extends JPanel implements PreferencesChangeL
     }
 
     @Override
-    public void onPreferencesChanged() {
+    public void addNotify() {
+        super.addNotify();
+        updateForm();
+        preferences.addPreferencesChangeListener(this);
+    }
+
+    @Override
+    public void removeNotify() {
+        preferences.removePreferencesChangeListener(this);
+        super.removeNotify();
+    }
+
+    @Override
+    public void onPreferencesChanged(PreferencesChangeEvent event) {
+        if (!event.isChanged(PreferenceKey.LOCALE)) {
+            return;
+        }
         log.trace("Preferences have changed, updating form");
         updateForm();
     }
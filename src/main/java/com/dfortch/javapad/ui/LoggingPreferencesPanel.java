@@ -0,0 +1,126 @@
+package com.dfortch.javapad.ui;
+
+import com.dfortch.javapad.JavapadConstants;
+import com.dfortch.javapad.i18n.MessageProvider;
+import com.dfortch.javapad.prefs.JavaPadUserPreferences;
+import com.dfortch.javapad.prefs.PreferenceKey;
+import com.dfortch.javapad.prefs.PreferencesChangeEvent;
+import com.dfortch.javapad.prefs.PreferencesChangeListener;
+import com.dfortch.javapad.util.LoggingUtils;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.ActionListener;
+
+/**
+ * Sets the level of the javapad loggers. The level is applied as soon as it is saved, without
+ * restarting the application.
+ */
+public class LoggingPreferencesPanel extends JPanel implements PreferencesChangeListener {
+
+    private static final Logger log = LogManager.getLogger(LoggingPreferencesPanel.class);
+
+    private final MessageProvider messageProvider;
+
+    private final JavaPadUserPreferences preferences;
+
+    private JComboBox<Level> levelComboBox;
+
+    public LoggingPreferencesPanel(MessageProvider messageProvider, JavaPadUserPreferences preferences) {
+        this.messageProvider = messageProvider;
+        this.preferences = preferences;
+
+        initialize();
+    }
+
+    private void initialize() {
+        log.trace("Initializing LoggingPreferencesPanel");
+        try {
+            setLayout(new BorderLayout());
+            setBorder(BorderFactory.createEmptyBorder(5, 5, 5, 5));
+
+            JPanel formPanel = new JPanel(new GridBagLayout());
+
+            GridBagConstraints gbc = new GridBagConstraints();
+
+            gbc.insets = new Insets(10, 10, 10, 10);
+            gbc.anchor = GridBagConstraints.NORTHWEST;
+            gbc.fill = GridBagConstraints.HORIZONTAL;
+            gbc.weightx = 1.0;
+            gbc.gridx = 0;
+            gbc.gridy = 0;
+
+            JLabel levelLabel = new JLabel(messageProvider.getMessage("preferences.logging.level") + ":");
+            formPanel.add(levelLabel, gbc);
+
+            gbc.weightx = 0;
+            gbc.gridx = 1;
+            levelComboBox = new JComboBox<>(LoggingUtils.LEVELS);
+            formPanel.add(levelComboBox, gbc);
+
+            gbc.gridx = 0;
+            gbc.gridy = 1;
+            gbc.gridwidth = 2;
+            JLabel locationLabel = new JLabel(messageProvider.getMessage("preferences.logging.location",
+                    JavapadConstants.LOG_PATH.toString()));
+            formPanel.add(locationLabel, gbc);
+
+            gbc.gridy = 2;
+            gbc.weighty = 1.0;
+            formPanel.add(Box.createVerticalGlue(), gbc);
+
+            add(formPanel, BorderLayout.CENTER);
+
+            updateForm();
+
+            log.trace("LoggingPreferencesPanel initialized successfully");
+        } catch (Exception e) {
+            log.error("Error initializing LoggingPreferencesPanel", e);
+        }
+    }
+
+    public Level getSelectedLogLevel() {
+        Level selectedLevel = (Level) levelComboBox.getSelectedItem();
+        log.debug("Selected log level: {}", selectedLevel);
+        return selectedLevel;
+    }
+
+    public boolean isLogLevelChanged() {
+        return !preferences.getLogLevel().equals(levelComboBox.getSelectedItem());
+    }
+
+    public void addLogLevelChangeListener(ActionListener e) {
+        levelComboBox.addActionListener(e);
+        log.trace("Log level change listener added");
+    }
+
+    private void updateForm() {
+        log.trace("Updating form with current preferences");
+        levelComboBox.setSelectedItem(preferences.getLogLevel());
+    }
+
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        updateForm();
+        preferences.addPreferencesChangeListener(this);
+    }
+
+    @Override
+    public void removeNotify() {
+        preferences.removePreferencesChangeListener(this);
+        super.removeNotify();
+    }
+
+    @Override
+    public void onPreferencesChanged(PreferencesChangeEvent event) {
+        if (!event.isChanged(PreferenceKey.LOG_LEVEL)) {
+            return;
+        }
+        log.trace("Preferences have changed, updating form");
+        updateForm();
+    }
+}
@@ -1,36 +1,83 @@
 package com.dfortch.javapad.ui;
 
 import com.dfortch.javapad.BuildInfo;
+import com.dfortch.javapad.highlight.Lexer;
+import com.dfortch.javapad.highlight.Lexers;
 import com.dfortch.javapad.i18n.MessageProvider;
+import com.dfortch.javapad.io.BinaryFileException;
 import com.dfortch.javapad.io.FileOperations;
+import com.dfortch.javapad.io.MappedTextFile;
 import com.dfortch.javapad.io.RecentFilesManager;
+import com.dfortch.javapad.io.TextEncoding;
 import com.dfortch.javapad.prefs.JavaPadUserPreferences;
 import com.dfortch.javapad.prefs.JavapadTheme;
+import com.dfortch.javapad.prefs.PreferenceKey;
+import com.dfortch.javapad.prefs.PreferencesChangeEvent;
 import com.dfortch.javapad.prefs.PreferencesChangeListener;
+import com.dfortch.javapad.prefs.PreferencesSnapshot;
+import com.dfortch.javapad.search.DocumentSearcher;
+import com.dfortch.javapad.search.FileMatch;
+import com.dfortch.javapad.search.FileSearcher;
+import com.dfortch.javapad.search.SearchQuery;
+import com.dfortch.javapad.search.SearchResults;
+import com.dfortch.javapad.search.SearchTask;
+import com.dfortch.javapad.text.DocumentVersionTracker;
+import com.dfortch.javapad.text.LineIndex;
+import com.dfortch.javapad.text.PieceTableDocument;
+import com.dfortch.javapad.text.UndoHistory;
+import com.dfortch.javapad.util.LoggingUtils;
+import com.dfortch.javapad.util.StartupTimer;
 import com.dfortch.javapad.util.UIUtils;
+import com.dfortch.javapad.workspace.BufferPool;
+import com.dfortch.javapad.workspace.DocumentBuffer;
+import com.dfortch.javapad.workspace.EditJournal;
+import com.dfortch.javapad.workspace.RecoveredBuffer;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import javax.swing.*;
 import javax.swing.event.CaretEvent;
 import javax.swing.event.CaretListener;
-import javax.swing.event.DocumentEvent;
-import javax.swing.event.DocumentListener;
 import javax.swing.text.BadLocationException;
+import javax.swing.text.Caret;
+import javax.swing.text.DefaultCaret;
 import javax.swing.text.DefaultEditorKit;
 import javax.swing.undo.CannotRedoException;
 import javax.swing.undo.CannotUndoException;
-import javax.swing.undo.UndoManager;
 import java.awt.*;
 import java.awt.event.*;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
-
-public class MainFrame extends JFrame implements PreferencesChangeListener, WindowListener {
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * The editor window: a tab per open document over a single text area.
+ * <p>
+ * Each tab is a {@link DocumentBuffer} with its own document, undo history and caret. The text
+ * area is moved into the selected tab and shown that buffer's document, so views only exist for
+ * what is on screen. Tabs that were not viewed recently lose their text under the memory budget
+ * of the {@link BufferPool} and are read again, from their file or swap file, when selected.
+ */
+public class MainFrame extends JFrame implements PreferencesChangeListener, WindowListener, FindReplaceListener,
+        FindInFilesListener {
 
     private static final Logger log = LogManager.getLogger(MainFrame.class);
 
+    private static final int CONTENT_MATCH_LIMIT = 1024 * 1024;
+
+    /**
+     * Longest selection that is offered as the text to find.
+     */
+    private static final int MAX_QUERY_FROM_SELECTION = 256;
+
     private final transient MessageProvider messageProvider;
 
     private final transient FileOperations fileOperations;
@@ -39,28 +86,75 @@ public class MainFrame extends JFrame implements PreferencesChangeListener, Wind
 
     private final transient JavaPadUserPreferences preferences;
 
-    private File currentFile;
+    private final transient BufferPool bufferPool;
+
+    private final transient EditJournal editJournal;
+
+    private final transient StartupTimer startupTimer;
+
+    private final transient FontCatalog fontCatalog;
 
-    private String currentFileContent;
+    /**
+     * The open buffers in tab order.
+     */
+    private final transient List<DocumentBuffer> buffers = new ArrayList<>();
 
-    private boolean fileSaved;
+    private transient DocumentBuffer activeBuffer;
 
     private JMenu openRecentFilesMenu;
 
     private JMenu themeMenu;
 
-    private JTextArea contentTextArea;
+    private JTabbedPane tabbedPane;
+
+    private JScrollPane textAreaScrollPane;
+
+    private EditorTextArea contentTextArea;
+
+    /**
+     * The document shown in the text area, which doubles as the {@link LineIndex} the status bar
+     * reads the caret line and column from. An empty placeholder while the active buffer is not
+     * resident.
+     */
+    private PieceTableDocument document;
+
+    private boolean saving;
 
     private StatusBar statusBar;
 
+    private final transient DocumentSearcher searcher = new DocumentSearcher();
+
+    private transient SearchTask searchTask;
+
+    private FindReplaceDialog findReplaceDialog;
+
+    private SearchQuery lastQuery;
+
+    /**
+     * The match selected by the last find, which Replace replaces while the document is unchanged.
+     */
+    private FoundMatch lastMatch;
+
+    private FindInFilesDialog findInFilesDialog;
+
+    private PreferencesDialog preferencesDialog;
+
+    /**
+     * Match to select once the file being opened for it has loaded.
+     */
+    private FileMatch pendingMatch;
+
     public MainFrame(MessageProvider messageProvider, FileOperations fileOperations, RecentFilesManager recentFilesManager,
-                     JavaPadUserPreferences preferences) {
+                     JavaPadUserPreferences preferences, BufferPool bufferPool, EditJournal editJournal,
+                     StartupTimer startupTimer, FontCatalog fontCatalog) {
         this.messageProvider = messageProvider;
         this.fileOperations = fileOperations;
         this.recentFilesManager = recentFilesManager;
         this.preferences = preferences;
-
-        fileSaved = true;
+        this.bufferPool = bufferPool;
+        this.editJournal = editJournal;
+        this.startupTimer = startupTimer;
+        this.fontCatalog = fontCatalog;
 
         initialize();
     }
@@ -75,8 +169,48 @@ public class MainFrame extends JFrame implements PreferencesChangeListener, Wind
 
         addWindowListener(this);
 
-        UndoManager undoManager = new UndoManager();
+        statusBar = new StatusBar(1, 0, 0, messageProvider.getMessage("main.statusbar.filename.no-file"), messageProvider);
+
+        contentTextArea = new EditorTextArea();
+        contentTextArea.addCaretListener(new CaretListener() {
+            @Override
+            public void caretUpdate(CaretEvent e) {
+                updateStatus();
+            }
 
+            private void updateStatus() {
+                int caretpos = contentTextArea.getCaretPosition();
+                int line = document.getLineOfOffset(caretpos);
+                int column = caretpos - document.getLineStartOffset(line);
+
+                statusBar.setCurrentLineAndColumn(line + 1, column);
+                statusBar.setCharacterCount(document.getLength());
+            }
+        });
+        contentTextArea.setAutoscrolls(true);
+        styleContentTextArea();
+
+        textAreaScrollPane = new JScrollPane(contentTextArea, ScrollPaneConstants.VERTICAL_SCROLLBAR_ALWAYS, ScrollPaneConstants.HORIZONTAL_SCROLLBAR_ALWAYS);
+
+        tabbedPane = new JTabbedPane(SwingConstants.TOP, JTabbedPane.SCROLL_TAB_LAYOUT);
+        tabbedPane.addChangeListener(e -> selectedTabChanged());
+
+        add(tabbedPane, BorderLayout.CENTER);
+        add(statusBar, BorderLayout.SOUTH);
+
+        newFile();
+
+        preferences.addPreferencesChangeListener(this);
+
+        log.info("MainFrame Initialized successfully");
+    }
+
+    /**
+     * Builds the menu bar. It is left out of the constructor so the frame can be shown with its
+     * text area first; the recent files are filled in by {@link #showRecentFiles(List)}.
+     */
+    public void initializeMenus() {
+        log.info("Initializing the menus of MainFrame");
         JMenuBar menuBar = new JMenuBar();
 
         JMenu fileMenu = new JMenu(messageProvider.getMessage("main.menu.file"));
@@ -90,7 +224,6 @@ public class MainFrame extends JFrame implements PreferencesChangeListener, Wind
         openFileMenuItem.addActionListener(e -> openFile());
 
         openRecentFilesMenu = new JMenu(messageProvider.getMessage("main.menu.file.open-recent"));
-        updateRecentFilesMenu();
 
         JMenuItem saveFileMenuItem = new JMenuItem(messageProvider.getMessage("main.menu.file.save-file"));
         saveFileMenuItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_S, InputEvent.CTRL_DOWN_MASK));
@@ -100,6 +233,10 @@ public class MainFrame extends JFrame implements PreferencesChangeListener, Wind
         saveFileAsMenuItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_S, InputEvent.CTRL_DOWN_MASK | InputEvent.SHIFT_DOWN_MASK));
         saveFileAsMenuItem.addActionListener(e -> saveFileAs());
 
+        JMenuItem closeTabMenuItem = new JMenuItem(messageProvider.getMessage("main.menu.file.close-tab"));
+        closeTabMenuItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_W, InputEvent.CTRL_DOWN_MASK));
+        closeTabMenuItem.addActionListener(e -> closeTab(activeBuffer));
+
         JMenuItem exitFileMenuItem = new JMenuItem("Exit");
         exitFileMenuItem.addActionListener(e -> {
             log.info("Exiting application");
@@ -114,6 +251,7 @@ public class MainFrame extends JFrame implements PreferencesChangeListener, Wind
         fileMenu.add(saveFileMenuItem);
         fileMenu.add(saveFileAsMenuItem);
         fileMenu.addSeparator();
+        fileMenu.add(closeTabMenuItem);
         fileMenu.add(exitFileMenuItem);
 
         menuBar.add(fileMenu);
@@ -124,7 +262,7 @@ public class MainFrame extends JFrame implements PreferencesChangeListener, Wind
         undoItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_Z, InputEvent.CTRL_DOWN_MASK));
         undoItem.addActionListener(e -> {
             try {
-                undoManager.undo();
+                activeBuffer.getUndoHistory().undo();
                 log.info("Undo action performed");
             } catch (CannotUndoException ex) {
                 log.warn("Undo action failed", ex);
@@ -135,16 +273,32 @@ public class MainFrame extends JFrame implements PreferencesChangeListener, Wind
         redoItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_Y, InputEvent.CTRL_DOWN_MASK));
         redoItem.addActionListener(e -> {
             try {
-                undoManager.redo();
+                activeBuffer.getUndoHistory().redo();
                 log.info("Redo action performed");
             } catch (CannotRedoException ex) {
                 log.warn("Redo action failed", ex);
             }
         });
 
+        JMenuItem findReplaceItem = new JMenuItem(messageProvider.getMessage("main.menu.edit.find-replace"));
+        findReplaceItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_F, InputEvent.CTRL_DOWN_MASK));
+        findReplaceItem.addActionListener(e -> openFindReplace());
+
+        JMenuItem findNextItem = new JMenuItem(messageProvider.getMessage("main.menu.edit.find-next"));
+        findNextItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_F3, 0));
+        findNextItem.addActionListener(e -> findNextAgain());
+
+        JMenuItem findInFilesItem = new JMenuItem(messageProvider.getMessage("main.menu.edit.find-in-files"));
+        findInFilesItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_F, InputEvent.CTRL_DOWN_MASK | InputEvent.SHIFT_DOWN_MASK));
+        findInFilesItem.addActionListener(e -> openFindInFiles());
+
         editMenu.add(undoItem);
         editMenu.add(redoItem);
         editMenu.addSeparator();
+        editMenu.add(findReplaceItem);
+        editMenu.add(findNextItem);
+        editMenu.add(findInFilesItem);
+        editMenu.addSeparator();
         editMenu.add(
                 createItemFromAction(new DefaultEditorKit.CutAction(),
                         KeyEvent.VK_X,
@@ -187,73 +341,146 @@ public class MainFrame extends JFrame implements PreferencesChangeListener, Wind
         menuBar.add(helpMenu);
 
         setJMenuBar(menuBar);
+    }
 
-        contentTextArea = new JTextArea();
-        contentTextArea.getDocument().addUndoableEditListener(undoManager);
-        contentTextArea.getDocument().addDocumentListener(new DocumentListener() {
-            @Override
-            public void insertUpdate(DocumentEvent e) {
-                checkContent();
-            }
-
-            @Override
-            public void removeUpdate(DocumentEvent e) {
-                checkContent();
-            }
-
-            @Override
-            public void changedUpdate(DocumentEvent e) {
-                checkContent();
-            }
-
-            private void checkContent() {
-                if (currentFile != null) {
-                    fileSaved = currentFileContent.equals(contentTextArea.getText());
-                    setTitle(generateTitle(currentFile.getName(), fileSaved));
-                } else {
-                    fileSaved = contentTextArea.getText().isEmpty();
-                    setTitle(generateTitle(null, fileSaved));
-                }
+    /**
+     * Adds a tab for {@code file}, or an untitled one when it is {@code null}. The buffer starts
+     * without text; it is loaded when it is first selected, or right away by the caller.
+     */
+    private DocumentBuffer addBuffer(File file) {
+        DocumentBuffer buffer = new DocumentBuffer(file, preferences.getUndoMemoryLimit());
+        buffer.setJournal(editJournal.create(buffer));
+        buffer.addDirtyStateListener(dirty -> bufferStateChanged(buffer));
+        buffer.getUndoHistory().addChangeListener(e -> {
+            if (buffer == activeBuffer) {
+                statusBar.setUndoMemory(buffer.getUndoHistory().getMemoryUsage());
             }
         });
-        contentTextArea.addCaretListener(new CaretListener() {
-            @Override
-            public void caretUpdate(CaretEvent e) {
-                updateStatus();
-            }
+        buffers.add(buffer);
+        bufferPool.add(buffer);
+        tabbedPane.addTab(tabTitle(buffer), new JPanel(new BorderLayout()));
+        updateTab(buffer);
+        log.debug("Added tab for {}, {} tabs open", file, buffers.size());
+        return buffer;
+    }
 
-            private void updateStatus() {
-                try {
-                    int line;
-                    int column;
-                    int caretpos = contentTextArea.getCaretPosition();
+    private void selectBuffer(DocumentBuffer buffer) {
+        int index = buffers.indexOf(buffer);
+        if (tabbedPane.getSelectedIndex() == index) {
+            selectedTabChanged();
+        } else {
+            tabbedPane.setSelectedIndex(index);
+        }
+    }
 
-                    line = contentTextArea.getLineOfOffset(caretpos);
-                    column = caretpos - contentTextArea.getLineStartOffset(line);
+    private void selectedTabChanged() {
+        int index = tabbedPane.getSelectedIndex();
+        if (index < 0) {
+            return;
+        }
+        DocumentBuffer buffer = buffers.get(index);
+        if (buffer == activeBuffer) {
+            return;
+        }
+        if (activeBuffer != null && activeBuffer.getVersionTracker() != null) {
+            Caret caret = contentTextArea.getCaret();
+            activeBuffer.setCaret(caret.getDot(), caret.getMark());
+        }
+        cancelSearch();
+        lastMatch = null;
+
+        activeBuffer = buffer;
+        bufferPool.touch(buffer);
+        ((JPanel) tabbedPane.getComponentAt(index)).add(textAreaScrollPane, BorderLayout.CENTER);
+        if (!buffer.isResident() && !buffer.isLoading()) {
+            load(buffer, false);
+        }
+        showBuffer(buffer);
+        if (!saving) {
+            if (buffer.isLoading()) {
+                statusBar.startProgress(e -> cancelLoad(buffer));
+            } else {
+                statusBar.stopProgress();
+            }
+        }
+        bufferPool.trim(buffer);
+        log.debug("Selected tab for {}", buffer.getFile());
+    }
 
-                    line += 1;
+    /**
+     * Shows the document of {@code buffer}, the active one, in the text area, or an empty
+     * placeholder while it is not resident.
+     */
+    private void showBuffer(DocumentBuffer buffer) {
+        boolean ready = buffer.getVersionTracker() != null;
+        document = buffer.isResident() ? buffer.getDocument() : new PieceTableDocument();
+        contentTextArea.setLexer(lexerFor(buffer));
+        contentTextArea.setViewer(buffer.isReadOnly());
+        contentTextArea.setDocument(document);
+        contentTextArea.setEditable(ready && !buffer.isReadOnly());
+        setCaretFollowsEdits(!buffer.isLoading());
+        if (ready) {
+            int length = document.getLength();
+            contentTextArea.setCaretPosition(Math.min(buffer.getCaretMark(), length));
+            contentTextArea.moveCaretPosition(Math.min(buffer.getCaretDot(), length));
+        }
+        updateTitle();
+        statusBar.setFileName(statusFileName(buffer));
+        statusBar.setCharacterCount(document.getLength());
+        statusBar.setUndoMemory(buffer.getUndoHistory().getMemoryUsage());
+        textAreaScrollPane.revalidate();
+        contentTextArea.requestFocusInWindow();
+    }
 
-                    statusBar.setCurrentLineAndColumn(line, column);
-                } catch (BadLocationException e) {
-                    log.warn("Caret update failed", e);
-                }
-                int numChars = contentTextArea.getDocument().getLength();
-                statusBar.setCharacterCount(numChars);
-            }
-        });
-        contentTextArea.setAutoscrolls(true);
-        styleContentTextArea();
+    private void bufferStateChanged(DocumentBuffer buffer) {
+        updateTab(buffer);
+        if (buffer == activeBuffer) {
+            updateTitle();
+        }
+    }
 
-        JScrollPane textAreaScrollPane = new JScrollPane(contentTextArea, ScrollPaneConstants.VERTICAL_SCROLLBAR_ALWAYS, ScrollPaneConstants.HORIZONTAL_SCROLLBAR_ALWAYS);
+    private void updateTab(DocumentBuffer buffer) {
+        int index = buffers.indexOf(buffer);
+        if (index >= 0) {
+            tabbedPane.setTitleAt(index, tabTitle(buffer));
+            tabbedPane.setToolTipTextAt(index, buffer.getFile() != null ? buffer.getFile().getAbsolutePath() : null);
+        }
+    }
 
-        statusBar = new StatusBar(1, 0, 0, messageProvider.getMessage("main.statusbar.filename.no-file"), messageProvider);
+    private String tabTitle(DocumentBuffer buffer) {
+        String name = buffer.getFile() != null ? buffer.getFile().getName() : messageProvider.getMessage("main.tab.untitled");
+        return buffer.isDirty() ? "*" + name : name;
+    }
 
-        add(textAreaScrollPane, BorderLayout.CENTER);
-        add(statusBar, BorderLayout.SOUTH);
+    /**
+     * Returns the lexer to highlight {@code buffer} with, or null for a read-only view of a mapped
+     * file, which is too large to be lexed from its start.
+     */
+    private static Lexer lexerFor(DocumentBuffer buffer) {
+        return buffer.isReadOnly() ? null : Lexers.forFile(buffer.getFile());
+    }
 
-        preferences.addPreferencesChangeListener(this);
+    private String statusFileName(DocumentBuffer buffer) {
+        File file = buffer.getFile();
+        if (file == null) {
+            return messageProvider.getMessage("main.statusbar.filename.no-file");
+        }
+        if (buffer.isLoading()) {
+            return messageProvider.getMessage("main.statusbar.filename.loading", file.getName());
+        }
+        if (buffer.isReadOnly()) {
+            return messageProvider.getMessage("main.statusbar.filename.read-only", file.getName());
+        }
+        return file.getName();
+    }
 
-        log.info("MainFrame Initialized successfully");
+    private DocumentBuffer findBuffer(File file) {
+        for (DocumentBuffer buffer : buffers) {
+            if (file.equals(buffer.getFile())) {
+                return buffer;
+            }
+        }
+        return null;
     }
 
     private void showAbout() {
@@ -262,97 +489,717 @@ public class MainFrame extends JFrame implements PreferencesChangeListener, Wind
         JLabel urlLabel = new JLabel(messageProvider.getMessage("about.label.url") + ": " + BuildInfo.getBuildUrl());
         JLabel dateLabel = new JLabel(messageProvider.getMessage("about.label.date") + ": " + BuildInfo.getBuildDate());
 
-        JPanel contentPanel = new JPanel(new GridLayout(3, 1, 5, 5));
+        JPanel contentPanel = new JPanel(new GridLayout(0, 1, 5, 5));
         contentPanel.add(versionLabel);
         contentPanel.add(urlLabel);
         contentPanel.add(dateLabel);
+        if (startupTimer.isFinished()) {
+            contentPanel.add(new JLabel(messageProvider.getMessage("about.label.startup", startupTimer.getTotalMillis())));
+            for (StartupTimer.Phase phase : startupTimer.getPhases()) {
+                JLabel phaseLabel = new JLabel(messageProvider.getMessage("about.label.startup.phase", phase.name(),
+                        phase.getMillis()));
+                phaseLabel.setBorder(BorderFactory.createEmptyBorder(0, 15, 0, 0));
+                contentPanel.add(phaseLabel);
+            }
+        }
 
         JOptionPane.showMessageDialog(this, contentPanel, messageProvider.getMessage("about.title"), JOptionPane.INFORMATION_MESSAGE);
     }
 
     private void newFile() {
         log.info("Creating new file");
-        if (confirmSave()) {
-            currentFile = null;
-            currentFileContent = "";
-            contentTextArea.setText("");
-            fileSaved = true;
-            setTitle(generateTitle(null, true));
-            statusBar.setFileName(messageProvider.getMessage("main.statusbar.filename.no-file"));
-        }
+        selectBuffer(addBuffer(null));
     }
 
     private void openFile() {
         log.info("Opening file through file chooser");
-        if (confirmSave()) {
-            JFileChooser fileChooser = new JFileChooser();
-            int returnValue = fileChooser.showOpenDialog(this);
-            if (returnValue == JFileChooser.APPROVE_OPTION) {
-                File selectedFile = fileChooser.getSelectedFile();
-                openFile(selectedFile);
-            }
+        JFileChooser fileChooser = new JFileChooser();
+        int returnValue = fileChooser.showOpenDialog(this);
+        if (returnValue == JFileChooser.APPROVE_OPTION) {
+            File selectedFile = fileChooser.getSelectedFile();
+            openFile(selectedFile);
         }
     }
 
-    private void openFile(File file) {
+    /**
+     * Selects the tab of {@code file}, opening it in a new tab, or in the active one while that is
+     * an untouched untitled tab, when it is not open yet.
+     */
+    public void openFile(File file) {
         log.info("Opening file {}", file.getAbsolutePath());
+        pendingMatch = null;
+        DocumentBuffer buffer = findBuffer(file);
+        if (buffer == null) {
+            if (isUntouched(activeBuffer)) {
+                buffer = activeBuffer;
+                activeBuffer = null;
+                buffer.setFile(file);
+                updateTab(buffer);
+            } else {
+                buffer = addBuffer(file);
+            }
+            load(buffer, true);
+        }
+        selectBuffer(buffer);
+    }
+
+    /**
+     * Opens a dirty tab for each buffer recovered from the journals of a crashed session, in place
+     * of the untouched untitled tab.
+     */
+    public void openRecovered(List<RecoveredBuffer> recovered) {
+        log.info("Opening {} recovered buffers", recovered.size());
+        DocumentBuffer untouched = isUntouched(activeBuffer) ? activeBuffer : null;
+        DocumentBuffer first = null;
+        for (RecoveredBuffer recoveredBuffer : recovered) {
+            DocumentBuffer buffer = addBuffer(recoveredBuffer.file());
+            buffer.setEncoding(recoveredBuffer.encoding());
+            buffer.install(new PieceTableDocument(recoveredBuffer.text()), null);
+            buffer.track(CONTENT_MATCH_LIMIT);
+            buffer.getVersionTracker().markUnsaved();
+            if (first == null) {
+                first = buffer;
+            }
+        }
+        if (first != null) {
+            selectBuffer(first);
+            if (untouched != null) {
+                removeBuffer(untouched);
+            }
+        }
+        bufferPool.trim(activeBuffer);
+    }
+
+    private boolean isUntouched(DocumentBuffer buffer) {
+        return buffer != null && buffer.getFile() == null && buffer.getVersionTracker() != null
+                && buffer.getVersionTracker().getEditCount() == 0 && buffer.getDocument().getLength() == 0;
+    }
+
+    /**
+     * Reads the text of {@code buffer} in the background: from its swap file when it holds unsaved
+     * changes, otherwise from its file. {@code opened} tells whether the file is being opened by
+     * the user rather than read again after its text was released.
+     */
+    private void load(DocumentBuffer buffer, boolean opened) {
+        Path swapFile = buffer.getSwapFile();
+        File file = buffer.getFile();
+        if (swapFile != null) {
+            log.info("Restoring unsaved changes of {} from {}", file, swapFile);
+            loadInEditor(buffer, swapFile.toFile(), false);
+        } else if (file == null) {
+            buffer.install(new PieceTableDocument(), null);
+            buffer.track(CONTENT_MATCH_LIMIT);
+        } else if (file.length() > preferences.getLargeFileThreshold()) {
+            log.info("File {} is larger than {} bytes, opening it in the read-only viewer", file.getAbsolutePath(),
+                    preferences.getLargeFileThreshold());
+            loadInViewer(buffer, opened);
+        } else {
+            loadInEditor(buffer, file, opened);
+        }
+    }
+
+    private void loadInEditor(DocumentBuffer buffer, File source, boolean opened) {
+        long sourceLength = source.length();
+        boolean fromSwap = buffer.getSwapFile() != null;
+        AtomicReference<TextEncoding> encoding = new AtomicReference<>();
+        DocumentLoader documentLoader = new DocumentLoader(listener -> encoding.set(fileOperations.readFromFile(source, listener)), new DocumentLoader.Listener() {
+            @Override
+            public void onDocumentCreated(PieceTableDocument document) {
+                buffer.install(document, null);
+                if (buffer == activeBuffer) {
+                    showBuffer(buffer);
+                }
+            }
+
+            @Override
+            public void onProgress(long bytesRead) {
+                if (buffer == activeBuffer && sourceLength > 0) {
+                    statusBar.setProgress((int) Math.min(100, bytesRead * 100 / sourceLength));
+                }
+            }
+
+            @Override
+            public void onFinished() {
+                log.info("File {} loaded", source.getAbsolutePath());
+                buffer.finishLoading();
+                if (!fromSwap) {
+                    // A swap file is always written in the same encoding; keep the one of the real file
+                    buffer.setEncoding(encoding.get());
+                }
+                buffer.track(CONTENT_MATCH_LIMIT);
+                bufferLoaded(buffer, opened);
+            }
+
+            @Override
+            public void onFailed(IOException e) {
+                buffer.finishLoading();
+                loadFailed(buffer, source, e);
+            }
+
+            @Override
+            public void onCancelled() {
+                log.info("Loading of file {} cancelled", source.getAbsolutePath());
+            }
+        });
+        buffer.startLoading(documentLoader::cancel);
+        startLoadProgress(buffer);
+        documentLoader.start(sourceLength);
+    }
+
+    private void loadInViewer(DocumentBuffer buffer, boolean opened) {
+        File file = buffer.getFile();
+        AtomicBoolean cancelled = new AtomicBoolean();
+        buffer.startLoading(() -> cancelled.set(true));
+        startLoadProgress(buffer);
+        Thread.ofVirtual().name("viewer-loader").start(() -> {
+            try {
+                MappedTextFile viewerFile = fileOperations.mapFromFile(file);
+                SwingUtilities.invokeLater(() -> {
+                    if (cancelled.get()) {
+                        closeDiscardedMappedFile(viewerFile);
+                        return;
+                    }
+                    buffer.finishLoading();
+                    buffer.install(new PieceTableDocument(viewerFile, viewerFile.getLineBreaks()), viewerFile);
+                    buffer.setEncoding(viewerFile.getEncoding());
+                    buffer.track(CONTENT_MATCH_LIMIT);
+                    bufferLoaded(buffer, opened);
+                });
+            } catch (IOException e) {
+                SwingUtilities.invokeLater(() -> {
+                    if (!cancelled.get()) {
+                        buffer.finishLoading();
+                        loadFailed(buffer, file, e);
+                    }
+                });
+            }
+        });
+    }
+
+    private void startLoadProgress(DocumentBuffer buffer) {
+        if (buffer == activeBuffer && !saving) {
+            statusBar.startProgress(e -> cancelLoad(buffer));
+        }
+    }
+
+    private void bufferLoaded(DocumentBuffer buffer, boolean opened) {
+        if (buffer == activeBuffer) {
+            if (!saving) {
+                statusBar.stopProgress();
+            }
+            showBuffer(buffer);
+        }
+        updateTab(buffer);
+        File file = buffer.getFile();
+        if (opened) {
+            addRecentFile(file);
+        }
+        if (pendingMatch != null && pendingMatch.file().equals(file)) {
+            if (buffer == activeBuffer) {
+                selectMatch(pendingMatch);
+            }
+            pendingMatch = null;
+        }
+        bufferPool.trim(activeBuffer);
+    }
+
+    /**
+     * Reports a failed load. A tab without unsaved changes is closed; one whose swap file could not
+     * be read keeps it, so it can be tried again.
+     */
+    private void loadFailed(DocumentBuffer buffer, File source, IOException e) {
+        buffer.release();
+        if (buffer == activeBuffer) {
+            if (!saving) {
+                statusBar.stopProgress();
+            }
+            showBuffer(buffer);
+        }
+        showOpenError(source, e);
+        if (!buffer.isDirty()) {
+            removeBuffer(buffer);
+        }
+    }
+
+    private void cancelLoad(DocumentBuffer buffer) {
+        log.info("Loading cancelled by the user");
+        buffer.cancelLoading();
+        buffer.release();
+        if (!saving) {
+            statusBar.stopProgress();
+        }
+        if (buffer.isDirty()) {
+            showBuffer(buffer);
+        } else {
+            removeBuffer(buffer);
+        }
+    }
+
+    private void showOpenError(File file, IOException e) {
+        log.error("Failed to open file {}", file.getAbsolutePath(), e);
+        if (e instanceof BinaryFileException) {
+            JOptionPane.showMessageDialog(this, messageProvider.getMessage("main.dialogs.binary-file", file.getName()), messageProvider.getMessage("main.dialogs.open-file-error.title"), JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        JOptionPane.showMessageDialog(this, messageProvider.getMessage("main.dialogs.open-file-error", e), messageProvider.getMessage("main.dialogs.open-file-error.title"), JOptionPane.ERROR_MESSAGE);
+    }
+
+    private void closeDiscardedMappedFile(MappedTextFile viewerFile) {
         try {
-            String content = fileOperations.readFromFile(file);
-            currentFile = file;
-            currentFileContent = content;
-            contentTextArea.setText(content);
-            fileSaved = true;
-            setTitle(generateTitle(file.getName(), true));
-            recentFilesManager.addRecentFile(file);
-            updateRecentFilesMenu();
-            statusBar.setFileName(file.getName());
+            viewerFile.close();
         } catch (IOException e) {
-            log.error("Failed to open file {}", file.getAbsolutePath(), e);
-            JOptionPane.showMessageDialog(this, messageProvider.getMessage("main.dialogs.open-file-error", e), messageProvider.getMessage("main.dialogs.open-file-error.title"), JOptionPane.ERROR_MESSAGE);
+            log.warn("Failed to close discarded mapped file {}", viewerFile.getFile().getAbsolutePath(), e);
+        }
+    }
+
+    /**
+     * Closes the tab of {@code buffer} after offering to save its changes.
+     *
+     * @return whether the tab was closed
+     */
+    private boolean closeTab(DocumentBuffer buffer) {
+        if (buffer == null || !confirmSave(buffer)) {
+            return false;
+        }
+        removeBuffer(buffer);
+        return true;
+    }
+
+    private void removeBuffer(DocumentBuffer buffer) {
+        int index = buffers.indexOf(buffer);
+        if (index < 0) {
+            return;
+        }
+        log.info("Closing tab for {}", buffer.getFile());
+        if (buffer == activeBuffer) {
+            cancelSearch();
+            activeBuffer = null;
+        }
+        buffers.remove(index);
+        bufferPool.remove(buffer);
+        buffer.close();
+        tabbedPane.removeTabAt(index);
+        if (buffers.isEmpty()) {
+            newFile();
+        }
+    }
+
+    /**
+     * While a file streams in, the caret must stay at the top instead of riding along with the
+     * appended text.
+     */
+    private void setCaretFollowsEdits(boolean follow) {
+        if (contentTextArea.getCaret() instanceof DefaultCaret caret) {
+            caret.setUpdatePolicy(follow ? DefaultCaret.UPDATE_WHEN_ON_EDT : DefaultCaret.NEVER_UPDATE);
         }
     }
 
     private void saveFile() {
         log.info("Saving file");
-        if (currentFile == null) {
-            saveFileAs();
-        } else {
-            saveFile(currentFile);
+        File target = chooseSaveTarget(activeBuffer, activeBuffer.getFile() == null);
+        if (target != null) {
+            startSave(activeBuffer, target, null);
         }
     }
 
     private void saveFileAs() {
         log.info("Saving file as new file");
+        File target = chooseSaveTarget(activeBuffer, true);
+        if (target != null) {
+            startSave(activeBuffer, target, null);
+        }
+    }
+
+    /**
+     * Saves like {@link #saveFile()} but only returns once the save is over, while still
+     * dispatching events so the window keeps painting.
+     *
+     * @return whether the file was saved
+     */
+    private boolean saveFileAndWait(DocumentBuffer buffer) {
+        File target = chooseSaveTarget(buffer, buffer.getFile() == null);
+        if (target == null) {
+            return false;
+        }
+        SecondaryLoop loop = Toolkit.getDefaultToolkit().getSystemEventQueue().createSecondaryLoop();
+        AtomicBoolean saved = new AtomicBoolean();
+        startSave(buffer, target, success -> {
+            saved.set(success);
+            loop.exit();
+        });
+        loop.enter();
+        return saved.get();
+    }
+
+    private File chooseSaveTarget(DocumentBuffer buffer, boolean askForFile) {
+        if (buffer.isLoading()) {
+            log.info("Ignoring save while a file is loading");
+            return null;
+        }
+        if (saving) {
+            log.info("Ignoring save while another save is running");
+            return null;
+        }
+        if (buffer.isReadOnly()) {
+            showReadOnlyMessage(buffer);
+            return null;
+        }
+        if (!askForFile) {
+            return buffer.getFile();
+        }
         JFileChooser fileChooser = new JFileChooser();
         int returnValue = fileChooser.showSaveDialog(this);
-        if (returnValue == JFileChooser.APPROVE_OPTION) {
-            File selectedFile = fileChooser.getSelectedFile();
-            saveFile(selectedFile);
-        }
+        return returnValue == JFileChooser.APPROVE_OPTION ? fileChooser.getSelectedFile() : null;
     }
 
-    private void saveFile(File file) {
+    /**
+     * Writes a snapshot of the document on a background thread while editing goes on. The
+     * snapshot is taken at the current version, so edits made during the save keep the document
+     * dirty. A buffer whose text was swapped out is saved from its swap file. {@code onDone}, which
+     * may be {@code null}, is told on the EDT whether the save worked.
+     */
+    private void startSave(DocumentBuffer buffer, File file, Consumer<Boolean> onDone) {
         log.info("Saving file to {}", file.getAbsolutePath());
+        CharSequence snapshot = buffer.isResident() ? buffer.getDocument().createSnapshot() : null;
+        Path swapFile = buffer.getSwapFile();
+        TextEncoding encoding = buffer.getEncoding();
+        DocumentVersionTracker tracker = buffer.getVersionTracker();
+        long version = tracker != null ? tracker.getVersion() : -1;
+
+        saving = true;
+        statusBar.startProgress(null);
+        AtomicInteger lastPercent = new AtomicInteger(-1);
+        Thread.ofPlatform().name("file-saver").start(() -> {
+            try {
+                CharSequence content = snapshot != null ? snapshot : fileOperations.readFromFile(swapFile.toFile());
+                fileOperations.saveToFile(file, content, encoding, (written, total) -> {
+                    int percent = total > 0 ? (int) (written * 100 / total) : 100;
+                    if (lastPercent.getAndSet(percent) != percent) {
+                        SwingUtilities.invokeLater(() -> statusBar.setProgress(percent));
+                    }
+                });
+                SwingUtilities.invokeLater(() -> {
+                    saveFinished();
+                    fileSaved(buffer, file, tracker, version, swapFile);
+                    if (onDone != null) {
+                        onDone.accept(true);
+                    }
+                });
+            } catch (IOException e) {
+                SwingUtilities.invokeLater(() -> {
+                    saveFinished();
+                    log.error("Failed to save file {}", file.getAbsolutePath(), e);
+                    JOptionPane.showMessageDialog(this, messageProvider.getMessage("main.dialog.save-file-error"), messageProvider.getMessage("main.dialog.error-title"), JOptionPane.ERROR_MESSAGE);
+                    if (onDone != null) {
+                        onDone.accept(false);
+                    }
+                });
+            }
+        });
+    }
+
+    private void saveFinished() {
+        saving = false;
+        statusBar.stopProgress();
+        if (activeBuffer != null && activeBuffer.isLoading()) {
+            statusBar.startProgress(e -> cancelLoad(activeBuffer));
+        }
+    }
+
+    private void fileSaved(DocumentBuffer buffer, File file, DocumentVersionTracker tracker, long version, Path swapFile) {
+        // The buffer may have been closed, released or restored while the save was running
+        if (buffers.contains(buffer)) {
+            // Marked saved before the file changes, so a journal that is deleted is not rewritten first
+            if (tracker != null && tracker == buffer.getVersionTracker()) {
+                tracker.markSaved(version);
+            } else if (tracker == null && swapFile != null && swapFile.equals(buffer.getSwapFile())) {
+                buffer.swapFileSaved();
+            }
+            buffer.setFile(file);
+            updateTab(buffer);
+            if (buffer == activeBuffer) {
+                updateTitle();
+                statusBar.setFileName(statusFileName(buffer));
+                contentTextArea.setLexer(lexerFor(buffer));
+            }
+        }
+        addRecentFile(file);
+    }
+
+    private void addRecentFile(File file) {
         try {
-            String content = contentTextArea.getText();
-            fileOperations.saveToFile(file, content, true);
-            currentFile = file;
-            currentFileContent = content;
-            fileSaved = true;
-            setTitle(generateTitle(file.getName(), true));
             recentFilesManager.addRecentFile(file);
-            updateRecentFilesMenu();
-            statusBar.setFileName(file.getName());
         } catch (IOException e) {
-            log.error("Failed to save file {}", file.getAbsolutePath(), e);
-            JOptionPane.showMessageDialog(this, messageProvider.getMessage("main.dialog.save-file-error"), messageProvider.getMessage("main.dialog.error-title"), JOptionPane.ERROR_MESSAGE);
+            log.error("Failed to add {} to the recent files", file.getAbsolutePath(), e);
+        }
+        updateRecentFilesMenu();
+    }
+
+    private void showReadOnlyMessage(DocumentBuffer buffer) {
+        log.info("Save requested for read-only file {}", buffer.getFile().getAbsolutePath());
+        JOptionPane.showMessageDialog(this, messageProvider.getMessage("main.dialogs.read-only"),
+                messageProvider.getMessage("main.dialogs.read-only.title"), JOptionPane.INFORMATION_MESSAGE);
+    }
+
+    private void openFindReplace() {
+        if (findReplaceDialog == null) {
+            findReplaceDialog = new FindReplaceDialog(this, messageProvider, this);
+        }
+        String selection = null;
+        int selectionLength = contentTextArea.getSelectionEnd() - contentTextArea.getSelectionStart();
+        if (selectionLength > 0 && selectionLength <= MAX_QUERY_FROM_SELECTION) {
+            selection = contentTextArea.getSelectedText();
+            if (selection.indexOf('\n') >= 0) {
+                selection = null;
+            }
+        }
+        findReplaceDialog.open(selection);
+    }
+
+    private void openFindInFiles() {
+        if (findInFilesDialog == null) {
+            findInFilesDialog = new FindInFilesDialog(this, messageProvider, new FileSearcher(fileOperations, searcher), this);
+        }
+        File file = activeBuffer.getFile();
+        File directory = file != null ? file.getAbsoluteFile().getParentFile() : null;
+        findInFilesDialog.open(directory, lastQuery != null ? lastQuery.text() : null);
+    }
+
+    @Override
+    public void onOpenMatch(FileMatch match) {
+        DocumentBuffer buffer = findBuffer(match.file());
+        if (buffer != null && buffer.getVersionTracker() != null) {
+            selectBuffer(buffer);
+            selectMatch(match);
+            return;
+        }
+        openFile(match.file());
+        // Set after openFile, which drops any match still pending from an earlier open
+        pendingMatch = match;
+    }
+
+    /**
+     * Selects {@code match} in the current document. The file may have changed since it was
+     * searched, so the offsets are clamped to the document.
+     */
+    private void selectMatch(FileMatch match) {
+        int length = document.getLength();
+        int start = Math.min(match.start(), length);
+        int end = Math.min(match.end(), length);
+        contentTextArea.select(start, end);
+        contentTextArea.requestFocusInWindow();
+        toFront();
+    }
+
+    private void findNextAgain() {
+        if (lastQuery == null) {
+            openFindReplace();
+        } else {
+            onFindNext(lastQuery);
+        }
+    }
+
+    @Override
+    public void onFindNext(SearchQuery query) {
+        log.debug("Find next requested for {}", query);
+        startFind(query, null, contentTextArea.getSelectionEnd(), true);
+    }
+
+    @Override
+    public void onReplace(SearchQuery query, String replacement) {
+        log.debug("Replace requested for {}", query);
+        if (!contentTextArea.isEditable()) {
+            setFindStatus(messageProvider.getMessage("find.status.read-only"));
+            return;
+        }
+        FoundMatch match = lastMatch;
+        if (match == null || !isSelected(match, query, replacement)) {
+            // Find the match at the caret first; the next Replace replaces it
+            startFind(query, replacement, contentTextArea.getSelectionStart(), true);
+            return;
+        }
+        try {
+            document.replace(match.start(), match.end() - match.start(), match.replacement(), null);
+        } catch (BadLocationException e) {
+            throw new IllegalStateException("Match is not in the document", e);
+        }
+        startFind(query, replacement, match.start() + match.replacement().length(), true);
+    }
+
+    @Override
+    public void onReplaceAll(SearchQuery query, String replacement) {
+        log.debug("Replace all requested for {}", query);
+        if (!contentTextArea.isEditable()) {
+            setFindStatus(messageProvider.getMessage("find.status.read-only"));
+            return;
+        }
+        SearchTask task = startSearch(() -> searcher.findAll(document, query, replacement));
+        if (task == null) {
+            return;
+        }
+        lastQuery = query;
+        PieceTableDocument searched = document;
+        long version = activeBuffer.getVersionTracker().getVersion();
+        contentTextArea.setEditable(false);
+        task.whenComplete((results, failure) -> SwingUtilities.invokeLater(() -> {
+            if (searched == document) {
+                contentTextArea.setEditable(true);
+            }
+            if (!finishSearch(task, failure, searched, version)) {
+                return;
+            }
+            if (results.isEmpty()) {
+                setFindStatus(messageProvider.getMessage("find.status.not-found"));
+                return;
+            }
+            replaceAll(results);
+        }));
+    }
+
+    /**
+     * Replaces the matches from the last to the first, so earlier offsets stay valid, as one
+     * undo step.
+     */
+    private void replaceAll(SearchResults results) {
+        long startNanos = System.nanoTime();
+        UndoHistory undoHistory = activeBuffer.getUndoHistory();
+        undoHistory.beginCompoundEdit();
+        try {
+            for (int i = results.size() - 1; i >= 0; i--) {
+                int start = results.getStart(i);
+                document.replace(start, results.getEnd(i) - start, results.getReplacement(i), null);
+            }
+        } catch (BadLocationException e) {
+            throw new IllegalStateException("Match is not in the document", e);
+        } finally {
+            undoHistory.endCompoundEdit();
+        }
+        log.info("Replaced {} matches in {} ms", results.size(), (System.nanoTime() - startNanos) / 1_000_000);
+        lastMatch = null;
+        setFindStatus(messageProvider.getMessage("find.status.replaced", results.size()));
+    }
+
+    private void startFind(SearchQuery query, String replacement, int from, boolean wrap) {
+        SearchTask task = startSearch(() -> searcher.findNext(document, query, replacement, from));
+        if (task == null) {
+            return;
+        }
+        lastQuery = query;
+        PieceTableDocument searched = document;
+        long version = activeBuffer.getVersionTracker().getVersion();
+        task.whenComplete((results, failure) -> SwingUtilities.invokeLater(() -> {
+            if (!finishSearch(task, failure, searched, version)) {
+                return;
+            }
+            if (results.isEmpty()) {
+                if (wrap && from > 0) {
+                    startFind(query, replacement, 0, false);
+                } else {
+                    lastMatch = null;
+                    setFindStatus(messageProvider.getMessage("find.status.not-found"));
+                }
+                return;
+            }
+            int start = results.getStart(0);
+            int end = results.getEnd(0);
+            contentTextArea.select(start, end);
+            lastMatch = new FoundMatch(query, replacement, start, end, results.getReplacement(0), version);
+            setFindStatus(wrap ? " " : messageProvider.getMessage("find.status.wrapped"));
+        }));
+    }
+
+    /**
+     * Cancels the running search and starts a new one, showing its progress. Returns
+     * {@code null} if the document cannot be searched yet or the regular expression is invalid.
+     */
+    private SearchTask startSearch(Supplier<SearchTask> search) {
+        if (activeBuffer.isLoading() || activeBuffer.getVersionTracker() == null) {
+            log.debug("Search ignored while a document is loading");
+            return null;
+        }
+        cancelSearch();
+        try {
+            searchTask = search.get();
+        } catch (PatternSyntaxException e) {
+            log.debug("Invalid regular expression", e);
+            setFindStatus(messageProvider.getMessage("find.status.invalid-regex", e.getDescription()));
+            return null;
+        }
+        setFindStatus(messageProvider.getMessage("find.status.searching"));
+        if (!saving) {
+            statusBar.startProgress(e -> cancelSearch());
+        }
+        return searchTask;
+    }
+
+    /**
+     * Called on the EDT when {@code task} ends. Returns whether its results are current and can be
+     * used.
+     */
+    private boolean finishSearch(SearchTask task, Throwable failure, PieceTableDocument searched, long version) {
+        if (searchTask != task) {
+            // Cancelled or replaced by a newer search
+            return false;
+        }
+        searchTask = null;
+        if (!saving) {
+            statusBar.stopProgress();
+        }
+        if (failure != null) {
+            log.error("Search failed", failure);
+            setFindStatus(messageProvider.getMessage("find.status.failed", String.valueOf(failure.getMessage())));
+            return false;
+        }
+        if (searched != document || version != activeBuffer.getVersionTracker().getVersion()) {
+            log.debug("Discarding search results for an older version of the document");
+            setFindStatus(messageProvider.getMessage("find.status.document-changed"));
+            return false;
         }
+        return true;
+    }
+
+    private void cancelSearch() {
+        if (searchTask != null) {
+            log.info("Search cancelled");
+            searchTask.cancel();
+            searchTask = null;
+            if (!saving) {
+                statusBar.stopProgress();
+            }
+            setFindStatus(messageProvider.getMessage("find.status.cancelled"));
+        }
+    }
+
+    private boolean isSelected(FoundMatch match, SearchQuery query, String replacement) {
+        return match.query().equals(query) && match.replacementPattern().equals(replacement)
+                && match.version() == activeBuffer.getVersionTracker().getVersion()
+                && contentTextArea.getSelectionStart() == match.start() && contentTextArea.getSelectionEnd() == match.end();
+    }
+
+    private void setFindStatus(String status) {
+        if (findReplaceDialog != null) {
+            findReplaceDialog.setStatus(status);
+        }
+    }
+
+    /**
+     * A match found for {@code query}, with the text {@code replacement} expands to for it.
+     */
+    private record FoundMatch(SearchQuery query, String replacementPattern, int start, int end, String replacement,
+                              long version) {
     }
 
     private void openPreferences() {
         log.info("Opening preferences dialog");
-        PreferencesDialog preferencesUI = new PreferencesDialog(this, messageProvider, preferences);
-        preferencesUI.setVisible(true);
+        if (preferencesDialog == null) {
+            preferencesDialog = new PreferencesDialog(this, messageProvider, preferences, fontCatalog);
+        }
+        preferencesDialog.open();
+    }
+
+    private void updateTitle() {
+        File file = activeBuffer != null ? activeBuffer.getFile() : null;
+        setTitle(generateTitle(file != null ? file.getName() : null, activeBuffer == null || !activeBuffer.isDirty()));
     }
 
     private String generateTitle(String fileName, boolean saved) {
@@ -366,62 +1213,69 @@ public class MainFrame extends JFrame implements PreferencesChangeListener, Wind
         return saved ? title : "*" + title;
     }
 
-    private boolean confirmSave() {
-        if (fileSaved) {
+    private boolean confirmSave(DocumentBuffer buffer) {
+        if (!buffer.isDirty()) {
             return true;
         }
-        int option = JOptionPane.showConfirmDialog(this, messageProvider.getMessage("main.dialogs.confirm-save"), messageProvider.getMessage("main.dialogs.confirm-save.title"), JOptionPane.YES_NO_CANCEL_OPTION);
+        String message = buffer.getFile() != null
+                ? messageProvider.getMessage("main.dialogs.confirm-save-file", buffer.getFile().getName())
+                : messageProvider.getMessage("main.dialogs.confirm-save");
+        int option = JOptionPane.showConfirmDialog(this, message, messageProvider.getMessage("main.dialogs.confirm-save.title"), JOptionPane.YES_NO_CANCEL_OPTION);
         if (option == JOptionPane.YES_OPTION) {
-            saveFile();
-            return true;
+            return saveFileAndWait(buffer);
         } else {
             return option == JOptionPane.NO_OPTION;
         }
     }
 
     private void updateRecentFilesMenu() {
+        if (openRecentFilesMenu == null) {
+            return;
+        }
         try {
-            addRecentFilesInMenu();
+            addRecentFilesInMenu(recentFilesManager.getRecentFiles());
         } catch (Exception e) {
             log.error("An error occurred while updating the recent files menu", e);
         }
     }
 
-    private void addRecentFilesInMenu()  {
-        openRecentFilesMenu.removeAll();
-        try {
-            List<File> recentFiles = recentFilesManager.getRecentFiles();
+    /**
+     * Lists {@code recentFiles}, read ahead while the application was starting, in the recent files
+     * menu.
+     */
+    public void showRecentFiles(List<File> recentFiles) {
+        addRecentFilesInMenu(recentFiles);
+    }
 
-            if (recentFiles.isEmpty()) {
-                JMenuItem noRecentFilesMenuItem = new JMenuItem(messageProvider.getMessage("main.menu.file.open-recent.no-files"));
-                noRecentFilesMenuItem.setEnabled(false);
-                openRecentFilesMenu.add(noRecentFilesMenuItem);
-            } else {
-                openRecentFilesMenu.setEnabled(true);
-                recentFiles.forEach(file -> {
-                    JMenuItem recentFileMenuItem = new JMenuItem(file.getPath());
-                    recentFileMenuItem.putClientProperty("file", file);
-                    recentFileMenuItem.addActionListener(e -> {
-                        log.info("Opening recent file {}", file.getName());
-                        openFile(file);
-                    });
-                    openRecentFilesMenu.add(recentFileMenuItem);
-                });
-                JMenuItem clearRecentFilesMenuItem = new JMenuItem(messageProvider.getMessage("main.menu.file.open-recent.clear-files"));
-                clearRecentFilesMenuItem.addActionListener(e -> {
-                    try {
-                        recentFilesManager.clearRecentFiles();
-                        addRecentFilesInMenu();
-                    } catch (IOException ex) {
-                        log.error("Failed to clear recent files", ex);
-                        throw new RuntimeException("Failed to clear recent files", ex);
-                    }
+    private void addRecentFilesInMenu(List<File> recentFiles) {
+        openRecentFilesMenu.removeAll();
+        if (recentFiles.isEmpty()) {
+            JMenuItem noRecentFilesMenuItem = new JMenuItem(messageProvider.getMessage("main.menu.file.open-recent.no-files"));
+            noRecentFilesMenuItem.setEnabled(false);
+            openRecentFilesMenu.add(noRecentFilesMenuItem);
+        } else {
+            openRecentFilesMenu.setEnabled(true);
+            recentFiles.forEach(file -> {
+                JMenuItem recentFileMenuItem = new JMenuItem(file.getPath());
+                recentFileMenuItem.putClientProperty("file", file);
+                recentFileMenuItem.addActionListener(e -> {
+                    log.info("Opening recent file {}", file.getName());
+                    openFile(file);
                 });
-                openRecentFilesMenu.addSeparator();
-                openRecentFilesMenu.add(clearRecentFilesMenuItem);
-            }
-        } catch (IOException e) {
-            throw new RuntimeException("Failed to retrieve recent files", e);
+                openRecentFilesMenu.add(recentFileMenuItem);
+            });
+            JMenuItem clearRecentFilesMenuItem = new JMenuItem(messageProvider.getMessage("main.menu.file.open-recent.clear-files"));
+            clearRecentFilesMenuItem.addActionListener(e -> {
+                try {
+                    recentFilesManager.clearRecentFiles();
+                    addRecentFilesInMenu(List.of());
+                } catch (IOException ex) {
+                    log.error("Failed to clear recent files", ex);
+                    throw new RuntimeException("Failed to clear recent files", ex);
+                }
+            });
+            openRecentFilesMenu.addSeparator();
+            openRecentFilesMenu.add(clearRecentFilesMenuItem);
         }
     }
 
@@ -452,9 +1306,10 @@ public class MainFrame extends JFrame implements PreferencesChangeListener, Wind
     }
 
     private void styleContentTextArea() {
-        Font font = preferences.getEditorFont();
-        Color foregroundColor = preferences.getEditorForegroundColor();
-        Color backgroundColor = preferences.getEditorBackgroundColor();
+        PreferencesSnapshot snapshot = preferences.getSnapshot();
+        Font font = snapshot.editorFont();
+        Color foregroundColor = snapshot.editorForegroundColor();
+        Color backgroundColor = snapshot.editorBackgroundColor();
 
         contentTextArea.setFont(font);
 
@@ -474,12 +1329,32 @@ public class MainFrame extends JFrame implements PreferencesChangeListener, Wind
     }
 
     @Override
-    public void onPreferencesChanged() {
-        log.info("Preferences changed");
-        changeThemeAndReloadUI();
-        addThemesInMenu();
-        updateRecentFilesMenu();
-        styleContentTextArea();
+    public void onPreferencesChanged(PreferencesChangeEvent event) {
+        log.info("Preferences changed: {}", event.changedKeys());
+        PreferencesSnapshot snapshot = event.newSnapshot();
+        if (event.isChanged(PreferenceKey.LOG_LEVEL)) {
+            LoggingUtils.setApplicationLevel(snapshot.logLevel());
+        }
+        if (event.isChanged(PreferenceKey.UNDO_MEMORY_LIMIT)) {
+            for (DocumentBuffer buffer : buffers) {
+                buffer.getUndoHistory().setMemoryLimit(snapshot.undoMemoryLimit());
+            }
+        }
+        if (event.isChanged(PreferenceKey.TAB_MEMORY_BUDGET)) {
+            bufferPool.setMemoryBudget(snapshot.tabMemoryBudget());
+            bufferPool.trim(activeBuffer);
+        }
+        if (event.isChanged(PreferenceKey.THEME)) {
+            changeThemeAndReloadUI();
+            if (themeMenu != null) {
+                addThemesInMenu();
+            }
+        }
+        // Reloading the look and feel resets the colors of the text area as well
+        if (event.isAnyChanged(PreferenceKey.THEME, PreferenceKey.EDITOR_FONT, PreferenceKey.EDITOR_FOREGROUND_COLOR,
+                PreferenceKey.EDITOR_BACKGROUND_COLOR)) {
+            styleContentTextArea();
+        }
     }
 
     @Override
@@ -490,10 +1365,21 @@ public class MainFrame extends JFrame implements PreferencesChangeListener, Wind
     @Override
     public void windowClosing(WindowEvent e) {
         log.info("Window closing");
-        if (confirmSave()) {
-            preferences.removePreferencesChangeListener(this);
-            dispose();
+        for (DocumentBuffer buffer : List.copyOf(buffers)) {
+            if (!confirmSave(buffer)) {
+                return;
+            }
+        }
+        preferences.removePreferencesChangeListener(this);
+        if (findInFilesDialog != null) {
+            findInFilesDialog.setVisible(false);
+        }
+        for (DocumentBuffer buffer : buffers) {
+            buffer.close();
         }
+        bufferPool.close();
+        editJournal.close();
+        dispose();
     }
 
     @Override
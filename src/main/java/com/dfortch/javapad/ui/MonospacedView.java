@@ -0,0 +1,597 @@
+package com.dfortch.javapad.ui;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.swing.event.DocumentEvent;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Caret;
+import javax.swing.text.Document;
+import javax.swing.text.Element;
+import javax.swing.text.Highlighter;
+import javax.swing.text.JTextComponent;
+import javax.swing.text.LayeredHighlighter;
+import javax.swing.text.PlainDocument;
+import javax.swing.text.Position;
+import javax.swing.text.Segment;
+import javax.swing.text.TabExpander;
+import javax.swing.text.Utilities;
+import javax.swing.text.View;
+import javax.swing.text.ViewFactory;
+import java.awt.*;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * View of unwrapped text in a monospaced font that only measures and paints what is visible.
+ * <p>
+ * {@link javax.swing.text.PlainView} measures lines with the font: it finds the longest line by
+ * measuring every char of the document, again whenever the longest line gets shorter, and it lays
+ * out and paints whole lines even when a slice of them is visible. With every char one column wide,
+ * positions are columns instead, and x is the column times the char width. The width of a line is
+ * its column count, which only takes a scan for tabs. Lines longer than {@link #LONG_LINE_CHARS}
+ * keep the column at every {@link #BLOCK_CHARS} chars up to their last tab, so the column of an
+ * offset or the offset at a column takes scanning at most a block, and an edit after the last tab
+ * updates the width without a scan, which is every edit of minified or base64 text.
+ * <p>
+ * Painting draws the columns inside the clip only. Lines are drawn in coordinates translated to
+ * the start of the visible slice, since floats lose whole pixels far out on a line of millions of
+ * columns.
+ * <p>
+ * In an {@link EditorTextArea#isViewer() viewer} the lines are not scanned up front, which would
+ * decode the whole of a mapped file: a line counts as many columns as it has chars until it is
+ * first shown, which only takes the line index, and is measured then. Tabs only add columns, so
+ * the width can grow as lines are shown but the estimate never cuts text off.
+ */
+class MonospacedView extends View implements TabExpander {
+
+    private static final Logger log = LogManager.getLogger(MonospacedView.class);
+
+    static final int BLOCK_CHARS = 1024;
+
+    static final int LONG_LINE_CHARS = 4 * BLOCK_CHARS;
+
+    /**
+     * Most chars loaded at once when scanning, in case the document has to copy them.
+     */
+    private static final int SCAN_CHARS = 64 * 1024;
+
+    private final Segment scanText = new Segment();
+
+    private final Segment drawText = new Segment();
+
+    private final Map<Integer, LongLine> longLines = new HashMap<>();
+
+    /**
+     * Column count of each line, or {@code null} until measured.
+     */
+    private int[] columns;
+
+    /**
+     * Whether each line has been scanned, or {@code null} when all of them are.
+     */
+    private boolean[] scanned;
+
+    private int lineCount;
+
+    /**
+     * Column count of the longest line, or -1 when it has to be looked for again.
+     */
+    private int maxColumns = -1;
+
+    private int charWidth;
+
+    private int lineHeight;
+
+    private int ascent;
+
+    private int tabSize;
+
+    private int tabBase;
+
+    MonospacedView(Element elem) {
+        super(elem);
+        scanText.setPartialReturn(true);
+    }
+
+    /**
+     * Returns whether every char of the font of {@code component} has the same width.
+     */
+    static boolean isMonospaced(Component component) {
+        FontMetrics metrics = component.getFontMetrics(component.getFont());
+        int width = metrics.charWidth('m');
+        return width > 0 && metrics.charWidth('i') == width && metrics.charWidth('W') == width
+                && metrics.charWidth('.') == width;
+    }
+
+    @Override
+    public float getPreferredSpan(int axis) {
+        if (!ensureMeasured()) {
+            return 0;
+        }
+        return switch (axis) {
+            case X_AXIS -> (float) getMaxColumns() * charWidth;
+            case Y_AXIS -> (float) lineCount * lineHeight;
+            default -> throw new IllegalArgumentException("Invalid axis: " + axis);
+        };
+    }
+
+    @Override
+    public void paint(Graphics g, Shape a) {
+        if (!ensureMeasured()) {
+            return;
+        }
+        Rectangle alloc = a.getBounds();
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) {
+            clip = alloc;
+        }
+        JTextComponent host = (JTextComponent) getContainer();
+        Highlighter highlighter = host.getHighlighter();
+        Caret caret = host.getCaret();
+        Color unselected = host.isEnabled() ? host.getForeground() : host.getDisabledTextColor();
+        Color selected = caret.isSelectionVisible() && highlighter != null ? host.getSelectedTextColor() : unselected;
+        int selectionStart = host.getSelectionStart();
+        int selectionEnd = host.getSelectionEnd();
+        Element root = getElement();
+        Graphics2D g2d = (Graphics2D) g;
+        g2d.setFont(getFont(host));
+
+        int firstLine = Math.max(0, (clip.y - alloc.y) / lineHeight);
+        int lastLine = Math.min(lineCount - 1, (clip.y + clip.height - 1 - alloc.y) / lineHeight);
+        int firstColumn = Math.max(0, (clip.x - alloc.x) / charWidth);
+        int lastColumn = Math.max(0, (clip.x + clip.width - 1 - alloc.x) / charWidth);
+        for (int line = firstLine; line <= lastLine; line++) {
+            ensureScanned(line);
+            Element lineElement = root.getElement(line);
+            int lineStart = lineElement.getStartOffset();
+            int lineEnd = getLineEnd(lineElement);
+            if (highlighter instanceof LayeredHighlighter layered) {
+                layered.paintLayeredHighlights(g, lineStart, line == lineCount - 1 ? lineEnd + 1 : lineEnd, a, host, this);
+            }
+            int p0 = offsetAtColumn(line, lineStart, lineEnd, firstColumn);
+            int p1 = Math.min(lineEnd, offsetAtColumn(line, lineStart, lineEnd, lastColumn) + 1);
+            if (p0 >= p1) {
+                continue;
+            }
+            int startColumn = columnOf(line, lineStart, p0);
+            int originX = alloc.x + startColumn * charWidth;
+            int baseline = alloc.y + line * lineHeight + ascent;
+            g2d.translate(originX, baseline);
+            tabBase = alloc.x - originX;
+            try {
+                int selected0 = Math.max(p0, Math.min(p1, selectionStart));
+                int selected1 = Math.max(selected0, Math.min(p1, selectionEnd));
+                drawUnselected(g2d, line, lineStart, startColumn, p0, selected0, unselected);
+                drawSelected(g2d, line, lineStart, startColumn, selected0, selected1, selected);
+                drawUnselected(g2d, line, lineStart, startColumn, selected1, p1, unselected);
+            } catch (BadLocationException e) {
+                log.error("Failed to paint line {}", line, e);
+            } finally {
+                g2d.translate(-originX, -baseline);
+            }
+        }
+    }
+
+    @Override
+    public Shape modelToView(int pos, Shape a, Position.Bias b) throws BadLocationException {
+        Document document = getDocument();
+        if (pos < 0 || pos > document.getLength()) {
+            throw new BadLocationException("Invalid position", pos);
+        }
+        ensureMeasured();
+        Rectangle alloc = a.getBounds();
+        Element root = getElement();
+        int line = root.getElementIndex(pos);
+        ensureScanned(line);
+        int column = columnOf(line, root.getElement(line).getStartOffset(), pos);
+        return new Rectangle(alloc.x + column * charWidth, alloc.y + line * lineHeight, 1, lineHeight);
+    }
+
+    @Override
+    public int viewToModel(float fx, float fy, Shape a, Position.Bias[] bias) {
+        bias[0] = Position.Bias.Forward;
+        ensureMeasured();
+        Rectangle alloc = a.getBounds();
+        if (fy < alloc.y) {
+            return getStartOffset();
+        }
+        if (fy >= alloc.y + alloc.height) {
+            return getEndOffset() - 1;
+        }
+        int line = Math.min(lineCount - 1, (int) (fy - alloc.y) / lineHeight);
+        ensureScanned(line);
+        Element lineElement = getElement().getElement(line);
+        int lineStart = lineElement.getStartOffset();
+        int lineEnd = getLineEnd(lineElement);
+        if (fx < alloc.x) {
+            return lineStart;
+        }
+        int column = Math.round((fx - alloc.x) / charWidth);
+        return offsetAtColumn(line, lineStart, lineEnd, column);
+    }
+
+    @Override
+    public float nextTabStop(float x, int tabOffset) {
+        if (tabSize == 0) {
+            return x;
+        }
+        int tabWidth = tabSize * charWidth;
+        long tabs = (long) Math.floor(((double) x - tabBase) / tabWidth);
+        return (float) (tabBase + (tabs + 1) * tabWidth);
+    }
+
+    @Override
+    public void insertUpdate(DocumentEvent changes, Shape a, ViewFactory f) {
+        linesChanged(changes, a, true);
+    }
+
+    @Override
+    public void removeUpdate(DocumentEvent changes, Shape a, ViewFactory f) {
+        linesChanged(changes, a, false);
+    }
+
+    @Override
+    public void changedUpdate(DocumentEvent changes, Shape a, ViewFactory f) {
+        Container host = getContainer();
+        if (host != null) {
+            host.repaint();
+        }
+    }
+
+    /**
+     * Measures the lines the first time the view is asked for, returning whether it has a host
+     * to measure the font with.
+     */
+    private boolean ensureMeasured() {
+        if (columns != null) {
+            return true;
+        }
+        Container host = getContainer();
+        if (host == null) {
+            return false;
+        }
+        FontMetrics metrics = host.getFontMetrics(getFont(host));
+        charWidth = Math.max(1, metrics.charWidth('m'));
+        lineHeight = metrics.getHeight();
+        ascent = metrics.getAscent();
+        Object tabSizeProperty = getDocument().getProperty(PlainDocument.tabSizeAttribute);
+        tabSize = tabSizeProperty instanceof Integer size ? size : 8;
+
+        long started = System.nanoTime();
+        Element root = getElement();
+        lineCount = root.getElementCount();
+        columns = new int[Math.max(16, lineCount)];
+        if (host instanceof EditorTextArea area && area.isViewer()) {
+            scanned = new boolean[columns.length];
+            for (int line = 0; line < lineCount; line++) {
+                Element lineElement = root.getElement(line);
+                columns[line] = getLineEnd(lineElement) - lineElement.getStartOffset();
+            }
+        } else {
+            scanned = null;
+            for (int line = 0; line < lineCount; line++) {
+                columns[line] = measureLine(line);
+            }
+        }
+        maxColumns = -1;
+        log.debug("Measured {} lines in {} ms, {} of them long", lineCount,
+                (System.nanoTime() - started) / 1_000_000, longLines.size());
+        return true;
+    }
+
+    /**
+     * Scans {@code line} if its column count is still the estimate, widening the view if it turns
+     * out to be the longest line.
+     */
+    private void ensureScanned(int line) {
+        if (scanned == null || scanned[line]) {
+            return;
+        }
+        scanned[line] = true;
+        int oldColumns = columns[line];
+        columns[line] = measureLine(line);
+        if (columns[line] != oldColumns) {
+            int oldMaxColumns = getMaxColumns();
+            maxColumns = columns[line] > oldMaxColumns ? columns[line] : -1;
+            if (getMaxColumns() != oldMaxColumns) {
+                preferenceChanged(null, true, false);
+            }
+        }
+    }
+
+    private int getMaxColumns() {
+        if (maxColumns < 0) {
+            int max = 0;
+            for (int line = 0; line < lineCount; line++) {
+                max = Math.max(max, columns[line]);
+            }
+            maxColumns = max;
+        }
+        return maxColumns;
+    }
+
+    private void linesChanged(DocumentEvent changes, Shape a, boolean inserted) {
+        if (columns == null) {
+            preferenceChanged(null, true, true);
+            return;
+        }
+        Element root = getElement();
+        int offset = changes.getOffset();
+        int line = root.getElementIndex(offset);
+        int newLineCount = root.getElementCount();
+        int delta = newLineCount - lineCount;
+        int oldMaxColumns = getMaxColumns();
+        int oldColumns = columns[line];
+        if (delta != 0) {
+            shiftLines(line, delta);
+        }
+        lineCount = newLineCount;
+
+        LongLine longLine = delta == 0 ? longLines.get(line) : null;
+        int lineStart = root.getElement(line).getStartOffset();
+        int relative = offset - lineStart;
+        if (longLine != null && relative > longLine.lastTab
+                && (!inserted || !containsTab(offset, offset + changes.getLength()))) {
+            // Chars after the last tab are one column each, wherever they are
+            longLine.length += inserted ? changes.getLength() : -changes.getLength();
+            columns[line] = longLine.columns();
+        } else {
+            for (int i = line; i <= line + Math.max(delta, 0); i++) {
+                columns[i] = measureLine(i);
+                if (scanned != null) {
+                    scanned[i] = true;
+                }
+            }
+        }
+
+        for (int i = line; i <= line + Math.max(delta, 0); i++) {
+            maxColumns = Math.max(maxColumns, columns[i]);
+        }
+        if (delta < 0 || (oldColumns == oldMaxColumns && columns[line] < oldColumns)) {
+            maxColumns = -1;
+        }
+        boolean widthChanged = getMaxColumns() != oldMaxColumns;
+
+        Container host = getContainer();
+        if (host != null && a != null) {
+            Rectangle alloc = a.getBounds();
+            int y = alloc.y + line * lineHeight;
+            int height = delta == 0 ? lineHeight : Math.max(lineHeight, alloc.y + alloc.height - y);
+            host.repaint(alloc.x, y, alloc.width, height);
+        }
+        preferenceChanged(null, widthChanged, delta != 0);
+    }
+
+    /**
+     * Moves the measurements of the lines after {@code line} by {@code delta} lines.
+     */
+    private void shiftLines(int line, int delta) {
+        int next = line + 1;
+        if (delta > 0) {
+            if (lineCount + delta > columns.length) {
+                columns = Arrays.copyOf(columns, Math.max(lineCount + delta, columns.length + (columns.length >> 1)));
+            }
+            System.arraycopy(columns, next, columns, next + delta, lineCount - next);
+            if (scanned != null) {
+                scanned = Arrays.copyOf(scanned, columns.length);
+                System.arraycopy(scanned, next, scanned, next + delta, lineCount - next);
+            }
+        } else {
+            System.arraycopy(columns, next - delta, columns, next, lineCount - next + delta);
+            if (scanned != null) {
+                System.arraycopy(scanned, next - delta, scanned, next, lineCount - next + delta);
+            }
+        }
+        if (!longLines.isEmpty()) {
+            Map<Integer, LongLine> shifted = new HashMap<>();
+            longLines.forEach((index, longLine) -> {
+                if (index <= line) {
+                    shifted.put(index, longLine);
+                } else if (index + delta > line) {
+                    shifted.put(index + delta, longLine);
+                }
+            });
+            longLines.clear();
+            longLines.putAll(shifted);
+        }
+    }
+
+    /**
+     * Returns the column count of {@code line}, keeping the block columns of a long one.
+     */
+    private int measureLine(int line) {
+        Element lineElement = getElement().getElement(line);
+        int start = lineElement.getStartOffset();
+        int end = getLineEnd(lineElement);
+        if (end - start <= LONG_LINE_CHARS) {
+            longLines.remove(line);
+            return columnAfter(start, end, 0);
+        }
+        LongLine longLine = new LongLine();
+        longLine.length = end - start;
+        int[] blockColumns = new int[16];
+        int blocks = 0;
+        int column = 0;
+        int from = start;
+        while (from < end) {
+            load(from, end);
+            for (int i = 0; i < scanText.count; i++) {
+                int relative = from - start + i;
+                if (relative % BLOCK_CHARS == 0) {
+                    if (blocks == blockColumns.length) {
+                        blockColumns = Arrays.copyOf(blockColumns, blocks * 2);
+                    }
+                    blockColumns[blocks++] = column;
+                }
+                if (scanText.array[scanText.offset + i] == '\t') {
+                    column = nextTabColumn(column);
+                    longLine.lastTab = relative;
+                    longLine.columnAfterLastTab = column;
+                } else {
+                    column++;
+                }
+            }
+            from += scanText.count;
+        }
+        longLine.blockColumns = Arrays.copyOf(blockColumns, longLine.lastTab / BLOCK_CHARS + 1);
+        longLines.put(line, longLine);
+        return column;
+    }
+
+    /**
+     * Returns the column of {@code offset}, which is on {@code line}.
+     */
+    private int columnOf(int line, int lineStart, int offset) {
+        LongLine longLine = longLines.get(line);
+        if (longLine == null) {
+            return columnAfter(lineStart, offset, 0);
+        }
+        int relative = offset - lineStart;
+        if (relative > longLine.lastTab) {
+            return longLine.columnAfterLastTab + (relative - longLine.lastTab - 1);
+        }
+        int block = relative / BLOCK_CHARS;
+        return columnAfter(lineStart + block * BLOCK_CHARS, offset, longLine.blockColumns[block]);
+    }
+
+    /**
+     * Returns the last offset of {@code line} whose column is not past {@code column}.
+     */
+    private int offsetAtColumn(int line, int lineStart, int lineEnd, int column) {
+        LongLine longLine = longLines.get(line);
+        if (longLine == null) {
+            return offsetAfterColumn(lineStart, lineEnd, 0, column);
+        }
+        if (column >= longLine.columnAfterLastTab) {
+            long offset = (long) lineStart + longLine.lastTab + 1 + (column - longLine.columnAfterLastTab);
+            return (int) Math.min(lineEnd, offset);
+        }
+        int block = Arrays.binarySearch(longLine.blockColumns, column);
+        if (block < 0) {
+            block = -block - 2;
+        }
+        return offsetAfterColumn(lineStart + block * BLOCK_CHARS, lineEnd, longLine.blockColumns[block], column);
+    }
+
+    private int columnAfter(int from, int to, int column) {
+        while (from < to) {
+            load(from, to);
+            char[] array = scanText.array;
+            for (int i = scanText.offset, end = scanText.offset + scanText.count; i < end; i++) {
+                column = array[i] == '\t' ? nextTabColumn(column) : column + 1;
+            }
+            from += scanText.count;
+        }
+        return column;
+    }
+
+    /**
+     * Scans from {@code from}, which is at {@code column}, for the last offset not past
+     * {@code target}.
+     */
+    private int offsetAfterColumn(int from, int to, int column, int target) {
+        while (from < to) {
+            load(from, to);
+            for (int i = 0; i < scanText.count; i++) {
+                char c = scanText.array[scanText.offset + i];
+                int next = c == '\t' ? nextTabColumn(column) : column + 1;
+                if (next > target) {
+                    return from + i;
+                }
+                column = next;
+            }
+            from += scanText.count;
+        }
+        return to;
+    }
+
+    private boolean containsTab(int from, int to) {
+        while (from < to) {
+            load(from, to);
+            for (int i = scanText.offset, end = scanText.offset + scanText.count; i < end; i++) {
+                if (scanText.array[i] == '\t') {
+                    return true;
+                }
+            }
+            from += scanText.count;
+        }
+        return false;
+    }
+
+    private void load(int from, int to) {
+        try {
+            getDocument().getText(from, Math.min(to - from, SCAN_CHARS), scanText);
+        } catch (BadLocationException e) {
+            throw new IllegalStateException("Range is not in the document", e);
+        }
+    }
+
+    /**
+     * Returns the font the text of {@code host} is laid out in.
+     */
+    private static Font getFont(Container host) {
+        return host instanceof EditorTextArea area ? area.getLayoutFont() : host.getFont();
+    }
+
+    private int nextTabColumn(int column) {
+        return tabSize == 0 ? column : (column / tabSize + 1) * tabSize;
+    }
+
+    private int getLineEnd(Element lineElement) {
+        return Math.min(lineElement.getEndOffset() - 1, getDocument().getLength());
+    }
+
+    /**
+     * Draws from {@code p0} to {@code p1} in the line coordinates {@link #paint} translated to,
+     * whose origin is at {@code startColumn}.
+     */
+    private void drawUnselected(Graphics2D g, int line, int lineStart, int startColumn, int p0, int p1, Color color)
+            throws BadLocationException {
+        if (p0 >= p1) {
+            return;
+        }
+        float x = (float) (columnOf(line, lineStart, p0) - startColumn) * charWidth;
+        if (getContainer() instanceof EditorTextArea area && area.isHighlighting(getDocument())) {
+            area.drawTokens(g, x, 0, p0, p1, this, drawText);
+            return;
+        }
+        drawSelected(g, line, lineStart, startColumn, p0, p1, color);
+    }
+
+    private void drawSelected(Graphics2D g, int line, int lineStart, int startColumn, int p0, int p1, Color color)
+            throws BadLocationException {
+        if (p0 >= p1) {
+            return;
+        }
+        float x = (float) (columnOf(line, lineStart, p0) - startColumn) * charWidth;
+        g.setColor(color);
+        getDocument().getText(p0, p1 - p0, drawText);
+        Utilities.drawTabbedText(drawText, x, 0, g, this, p0);
+    }
+
+    /**
+     * Columns of a line longer than {@link #LONG_LINE_CHARS}, with offsets relative to its start.
+     */
+    private static final class LongLine {
+
+        int length;
+
+        /**
+         * Offset of the last tab, or -1 when there is none.
+         */
+        int lastTab = -1;
+
+        int columnAfterLastTab;
+
+        /**
+         * Column at the start of every block up to the one holding the last tab.
+         */
+        int[] blockColumns;
+
+        int columns() {
+            return columnAfterLastTab + (length - lastTab - 1);
+        }
+    }
+}
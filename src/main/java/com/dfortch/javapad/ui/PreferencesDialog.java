@@ -2,7 +2,6 @@ package com.dfortch.javapad.ui;
 
 import com.dfortch.javapad.i18n.MessageProvider;
 import com.dfortch.javapad.prefs.JavaPadUserPreferences;
-import com.dfortch.javapad.prefs.JavapadTheme;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -10,29 +9,47 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.awt.event.WindowEvent;
-import java.awt.event.WindowListener;
-import java.util.Locale;
-
-public class PreferencesDialog extends JDialog implements PreferencesActionsPanelListener, WindowListener {
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Edits the preferences, one section at a time.
+ * <p>
+ * The main frame keeps one dialog and {@link #open() opens} it again each time, and the panel of
+ * a section is built the first time the section is shown. Closing the dialog disposes it, which
+ * makes its panels unregister from the preferences until it opens again, so opening and closing it
+ * leaves the listeners of the preferences as they were.
+ */
+public class PreferencesDialog extends JDialog implements PreferencesActionsPanelListener {
 
     private static final Logger log = LogManager.getLogger(PreferencesDialog.class);
     private final transient MessageProvider messageProvider;
 
     private final transient JavaPadUserPreferences preferences;
 
+    private final transient FontCatalog fontCatalog;
+
     private AppearancePreferencesPanel appearancePreferencesPanel;
     private EditorPreferencesPanel editorPreferencesPanel;
     private LocalePreferencesPanel localePreferencesPanel;
+    private LoggingPreferencesPanel loggingPreferencesPanel;
     private JPanel contentPanel;
     private DefaultListModel<String> sectionListModel;
+    private JList<String> sectionList;
+
+    /**
+     * The panels of the sections shown so far.
+     */
+    private final Map<PreferencesSection, JComponent> sections = new EnumMap<>(PreferencesSection.class);
 
     private PreferencesActionsPanel actionsPanel;
 
-    public PreferencesDialog(Frame owner, MessageProvider messageProvider, JavaPadUserPreferences preferences) {
+    public PreferencesDialog(Frame owner, MessageProvider messageProvider, JavaPadUserPreferences preferences,
+                             FontCatalog fontCatalog) {
         super(owner, true);
         this.messageProvider = messageProvider;
         this.preferences = preferences;
+        this.fontCatalog = fontCatalog;
         initialize();
     }
 
@@ -41,42 +58,23 @@ public class PreferencesDialog extends JDialog implements PreferencesActionsPane
         try {
             setTitle(messageProvider.getMessage("preferences.title"));
             setSize(600, 400);
-            setLocationRelativeTo(getOwner());
-            addWindowListener(this);
+            setDefaultCloseOperation(DISPOSE_ON_CLOSE);
             setResizable(false);
 
             contentPanel = new JPanel(new CardLayout());
 
-            ActionListener listener = e -> updateSectionList();
-
-            appearancePreferencesPanel = new AppearancePreferencesPanel(messageProvider, preferences);
-            appearancePreferencesPanel.addThemeChangeListener(listener);
-            editorPreferencesPanel = new EditorPreferencesPanel(messageProvider, preferences);
-            editorPreferencesPanel.addFontFamilyChangeListener(listener);
-            editorPreferencesPanel.addFontStyleChangeListener(listener);
-            editorPreferencesPanel.addFontSizeChangeListener(listener);
-            editorPreferencesPanel.addForegroundChangeListener(listener);
-            editorPreferencesPanel.addBackgroundChangeListener(listener);
-            localePreferencesPanel = new LocalePreferencesPanel(messageProvider, preferences);
-            localePreferencesPanel.addLocaleChangeListener(listener);
-
-            contentPanel.add(appearancePreferencesPanel, PreferencesSection.APPEARANCE.name());
-            contentPanel.add(editorPreferencesPanel, PreferencesSection.EDITOR.name());
-            contentPanel.add(localePreferencesPanel, PreferencesSection.LOCALE.name());
-
             sectionListModel = new DefaultListModel<>();
             for (PreferencesSection section : PreferencesSection.values()) {
                 sectionListModel.addElement(section.getSectionName(messageProvider));
             }
 
-            JList<String> sectionList = new JList<>(sectionListModel);
+            sectionList = new JList<>(sectionListModel);
             sectionList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
             sectionList.setPreferredSize(new Dimension(100, 0));
 
             sectionList.addListSelectionListener(e -> {
-                if (!e.getValueIsAdjusting()) {
-                    int selectedIndex = sectionList.getSelectedIndex();
-                    changeSection(PreferencesSection.values()[selectedIndex]);
+                if (!e.getValueIsAdjusting() && sectionList.getSelectedIndex() >= 0) {
+                    changeSection(PreferencesSection.values()[sectionList.getSelectedIndex()]);
                 }
             });
 
@@ -88,6 +86,8 @@ public class PreferencesDialog extends JDialog implements PreferencesActionsPane
             add(contentPanel, BorderLayout.CENTER);
             add(actionsPanel, BorderLayout.SOUTH);
 
+            sectionList.setSelectedIndex(0);
+
             log.trace("PreferencesDialog initialized successfully");
         } catch (Exception e) {
             log.error("Error initializing PreferencesDialog", e);
@@ -95,12 +95,72 @@ public class PreferencesDialog extends JDialog implements PreferencesActionsPane
 
     }
 
-    private void changeSection(PreferencesSection section) {
+    /**
+     * Shows the dialog again with the current preferences, which the panels read when the dialog
+     * becomes displayable; edits that were cancelled the last time are gone.
+     */
+    public void open() {
+        log.debug("Opening preferences dialog");
+        setLocationRelativeTo(getOwner());
+        updateSectionList(true);
+        setVisible(true);
+    }
+
+    /**
+     * Shows the panel of {@code section}, building it the first time.
+     */
+    public void changeSection(PreferencesSection section) {
         log.debug("Changing section to: {}", section.name());
+        if (sections.get(section) == null) {
+            JComponent panel = createSection(section);
+            sections.put(section, panel);
+            contentPanel.add(panel, section.name());
+        }
         CardLayout cl = (CardLayout) (contentPanel.getLayout());
         cl.show(contentPanel, section.name());
     }
 
+    private JComponent createSection(PreferencesSection section) {
+        log.debug("Creating section {}", section.name());
+        ActionListener listener = e -> updateSectionList();
+        return switch (section) {
+            case APPEARANCE -> {
+                appearancePreferencesPanel = new AppearancePreferencesPanel(messageProvider, preferences);
+                appearancePreferencesPanel.addThemeChangeListener(listener);
+                yield appearancePreferencesPanel;
+            }
+            case EDITOR -> {
+                editorPreferencesPanel = new EditorPreferencesPanel(messageProvider, preferences, fontCatalog);
+                editorPreferencesPanel.addFontFamilyChangeListener(listener);
+                editorPreferencesPanel.addFontStyleChangeListener(listener);
+                editorPreferencesPanel.addFontSizeChangeListener(listener);
+                editorPreferencesPanel.addForegroundChangeListener(listener);
+                editorPreferencesPanel.addBackgroundChangeListener(listener);
+                editorPreferencesPanel.addLargeFileThresholdChangeListener(e -> updateSectionList());
+                editorPreferencesPanel.addUndoMemoryLimitChangeListener(e -> updateSectionList());
+                editorPreferencesPanel.addTabMemoryBudgetChangeListener(e -> updateSectionList());
+                yield editorPreferencesPanel;
+            }
+            case LOCALE -> {
+                localePreferencesPanel = new LocalePreferencesPanel(messageProvider, preferences);
+                localePreferencesPanel.addLocaleChangeListener(listener);
+                yield localePreferencesPanel;
+            }
+            case LOGGING -> {
+                loggingPreferencesPanel = new LoggingPreferencesPanel(messageProvider, preferences);
+                loggingPreferencesPanel.addLogLevelChangeListener(listener);
+                yield loggingPreferencesPanel;
+            }
+        };
+    }
+
+    /**
+     * Returns whether the panel of {@code section} has been built.
+     */
+    boolean isSectionCreated(PreferencesSection section) {
+        return sections.get(section) != null;
+    }
+
     private void updateSectionList() {
         updateSectionList(false);
     }
@@ -111,13 +171,16 @@ public class PreferencesDialog extends JDialog implements PreferencesActionsPane
             PreferencesSection section = PreferencesSection.values()[i];
             String sectionName = section.getSectionName(messageProvider);
 
+            // A section that was never shown has not been changed
             boolean isChanged = false;
-            if (section == PreferencesSection.APPEARANCE) {
+            if (section == PreferencesSection.APPEARANCE && appearancePreferencesPanel != null) {
                 isChanged = appearancePreferencesPanel.isThemeChanged();
-            } else if (section == PreferencesSection.EDITOR) {
+            } else if (section == PreferencesSection.EDITOR && editorPreferencesPanel != null) {
                 isChanged = editorPreferencesPanel.isChanged();
-            } else if (section == PreferencesSection.LOCALE) {
+            } else if (section == PreferencesSection.LOCALE && localePreferencesPanel != null) {
                 isChanged = localePreferencesPanel.isLocaleChanged();
+            } else if (section == PreferencesSection.LOGGING && loggingPreferencesPanel != null) {
+                isChanged = loggingPreferencesPanel.isLogLevelChanged();
             }
 
             if (isChanged && !saveChanges) {
@@ -165,20 +228,21 @@ public class PreferencesDialog extends JDialog implements PreferencesActionsPane
     private void savePreferences() {
         log.debug("Saving preferences");
         try {
-            JavapadTheme theme = appearancePreferencesPanel.getSelectedTheme();
-            Font font = editorPreferencesPanel.getSelectedFont();
-            Color foregroundColor = editorPreferencesPanel.getSelectedForegroundColor();
-            Color backgroundColor = editorPreferencesPanel.getSelectedBackgroundColor();
-            Locale locale = localePreferencesPanel.getSelectedLocale();
-
-            foregroundColor = foregroundColor == null ? preferences.getDefaultEditorForegroundColor() : foregroundColor;
-            backgroundColor = backgroundColor == null ? preferences.getDefaultEditorBackgroundColor() : backgroundColor;
-
-            preferences.setTheme(theme);
-            preferences.setEditorFont(font);
-            preferences.setEditorForegroundColor(foregroundColor);
-            preferences.setEditorBackgroundColor(backgroundColor);
-            preferences.setLocale(locale);
+            // One event for everything the dialog changed; sections never shown keep their values
+            preferences.transaction(() -> {
+                if (appearancePreferencesPanel != null) {
+                    preferences.setTheme(appearancePreferencesPanel.getSelectedTheme());
+                }
+                if (editorPreferencesPanel != null) {
+                    saveEditorPreferences();
+                }
+                if (localePreferencesPanel != null) {
+                    preferences.setLocale(localePreferencesPanel.getSelectedLocale());
+                }
+                if (loggingPreferencesPanel != null && loggingPreferencesPanel.isLogLevelChanged()) {
+                    preferences.setLogLevel(loggingPreferencesPanel.getSelectedLogLevel());
+                }
+            });
 
             updateSectionList(true);
 
@@ -188,45 +252,34 @@ public class PreferencesDialog extends JDialog implements PreferencesActionsPane
         }
     }
 
+    private void saveEditorPreferences() {
+        Font font = editorPreferencesPanel.getSelectedFont();
+        Color selectedForegroundColor = editorPreferencesPanel.getSelectedForegroundColor();
+        Color selectedBackgroundColor = editorPreferencesPanel.getSelectedBackgroundColor();
+        long largeFileThreshold = editorPreferencesPanel.getSelectedLargeFileThreshold();
+        long undoMemoryLimit = editorPreferencesPanel.getSelectedUndoMemoryLimit();
+        long tabMemoryBudget = editorPreferencesPanel.getSelectedTabMemoryBudget();
+
+        preferences.setEditorFont(font);
+        preferences.setEditorForegroundColor(selectedForegroundColor == null
+                ? preferences.getDefaultEditorForegroundColor() : selectedForegroundColor);
+        preferences.setEditorBackgroundColor(selectedBackgroundColor == null
+                ? preferences.getDefaultEditorBackgroundColor() : selectedBackgroundColor);
+        if (editorPreferencesPanel.isLargeFileThresholdChanged()) {
+            preferences.setLargeFileThreshold(largeFileThreshold);
+        }
+        if (editorPreferencesPanel.isUndoMemoryLimitChanged()) {
+            preferences.setUndoMemoryLimit(undoMemoryLimit);
+        }
+        if (editorPreferencesPanel.isTabMemoryBudgetChanged()) {
+            preferences.setTabMemoryBudget(tabMemoryBudget);
+        }
+    }
+
     private void resetPreferences() {
         log.info("Resetting preferences to default");
         preferences.resetAll();
         updateSectionList(true);
         log.info("Preferences reset to default successfully");
     }
-
-    @Override
-    public void windowOpened(WindowEvent e) {
-        // Don't need to handle this event
-    }
-
-    @Override
-    public void windowClosing(WindowEvent e) {
-        actionsPanel.removePreferencesActionsPanelListener(this);
-    }
-
-    @Override
-    public void windowClosed(WindowEvent e) {
-        // Don't need to handle this event
-    }
-
-    @Override
-    public void windowIconified(WindowEvent e) {
-        // Don't need to handle this event
-    }
-
-    @Override
-    public void windowDeiconified(WindowEvent e) {
-        // Don't need to handle this event
-    }
-
-    @Override
-    public void windowActivated(WindowEvent e) {
-        // Don't need to handle this event
-    }
-
-    @Override
-    public void windowDeactivated(WindowEvent e) {
-        // Don't need to handle this event
-    }
 }
@@ -5,7 +5,8 @@ import com.dfortch.javapad.i18n.MessageProvider;
 public enum PreferencesSection {
     APPEARANCE("preferences.appearance"),
     EDITOR("preferences.editor"),
-    LOCALE("preferences.locale");
+    LOCALE("preferences.locale"),
+    LOGGING("preferences.logging");
 
     private final String sectionName;
 
@@ -7,22 +7,52 @@ import org.apache.logging.log4j.Logger;
 import javax.swing.*;
 import javax.swing.border.Border;
 import java.awt.*;
-
+import java.awt.event.ActionListener;
+
+/**
+ * Shows the caret position, character count, undo history size, file name and progress of
+ * background work.
+ * <p>
+ * Caret, character count and undo history updates arrive with every caret move, so they are only recorded when
+ * set and shown together once per {@link #REFRESH_DELAY_MILLIS}. Labels whose value did not change
+ * are left alone, and the labels are formatted by the {@link MessageProvider}, in its locale and
+ * with the patterns it has compiled.
+ */
 public class StatusBar extends JPanel {
 
     private static final Logger log = LogManager.getLogger(StatusBar.class);
 
+    static final int REFRESH_DELAY_MILLIS = 16;
+
     private final transient MessageProvider messageProvider;
 
     private JLabel lineColumnLabel;
 
     private JLabel characterCountLabel;
 
+    private JLabel undoMemoryLabel;
+
     private JLabel fileNameLabel;
 
+    private JProgressBar progressBar;
+
+    private JButton cancelButton;
+
+    private transient ActionListener cancelListener;
+
+    private Timer refreshTimer;
+
     private int currentLine;
     private int currentColumn;
     private int characterCount;
+    private long undoMemoryKilobytes;
+
+    private int shownLine = -1;
+    private int shownColumn = -1;
+    private int shownCharacterCount = -1;
+    private long shownUndoMemoryKilobytes = -1;
+
+    private long coalescedUpdateCount;
 
     private String currentFileName;
 
@@ -38,6 +68,9 @@ public class StatusBar extends JPanel {
     private void initialize() {
         log.trace("Initializing StatusBar");
         try {
+            refreshTimer = new Timer(REFRESH_DELAY_MILLIS, e -> refresh());
+            refreshTimer.setRepeats(false);
+
             setLayout(new GridBagLayout());
             GridBagConstraints gbc = new GridBagConstraints();
 
@@ -49,6 +82,8 @@ public class StatusBar extends JPanel {
             lineColumnLabel.setBorder(border);
             characterCountLabel = new JLabel();
             characterCountLabel.setBorder(border);
+            undoMemoryLabel = new JLabel();
+            undoMemoryLabel.setBorder(border);
             fileNameLabel = new JLabel(currentFileName);
             fileNameLabel.setBorder(emptyBorder);
 
@@ -56,6 +91,16 @@ public class StatusBar extends JPanel {
             characterCountLabel.setHorizontalAlignment(SwingConstants.LEFT);
             fileNameLabel.setHorizontalAlignment(SwingConstants.RIGHT);
 
+            progressBar = new JProgressBar(0, 100);
+            progressBar.setVisible(false);
+            cancelButton = new JButton(messageProvider.getMessage("main.statusbar.cancel"));
+            cancelButton.setVisible(false);
+            cancelButton.addActionListener(e -> {
+                if (cancelListener != null) {
+                    cancelListener.actionPerformed(e);
+                }
+            });
+
             gbc.gridx = 0;
             gbc.weightx = 0.0;
             gbc.anchor = GridBagConstraints.WEST;
@@ -66,33 +111,88 @@ public class StatusBar extends JPanel {
             gbc.fill = GridBagConstraints.HORIZONTAL;
             add(characterCountLabel, gbc);
 
-            gbc.gridx = 4;
+            gbc.gridx = 3;
             gbc.weightx = 0.0;
             gbc.fill = GridBagConstraints.NONE;
             gbc.anchor = GridBagConstraints.EAST;
+            add(progressBar, gbc);
+
+            gbc.gridx = 4;
+            add(cancelButton, gbc);
+
+            gbc.gridx = 5;
             add(fileNameLabel, gbc);
 
-            setCurrentLineAndColumn(currentLine, currentColumn);
-            setCharacterCount(characterCount);
+            gbc.gridx = 1;
+            gbc.anchor = GridBagConstraints.WEST;
+            add(undoMemoryLabel, gbc);
+
+            refresh();
         } catch (Exception e) {
             log.error("Error initializing StatusBar");
         }
         log.trace("StatusBar initialized successfully");
     }
 
+    /**
+     * Records the caret position; it is shown with the next refresh.
+     */
     public void setCurrentLineAndColumn(int line, int column) {
-        log.debug("Setting current line: {}, current column: {}", line, column);
         currentLine = line;
         currentColumn = column;
-        lineColumnLabel.setText(messageProvider.getMessage("main.statusbar.linecol", currentLine, currentColumn));
-        log.info("Updated line and column display: Line {}, Column {}", currentLine, currentColumn);
+        scheduleRefresh();
     }
 
+    /**
+     * Records the character count; it is shown with the next refresh.
+     */
     public void setCharacterCount(int characterCount) {
-        log.debug("Setting character count: {}", characterCount);
         this.characterCount = characterCount;
-        characterCountLabel.setText(messageProvider.getMessage("main.statusbar.characters", characterCount));
-        log.info("Updated character count display: {}", this.characterCount);
+        scheduleRefresh();
+    }
+
+    /**
+     * Records how many bytes the undo history keeps alive; it is shown with the next refresh.
+     */
+    public void setUndoMemory(long bytes) {
+        undoMemoryKilobytes = (bytes + 1023) / 1024;
+        scheduleRefresh();
+    }
+
+    /**
+     * Returns how many updates were folded into an already scheduled refresh instead of causing
+     * one of their own.
+     */
+    public long getCoalescedUpdateCount() {
+        return coalescedUpdateCount;
+    }
+
+    private void scheduleRefresh() {
+        if (refreshTimer.isRunning()) {
+            coalescedUpdateCount++;
+        } else {
+            refreshTimer.start();
+        }
+    }
+
+    private void refresh() {
+        if (currentLine != shownLine || currentColumn != shownColumn) {
+            shownLine = currentLine;
+            shownColumn = currentColumn;
+            lineColumnLabel.setText(messageProvider.getMessage("main.statusbar.linecol", currentLine, currentColumn));
+        }
+        if (characterCount != shownCharacterCount) {
+            shownCharacterCount = characterCount;
+            characterCountLabel.setText(messageProvider.getMessage("main.statusbar.characters", characterCount));
+        }
+        if (undoMemoryKilobytes != shownUndoMemoryKilobytes) {
+            shownUndoMemoryKilobytes = undoMemoryKilobytes;
+            undoMemoryLabel.setText(messageProvider.getMessage("main.statusbar.undo-memory", undoMemoryKilobytes));
+        }
+        if (log.isTraceEnabled()) {
+            log.trace("Refreshed status: line {}, column {}, {} characters, {} updates coalesced so far",
+                    currentLine, currentColumn, characterCount, coalescedUpdateCount);
+        }
     }
 
     public void setFileName(String fileName) {
@@ -101,4 +201,33 @@ public class StatusBar extends JPanel {
         fileNameLabel.setText(currentFileName);
         log.info("Updated file name display: {}", currentFileName);
     }
+
+    /**
+     * Shows the progress bar and a cancel button that calls {@code onCancel}. The bar is
+     * indeterminate until {@link #setProgress(int)} is called.
+     */
+    public void startProgress(ActionListener onCancel) {
+        log.debug("Starting progress display");
+        cancelListener = onCancel;
+        progressBar.setIndeterminate(true);
+        progressBar.setValue(0);
+        progressBar.setVisible(true);
+        cancelButton.setVisible(onCancel != null);
+        revalidate();
+    }
+
+    public void setProgress(int percent) {
+        if (progressBar.isIndeterminate()) {
+            progressBar.setIndeterminate(false);
+        }
+        progressBar.setValue(percent);
+    }
+
+    public void stopProgress() {
+        log.debug("Stopping progress display");
+        cancelListener = null;
+        progressBar.setVisible(false);
+        cancelButton.setVisible(false);
+        revalidate();
+    }
 }
@@ -0,0 +1,40 @@
+package com.dfortch.javapad.util;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.core.config.Configurator;
+
+public class LoggingUtils {
+
+    private static final Logger log = LogManager.getLogger(LoggingUtils.class);
+
+    /**
+     * Name of the logger every javapad logger inherits its level from.
+     */
+    public static final String APPLICATION_LOGGER = "com.dfortch.javapad";
+
+    /**
+     * Levels offered to the user, from the quietest.
+     */
+    public static final Level[] LEVELS = {Level.ERROR, Level.WARN, Level.INFO, Level.DEBUG, Level.TRACE};
+
+    private LoggingUtils() {
+    }
+
+    public static Level getApplicationLevel() {
+        return LogManager.getLogger(APPLICATION_LOGGER).getLevel();
+    }
+
+    /**
+     * Changes the level of the javapad loggers in the running configuration, without touching
+     * the configuration file.
+     */
+    public static void setApplicationLevel(Level level) {
+        if (level.equals(getApplicationLevel())) {
+            return;
+        }
+        log.info("Changing application log level from {} to {}", getApplicationLevel(), level);
+        Configurator.setLevel(APPLICATION_LOGGER, level);
+    }
+}
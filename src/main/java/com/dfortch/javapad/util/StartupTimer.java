@@ -0,0 +1,91 @@
+package com.dfortch.javapad.util;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long each phase of startup takes. A phase ends when it is {@link #mark(String)
+ * marked} and the next one starts there, so the phases add up to the whole startup. Phases are
+ * logged as they end; {@link #finish()} logs the total.
+ */
+public class StartupTimer {
+
+    private static final Logger log = LogManager.getLogger(StartupTimer.class);
+
+    /**
+     * A phase of startup and how long it took.
+     *
+     * @param name  what was done
+     * @param nanos how long it took, in nanoseconds
+     */
+    public record Phase(String name, long nanos) {
+
+        public long getMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(nanos);
+        }
+    }
+
+    private final List<Phase> phases = new ArrayList<>();
+
+    private long phaseStart = System.nanoTime();
+
+    private boolean finished;
+
+    /**
+     * Returns a timer whose first phase, {@code jvm}, is the time from the start of the process to
+     * now, if the platform reports when the process started.
+     */
+    public static StartupTimer sinceProcessStart() {
+        StartupTimer timer = new StartupTimer();
+        ProcessHandle.current().info().startInstant().ifPresent(start ->
+                timer.add("jvm", Duration.between(start, Instant.now()).toNanos()));
+        return timer;
+    }
+
+    /**
+     * Ends the current phase, naming it {@code name}, and starts the next one.
+     */
+    public synchronized void mark(String name) {
+        long now = System.nanoTime();
+        add(name, now - phaseStart);
+        phaseStart = now;
+    }
+
+    /**
+     * Logs the total once startup is over.
+     */
+    public synchronized void finish() {
+        if (!finished) {
+            finished = true;
+            log.info("Started in {} ms", getTotalMillis());
+        }
+    }
+
+    public synchronized boolean isFinished() {
+        return finished;
+    }
+
+    public synchronized List<Phase> getPhases() {
+        return List.copyOf(phases);
+    }
+
+    public synchronized long getTotalMillis() {
+        long total = 0;
+        for (Phase phase : phases) {
+            total += phase.nanos();
+        }
+        return TimeUnit.NANOSECONDS.toMillis(total);
+    }
+
+    private void add(String name, long nanos) {
+        Phase phase = new Phase(name, Math.max(0, nanos));
+        phases.add(phase);
+        log.info("Startup phase {} took {} ms", name, phase.getMillis());
+    }
+}
@@ -0,0 +1,183 @@
+package com.dfortch.javapad.workspace;
+
+import com.dfortch.javapad.text.DirtyStateListener;
+import com.dfortch.javapad.text.DocumentVersionTracker;
+import com.dfortch.javapad.text.PieceTableDocument;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.BadLocationException;
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+
+/**
+ * The journal of one buffer, see {@link EditJournal}.
+ * <p>
+ * Follows the edits of the tracked document on the EDT. The first edit of a clean document starts
+ * the journal with a snapshot of the text after it, later ones are queued as edit records, and
+ * the journal is deleted when the document is clean again. A document that is already dirty when
+ * it is attached, e.g. one restored from a swap file, keeps the journal it had or starts one.
+ * Document events arrive before the tracker changes its dirty state, so an edit is never both in
+ * the snapshot and in a record.
+ */
+public class BufferJournal implements DocumentListener, DirtyStateListener {
+
+    private static final Logger log = LogManager.getLogger(BufferJournal.class);
+
+    /**
+     * Rough size of the fixed part of an edit record.
+     */
+    private static final long EDIT_RECORD_BYTES = 17;
+
+    private final EditJournal owner;
+
+    private final DocumentBuffer buffer;
+
+    final Path file;
+
+    /**
+     * Open channel to {@link #file}, used by the writer thread only.
+     */
+    FileChannel channel;
+
+    /**
+     * Edit records not yet written to {@link #channel}, used by the writer thread only.
+     */
+    final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+
+    private PieceTableDocument document;
+
+    private DocumentVersionTracker tracker;
+
+    private boolean journaling;
+
+    private long journaledBytes;
+
+    private long snapshotBytes;
+
+    BufferJournal(EditJournal owner, DocumentBuffer buffer, Path file) {
+        this.owner = owner;
+        this.buffer = buffer;
+        this.file = file;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Returns whether the journal holds the text of the buffer.
+     */
+    public boolean isJournaling() {
+        return journaling;
+    }
+
+    /**
+     * Starts following the edits of {@code document}, whose text matches the journal if there is
+     * one.
+     */
+    public void attach(PieceTableDocument document, DocumentVersionTracker tracker) {
+        detach();
+        this.document = document;
+        this.tracker = tracker;
+        document.addDocumentListener(this);
+        tracker.addDirtyStateListener(this);
+        if (tracker.isDirty() && !journaling) {
+            writeSnapshot();
+        }
+    }
+
+    /**
+     * Stops following the document while keeping the journal, e.g. when its text is swapped out.
+     */
+    public void detach() {
+        if (document != null) {
+            document.removeDocumentListener(this);
+            tracker.removeDirtyStateListener(this);
+            document = null;
+            tracker = null;
+        }
+    }
+
+    /**
+     * Starts the journal over, since the file or encoding recorded in its snapshot changed.
+     */
+    public void bufferChanged() {
+        if (journaling && document != null) {
+            writeSnapshot();
+        }
+    }
+
+    /**
+     * Detaches and deletes the journal, for when the buffer is closed.
+     */
+    public void delete() {
+        detach();
+        discard();
+    }
+
+    /**
+     * Deletes the journal, since nothing in it is unsaved anymore.
+     */
+    public void discard() {
+        if (journaling) {
+            log.debug("Deleting journal of buffer for {}", buffer.getFile());
+            journaling = false;
+            owner.enqueue(new EditJournal.Delete(this));
+        }
+    }
+
+    @Override
+    public void insertUpdate(DocumentEvent e) {
+        String inserted;
+        try {
+            inserted = document.getText(e.getOffset(), e.getLength());
+        } catch (BadLocationException ex) {
+            throw new IllegalStateException("Inserted text is not in the document", ex);
+        }
+        edited(e.getOffset(), 0, inserted);
+    }
+
+    @Override
+    public void removeUpdate(DocumentEvent e) {
+        edited(e.getOffset(), e.getLength(), "");
+    }
+
+    @Override
+    public void changedUpdate(DocumentEvent e) {
+        // Attributes are not part of the text
+    }
+
+    @Override
+    public void onDirtyStateChanged(boolean dirty) {
+        if (dirty && !journaling) {
+            writeSnapshot();
+        } else if (!dirty) {
+            discard();
+        }
+    }
+
+    private void edited(int offset, int removed, String inserted) {
+        if (!journaling) {
+            writeSnapshot();
+            return;
+        }
+        owner.enqueue(new EditJournal.Edit(this, offset, removed, inserted));
+        journaledBytes += EDIT_RECORD_BYTES + 2L * inserted.length();
+        if (journaledBytes > Math.max(snapshotBytes, owner.getCompactionBytes())) {
+            log.debug("Compacting journal of buffer for {} after {} bytes of edits", buffer.getFile(), journaledBytes);
+            writeSnapshot();
+        }
+    }
+
+    private void writeSnapshot() {
+        CharSequence text = document.createSnapshot();
+        journaling = true;
+        journaledBytes = 0;
+        snapshotBytes = 2L * text.length();
+        owner.enqueue(new EditJournal.Snapshot(this, buffer.getFile(), buffer.getEncoding(), text));
+    }
+}
@@ -0,0 +1,205 @@
+package com.dfortch.javapad.workspace;
+
+import com.dfortch.javapad.io.FileOperations;
+import com.dfortch.javapad.io.TextEncoding;
+import com.dfortch.javapad.text.PieceTable;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+
+/**
+ * Keeps the text of the open buffers within a memory budget by dropping the text of the buffers
+ * that were viewed least recently.
+ * <p>
+ * Buffers are kept in the order they were last viewed. When the estimated memory of the resident
+ * buffers exceeds the budget, {@link #trim} releases them starting with the least recently viewed
+ * one, never touching the buffer being viewed or one that is loading. A clean buffer is simply
+ * released, since it can be read from its file again. A dirty one first has its text written to a
+ * swap file in the background and is released once that worked; viewing it again before then
+ * keeps it resident. Restoring released buffers is left to the caller, see
+ * {@link DocumentBuffer#getSwapFile()}.
+ * <p>
+ * All methods must be called on the thread that {@code callbackExecutor} runs on, the EDT in the
+ * application.
+ */
+public class BufferPool {
+
+    private static final Logger log = LogManager.getLogger(BufferPool.class);
+
+    /**
+     * Swap files are written in UTF-16 with a byte order mark, which the charset detection honours
+     * whatever the text holds, so they read back unchanged.
+     */
+    public static final TextEncoding SWAP_ENCODING = new TextEncoding(StandardCharsets.UTF_16BE, true);
+
+    private final FileOperations fileOperations;
+
+    private final Path swapDirectory;
+
+    private final Executor swapExecutor;
+
+    private final Executor callbackExecutor;
+
+    /**
+     * Every buffer, least recently viewed first.
+     */
+    private final Map<DocumentBuffer, Boolean> buffers = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long memoryBudget;
+
+    public BufferPool(FileOperations fileOperations, Path swapDirectory, long memoryBudget, Executor swapExecutor,
+                      Executor callbackExecutor) {
+        this.fileOperations = Objects.requireNonNull(fileOperations, "File operations must not be null");
+        this.swapDirectory = Objects.requireNonNull(swapDirectory, "Swap directory must not be null");
+        this.swapExecutor = Objects.requireNonNull(swapExecutor, "Swap executor must not be null");
+        this.callbackExecutor = Objects.requireNonNull(callbackExecutor, "Callback executor must not be null");
+        setMemoryBudget(memoryBudget);
+    }
+
+    public long getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    public void setMemoryBudget(long memoryBudget) {
+        if (memoryBudget <= 0) {
+            throw new IllegalArgumentException("Memory budget must be positive: " + memoryBudget);
+        }
+        this.memoryBudget = memoryBudget;
+    }
+
+    /**
+     * Adds {@code buffer} as the most recently viewed one.
+     */
+    public void add(DocumentBuffer buffer) {
+        buffers.put(buffer, Boolean.TRUE);
+    }
+
+    /**
+     * Forgets {@code buffer}; any swap in progress is discarded.
+     */
+    public void remove(DocumentBuffer buffer) {
+        buffers.remove(buffer);
+        buffer.pendingSwap = null;
+    }
+
+    /**
+     * Records that {@code buffer} is being viewed, which also stops a swap that is in progress.
+     */
+    public void touch(DocumentBuffer buffer) {
+        buffers.get(buffer);
+        if (buffer.pendingSwap != null) {
+            log.debug("Buffer for {} viewed again before it was swapped out", buffer.getFile());
+            buffer.pendingSwap = null;
+        }
+    }
+
+    /**
+     * Returns the estimated memory of the resident buffers that are not being swapped out.
+     */
+    public long getMemoryUsage() {
+        long usage = 0;
+        for (DocumentBuffer buffer : buffers.keySet()) {
+            if (buffer.pendingSwap == null) {
+                usage += buffer.estimateMemoryUsage();
+            }
+        }
+        return usage;
+    }
+
+    /**
+     * Releases the least recently viewed buffers until the rest fit in the memory budget.
+     * {@code active}, the buffer being viewed, is always kept.
+     */
+    public void trim(DocumentBuffer active) {
+        long usage = getMemoryUsage();
+        if (usage <= memoryBudget) {
+            return;
+        }
+        log.debug("Buffers use about {} bytes, more than the budget of {}", usage, memoryBudget);
+        for (DocumentBuffer buffer : new ArrayList<>(buffers.keySet())) {
+            if (usage <= memoryBudget) {
+                break;
+            }
+            if (buffer == active || !buffer.isResident() || buffer.isLoading() || buffer.pendingSwap != null) {
+                continue;
+            }
+            usage -= buffer.estimateMemoryUsage();
+            evict(buffer);
+        }
+    }
+
+    /**
+     * Deletes the swap files of every buffer, for when the application exits.
+     */
+    public void close() {
+        for (DocumentBuffer buffer : List.copyOf(buffers.keySet())) {
+            buffer.pendingSwap = null;
+            buffer.deleteSwapFile();
+        }
+        buffers.clear();
+    }
+
+    private void evict(DocumentBuffer buffer) {
+        if (!buffer.isDirty()) {
+            log.debug("Releasing clean buffer for {}", buffer.getFile());
+            buffer.release();
+            return;
+        }
+        PieceTable.Snapshot snapshot = buffer.getDocument().createSnapshot();
+        long version = buffer.getVersionTracker().getVersion();
+        Object swap = new Object();
+        buffer.pendingSwap = swap;
+        log.debug("Swapping out dirty buffer for {}", buffer.getFile());
+        swapExecutor.execute(() -> {
+            Path swapFile = null;
+            IOException failure = null;
+            try {
+                Files.createDirectories(swapDirectory);
+                swapFile = Files.createTempFile(swapDirectory, "buffer-", ".swp");
+                fileOperations.saveToFile(swapFile.toFile(), snapshot, SWAP_ENCODING, null);
+            } catch (IOException e) {
+                failure = e;
+            }
+            Path written = swapFile;
+            IOException swapFailure = failure;
+            callbackExecutor.execute(() -> swapFinished(buffer, swap, version, written, swapFailure));
+        });
+    }
+
+    private void swapFinished(DocumentBuffer buffer, Object swap, long version, Path swapFile, IOException failure) {
+        boolean current = buffer.pendingSwap == swap;
+        if (current) {
+            buffer.pendingSwap = null;
+        }
+        if (failure != null) {
+            log.error("Failed to swap out buffer for {}, keeping it in memory", buffer.getFile(), failure);
+            if (swapFile != null) {
+                deleteQuietly(swapFile);
+            }
+        } else if (!current || buffer.getVersionTracker() == null || buffer.getVersionTracker().getVersion() != version) {
+            log.debug("Discarding swap file of buffer for {} that was viewed or closed meanwhile", buffer.getFile());
+            deleteQuietly(swapFile);
+        } else {
+            buffer.swappedOut(swapFile);
+            log.info("Swapped out buffer for {} to {}", buffer.getFile(), swapFile);
+        }
+    }
+
+    static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Failed to delete swap file {}", file, e);
+        }
+    }
+}
@@ -0,0 +1,317 @@
+package com.dfortch.javapad.workspace;
+
+import com.dfortch.javapad.io.MappedTextFile;
+import com.dfortch.javapad.io.TextEncoding;
+import com.dfortch.javapad.text.DirtyStateListener;
+import com.dfortch.javapad.text.DocumentVersionTracker;
+import com.dfortch.javapad.text.PieceTableDocument;
+import com.dfortch.javapad.text.UndoHistory;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * One open document with everything that belongs to it: the file it was read from, its encoding,
+ * undo history, unsaved changes and caret.
+ * <p>
+ * The text may be dropped while the buffer is not being looked at, see {@link BufferPool}. A clean
+ * buffer is then read again from its file; a dirty one keeps its text in a swap file until it is
+ * restored. The undo history goes with the text. All methods must be called on the EDT.
+ */
+public class DocumentBuffer {
+
+    private static final Logger log = LogManager.getLogger(DocumentBuffer.class);
+
+    private final UndoHistory undoHistory;
+
+    private final List<DirtyStateListener> listeners = new ArrayList<>();
+
+    private File file;
+
+    private TextEncoding encoding = TextEncoding.DEFAULT;
+
+    private PieceTableDocument document;
+
+    private MappedTextFile mappedFile;
+
+    private DocumentVersionTracker versionTracker;
+
+    private Path swapFile;
+
+    private Runnable cancelLoading;
+
+    private int caretDot;
+
+    private int caretMark;
+
+    private BufferJournal journal;
+
+    /**
+     * Eviction of this buffer that is waiting for its swap file to be written, see
+     * {@link BufferPool}.
+     */
+    Object pendingSwap;
+
+    public DocumentBuffer(File file, long undoMemoryLimit) {
+        this.file = file;
+        this.undoHistory = new UndoHistory(undoMemoryLimit);
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public void setFile(File file) {
+        boolean changed = !Objects.equals(this.file, file);
+        this.file = file;
+        if (changed && journal != null) {
+            journal.bufferChanged();
+        }
+    }
+
+    public TextEncoding getEncoding() {
+        return encoding;
+    }
+
+    public void setEncoding(TextEncoding encoding) {
+        TextEncoding previous = this.encoding;
+        this.encoding = encoding != null ? encoding : TextEncoding.DEFAULT;
+        if (!previous.equals(this.encoding) && journal != null) {
+            journal.bufferChanged();
+        }
+    }
+
+    /**
+     * Returns the journal of the unsaved edits, or {@code null} if they are not journaled.
+     */
+    public BufferJournal getJournal() {
+        return journal;
+    }
+
+    /**
+     * Sets the journal that keeps the unsaved edits of the text tracked from now on. Read-only
+     * buffers are never journaled.
+     */
+    public void setJournal(BufferJournal journal) {
+        this.journal = journal;
+    }
+
+    public UndoHistory getUndoHistory() {
+        return undoHistory;
+    }
+
+    /**
+     * Returns the text, or {@code null} while the buffer is not resident.
+     */
+    public PieceTableDocument getDocument() {
+        return document;
+    }
+
+    /**
+     * Returns the mapped file behind a read-only buffer, or {@code null}.
+     */
+    public MappedTextFile getMappedFile() {
+        return mappedFile;
+    }
+
+    /**
+     * Returns the tracker of the resident text, or {@code null} while the buffer is loading or not
+     * resident.
+     */
+    public DocumentVersionTracker getVersionTracker() {
+        return versionTracker;
+    }
+
+    /**
+     * Returns the swap file holding the unsaved text of a buffer that is not resident, or
+     * {@code null}.
+     */
+    public Path getSwapFile() {
+        return swapFile;
+    }
+
+    public boolean isResident() {
+        return document != null;
+    }
+
+    public boolean isReadOnly() {
+        return mappedFile != null;
+    }
+
+    public boolean isLoading() {
+        return cancelLoading != null;
+    }
+
+    public boolean isDirty() {
+        return versionTracker != null ? versionTracker.isDirty() : swapFile != null;
+    }
+
+    public int getCaretDot() {
+        return caretDot;
+    }
+
+    public int getCaretMark() {
+        return caretMark;
+    }
+
+    public void setCaret(int dot, int mark) {
+        this.caretDot = dot;
+        this.caretMark = mark;
+    }
+
+    /**
+     * Adds a listener told when {@link #isDirty()} changes while the text is resident.
+     */
+    public void addDirtyStateListener(DirtyStateListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeDirtyStateListener(DirtyStateListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Replaces the text with {@code document}, read from {@code mappedFile} when that is not
+     * {@code null}. Edits are not tracked until {@link #track} is called, so text appended while
+     * loading is neither undoable nor counted as a change.
+     */
+    public void install(PieceTableDocument document, MappedTextFile mappedFile) {
+        release();
+        this.document = document;
+        this.mappedFile = mappedFile;
+        log.debug("Installed document with {} chars in buffer for {}", document.getLength(), file);
+    }
+
+    /**
+     * Starts tracking edits of the installed text. When the text came from the swap file it holds
+     * unsaved changes, so the buffer stays dirty until it is saved and the swap file is deleted.
+     */
+    public void track(int contentMatchLimit) {
+        if (document == null) {
+            throw new IllegalStateException("No document installed");
+        }
+        versionTracker = new DocumentVersionTracker(document, undoHistory);
+        versionTracker.setContentMatchLimit(contentMatchLimit);
+        if (swapFile != null) {
+            versionTracker.markUnsaved();
+            deleteSwapFile();
+        }
+        versionTracker.addDirtyStateListener(this::fireDirtyStateChanged);
+        if (journal != null && mappedFile == null) {
+            journal.attach(document, versionTracker);
+        }
+    }
+
+    /**
+     * Marks the buffer as loading until {@link #finishLoading()}; {@code cancel} stops the load.
+     */
+    public void startLoading(Runnable cancel) {
+        this.cancelLoading = cancel;
+    }
+
+    public void finishLoading() {
+        this.cancelLoading = null;
+    }
+
+    public void cancelLoading() {
+        Runnable cancel = cancelLoading;
+        cancelLoading = null;
+        if (cancel != null) {
+            cancel.run();
+        }
+    }
+
+    /**
+     * Returns a rough estimate of the heap kept alive by the text and its undo history.
+     */
+    public long estimateMemoryUsage() {
+        if (document == null) {
+            return 0;
+        }
+        long bytes = document.getPieceTable().estimateMemoryUsage() + undoHistory.getMemoryUsage();
+        if (mappedFile != null) {
+            bytes += mappedFile.estimateMemoryUsage();
+        }
+        return bytes;
+    }
+
+    /**
+     * Drops the text and undo history, keeping the file, encoding and caret.
+     */
+    public void release() {
+        if (journal != null) {
+            journal.detach();
+        }
+        if (versionTracker != null) {
+            versionTracker.detach();
+            versionTracker = null;
+        }
+        undoHistory.discardAllEdits();
+        if (mappedFile != null) {
+            try {
+                mappedFile.close();
+            } catch (IOException e) {
+                log.warn("Failed to close mapped file {}", mappedFile.getFile().getAbsolutePath(), e);
+            }
+            mappedFile = null;
+        }
+        document = null;
+    }
+
+    /**
+     * Releases the text and deletes the swap file and journal; the buffer must not be used
+     * afterwards.
+     */
+    public void close() {
+        cancelLoading();
+        pendingSwap = null;
+        release();
+        deleteSwapFile();
+        if (journal != null) {
+            journal.delete();
+        }
+        listeners.clear();
+    }
+
+    /**
+     * Drops the text, which now lives in {@code swapFile}.
+     */
+    void swappedOut(Path swapFile) {
+        release();
+        this.swapFile = swapFile;
+    }
+
+    /**
+     * Records that the text in the swap file was saved to the real file, so nothing is unsaved
+     * anymore.
+     */
+    public void swapFileSaved() {
+        deleteSwapFile();
+        if (journal != null) {
+            journal.discard();
+        }
+    }
+
+    /**
+     * Deletes the swap file once its text is no longer needed, e.g. after it was restored or
+     * saved to the real file.
+     */
+    public void deleteSwapFile() {
+        if (swapFile != null) {
+            BufferPool.deleteQuietly(swapFile);
+            swapFile = null;
+        }
+    }
+
+    private void fireDirtyStateChanged(boolean dirty) {
+        for (DirtyStateListener listener : List.copyOf(listeners)) {
+            listener.onDirtyStateChanged(dirty);
+        }
+    }
+}
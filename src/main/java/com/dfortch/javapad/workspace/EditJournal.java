@@ -0,0 +1,500 @@
+package com.dfortch.javapad.workspace;
+
+import com.dfortch.javapad.io.TextEncoding;
+import com.dfortch.javapad.text.BulkCharSequence;
+import com.dfortch.javapad.text.PieceTable;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Write-ahead journal of the unsaved edits of every buffer, so they survive a crash.
+ * <p>
+ * Each dirty buffer has a journal file in the journal directory that starts with a snapshot of its
+ * text, followed by one record per edit: the offset, the number of chars removed and the text
+ * inserted. The file is deleted once the buffer is clean again or closed, so after a clean exit
+ * the directory is empty and anything left in it on the next start is recovered with
+ * {@link #recover()}.
+ * <p>
+ * Buffers only queue records on the EDT. A single writer thread waits up to the commit interval
+ * for more records, writes everything queued and forces each file to disk once per batch, so
+ * typing never waits on disk. Once a journal has taken more bytes than its snapshot, and at least
+ * the compaction threshold, the next edit rewrites it as a fresh snapshot.
+ * <p>
+ * Every record ends with a CRC32 of its contents. A record torn by a crash fails the check, and
+ * recovery stops at the last complete one.
+ */
+public class EditJournal {
+
+    private static final Logger log = LogManager.getLogger(EditJournal.class);
+
+    public static final long DEFAULT_COMMIT_INTERVAL_MILLIS = 200;
+
+    public static final long DEFAULT_COMPACTION_BYTES = 1024 * 1024;
+
+    static final String FILE_SUFFIX = ".journal";
+
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private static final int MAGIC = 0x4A504A4C;
+
+    private static final int FORMAT_VERSION = 1;
+
+    private static final byte SNAPSHOT_RECORD = 1;
+
+    private static final byte EDIT_RECORD = 2;
+
+    private static final int CHUNK_CHARS = 8 * 1024;
+
+    private final Path directory;
+
+    private final long commitIntervalMillis;
+
+    private final long compactionBytes;
+
+    private final Object lock = new Object();
+
+    private final ArrayDeque<Operation> queue = new ArrayDeque<>();
+
+    /**
+     * Journal files created by this instance, which {@link #recover()} must not pick up.
+     */
+    private final Set<Path> ownFiles = new HashSet<>();
+
+    private final Thread writer;
+
+    private long queued;
+
+    private long written;
+
+    private boolean flushRequested;
+
+    private boolean closed;
+
+    public EditJournal(Path directory) {
+        this(directory, DEFAULT_COMMIT_INTERVAL_MILLIS, DEFAULT_COMPACTION_BYTES);
+    }
+
+    public EditJournal(Path directory, long commitIntervalMillis, long compactionBytes) {
+        this.directory = Objects.requireNonNull(directory, "Journal directory must not be null");
+        this.commitIntervalMillis = commitIntervalMillis;
+        this.compactionBytes = compactionBytes;
+        this.writer = Thread.ofPlatform().daemon().name("edit-journal").start(this::writeLoop);
+    }
+
+    long getCompactionBytes() {
+        return compactionBytes;
+    }
+
+    /**
+     * Creates the journal of {@code buffer}. Nothing is written until the buffer becomes dirty.
+     */
+    public BufferJournal create(DocumentBuffer buffer) {
+        Path file = directory.resolve("buffer-" + UUID.randomUUID() + FILE_SUFFIX);
+        synchronized (lock) {
+            ownFiles.add(file);
+        }
+        return new BufferJournal(this, buffer, file);
+    }
+
+    /**
+     * Reads the journals left behind by a session that did not exit cleanly. Journals without a
+     * complete snapshot hold nothing to recover and are deleted.
+     */
+    public List<RecoveredBuffer> recover() throws IOException {
+        log.trace("Enter recover");
+        List<RecoveredBuffer> recovered = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return recovered;
+        }
+        Set<Path> own;
+        synchronized (lock) {
+            own = Set.copyOf(ownFiles);
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(TEMP_SUFFIX)) {
+                    deleteQuietly(file);
+                } else if (name.endsWith(FILE_SUFFIX) && !own.contains(file)) {
+                    RecoveredBuffer buffer = read(file);
+                    if (buffer != null) {
+                        recovered.add(buffer);
+                    } else {
+                        deleteQuietly(file);
+                    }
+                }
+            }
+        }
+        log.info("Found {} journals to recover in {}", recovered.size(), directory);
+        log.trace("Exit recover");
+        return recovered;
+    }
+
+    /**
+     * Deletes the journals of {@code buffers} once everything queued before has been written, so
+     * the journals of buffers reopened from them exist first.
+     */
+    public void discard(Collection<RecoveredBuffer> buffers) {
+        for (RecoveredBuffer buffer : buffers) {
+            enqueue(new DeleteFile(buffer.journalFile()));
+        }
+    }
+
+    /**
+     * Blocks until everything queued so far is on disk.
+     */
+    public void flush() throws InterruptedException {
+        synchronized (lock) {
+            long target = queued;
+            flushRequested = true;
+            lock.notifyAll();
+            while (written < target && writer.isAlive()) {
+                lock.wait(100);
+            }
+        }
+    }
+
+    /**
+     * Writes what is queued and stops the writer thread. Journals are left as they are; closing
+     * the buffers first deletes theirs.
+     */
+    public void close() {
+        log.trace("Enter close");
+        synchronized (lock) {
+            closed = true;
+            lock.notifyAll();
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Interrupted while closing the edit journal", e);
+        }
+        log.trace("Exit close");
+    }
+
+    void enqueue(Operation operation) {
+        synchronized (lock) {
+            if (closed) {
+                log.debug("Dropping journal operation after close");
+                return;
+            }
+            queue.add(operation);
+            queued++;
+            if (queue.size() == 1) {
+                lock.notifyAll();
+            }
+        }
+    }
+
+    private void writeLoop() {
+        Set<BufferJournal> open = new HashSet<>();
+        try {
+            while (true) {
+                List<Operation> batch;
+                synchronized (lock) {
+                    while (queue.isEmpty() && !closed) {
+                        lock.wait();
+                    }
+                    if (queue.isEmpty()) {
+                        return;
+                    }
+                    if (!closed && !flushRequested && commitIntervalMillis > 0) {
+                        // Group commit: let more records arrive before going to disk
+                        lock.wait(commitIntervalMillis);
+                    }
+                    batch = new ArrayList<>(queue);
+                    queue.clear();
+                    flushRequested = false;
+                }
+                write(batch, open);
+                synchronized (lock) {
+                    written += batch.size();
+                    lock.notifyAll();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Edit journal writer interrupted", e);
+        } finally {
+            for (BufferJournal journal : open) {
+                closeChannel(journal);
+            }
+        }
+    }
+
+    private void write(List<Operation> batch, Set<BufferJournal> open) {
+        Set<BufferJournal> touched = new LinkedHashSet<>();
+        for (Operation operation : batch) {
+            try {
+                switch (operation) {
+                    case Snapshot snapshot -> {
+                        flushPending(snapshot.journal());
+                        touched.remove(snapshot.journal());
+                        writeSnapshot(snapshot);
+                        open.add(snapshot.journal());
+                    }
+                    case Edit edit -> {
+                        if (edit.journal().channel != null) {
+                            writeEdit(edit);
+                            touched.add(edit.journal());
+                        }
+                    }
+                    case Delete delete -> {
+                        BufferJournal journal = delete.journal();
+                        journal.pending.reset();
+                        touched.remove(journal);
+                        open.remove(journal);
+                        closeChannel(journal);
+                        Files.deleteIfExists(journal.file);
+                    }
+                    case DeleteFile deleteFile -> Files.deleteIfExists(deleteFile.file());
+                }
+            } catch (IOException e) {
+                log.error("Failed to write edit journal", e);
+            }
+        }
+        for (BufferJournal journal : touched) {
+            try {
+                flushPending(journal);
+                journal.channel.force(false);
+            } catch (IOException e) {
+                log.error("Failed to write edit journal {}", journal.file, e);
+                closeChannel(journal);
+            }
+        }
+        log.debug("Committed {} journal operations", batch.size());
+    }
+
+    /**
+     * Writes the snapshot to a temporary file and moves it over the journal, so a crash while
+     * compacting leaves the old journal intact.
+     */
+    private void writeSnapshot(Snapshot snapshot) throws IOException {
+        BufferJournal journal = snapshot.journal();
+        closeChannel(journal);
+        Files.createDirectories(directory);
+        Path temp = journal.file.resolveSibling(journal.file.getFileName() + TEMP_SUFFIX);
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            OutputStream stream = Channels.newOutputStream(channel);
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream, 64 * 1024));
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            CRC32 crc = new CRC32();
+            DataOutputStream record = new DataOutputStream(new CheckedOutputStream(out, crc));
+            record.writeByte(SNAPSHOT_RECORD);
+            record.writeUTF(snapshot.file() != null ? snapshot.file().getPath() : "");
+            record.writeUTF(snapshot.encoding().charset().name());
+            record.writeBoolean(snapshot.encoding().byteOrderMark());
+            record.writeInt(snapshot.text().length());
+            writeChars(record, snapshot.text());
+            record.flush();
+            out.writeInt((int) crc.getValue());
+            out.flush();
+            channel.force(false);
+        }
+        Files.move(temp, journal.file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        journal.channel = FileChannel.open(journal.file, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        log.debug("Wrote snapshot of {} chars to {}", snapshot.text().length(), journal.file);
+    }
+
+    private static void writeEdit(Edit edit) throws IOException {
+        CRC32 crc = new CRC32();
+        DataOutputStream out = new DataOutputStream(edit.journal().pending);
+        DataOutputStream record = new DataOutputStream(new CheckedOutputStream(out, crc));
+        record.writeByte(EDIT_RECORD);
+        record.writeInt(edit.offset());
+        record.writeInt(edit.removed());
+        record.writeInt(edit.inserted().length());
+        writeChars(record, edit.inserted());
+        record.flush();
+        out.writeInt((int) crc.getValue());
+    }
+
+    private static void writeChars(OutputStream out, CharSequence text) throws IOException {
+        char[] chars = new char[CHUNK_CHARS];
+        byte[] bytes = new byte[CHUNK_CHARS * 2];
+        int length = text.length();
+        for (int start = 0; start < length; start += CHUNK_CHARS) {
+            int end = Math.min(length, start + CHUNK_CHARS);
+            if (text instanceof BulkCharSequence bulk) {
+                bulk.getChars(start, end, chars, 0);
+            } else {
+                text.toString().getChars(start, end, chars, 0);
+            }
+            int count = end - start;
+            for (int i = 0; i < count; i++) {
+                bytes[2 * i] = (byte) (chars[i] >>> 8);
+                bytes[2 * i + 1] = (byte) chars[i];
+            }
+            out.write(bytes, 0, count * 2);
+        }
+    }
+
+    private static void flushPending(BufferJournal journal) throws IOException {
+        if (journal.pending.size() == 0 || journal.channel == null) {
+            journal.pending.reset();
+            return;
+        }
+        ByteBuffer bytes = ByteBuffer.wrap(journal.pending.toByteArray());
+        journal.pending.reset();
+        while (bytes.hasRemaining()) {
+            journal.channel.write(bytes);
+        }
+    }
+
+    private static void closeChannel(BufferJournal journal) {
+        if (journal.channel != null) {
+            try {
+                journal.channel.close();
+            } catch (IOException e) {
+                log.warn("Failed to close edit journal {}", journal.file, e);
+            }
+            journal.channel = null;
+        }
+    }
+
+    /**
+     * Replays the journal in {@code file}, up to its last complete record.
+     *
+     * @return the recovered text, or {@code null} when the journal has no complete snapshot
+     */
+    static RecoveredBuffer read(Path file) {
+        File recoveredFile = null;
+        TextEncoding encoding = null;
+        PieceTable text = null;
+        int records = 0;
+        try (InputStream stream = new BufferedInputStream(Files.newInputStream(file), 64 * 1024)) {
+            DataInputStream in = new DataInputStream(stream);
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                log.warn("Ignoring journal {} with an unknown format", file);
+                return null;
+            }
+            while (true) {
+                CRC32 crc = new CRC32();
+                DataInputStream record = new DataInputStream(new CheckedInputStream(in, crc));
+                int type = record.read();
+                if (type == -1) {
+                    break;
+                }
+                if (type == SNAPSHOT_RECORD) {
+                    String path = record.readUTF();
+                    Charset charset = Charset.forName(record.readUTF());
+                    boolean byteOrderMark = record.readBoolean();
+                    String snapshot = readChars(record, record.readInt());
+                    if (in.readInt() != (int) crc.getValue()) {
+                        break;
+                    }
+                    recoveredFile = path.isEmpty() ? null : new File(path);
+                    encoding = new TextEncoding(charset, byteOrderMark);
+                    text = new PieceTable(snapshot);
+                } else if (type == EDIT_RECORD && text != null) {
+                    int offset = record.readInt();
+                    int removed = record.readInt();
+                    String inserted = readChars(record, record.readInt());
+                    if (in.readInt() != (int) crc.getValue()) {
+                        break;
+                    }
+                    if (offset < 0 || removed < 0 || offset + removed > text.length()) {
+                        log.warn("Journal {} has an edit outside the text, stopping there", file);
+                        break;
+                    }
+                    if (removed > 0) {
+                        text.remove(offset, removed);
+                    }
+                    if (!inserted.isEmpty()) {
+                        text.insert(offset, inserted);
+                    }
+                } else {
+                    break;
+                }
+                records++;
+            }
+        } catch (EOFException e) {
+            log.debug("Journal {} ends with an incomplete record", file);
+        } catch (IOException | IllegalArgumentException e) {
+            log.warn("Failed to read journal {}, recovering what was read", file, e);
+        }
+        if (text == null) {
+            return null;
+        }
+        log.debug("Replayed {} records from {}", records, file);
+        return new RecoveredBuffer(file, recoveredFile, encoding, text.snapshot());
+    }
+
+    private static String readChars(DataInputStream in, int length) throws IOException {
+        if (length < 0) {
+            throw new IOException("Negative text length: " + length);
+        }
+        StringBuilder text = new StringBuilder(Math.min(length, 1024 * 1024));
+        byte[] bytes = new byte[CHUNK_CHARS * 2];
+        int remaining = length;
+        while (remaining > 0) {
+            int count = Math.min(remaining, CHUNK_CHARS);
+            in.readFully(bytes, 0, count * 2);
+            for (int i = 0; i < count; i++) {
+                text.append((char) (((bytes[2 * i] & 0xFF) << 8) | (bytes[2 * i + 1] & 0xFF)));
+            }
+            remaining -= count;
+        }
+        return text.toString();
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Failed to delete journal {}", file, e);
+        }
+    }
+
+    sealed interface Operation permits Snapshot, Edit, Delete, DeleteFile {
+    }
+
+    /**
+     * Starts the journal over with the whole text.
+     */
+    record Snapshot(BufferJournal journal, File file, TextEncoding encoding, CharSequence text) implements Operation {
+    }
+
+    record Edit(BufferJournal journal, int offset, int removed, String inserted) implements Operation {
+    }
+
+    record Delete(BufferJournal journal) implements Operation {
+    }
+
+    record DeleteFile(Path file) implements Operation {
+    }
+}
@@ -0,0 +1,17 @@
+package com.dfortch.javapad.workspace;
+
+import com.dfortch.javapad.io.TextEncoding;
+
+import java.io.File;
+import java.nio.file.Path;
+
+/**
+ * The unsaved text of a buffer, replayed from the journal a crashed session left behind.
+ *
+ * @param journalFile the journal it was read from
+ * @param file        the file the buffer was editing, or {@code null} for an untitled one
+ * @param encoding    the encoding to save it in
+ * @param text        the text with every complete edit applied
+ */
+public record RecoveredBuffer(Path journalFile, File file, TextEncoding encoding, CharSequence text) {
+}
@@ -0,0 +1,69 @@
+package com.dfortch.javapad;
+
+import com.dfortch.javapad.io.FileOperations;
+import com.dfortch.javapad.workspace.BufferPool;
+import jakarta.enterprise.inject.Produces;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DirectBeanProviderTests {
+
+    @DisplayName("Producers: every producer of the configuration is registered")
+    @Test
+    void testProducers_AllRegistered() {
+        List<Class<?>> produced = Arrays.stream(JavapadConfiguration.class.getMethods())
+                .filter(method -> method.isAnnotationPresent(Produces.class))
+                .map(Method::getReturnType)
+                .toList();
+
+        try (DirectBeanProvider beans = new DirectBeanProvider()) {
+            assertThat(beans.getTypes()).containsExactlyInAnyOrderElementsOf(produced);
+        }
+    }
+
+    @DisplayName("Get: the instance is shared")
+    @Test
+    void testGet_InstanceShared() {
+        try (DirectBeanProvider beans = new DirectBeanProvider()) {
+            FileOperations first = beans.get(FileOperations.class);
+
+            assertThat(beans.get(FileOperations.class)).isSameAs(first);
+        }
+    }
+
+    @DisplayName("Get: threads asking at the same time share one instance")
+    @Test
+    void testGet_Concurrent_InstanceShared() throws Exception {
+        try (DirectBeanProvider beans = new DirectBeanProvider();
+             ExecutorService executor = Executors.newFixedThreadPool(4)) {
+            List<Future<BufferPool>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(() -> beans.get(BufferPool.class)));
+            }
+
+            BufferPool expected = beans.get(BufferPool.class);
+            for (Future<BufferPool> future : futures) {
+                assertThat(future.get()).isSameAs(expected);
+            }
+        }
+    }
+
+    @DisplayName("Get: type without producer throws IllegalArgumentException")
+    @Test
+    void testGet_NoProducer_ThrowsIllegalArgumentException() {
+        try (DirectBeanProvider beans = new DirectBeanProvider()) {
+            assertThatThrownBy(() -> beans.get(String.class)).isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+}
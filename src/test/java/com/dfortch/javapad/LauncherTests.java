@@ -0,0 +1,66 @@
+package com.dfortch.javapad;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LauncherTests {
+
+    @TempDir
+    Path directory;
+
+    @DisplayName("IsArchivable: class path of jars is archivable")
+    @Test
+    void testIsArchivable_Jars_True() throws IOException {
+        Path first = Files.createFile(directory.resolve("first.jar"));
+        Path second = Files.createFile(directory.resolve("second.jar"));
+
+        assertThat(Launcher.isArchivable(first + File.pathSeparator + second)).isTrue();
+    }
+
+    @DisplayName("IsArchivable: class path with a directory is not archivable")
+    @Test
+    void testIsArchivable_Directory_False() throws IOException {
+        Path jar = Files.createFile(directory.resolve("first.jar"));
+
+        assertThat(Launcher.isArchivable(jar + File.pathSeparator + directory)).isFalse();
+    }
+
+    @DisplayName("IsArchivable: missing jar or empty class path is not archivable")
+    @Test
+    void testIsArchivable_MissingOrEmpty_False() {
+        assertThat(Launcher.isArchivable(directory.resolve("missing.jar").toString())).isFalse();
+        assertThat(Launcher.isArchivable("")).isFalse();
+        assertThat(Launcher.isArchivable(null)).isFalse();
+    }
+
+    @DisplayName("GetForwardedOptions: every option before the jar is forwarded")
+    @Test
+    void testGetForwardedOptions_AllOptionsBeforeJar() {
+        String[] arguments = {"-ea", "-javaagent:agent.jar", "--add-opens", "java.base/java.lang=ALL-UNNAMED",
+                "--add-exports=java.desktop/sun.awt=ALL-UNNAMED", "-Dkey=value", "-Xmx512m", "-XX:+UseSerialGC",
+                "-jar", "javapad.jar", "-ea", "file.txt"};
+
+        assertThat(Launcher.getForwardedOptions(arguments)).containsExactly("-ea", "-javaagent:agent.jar",
+                "--add-opens", "java.base/java.lang=ALL-UNNAMED", "--add-exports=java.desktop/sun.awt=ALL-UNNAMED",
+                "-Dkey=value", "-Xmx512m", "-XX:+UseSerialGC");
+    }
+
+    @DisplayName("GetForwardedOptions: the class path and archive options are not forwarded")
+    @Test
+    void testGetForwardedOptions_ClassPathAndArchiveDropped() {
+        String[] arguments = {"-cp", "javapad.jar", "-XX:SharedArchiveFile=old.jsa", "-Xlog:cds=off",
+                "-XX:ArchiveClassesAtExit=new.jsa", "-XX:+AutoCreateSharedArchive", "-esa",
+                "com.dfortch.javapad.Main", "--train-session"};
+
+        assertThat(Launcher.getForwardedOptions(arguments)).isEqualTo(List.of("-esa"));
+    }
+}
@@ -0,0 +1,64 @@
+package com.dfortch.javapad;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StartupPipelineTests {
+
+    @DisplayName("Submit: tasks run at the same time")
+    @Test
+    void testSubmit_TasksRunConcurrently() {
+        CountDownLatch started = new CountDownLatch(2);
+        try (StartupPipeline pipeline = new StartupPipeline(2)) {
+            CompletableFuture<Boolean> first = pipeline.submit("first", () -> {
+                started.countDown();
+                return started.await(5, TimeUnit.SECONDS);
+            });
+            CompletableFuture<Boolean> second = pipeline.submit("second", () -> {
+                started.countDown();
+                return started.await(5, TimeUnit.SECONDS);
+            });
+
+            assertThat(first.join()).isTrue();
+            assertThat(second.join()).isTrue();
+        }
+    }
+
+    @DisplayName("Submit: a failed task completes its future with the exception")
+    @Test
+    void testSubmit_Failure_CompletesExceptionally() {
+        try (StartupPipeline pipeline = new StartupPipeline(1)) {
+            CompletableFuture<Object> failed = pipeline.submit("failing", () -> {
+                throw new IOException("unreadable");
+            });
+
+            assertThatThrownBy(failed::join)
+                    .isInstanceOf(CompletionException.class)
+                    .hasCauseInstanceOf(IOException.class);
+        }
+    }
+
+    @DisplayName("Close: submitted tasks still finish")
+    @Test
+    void testClose_SubmittedTasksFinish() {
+        CompletableFuture<String> result;
+        try (StartupPipeline pipeline = new StartupPipeline(1)) {
+            pipeline.submit("slow", () -> {
+                Thread.sleep(50);
+                return null;
+            });
+            result = pipeline.submit("queued", () -> "done");
+        }
+
+        assertThat(result.join()).isEqualTo("done");
+    }
+}
@@ -0,0 +1,113 @@
+package com.dfortch.javapad.highlight;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+class LexersTests {
+
+    @DisplayName("For file: picks the lexer by extension")
+    @Test
+    void testForFile_PicksByExtension() {
+        assertThat(Lexers.forFile(new File("config.YML"))).isSameAs(Lexers.YAML);
+        assertThat(Lexers.forFile(new File("package.json"))).isSameAs(Lexers.JSON);
+        assertThat(Lexers.forFile(new File("messages.properties"))).isSameAs(Lexers.PROPERTIES);
+        assertThat(Lexers.forFile(new File("build.sh"))).isSameAs(Lexers.SHELL);
+        assertThat(Lexers.forFile(new File("notes.txt"))).isNull();
+        assertThat(Lexers.forFile(null)).isNull();
+    }
+
+    @DisplayName("YAML: keys, values and comments")
+    @Test
+    void testYaml_KeysValuesComments() {
+        assertThat(lex(Lexers.YAML, "- name: 'x' # c")).containsExactly(
+                "OPERATOR:-", "KEY:name", "OPERATOR::", "STRING:'x'", "COMMENT:# c");
+        assertThat(lex(Lexers.YAML, "port: 8080")).containsExactly("KEY:port", "OPERATOR::", "NUMBER:8080");
+        assertThat(lex(Lexers.YAML, "url: http://host#frag")).containsExactly("KEY:url", "OPERATOR::");
+    }
+
+    @DisplayName("YAML: block scalar lines are strings while indented")
+    @Test
+    void testYaml_BlockScalar() {
+        Lexer lexer = Lexers.YAML;
+        int state = lexer.lexLine("script: |", 0, 9, Lexer.INITIAL_STATE, TokenSink.NONE);
+
+        assertThat(lex(lexer, "  echo # not a comment", state)).containsExactly("STRING:echo # not a comment");
+        state = lexer.lexLine("  echo", 0, 6, state, TokenSink.NONE);
+        assertThat(lex(lexer, "next: true", state)).containsExactly("KEY:next", "OPERATOR::", "LITERAL:true");
+    }
+
+    @DisplayName("JSON: keys, strings, literals and block comments")
+    @Test
+    void testJson_Tokens() {
+        assertThat(lex(Lexers.JSON, "{\"a\": [1, \"b\", null]}")).containsExactly(
+                "OPERATOR:{", "KEY:\"a\"", "OPERATOR::", "OPERATOR:[", "NUMBER:1", "OPERATOR:,", "STRING:\"b\"",
+                "OPERATOR:,", "LITERAL:null", "OPERATOR:]", "OPERATOR:}");
+        int state = Lexers.JSON.lexLine("/* open", 0, 7, Lexer.INITIAL_STATE, TokenSink.NONE);
+        assertThat(lex(Lexers.JSON, "still */ 2", state)).containsExactly("COMMENT:still */", "NUMBER:2");
+    }
+
+    @DisplayName("Properties: continuation lines stay values")
+    @Test
+    void testProperties_ContinuationLines() {
+        assertThat(lex(Lexers.PROPERTIES, "# comment")).containsExactly("COMMENT:# comment");
+        int state = Lexers.PROPERTIES.lexLine("key=a \\", 0, 7, Lexer.INITIAL_STATE, TokenSink.NONE);
+        assertThat(lex(Lexers.PROPERTIES, "  key=b", state)).containsExactly("STRING:key=b");
+    }
+
+    @DisplayName("Shell: keywords, variables and strings")
+    @Test
+    void testShell_Tokens() {
+        assertThat(lex(Lexers.SHELL, "if [ \"$1\" ]; then NAME=${x} # c")).containsExactly(
+                "KEYWORD:if", "STRING:\"$1\"", "OPERATOR:;", "KEYWORD:then", "VARIABLE:NAME", "OPERATOR:=",
+                "VARIABLE:${x}", "COMMENT:# c");
+        int state = Lexers.SHELL.lexLine("echo 'a", 0, 7, Lexer.INITIAL_STATE, TokenSink.NONE);
+        assertThat(lex(Lexers.SHELL, "b' done", state)).containsExactly("STRING:b'");
+    }
+
+    @DisplayName("Shell: backticks are operators")
+    @Test
+    void testShell_Backticks() {
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () ->
+                assertThat(lex(Lexers.SHELL, "echo `date` $(pwd)")).containsExactly(
+                        "OPERATOR:`", "OPERATOR:`", "OPERATOR:$(", "OPERATOR:)"));
+    }
+
+    @DisplayName("All lexers: random lines are lexed to their end")
+    @Test
+    void testAllLexers_RandomLinesTerminate() {
+        String alphabet = "aB1 \t\\'\"`$#{}[]()<>|&;:=,-!%*?";
+        Random random = new Random(42);
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            for (Lexer lexer : List.of(Lexers.YAML, Lexers.JSON, Lexers.PROPERTIES, Lexers.SHELL)) {
+                int state = Lexer.INITIAL_STATE;
+                for (int i = 0; i < 2000; i++) {
+                    StringBuilder line = new StringBuilder();
+                    for (int j = random.nextInt(20); j > 0; j--) {
+                        line.append(alphabet.charAt(random.nextInt(alphabet.length())));
+                    }
+                    state = lexer.lexLine(line, 0, line.length(), state, TokenSink.NONE);
+                }
+            }
+        });
+    }
+
+    private static List<String> lex(Lexer lexer, String line) {
+        return lex(lexer, line, Lexer.INITIAL_STATE);
+    }
+
+    private static List<String> lex(Lexer lexer, String line, int state) {
+        List<String> tokens = new ArrayList<>();
+        lexer.lexLine(line, 0, line.length(), state,
+                (start, end, type) -> tokens.add(type + ":" + line.substring(start, end)));
+        return tokens;
+    }
+}
@@ -0,0 +1,280 @@
+package com.dfortch.javapad.highlight;
+
+import com.dfortch.javapad.text.PieceTableDocument;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.swing.text.BadLocationException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SyntaxHighlighterTests {
+
+    private static final int LINES = 200_000;
+
+    @DisplayName("Keystroke in a large document: re-lexes only the edited lines")
+    @Test
+    void testKeystrokeInLargeDocument_RelexesEditedLines() throws BadLocationException {
+        PieceTableDocument document = new PieceTableDocument(yaml(LINES));
+        SyntaxHighlighter highlighter = install(document);
+        highlighter.getTokens(LINES - 1);
+        long lexedBefore = highlighter.getLinesLexed();
+
+        int offset = document.getLineStartOffset(1000) + 4;
+        document.insertString(offset, "x", null);
+        highlighter.getTokens(1040);
+
+        assertThat(highlighter.getLinesLexed() - lexedBefore).isLessThan(10);
+    }
+
+    @DisplayName("Opened document: lexes only up to the requested line")
+    @Test
+    void testOpenedDocument_LexesUpToRequestedLine() {
+        PieceTableDocument document = new PieceTableDocument(yaml(LINES));
+        SyntaxHighlighter highlighter = install(document);
+
+        highlighter.getTokens(49);
+
+        assertThat(highlighter.getLinesLexed()).isLessThanOrEqualTo(50);
+    }
+
+    @DisplayName("Opened quote: lines below become a string until it is closed")
+    @Test
+    void testOpenedQuote_LinesBelowBecomeString() throws BadLocationException {
+        PieceTableDocument document = new PieceTableDocument("a: 1\nb: 2\nc: 3\nd: 4\n");
+        SyntaxHighlighter highlighter = install(document);
+        assertThat(types(highlighter, 2)).containsExactly(TokenType.KEY, TokenType.OPERATOR, TokenType.NUMBER);
+        List<int[]> changes = new ArrayList<>();
+        highlighter.addHighlightListener((first, last) -> changes.add(new int[]{first, last}));
+
+        document.insertString(3, "\"", null);
+
+        assertThat(types(highlighter, 2)).containsExactly(TokenType.STRING);
+        assertThat(changes).isNotEmpty();
+        assertThat(changes.getFirst()[0]).isEqualTo(1);
+
+        document.insertString(document.getLineStartOffset(2), "\"", null);
+
+        assertThat(types(highlighter, 2)).containsExactly(TokenType.STRING, TokenType.KEY, TokenType.OPERATOR, TokenType.NUMBER);
+        assertThat(types(highlighter, 3)).containsExactly(TokenType.KEY, TokenType.OPERATOR, TokenType.NUMBER);
+    }
+
+    @DisplayName("Removed lines: checkpoints after them still match the text")
+    @Test
+    void testRemovedLines_CheckpointsMatchText() throws BadLocationException {
+        String text = "a: |\n  block\n  block\nb: 'x\ny'\nc: 1\nd: 2\n";
+        PieceTableDocument document = new PieceTableDocument(text);
+        SyntaxHighlighter highlighter = install(document);
+        highlighter.getTokens(document.getLineCount() - 1);
+
+        document.remove(document.getLineStartOffset(1), document.getLineStartOffset(3) - document.getLineStartOffset(1));
+        document.insertString(document.getLineStartOffset(1), "e: \"\n", null);
+
+        SyntaxHighlighter fresh = install(document);
+        for (int line = 0; line < document.getLineCount(); line++) {
+            assertThat(highlighter.getState(line)).as("state of line %d", line).isEqualTo(fresh.getState(line));
+            assertThat(types(highlighter, line)).as("tokens of line %d", line).isEqualTo(types(fresh, line));
+        }
+    }
+
+    @DisplayName("Edit above a stale checkpoint: the checkpoint is not taken as converged")
+    @Test
+    void testEditAboveStaleCheckpoint_NotTakenAsConverged() throws BadLocationException {
+        PieceTableDocument document = new PieceTableDocument("a{}a'\n'\\{");
+        SyntaxHighlighter highlighter = install(document);
+        highlighter.getState(1);
+        document.insertString(4, "\n", null);
+        highlighter.getState(1);
+
+        document.remove(1, 2);
+
+        assertStatesMatchFreshHighlighter(highlighter, document, Lexers.YAML);
+    }
+
+    @DisplayName("Random edits: states and tokens match a fresh highlighter")
+    @Test
+    void testRandomEdits_StatesMatchFreshHighlighter() throws BadLocationException {
+        String alphabet = "a{}[]'\"\\#:|- \n\n";
+        Random random = new Random(7);
+        for (Lexer lexer : List.of(Lexers.YAML, Lexers.JSON, Lexers.PROPERTIES, Lexers.SHELL)) {
+            for (int run = 0; run < 1000; run++) {
+                PieceTableDocument document = new PieceTableDocument(randomText(random, alphabet, 12));
+                SyntaxHighlighter highlighter = new SyntaxHighlighter(document, lexer);
+                highlighter.install();
+                for (int step = 0; step < 6; step++) {
+                    int length = document.getLength();
+                    switch (random.nextInt(3)) {
+                        case 0 -> document.insertString(random.nextInt(length + 1), randomText(random, alphabet, 4), null);
+                        case 1 -> {
+                            if (length > 0) {
+                                int offset = random.nextInt(length);
+                                document.remove(offset, 1 + random.nextInt(Math.min(3, length - offset)));
+                            }
+                        }
+                        default -> highlighter.getTokens(random.nextInt(document.getLineCount()));
+                    }
+                }
+                assertStatesMatchFreshHighlighter(highlighter, document, lexer);
+            }
+        }
+    }
+
+    @DisplayName("Tokens: offsets are in the document")
+    @Test
+    void testTokens_OffsetsInDocument() {
+        PieceTableDocument document = new PieceTableDocument("# c\nkey: value\n");
+        SyntaxHighlighter highlighter = install(document);
+
+        LineTokens tokens = highlighter.getTokens(1);
+
+        assertThat(tokens.getStart(0)).isEqualTo(4);
+        assertThat(tokens.getEnd(0)).isEqualTo(7);
+        assertThat(tokens.getType(0)).isEqualTo(TokenType.KEY);
+    }
+
+    @DisplayName("Long line: only its first chars are lexed and it leaves the state as it found it")
+    @Test
+    void testLongLine_PrefixLexed() {
+        String longLine = "a: " + "1 ".repeat(SyntaxHighlighter.LEXED_LINE_CHARS) + "\"";
+        PieceTableDocument document = new PieceTableDocument(longLine + "\nb: 2\n");
+        SyntaxHighlighter highlighter = install(document);
+
+        LineTokens tokens = highlighter.getTokens(0);
+
+        assertThat(tokens.size()).isPositive();
+        assertThat(tokens.getEnd(tokens.size() - 1)).isLessThanOrEqualTo(SyntaxHighlighter.LEXED_LINE_CHARS);
+        assertThat(highlighter.getState(1)).isEqualTo(Lexer.INITIAL_STATE);
+        assertThat(types(highlighter, 1)).containsExactly(TokenType.KEY, TokenType.OPERATOR, TokenType.NUMBER);
+    }
+
+    @DisplayName("Repaint: the tokens of the visible lines are not lexed again")
+    @Test
+    void testRepaint_VisibleLinesNotRelexed() {
+        PieceTableDocument document = new PieceTableDocument(yaml(1000));
+        SyntaxHighlighter highlighter = install(document);
+        for (int line = 500; line < 560; line++) {
+            highlighter.getTokens(line);
+        }
+        long lexedBefore = highlighter.getLinesLexed();
+
+        for (int line = 500; line < 560; line++) {
+            highlighter.getTokens(line);
+        }
+
+        assertThat(highlighter.getLinesLexed()).isEqualTo(lexedBefore);
+    }
+
+    @DisplayName("Edit: the lines above keep their tokens and the edited line is lexed again")
+    @Test
+    void testEdit_LinesAboveKeepTokens() throws BadLocationException {
+        PieceTableDocument document = new PieceTableDocument(yaml(1000));
+        SyntaxHighlighter highlighter = install(document);
+        for (int line = 0; line < 60; line++) {
+            highlighter.getTokens(line);
+        }
+
+        document.insertString(document.getLineStartOffset(30), "key: 1\n", null);
+        long lexedBefore = highlighter.getLinesLexed();
+        for (int line = 0; line < 30; line++) {
+            highlighter.getTokens(line);
+        }
+        assertThat(highlighter.getLinesLexed()).isEqualTo(lexedBefore);
+
+        assertThat(types(highlighter, 30)).containsExactly(TokenType.KEY, TokenType.OPERATOR, TokenType.NUMBER);
+        assertThat(highlighter.getTokens(31).getStart(0))
+                .isEqualTo(new SyntaxHighlighter(document, Lexers.YAML).getTokens(31).getStart(0));
+    }
+
+    @DisplayName("Line across pieces: lexed as its text")
+    @Test
+    void testLineAcrossPieces_LexedAsText() throws BadLocationException {
+        PieceTableDocument document = new PieceTableDocument("a: \"one\" # two");
+        document.insertString(3, "[1, ", null);
+        document.insertString(document.getLength() - 4, "'x' ", null);
+        document.insertString(document.getLength(), "]", null);
+        SyntaxHighlighter highlighter = install(document);
+        String text = document.getText(0, document.getLength());
+        List<String> expected = new ArrayList<>();
+        Lexers.YAML.lexLine(text, 0, text.length(), Lexer.INITIAL_STATE,
+                (start, end, type) -> expected.add(start + "-" + end + " " + type));
+
+        assertThat(tokens(highlighter, 0)).isNotEmpty().isEqualTo(expected);
+    }
+
+    @DisplayName("Tokens: the index after an offset is the first token ending past it")
+    @Test
+    void testTokens_IndexAfterOffset() {
+        PieceTableDocument document = new PieceTableDocument("key: value # c");
+        SyntaxHighlighter highlighter = install(document);
+        LineTokens tokens = highlighter.getTokens(0);
+
+        for (int offset = 0; offset <= document.getLength(); offset++) {
+            int expected = 0;
+            while (expected < tokens.size() && tokens.getEnd(expected) <= offset) {
+                expected++;
+            }
+            assertThat(tokens.indexAfter(offset)).as("index after %d", offset).isEqualTo(expected);
+        }
+    }
+
+    private static SyntaxHighlighter install(PieceTableDocument document) {
+        SyntaxHighlighter highlighter = new SyntaxHighlighter(document, Lexers.YAML);
+        highlighter.install();
+        return highlighter;
+    }
+
+    private static void assertStatesMatchFreshHighlighter(SyntaxHighlighter highlighter, PieceTableDocument document,
+                                                          Lexer lexer) throws BadLocationException {
+        SyntaxHighlighter fresh = new SyntaxHighlighter(document, lexer);
+        for (int line = 0; line < document.getLineCount(); line++) {
+            assertThat(highlighter.getState(line))
+                    .as("state of line %d in %s", line, document.getText(0, document.getLength()))
+                    .isEqualTo(fresh.getState(line));
+            assertThat(tokens(highlighter, line))
+                    .as("tokens of line %d in %s", line, document.getText(0, document.getLength()))
+                    .isEqualTo(tokens(fresh, line));
+        }
+    }
+
+    private static String randomText(Random random, String alphabet, int maxLength) {
+        StringBuilder text = new StringBuilder();
+        for (int i = random.nextInt(maxLength + 1); i > 0; i--) {
+            text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return text.toString();
+    }
+
+    private static List<String> tokens(SyntaxHighlighter highlighter, int line) {
+        LineTokens tokens = highlighter.getTokens(line);
+        List<String> descriptions = new ArrayList<>();
+        for (int i = 0; i < tokens.size(); i++) {
+            descriptions.add(tokens.getStart(i) + "-" + tokens.getEnd(i) + " " + tokens.getType(i));
+        }
+        return descriptions;
+    }
+
+    private static List<TokenType> types(SyntaxHighlighter highlighter, int line) {
+        LineTokens tokens = highlighter.getTokens(line);
+        List<TokenType> types = new ArrayList<>();
+        for (int i = 0; i < tokens.size(); i++) {
+            types.add(tokens.getType(i));
+        }
+        return types;
+    }
+
+    static String yaml(int lines) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < lines; i++) {
+            switch (i % 4) {
+                case 0 -> text.append("item").append(i).append(":\n");
+                case 1 -> text.append("  name: \"entry ").append(i).append("\"\n");
+                case 2 -> text.append("  count: ").append(i).append(" # inline\n");
+                default -> text.append("  enabled: true\n");
+            }
+        }
+        return text.toString();
+    }
+}
@@ -4,7 +4,13 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.ResourceBundle;
+import java.util.stream.IntStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -84,4 +90,66 @@ class ResourceBundleMessageProviderTests {
 
         assertThat(expectedMessage).isEqualTo(message);
     }
+
+    @DisplayName("Get Message with params: pattern is looked up once and formats new params")
+    @Test
+    void testGetMessageWithParams_PatternCached() {
+        CountingBundle bundle = new CountingBundle();
+        ResourceBundleMessageProvider messageProvider = new ResourceBundleMessageProvider(bundle, Locale.ENGLISH);
+
+        String first = messageProvider.getMessage("linecol", 1, 2);
+        String second = messageProvider.getMessage("linecol", 12345, 4);
+
+        assertThat(first).isEqualTo("Line: 1, Col: 2");
+        assertThat(second).isEqualTo("Line: 12,345, Col: 4");
+        assertThat(bundle.lookups).isEqualTo(1);
+    }
+
+    @DisplayName("Get Message: missing key is looked up once")
+    @Test
+    void testGetMessage_MissingKeyMemoized() {
+        CountingBundle bundle = new CountingBundle();
+        ResourceBundleMessageProvider messageProvider = new ResourceBundleMessageProvider(bundle, Locale.ENGLISH);
+
+        messageProvider.getMessage("missing");
+        String message = messageProvider.getMessage("missing");
+        String formatted = messageProvider.getMessage("missing", 1);
+
+        assertThat(message).isEqualTo("Key not found: missing");
+        assertThat(formatted).isEqualTo("Key not found: missing");
+        assertThat(bundle.lookups).isEqualTo(1);
+    }
+
+    @DisplayName("Get Message with params: concurrent callers get their own params")
+    @Test
+    void testGetMessageWithParams_Concurrent() {
+        List<String> messages = IntStream.range(0, 10_000).parallel()
+                .mapToObj(i -> messageProviderEn.getMessage("hello-world-param", "n" + i))
+                .toList();
+
+        for (int i = 0; i < messages.size(); i++) {
+            assertThat(messages.get(i)).isEqualTo("Hello n" + i + "!");
+        }
+    }
+
+    /**
+     * Counts how often the provider asks the bundle for a key.
+     */
+    private static class CountingBundle extends ResourceBundle {
+
+        private final Map<String, String> contents = Map.of("linecol", "Line: {0}, Col: {1}");
+
+        int lookups;
+
+        @Override
+        protected Object handleGetObject(String key) {
+            lookups++;
+            return contents.get(key);
+        }
+
+        @Override
+        public Enumeration<String> getKeys() {
+            return Collections.enumeration(contents.keySet());
+        }
+    }
 }
@@ -0,0 +1,80 @@
+package com.dfortch.javapad.io;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class AtomicTextWriterTests {
+
+    @TempDir
+    private Path tempDir;
+
+    @DisplayName("Write: replaces the target and reports progress")
+    @Test
+    void testWrite_ReplacesTargetAndReportsProgress() throws IOException {
+        Path target = tempDir.resolve("target.txt");
+        Files.writeString(target, "old content");
+        String content = "línea 😀\n".repeat(1_000);
+        List<Long> progress = new ArrayList<>();
+
+        new AtomicTextWriter(StandardCharsets.UTF_8, 333).write(target, content, (done, total) -> progress.add(done));
+
+        assertThat(Files.readString(target, StandardCharsets.UTF_8)).isEqualTo(content);
+        assertThat(progress).isSorted().last().isEqualTo((long) content.length());
+        assertThat(listFiles()).containsExactly(target);
+    }
+
+    @DisplayName("Write: keeps the permissions of the target")
+    @Test
+    void testWrite_KeepsPermissions() throws IOException {
+        Path target = tempDir.resolve("script.sh");
+        Files.writeString(target, "echo old");
+        assumeTrue(Files.getFileAttributeView(target, java.nio.file.attribute.PosixFileAttributeView.class) != null);
+        Set<PosixFilePermission> permissions = PosixFilePermissions.fromString("rwxr-x---");
+        Files.setPosixFilePermissions(target, permissions);
+
+        new AtomicTextWriter(StandardCharsets.UTF_8).write(target, "echo new", null);
+
+        assertThat(Files.getPosixFilePermissions(target)).isEqualTo(permissions);
+    }
+
+    @DisplayName("Write on interrupted thread: leaves the target untouched")
+    @Test
+    void testWriteOnInterruptedThread_LeavesTargetUntouched() throws IOException {
+        Path target = tempDir.resolve("target.txt");
+        Files.writeString(target, "old content");
+
+        Thread.currentThread().interrupt();
+        try {
+            assertThatThrownBy(() -> new AtomicTextWriter(StandardCharsets.UTF_8).write(target, "new content", null))
+                    .isInstanceOf(InterruptedIOException.class);
+        } finally {
+            Thread.interrupted();
+        }
+
+        assertThat(Files.readString(target)).isEqualTo("old content");
+        assertThat(listFiles()).containsExactly(target);
+    }
+
+    private List<Path> listFiles() throws IOException {
+        try (Stream<Path> files = Files.list(tempDir)) {
+            return files.toList();
+        }
+    }
+}
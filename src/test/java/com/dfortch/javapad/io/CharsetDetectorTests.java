@@ -0,0 +1,81 @@
+package com.dfortch.javapad.io;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CharsetDetectorTests {
+
+    private CharsetDetector detector;
+
+    @BeforeEach
+    void setUp() {
+        detector = new CharsetDetector();
+    }
+
+    @DisplayName("Byte order marks: decide the encoding")
+    @Test
+    void testByteOrderMarks_DecideEncoding() {
+        assertThat(detect("\uFEFFabc".getBytes(StandardCharsets.UTF_8)))
+                .isEqualTo(new TextEncoding(StandardCharsets.UTF_8, true));
+        assertThat(detect("\uFEFFabc".getBytes(StandardCharsets.UTF_16BE)))
+                .isEqualTo(new TextEncoding(StandardCharsets.UTF_16BE, true));
+        assertThat(detect("\uFEFFabc".getBytes(StandardCharsets.UTF_16LE)))
+                .isEqualTo(new TextEncoding(StandardCharsets.UTF_16LE, true));
+    }
+
+    @DisplayName("UTF-16 without BOM: detected from the zero bytes")
+    @Test
+    void testUtf16WithoutBom_DetectedFromZeroBytes() {
+        String text = "Hello World\n".repeat(10);
+
+        assertThat(detect(text.getBytes(StandardCharsets.UTF_16LE)))
+                .isEqualTo(new TextEncoding(StandardCharsets.UTF_16LE, false));
+        assertThat(detect(text.getBytes(StandardCharsets.UTF_16BE)))
+                .isEqualTo(new TextEncoding(StandardCharsets.UTF_16BE, false));
+    }
+
+    @DisplayName("Plain text: read as UTF-8 or as ISO-8859-1")
+    @Test
+    void testPlainText_Utf8OrLatin1() {
+        assertThat(detect("caf\u00e9\n".getBytes(StandardCharsets.UTF_8))).isEqualTo(TextEncoding.DEFAULT);
+        assertThat(detect(new byte[0])).isEqualTo(TextEncoding.DEFAULT);
+        assertThat(detect("caf\u00e9\n".getBytes(StandardCharsets.ISO_8859_1)))
+                .isEqualTo(new TextEncoding(StandardCharsets.ISO_8859_1, false));
+    }
+
+    @DisplayName("UTF-8 sequence cut by the prefix: still UTF-8")
+    @Test
+    void testUtf8SequenceCutByPrefix_StillUtf8() {
+        byte[] bytes = "\u20ac".getBytes(StandardCharsets.UTF_8);
+        byte[] cut = Arrays.copyOf(bytes, 2);
+
+        assertThat(detector.detect(ByteBuffer.wrap(cut), false)).isEqualTo(TextEncoding.DEFAULT);
+        assertThat(detector.detect(ByteBuffer.wrap(cut), true))
+                .isEqualTo(new TextEncoding(StandardCharsets.ISO_8859_1, false));
+    }
+
+    @DisplayName("Binary data: not detected as text")
+    @Test
+    void testBinaryData_NotText() {
+        byte[] stray = "Hello\0World, this is mostly text".getBytes(StandardCharsets.US_ASCII);
+        byte[] controls = new byte[100];
+        Arrays.fill(controls, (byte) 1);
+
+        assertThat(detect(stray)).isNull();
+        assertThat(detect(controls)).isNull();
+    }
+
+    private TextEncoding detect(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        TextEncoding encoding = detector.detect(buffer, true);
+        assertThat(buffer.position()).isZero();
+        return encoding;
+    }
+}
@@ -7,6 +7,7 @@ import org.junit.jupiter.api.io.TempDir;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
@@ -48,6 +49,131 @@ class FileOperationsImplTests {
                 .hasMessageContaining("non-existing-file.txt");
     }
 
+    @DisplayName("Read from file in chunks: success")
+    @Test
+    void testReadFromFileInChunks_Success() throws IOException {
+        File tempFile = tempDir.resolve("test-stream.txt").toFile();
+        String expectedContent = "Hello World!\n".repeat(20_000);
+        Files.writeString(tempFile.toPath(), expectedContent);
+        StringBuilder content = new StringBuilder();
+
+        fileOperations.readFromFile(tempFile, (chunk, bytesRead) -> content.append(chunk));
+
+        assertThat(content).hasToString(expectedContent);
+    }
+
+    @DisplayName("Read Latin-1 file: decoded and saved back unchanged")
+    @Test
+    void testReadLatin1File_RoundTripsUnchanged() throws IOException {
+        File tempFile = tempDir.resolve("test-latin1.txt").toFile();
+        byte[] bytes = "Caf\u00e9 cr\u00e8me\n".getBytes(StandardCharsets.ISO_8859_1);
+        Files.write(tempFile.toPath(), bytes);
+        StringBuilder content = new StringBuilder();
+
+        TextEncoding encoding = fileOperations.readFromFile(tempFile, (chunk, bytesRead) -> content.append(chunk));
+        fileOperations.saveToFile(tempFile, content, encoding, null);
+
+        assertThat(encoding.charset()).isEqualTo(StandardCharsets.ISO_8859_1);
+        assertThat(content).hasToString("Caf\u00e9 cr\u00e8me\n");
+        assertThat(Files.readAllBytes(tempFile.toPath())).isEqualTo(bytes);
+    }
+
+    @DisplayName("Read file with a Latin-1 byte past the inspected prefix: read again as Latin-1")
+    @Test
+    void testReadFileWithLatin1BytePastPrefix_ReadAgainAsLatin1() throws IOException {
+        File tempFile = tempDir.resolve("test-late-latin1.log").toFile();
+        String prefix = "x".repeat(CharsetDetector.PREFIX_SIZE + 25_000);
+        byte[] bytes = (prefix + "caf\u00e9\n").getBytes(StandardCharsets.ISO_8859_1);
+        Files.write(tempFile.toPath(), bytes);
+
+        assertThat(fileOperations.readFromFile(tempFile)).isEqualTo(prefix + "caf\u00e9\n");
+
+        StringBuilder content = new StringBuilder();
+        TextEncoding encoding = fileOperations.readFromFile(tempFile, new TextChunkListener() {
+            @Override
+            public void onChunk(String chunk, long bytesRead) {
+                content.append(chunk);
+            }
+
+            @Override
+            public void onRestart() {
+                content.setLength(0);
+            }
+        });
+        fileOperations.saveToFile(tempFile, content, encoding, null);
+
+        assertThat(encoding).isEqualTo(TextEncoding.LATIN_1);
+        assertThat(content).hasToString(prefix + "caf\u00e9\n");
+        assertThat(Files.readAllBytes(tempFile.toPath())).isEqualTo(bytes);
+    }
+
+    @DisplayName("Read UTF-16 file with BOM: BOM skipped on read and kept on save")
+    @Test
+    void testReadUtf16FileWithBom_BomKeptOnSave() throws IOException {
+        File tempFile = tempDir.resolve("test-utf16.txt").toFile();
+        byte[] bytes = "\uFEFFHello \u4e16\u754c".getBytes(StandardCharsets.UTF_16LE);
+        Files.write(tempFile.toPath(), bytes);
+        StringBuilder content = new StringBuilder();
+
+        TextEncoding encoding = fileOperations.readFromFile(tempFile, (chunk, bytesRead) -> content.append(chunk));
+        fileOperations.saveToFile(tempFile, content, encoding, null);
+
+        assertThat(encoding).isEqualTo(new TextEncoding(StandardCharsets.UTF_16LE, true));
+        assertThat(content).hasToString("Hello \u4e16\u754c");
+        assertThat(Files.readAllBytes(tempFile.toPath())).isEqualTo(bytes);
+    }
+
+    @DisplayName("Map UTF-8 file with BOM: BOM left out of the text")
+    @Test
+    void testMapUtf8FileWithBom_BomLeftOut() throws IOException {
+        File tempFile = tempDir.resolve("test-map-bom.txt").toFile();
+        Files.writeString(tempFile.toPath(), "\uFEFFHello\nWorld!");
+
+        try (MappedTextFile mappedFile = fileOperations.mapFromFile(tempFile)) {
+            assertThat(mappedFile.subSequence(0, mappedFile.length())).hasToString("Hello\nWorld!");
+            assertThat(mappedFile.getEncoding()).isEqualTo(new TextEncoding(StandardCharsets.UTF_8, true));
+        }
+    }
+
+    @DisplayName("Read binary file: throws BinaryFileException")
+    @Test
+    void testReadBinaryFile_ThrowsBinaryFileException() throws IOException {
+        File tempFile = tempDir.resolve("test.bin").toFile();
+        byte[] bytes = new byte[4096];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) (i * 31);
+        }
+        Files.write(tempFile.toPath(), bytes);
+
+        assertThatThrownBy(() -> fileOperations.readFromFile(tempFile))
+                .isInstanceOf(BinaryFileException.class)
+                .hasMessageContaining("test.bin");
+        assertThatThrownBy(() -> fileOperations.mapFromFile(tempFile))
+                .isInstanceOf(BinaryFileException.class);
+    }
+
+    @DisplayName("Map from file: success")
+    @Test
+    void testMapFromFile_Success() throws IOException {
+        File tempFile = tempDir.resolve("test-map.txt").toFile();
+        String expectedContent = "Hello\nWorld!";
+        Files.writeString(tempFile.toPath(), expectedContent);
+
+        try (MappedTextFile mappedFile = fileOperations.mapFromFile(tempFile)) {
+            assertThat(mappedFile.subSequence(0, mappedFile.length())).hasToString(expectedContent);
+            assertThat(mappedFile.getFile()).isEqualTo(tempFile);
+        }
+    }
+
+    @DisplayName("Map from non existing file: throws NoSuchFileException")
+    @Test
+    void testMapFromNonExistingFile_ThrowsNoSuchFileException() {
+        File tempFile = tempDir.resolve("non-existing-file.txt").toFile();
+
+        assertThatThrownBy(() -> fileOperations.mapFromFile(tempFile))
+                .isInstanceOf(NoSuchFileException.class);
+    }
+
     @DisplayName("Save to file: success")
     @Test
     void testSaveToFile_Success() throws IOException {
@@ -60,6 +186,28 @@ class FileOperationsImplTests {
         assertThat(readContent).isEqualTo(content);
     }
 
+    @DisplayName("Save char sequence to file: success")
+    @Test
+    void testSaveCharSequenceToFile_Success() throws IOException {
+        File tempFile = tempDir.resolve("test-write.txt").toFile();
+        Files.writeString(tempFile.toPath(), "old content");
+        StringBuilder content = new StringBuilder("Hello World!\n".repeat(10_000));
+
+        fileOperations.saveToFile(tempFile, content, null);
+
+        assertThat(Files.readString(tempFile.toPath())).isEqualTo(content.toString());
+    }
+
+    @DisplayName("Save to non existing file without creating it: throws NoSuchFileException")
+    @Test
+    void testSaveToNonExistingFileWithoutCreating_ThrowsNoSuchFileException() {
+        File tempFile = tempDir.resolve("non-existing-file.txt").toFile();
+
+        assertThatThrownBy(() -> fileOperations.saveToFile(tempFile, "content", false))
+                .isInstanceOf(NoSuchFileException.class);
+        assertThat(tempFile).doesNotExist();
+    }
+
     @DisplayName("Save to file with null file: throws NullPointerException")
     @Test
     void testSaveToFileWithNullFile_ThrowsNullPointerException() {
@@ -0,0 +1,68 @@
+package com.dfortch.javapad.io;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MappedTextFileTests {
+
+    @TempDir
+    private Path tempDir;
+
+    @DisplayName("Open: exposes the decoded text")
+    @Test
+    void testOpen_ExposesDecodedText() throws IOException {
+        File file = tempDir.resolve("small.txt").toFile();
+        Files.writeString(file.toPath(), "Hello\nWorld", StandardCharsets.UTF_8);
+
+        try (MappedTextFile mappedFile = MappedTextFile.open(file, StandardCharsets.UTF_8)) {
+            assertThat(mappedFile.length()).isEqualTo(11);
+            assertThat(mappedFile.subSequence(0, 11)).hasToString("Hello\nWorld");
+            assertThat(mappedFile.getLineBreaks()).containsExactly(5);
+            assertThat(mappedFile.isTruncated()).isFalse();
+        }
+    }
+
+    @DisplayName("Open with small windows: multi byte chars never straddle windows")
+    @Test
+    void testOpenWithSmallWindows_KeepsMultiByteCharsIntact() throws IOException {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 2_000; i++) {
+            builder.append("línea ").append(i).append(" – ünïcödé 😀\n");
+        }
+        String expected = builder.toString();
+        File file = tempDir.resolve("unicode.txt").toFile();
+        Files.writeString(file.toPath(), expected, StandardCharsets.UTF_8);
+
+        try (MappedTextFile mappedFile = MappedTextFile.open(file, StandardCharsets.UTF_8, 37)) {
+            char[] chars = new char[mappedFile.length()];
+            mappedFile.getChars(0, chars.length, chars, 0);
+
+            assertThat(new String(chars)).isEqualTo(expected);
+            assertThat(mappedFile.getLineBreaks()).hasSize(2_000);
+            for (int i = expected.length() - 1; i >= 0; i -= 101) {
+                assertThat(mappedFile.charAt(i)).isEqualTo(expected.charAt(i));
+            }
+        }
+    }
+
+    @DisplayName("Open empty file: has no text")
+    @Test
+    void testOpenEmptyFile_HasNoText() throws IOException {
+        File file = tempDir.resolve("empty.txt").toFile();
+        Files.writeString(file.toPath(), "");
+
+        try (MappedTextFile mappedFile = MappedTextFile.open(file, StandardCharsets.UTF_8)) {
+            assertThat(mappedFile.length()).isZero();
+            assertThat(mappedFile.getLineBreaks()).isEmpty();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.dfortch.javapad.io;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.MalformedInputException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StreamingTextReaderTests {
+
+    @DisplayName("Read: chunks join to the original text")
+    @Test
+    void testRead_ChunksJoinToOriginalText() throws IOException {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 5_000; i++) {
+            builder.append("línea ").append(i).append(" 😀\n");
+        }
+        String expected = builder.toString();
+        List<String> chunks = new ArrayList<>();
+
+        long chars = new StreamingTextReader(StandardCharsets.UTF_8, 1024)
+                .read(new ByteArrayInputStream(expected.getBytes(StandardCharsets.UTF_8)), (chunk, bytesRead) -> chunks.add(chunk));
+
+        assertThat(String.join("", chunks)).isEqualTo(expected);
+        assertThat(chars).isEqualTo(expected.length());
+        assertThat(chunks).hasSizeGreaterThan(1).allSatisfy(chunk -> assertThat(chunk.length()).isLessThanOrEqualTo(1024));
+    }
+
+    @DisplayName("Read malformed input: throws MalformedInputException")
+    @Test
+    void testReadMalformedInput_ThrowsMalformedInputException() {
+        byte[] bytes = {'o', 'k', (byte) 0xC3, '!'};
+
+        assertThatThrownBy(() -> new StreamingTextReader(StandardCharsets.UTF_8)
+                .read(new ByteArrayInputStream(bytes), (chunk, bytesRead) -> {
+                }))
+                .isInstanceOf(MalformedInputException.class);
+    }
+
+    @DisplayName("Read on interrupted thread: throws InterruptedIOException")
+    @Test
+    void testReadOnInterruptedThread_ThrowsInterruptedIOException() {
+        Thread.currentThread().interrupt();
+        try {
+            assertThatThrownBy(() -> new StreamingTextReader(StandardCharsets.UTF_8)
+                    .read(new ByteArrayInputStream(new byte[10]), (chunk, bytesRead) -> {
+                    }))
+                    .isInstanceOf(InterruptedIOException.class);
+        } finally {
+            Thread.interrupted();
+        }
+    }
+}
@@ -1,11 +1,17 @@
 package com.dfortch.javapad.prefs;
 
+import org.apache.logging.log4j.Level;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 
 import java.awt.*;
 import java.util.Locale;
+import java.util.UUID;
+import java.util.prefs.BackingStoreException;
+import java.util.prefs.Preferences;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -15,6 +21,7 @@ class JavaPrefBasedJavapadUserPreferencesTests {
 
     private JavapadUserPreferencesProperties properties;
     private JavaPrefBasedJavapadUserPreferences preferences;
+    private Preferences store;
 
     @BeforeEach
     public void setUp() {
@@ -25,8 +32,19 @@ class JavaPrefBasedJavapadUserPreferencesTests {
         when(properties.getDefaultEditorFont()).thenReturn(new Font(Font.MONOSPACED, Font.PLAIN, 12));
         when(properties.getDefaultEditorForegroundColor()).thenReturn(Color.BLACK);
         when(properties.getDefaultEditorBackgroundColor()).thenReturn(Color.WHITE);
+        when(properties.getDefaultLargeFileThreshold()).thenReturn(64L * 1024 * 1024);
+        when(properties.getDefaultUndoMemoryLimit()).thenReturn(32L * 1024 * 1024);
+        when(properties.getDefaultTabMemoryBudget()).thenReturn(256L * 1024 * 1024);
+        when(properties.getDefaultLogLevel()).thenReturn(Level.INFO);
 
-        preferences = new JavaPrefBasedJavapadUserPreferences(properties);
+        store = Preferences.userRoot().node("javapad-tests-" + UUID.randomUUID());
+        preferences = new JavaPrefBasedJavapadUserPreferences(properties, store);
+    }
+
+    @AfterEach
+    public void tearDown() throws BackingStoreException {
+        preferences.flush();
+        store.removeNode();
     }
 
     @DisplayName("Get and set locale: success")
@@ -93,6 +111,60 @@ class JavaPrefBasedJavapadUserPreferencesTests {
         assertThat(retrievedColor).isEqualTo(newColor);
     }
 
+    @DisplayName("Get and set large file threshold: success")
+    @Test
+    void testGetAndSetLargeFileThreshold_Success() {
+        long newThreshold = 16L * 1024 * 1024;
+
+        preferences.setLargeFileThreshold(newThreshold);
+        long retrievedThreshold = preferences.getLargeFileThreshold();
+
+        assertThat(retrievedThreshold).isEqualTo(newThreshold);
+    }
+
+    @DisplayName("Set non positive large file threshold: throws IllegalArgumentException")
+    @Test
+    void testSetNonPositiveLargeFileThreshold_ThrowsIllegalArgumentException() {
+        assertThatThrownBy(() -> preferences.setLargeFileThreshold(0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @DisplayName("Get and set undo memory limit: success")
+    @Test
+    void testGetAndSetUndoMemoryLimit_Success() {
+        long newLimit = 8L * 1024 * 1024;
+
+        preferences.setUndoMemoryLimit(newLimit);
+        long retrievedLimit = preferences.getUndoMemoryLimit();
+
+        assertThat(retrievedLimit).isEqualTo(newLimit);
+    }
+
+    @DisplayName("Set non positive undo memory limit: throws IllegalArgumentException")
+    @Test
+    void testSetNonPositiveUndoMemoryLimit_ThrowsIllegalArgumentException() {
+        assertThatThrownBy(() -> preferences.setUndoMemoryLimit(-1))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @DisplayName("Get and set tab memory budget: success")
+    @Test
+    void testGetAndSetTabMemoryBudget_Success() {
+        long newBudget = 64L * 1024 * 1024;
+
+        preferences.setTabMemoryBudget(newBudget);
+        long retrievedBudget = preferences.getTabMemoryBudget();
+
+        assertThat(retrievedBudget).isEqualTo(newBudget);
+    }
+
+    @DisplayName("Set non positive tab memory budget: throws IllegalArgumentException")
+    @Test
+    void testSetNonPositiveTabMemoryBudget_ThrowsIllegalArgumentException() {
+        assertThatThrownBy(() -> preferences.setTabMemoryBudget(0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
     @DisplayName("Reset locale: success")
     @Test
     void testResetLocale_Success() {
@@ -148,6 +220,18 @@ class JavaPrefBasedJavapadUserPreferencesTests {
         assertThat(preferences.getEditorFont()).isEqualTo(properties.getDefaultEditorFont());
         assertThat(preferences.getEditorForegroundColor()).isEqualTo(properties.getDefaultEditorForegroundColor());
         assertThat(preferences.getEditorBackgroundColor()).isEqualTo(properties.getDefaultEditorBackgroundColor());
+        assertThat(preferences.getLargeFileThreshold()).isEqualTo(properties.getDefaultLargeFileThreshold());
+        assertThat(preferences.getUndoMemoryLimit()).isEqualTo(properties.getDefaultUndoMemoryLimit());
+        assertThat(preferences.getTabMemoryBudget()).isEqualTo(properties.getDefaultTabMemoryBudget());
+        assertThat(preferences.getLogLevel()).isEqualTo(properties.getDefaultLogLevel());
+    }
+
+    @DisplayName("Get and set log level: success")
+    @Test
+    void testGetAndSetLogLevel_Success() {
+        preferences.setLogLevel(Level.TRACE);
+
+        assertThat(preferences.getLogLevel()).isEqualTo(Level.TRACE);
     }
 
     @DisplayName("Add and remove preferences change listener: success")
@@ -160,6 +244,114 @@ class JavaPrefBasedJavapadUserPreferencesTests {
         preferences.removePreferencesChangeListener(listener);
         preferences.setLocale(Locale.ENGLISH);
 
-        verify(listener, times(1)).onPreferencesChanged();
+        verify(listener, times(1)).onPreferencesChanged(any());
+    }
+
+    @DisplayName("Set: event has the changed key with its old and new value")
+    @Test
+    void testSet_EventHasChangedKey() {
+        PreferencesChangeListener listener = mock(PreferencesChangeListener.class);
+        preferences.addPreferencesChangeListener(listener);
+
+        preferences.setEditorBackgroundColor(Color.GRAY);
+
+        ArgumentCaptor<PreferencesChangeEvent> captor = ArgumentCaptor.forClass(PreferencesChangeEvent.class);
+        verify(listener).onPreferencesChanged(captor.capture());
+        PreferencesChangeEvent event = captor.getValue();
+        assertThat(event.changedKeys()).containsExactly(PreferenceKey.EDITOR_BACKGROUND_COLOR);
+        assertThat(event.getOldValue(PreferenceKey.EDITOR_BACKGROUND_COLOR)).isEqualTo(Color.WHITE);
+        assertThat(event.getNewValue(PreferenceKey.EDITOR_BACKGROUND_COLOR)).isEqualTo(Color.GRAY);
+        assertThat(event.isChanged(PreferenceKey.THEME)).isFalse();
+    }
+
+    @DisplayName("Set unchanged value: no event")
+    @Test
+    void testSetUnchangedValue_NoEvent() {
+        PreferencesChangeListener listener = mock(PreferencesChangeListener.class);
+        preferences.addPreferencesChangeListener(listener);
+
+        preferences.setTheme(properties.getDefaultTheme());
+
+        verify(listener, never()).onPreferencesChanged(any());
+    }
+
+    @DisplayName("Transaction: one event with every changed key")
+    @Test
+    void testTransaction_OneCoalescedEvent() {
+        PreferencesChangeListener listener = mock(PreferencesChangeListener.class);
+        preferences.addPreferencesChangeListener(listener);
+
+        preferences.transaction(() -> {
+            preferences.setTheme(JavapadTheme.FLATLAF_LIGHT);
+            preferences.setEditorForegroundColor(Color.RED);
+            preferences.transaction(() -> preferences.setUndoMemoryLimit(1024));
+            preferences.setEditorForegroundColor(Color.BLACK);
+        });
+
+        ArgumentCaptor<PreferencesChangeEvent> captor = ArgumentCaptor.forClass(PreferencesChangeEvent.class);
+        verify(listener, times(1)).onPreferencesChanged(captor.capture());
+        assertThat(captor.getValue().changedKeys())
+                .containsExactlyInAnyOrder(PreferenceKey.THEME, PreferenceKey.UNDO_MEMORY_LIMIT);
+    }
+
+    @DisplayName("Reset all: one event")
+    @Test
+    void testResetAll_OneEvent() {
+        preferences.setLocale(Locale.FRENCH);
+        preferences.setLogLevel(Level.DEBUG);
+        PreferencesChangeListener listener = mock(PreferencesChangeListener.class);
+        preferences.addPreferencesChangeListener(listener);
+
+        preferences.resetAll();
+
+        ArgumentCaptor<PreferencesChangeEvent> captor = ArgumentCaptor.forClass(PreferencesChangeEvent.class);
+        verify(listener, times(1)).onPreferencesChanged(captor.capture());
+        assertThat(captor.getValue().changedKeys()).containsExactlyInAnyOrder(PreferenceKey.LOCALE, PreferenceKey.LOG_LEVEL);
+    }
+
+    @DisplayName("Flush: changes are in the backing store and read by a new instance")
+    @Test
+    void testFlush_ChangesPersisted() {
+        JavaPrefBasedJavapadUserPreferences stored = new JavaPrefBasedJavapadUserPreferences(properties, store);
+        Font font = new Font("Serif", Font.ITALIC, 18);
+
+        stored.setEditorFont(font);
+        stored.setEditorBackgroundColor(Color.GRAY);
+        stored.setUndoMemoryLimit(1024);
+        stored.setLocale(Locale.FRENCH);
+        stored.flush();
+
+        assertThat(store.get("editor_font_family", null)).isEqualTo("Serif");
+        assertThat(store.getInt("editor_font_size", 0)).isEqualTo(18);
+        JavaPrefBasedJavapadUserPreferences reloaded = new JavaPrefBasedJavapadUserPreferences(properties, store);
+        assertThat(reloaded.getSnapshot()).isEqualTo(stored.getSnapshot());
+    }
+
+    @DisplayName("Get snapshot: setters publish a new snapshot and leave older ones unchanged")
+    @Test
+    void testGetSnapshot_SettersPublishNewSnapshot() {
+        JavaPrefBasedJavapadUserPreferences stored = new JavaPrefBasedJavapadUserPreferences(properties, store);
+        PreferencesSnapshot before = stored.getSnapshot();
+
+        stored.setTheme(JavapadTheme.FLATLAF_LIGHT);
+        PreferencesSnapshot after = stored.getSnapshot();
+
+        assertThat(before.theme()).isEqualTo(JavapadTheme.FLATLAF_DARK);
+        assertThat(after.theme()).isEqualTo(JavapadTheme.FLATLAF_LIGHT);
+        assertThat(after).isEqualTo(before.withTheme(JavapadTheme.FLATLAF_LIGHT));
+    }
+
+    @DisplayName("Stored values not valid: defaults are used")
+    @Test
+    void testStoredValuesNotValid_DefaultsUsed() {
+        store.put("theme", "NO_SUCH_THEME");
+        store.put("locale", "it");
+        store.put("editor_foreground", "not a color");
+
+        JavaPrefBasedJavapadUserPreferences stored = new JavaPrefBasedJavapadUserPreferences(properties, store);
+
+        assertThat(stored.getTheme()).isEqualTo(properties.getDefaultTheme());
+        assertThat(stored.getLocale()).isEqualTo(properties.getDefaultLocale());
+        assertThat(stored.getEditorForegroundColor()).isEqualTo(properties.getDefaultEditorForegroundColor());
     }
 }
@@ -0,0 +1,184 @@
+package com.dfortch.javapad.search;
+
+import com.dfortch.javapad.text.PieceTableDocument;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.swing.text.BadLocationException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DocumentSearcherTests {
+
+    private ForkJoinPool pool;
+
+    private DocumentSearcher searcher;
+
+    @BeforeEach
+    void setUp() {
+        pool = new ForkJoinPool(4);
+        searcher = new DocumentSearcher(pool);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @DisplayName("Find all literal: finds every match across pieces and chunks")
+    @Test
+    void testFindAllLiteral_AcrossPiecesAndChunks() throws BadLocationException {
+        String text = randomText(3 * DocumentSearcher.CHUNK_SIZE + 123);
+        PieceTableDocument document = editedDocument(text);
+        String content = document.getText(0, document.getLength());
+
+        SearchResults results = searcher.findAll(document, new SearchQuery("abca", false, true), null).join();
+
+        assertThat(starts(results)).isEqualTo(expectedStarts(Pattern.compile("abca", Pattern.LITERAL), content));
+    }
+
+    @DisplayName("Find all regex: same matches as a sequential Matcher")
+    @Test
+    void testFindAllRegex_SameAsSequentialMatcher() throws BadLocationException {
+        String text = randomText(3 * DocumentSearcher.CHUNK_SIZE);
+        PieceTableDocument document = editedDocument(text);
+        String content = document.getText(0, document.getLength());
+
+        for (String regex : new String[]{"a[bc]+d", "(?m)^d", "b*", "[^\\n]{200,}"}) {
+            SearchResults results = searcher.findAll(document, new SearchQuery(regex, true, true), null).join();
+
+            assertThat(starts(results)).as(regex).isEqualTo(expectedStarts(Pattern.compile(regex), content));
+        }
+    }
+
+    @DisplayName("Match overlapping a chunk end: the next chunk is scanned again")
+    @Test
+    void testMatchOverlappingChunkEnd_NextChunkScannedAgain() {
+        int boundary = DocumentSearcher.CHUNK_SIZE * 2;
+        // A match runs from just before the first split to past a match the right half found
+        String text = "x".repeat(boundary - 2) + "aaaa" + "x".repeat(100);
+        PieceTableDocument document = new PieceTableDocument(text);
+
+        SearchResults results = searcher.findAll(document, new SearchQuery("aa", false, true), null).join();
+
+        assertThat(starts(results)).containsExactly(boundary - 2, boundary);
+    }
+
+    @DisplayName("Find next: returns the first match after the offset")
+    @Test
+    void testFindNext_ReturnsFirstMatchAfterOffset() {
+        String text = "x".repeat(3 * DocumentSearcher.CHUNK_SIZE) + "Needle" + "x".repeat(10) + "needle";
+        PieceTableDocument document = new PieceTableDocument(text);
+
+        SearchResults first = searcher.findNext(document, new SearchQuery("needle", false, false), null, 10).join();
+        SearchResults matchCase = searcher.findNext(document, new SearchQuery("needle", false, true), null, 10).join();
+        SearchResults none = searcher.findNext(document, new SearchQuery("needle", false, true), null, text.length() - 3).join();
+
+        assertThat(starts(first)).containsExactly(3 * DocumentSearcher.CHUNK_SIZE);
+        assertThat(starts(matchCase)).containsExactly(3 * DocumentSearcher.CHUNK_SIZE + 16);
+        assertThat(none.isEmpty()).isTrue();
+    }
+
+    @DisplayName("Replacement: expands groups and escapes")
+    @Test
+    void testReplacement_ExpandsGroupsAndEscapes() {
+        PieceTableDocument document = new PieceTableDocument("John Smith, Jane Doe");
+
+        SearchResults results = searcher.findAll(document,
+                new SearchQuery("(?<first>\\w+) (\\w+)", true, true), "$2 ${first} \\$1").join();
+
+        assertThat(results.size()).isEqualTo(2);
+        assertThat(results.getReplacement(0)).isEqualTo("Smith John $1");
+        assertThat(results.getReplacement(1)).isEqualTo("Doe Jane $1");
+    }
+
+    @DisplayName("Empty match at the end: found like Matcher does")
+    @Test
+    void testEmptyMatchAtEnd_Found() {
+        PieceTableDocument document = new PieceTableDocument("ab\ncd");
+
+        SearchResults results = searcher.findAll(document, new SearchQuery("(?m)$", true, true), ";").join();
+
+        assertThat(starts(results)).containsExactly(2, 5);
+    }
+
+    @DisplayName("Runaway regex: cancelled")
+    @Test
+    void testRunawayRegex_Cancelled() throws InterruptedException {
+        PieceTableDocument document = new PieceTableDocument("a".repeat(64));
+        SearchTask task = searcher.findAll(document, new SearchQuery("((a+)+)+c", true, true), null);
+        Thread.sleep(100);
+
+        long startNanos = System.nanoTime();
+        task.cancel();
+
+        assertThatThrownBy(task::join).isInstanceOf(CancellationException.class);
+        assertThat(task.isCancelled()).isTrue();
+        assertThat(System.nanoTime() - startNanos).isLessThan(2_000_000_000L);
+    }
+
+    @DisplayName("Invalid regex: throws PatternSyntaxException")
+    @Test
+    void testInvalidRegex_ThrowsPatternSyntaxException() {
+        PieceTableDocument document = new PieceTableDocument("text");
+
+        assertThatThrownBy(() -> searcher.findAll(document, new SearchQuery("(", true, true), null))
+                .isInstanceOf(PatternSyntaxException.class);
+    }
+
+    private static String randomText(int length) {
+        Random random = new Random(11);
+        StringBuilder builder = new StringBuilder(length);
+        while (builder.length() < length) {
+            int n = random.nextInt(40);
+            builder.append(n == 0 ? '\n' : (char) ('a' + n % 4));
+        }
+        builder.setLength(length);
+        return builder.toString();
+    }
+
+    /**
+     * Builds a document with many pieces, so searches cross piece boundaries.
+     */
+    private static PieceTableDocument editedDocument(String text) throws BadLocationException {
+        PieceTableDocument document = new PieceTableDocument(text);
+        Random random = new Random(5);
+        for (int i = 0; i < 500; i++) {
+            int offset = random.nextInt(document.getLength());
+            if (i % 2 == 0) {
+                document.insertString(offset, "abca", null);
+            } else {
+                document.remove(offset, Math.min(3, document.getLength() - offset));
+            }
+        }
+        return document;
+    }
+
+    private static List<Integer> starts(SearchResults results) {
+        List<Integer> starts = new ArrayList<>();
+        for (int i = 0; i < results.size(); i++) {
+            starts.add(results.getStart(i));
+        }
+        return starts;
+    }
+
+    private static List<Integer> expectedStarts(Pattern pattern, String text) {
+        List<Integer> starts = new ArrayList<>();
+        Matcher matcher = pattern.matcher(text);
+        while (matcher.find()) {
+            starts.add(matcher.start());
+        }
+        return starts;
+    }
+}
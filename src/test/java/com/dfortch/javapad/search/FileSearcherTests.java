@@ -0,0 +1,147 @@
+package com.dfortch.javapad.search;
+
+import com.dfortch.javapad.io.FileOperationsImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FileSearcherTests {
+
+    @TempDir
+    Path root;
+
+    private ForkJoinPool pool;
+
+    private FileSearcher fileSearcher;
+
+    @BeforeEach
+    void setUp() {
+        pool = new ForkJoinPool(2);
+        fileSearcher = new FileSearcher(new FileOperationsImpl(), new DocumentSearcher(pool));
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @DisplayName("Search tree: reports every match with its line and preview")
+    @Test
+    void testSearchTree_ReportsMatchesWithLineAndPreview() throws Exception {
+        write("a.txt", "first line\r\nsecond needle here\r\n");
+        write("sub/deeper/b.txt", "needle\nno\n  another needle  \n");
+        write("sub/c.txt", "nothing to see");
+
+        Collector collector = search("*.txt", new SearchQuery("needle", false, true));
+
+        assertThat(collector.summary.get(10, TimeUnit.SECONDS)).isEqualTo(new FileSearch.Summary(3, 0, 3, false));
+        assertThat(collector.sortedMatches()).containsExactly(
+                new FileMatch(root.resolve("a.txt").toFile(), 19, 25, 1, "second needle here"),
+                new FileMatch(root.resolve("sub/deeper/b.txt").toFile(), 0, 6, 0, "needle"),
+                new FileMatch(root.resolve("sub/deeper/b.txt").toFile(), 20, 26, 2, "another needle"));
+    }
+
+    @DisplayName("Binary and unmatched files: binaries are skipped, the glob filters names")
+    @Test
+    void testBinaryAndUnmatchedFiles_Skipped() throws Exception {
+        write("notes.txt", "key=value");
+        write("other.md", "key=value");
+        byte[] binary = new byte[4096];
+        for (int i = 0; i < binary.length; i++) {
+            binary[i] = (byte) (i % 7 == 0 ? 0 : 'k');
+        }
+        Files.write(root.resolve("image.txt"), binary);
+
+        Collector collector = search("*.txt", new SearchQuery("KEY", false, false));
+
+        assertThat(collector.summary.get(10, TimeUnit.SECONDS)).isEqualTo(new FileSearch.Summary(1, 1, 1, false));
+        assertThat(collector.sortedMatches()).extracting(match -> match.file().getName()).containsExactly("notes.txt");
+    }
+
+    @DisplayName("Large file: matches across mapped segments, as String.indexOf finds them")
+    @Test
+    void testLargeFile_MatchesAcrossSegments() throws Exception {
+        StringBuilder text = new StringBuilder();
+        List<Integer> expected = new ArrayList<>();
+        while (text.length() < 5 * SegmentedText.SEGMENT_SIZE) {
+            text.append("filler ".repeat(50 + text.length() % 13)).append('\n');
+            expected.add(text.length());
+            text.append("match\u00e9\n");
+        }
+        write("large.log", text.toString());
+
+        Collector collector = search("*", new SearchQuery("match\u00e9", false, true));
+
+        assertThat(collector.summary.get(10, TimeUnit.SECONDS).matches()).isEqualTo(expected.size());
+        assertThat(collector.sortedMatches()).extracting(FileMatch::start).containsExactlyElementsOf(expected);
+    }
+
+    @DisplayName("Cancel: stops the search and still reports a summary")
+    @Test
+    void testCancel_StopsAndReportsSummary() throws Exception {
+        for (int i = 0; i < 200; i++) {
+            write("dir" + (i % 10) + "/file" + i + ".txt", "needle\n".repeat(100));
+        }
+        Collector collector = new Collector();
+        FileSearch search = fileSearcher.start(root, "*", new SearchQuery("needle", false, true), collector);
+
+        search.cancel();
+
+        assertThat(search.await(10, TimeUnit.SECONDS)).isTrue();
+        FileSearch.Summary summary = collector.summary.get(10, TimeUnit.SECONDS);
+        assertThat(summary.cancelled()).isTrue();
+        assertThat(summary.searchedFiles()).isLessThan(200);
+    }
+
+    private Collector search(String glob, SearchQuery query) throws InterruptedException {
+        Collector collector = new Collector();
+        FileSearch search = fileSearcher.start(root, glob, query, collector);
+        assertThat(search.await(10, TimeUnit.SECONDS)).isTrue();
+        return collector;
+    }
+
+    private void write(String name, String content) throws IOException {
+        Path file = root.resolve(name);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+    }
+
+    private static class Collector implements FileSearchListener {
+
+        private final List<FileMatch> matches = Collections.synchronizedList(new ArrayList<>());
+
+        private final CompletableFuture<FileSearch.Summary> summary = new CompletableFuture<>();
+
+        @Override
+        public void onMatches(List<FileMatch> fileMatches) {
+            matches.addAll(fileMatches);
+        }
+
+        @Override
+        public void onFinished(FileSearch.Summary finished) {
+            summary.complete(finished);
+        }
+
+        private List<FileMatch> sortedMatches() {
+            List<FileMatch> sorted = new ArrayList<>(matches);
+            sorted.sort(Comparator.comparing((FileMatch match) -> match.file().getPath()).thenComparingInt(FileMatch::start));
+            return sorted;
+        }
+    }
+}
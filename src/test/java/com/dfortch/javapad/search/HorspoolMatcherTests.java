@@ -0,0 +1,67 @@
+package com.dfortch.javapad.search;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class HorspoolMatcherTests {
+
+    @DisplayName("Index of: finds the first match in range")
+    @Test
+    void testIndexOf_FindsFirstMatchInRange() {
+        HorspoolMatcher matcher = new HorspoolMatcher("needle", true);
+        String text = "haystack needle haystack needle";
+
+        assertThat(matcher.indexOf(text, 0, text.length())).isEqualTo(9);
+        assertThat(matcher.indexOf(text, 10, text.length())).isEqualTo(25);
+        assertThat(matcher.indexOf(text, 10, 30)).isEqualTo(-1);
+    }
+
+    @DisplayName("Ignore case: matches any case")
+    @Test
+    void testIgnoreCase_MatchesAnyCase() {
+        HorspoolMatcher matcher = new HorspoolMatcher("NeEdLe", false);
+
+        assertThat(matcher.indexOf("a NEEDLE", 0, 8)).isEqualTo(2);
+        assertThat(new HorspoolMatcher("NeEdLe", true).indexOf("a NEEDLE", 0, 8)).isEqualTo(-1);
+    }
+
+    @DisplayName("Chars sharing a table entry: no match is skipped")
+    @Test
+    void testCharsSharingTableEntry_NoMatchSkipped() {
+        // U+0161 and 'a' (U+0061) share the low byte
+        HorspoolMatcher matcher = new HorspoolMatcher("šb", true);
+
+        assertThat(matcher.indexOf("xabšb", 0, 5)).isEqualTo(3);
+    }
+
+    @DisplayName("Random text: matches String.indexOf")
+    @Test
+    void testRandomText_MatchesStringIndexOf() {
+        Random random = new Random(7);
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 100_000; i++) {
+            builder.append((char) ('a' + random.nextInt(4)));
+        }
+        String text = builder.toString();
+
+        for (int i = 0; i < 200; i++) {
+            int start = random.nextInt(text.length() - 10);
+            String pattern = text.substring(start, start + 1 + random.nextInt(8));
+            HorspoolMatcher matcher = new HorspoolMatcher(pattern, true);
+            int from = random.nextInt(text.length());
+            assertThat(matcher.indexOf(text, from, text.length())).isEqualTo(text.indexOf(pattern, from));
+        }
+    }
+
+    @DisplayName("Empty pattern: throws IllegalArgumentException")
+    @Test
+    void testEmptyPattern_ThrowsIllegalArgumentException() {
+        assertThatThrownBy(() -> new HorspoolMatcher("", true))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
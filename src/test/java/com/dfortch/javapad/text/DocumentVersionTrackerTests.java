@@ -0,0 +1,140 @@
+package com.dfortch.javapad.text;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.swing.text.BadLocationException;
+import javax.swing.undo.UndoManager;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DocumentVersionTrackerTests {
+
+    private PieceTableDocument document;
+
+    private UndoManager undoManager;
+
+    private DocumentVersionTracker tracker;
+
+    private List<Boolean> dirtyChanges;
+
+    @BeforeEach
+    void setUp() {
+        document = new PieceTableDocument("saved text");
+        undoManager = new UndoManager();
+        tracker = new DocumentVersionTracker(document, undoManager);
+        dirtyChanges = new ArrayList<>();
+        tracker.addDirtyStateListener(dirtyChanges::add);
+    }
+
+    @DisplayName("New tracker: is clean")
+    @Test
+    void testNewTracker_IsClean() {
+        assertThat(tracker.isDirty()).isFalse();
+        assertThat(tracker.getEditCount()).isZero();
+    }
+
+    @DisplayName("Edits: notify only when the dirty state flips")
+    @Test
+    void testEdits_NotifyOnlyOnFlip() throws BadLocationException {
+        for (int i = 0; i < 100; i++) {
+            document.insertString(document.getLength(), "x", null);
+        }
+
+        assertThat(tracker.isDirty()).isTrue();
+        assertThat(tracker.getEditCount()).isEqualTo(100);
+        assertThat(dirtyChanges).containsExactly(true);
+    }
+
+    @DisplayName("Undo to saved version: becomes clean")
+    @Test
+    void testUndoToSavedVersion_BecomesClean() throws BadLocationException {
+        document.insertString(0, "a", null);
+        document.remove(0, 3);
+
+        undoManager.undo();
+        assertThat(tracker.isDirty()).isTrue();
+        undoManager.undo();
+        assertThat(tracker.isDirty()).isFalse();
+        undoManager.redo();
+        assertThat(tracker.isDirty()).isTrue();
+
+        assertThat(dirtyChanges).containsExactly(true, false, true);
+    }
+
+    @DisplayName("Mark saved: undo past the saved version makes it dirty")
+    @Test
+    void testMarkSaved_UndoPastSavedVersionIsDirty() throws BadLocationException {
+        document.insertString(0, "a", null);
+        tracker.markSaved();
+        assertThat(tracker.isDirty()).isFalse();
+
+        undoManager.undo();
+        assertThat(tracker.isDirty()).isTrue();
+        undoManager.redo();
+        assertThat(tracker.isDirty()).isFalse();
+    }
+
+    @DisplayName("Mark earlier version saved: edits made since keep it dirty")
+    @Test
+    void testMarkEarlierVersionSaved_EditsMadeSinceKeepItDirty() throws BadLocationException {
+        document.insertString(0, "a", null);
+        long savedVersion = tracker.getVersion();
+        document.insertString(0, "b", null);
+
+        tracker.markSaved(savedVersion);
+        assertThat(tracker.isDirty()).isTrue();
+
+        undoManager.undo();
+        assertThat(tracker.isDirty()).isFalse();
+    }
+
+    @DisplayName("Content match: detects edits that cancel out")
+    @Test
+    void testContentMatch_DetectsEditsThatCancelOut() throws BadLocationException {
+        tracker.setContentMatchLimit(1024);
+
+        document.insertString(5, "!", null);
+        assertThat(tracker.isDirty()).isTrue();
+        document.remove(5, 1);
+
+        assertThat(tracker.isDirty()).isFalse();
+    }
+
+    @DisplayName("Content match: text with the same hash code as the saved text stays dirty")
+    @Test
+    void testContentMatch_SameHashCodeStaysDirty() throws BadLocationException {
+        document = new PieceTableDocument("Aa");
+        tracker = new DocumentVersionTracker(document, undoManager);
+        tracker.setContentMatchLimit(1024);
+        assertThat("BB".hashCode()).isEqualTo("Aa".hashCode());
+
+        document.remove(0, 2);
+        document.insertString(0, "BB", null);
+
+        assertThat(tracker.isDirty()).isTrue();
+    }
+
+    @DisplayName("Content match disabled: edits that cancel out stay dirty")
+    @Test
+    void testContentMatchDisabled_EditsThatCancelOutStayDirty() throws BadLocationException {
+        document.insertString(5, "!", null);
+        document.remove(5, 1);
+
+        assertThat(tracker.isDirty()).isTrue();
+    }
+
+    @DisplayName("Detach: stops tracking")
+    @Test
+    void testDetach_StopsTracking() throws BadLocationException {
+        tracker.detach();
+
+        document.insertString(0, "a", null);
+
+        assertThat(tracker.isDirty()).isFalse();
+        assertThat(undoManager.canUndo()).isFalse();
+    }
+}
@@ -0,0 +1,241 @@
+package com.dfortch.javapad.text;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Element;
+import javax.swing.text.Position;
+import javax.swing.undo.UndoManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PieceTableDocumentTests {
+
+    private static final int LARGE_FILE_SIZE = 500 * 1024 * 1024;
+
+    private static final int LINE_LENGTH = 100;
+
+    @DisplayName("Line elements: match the text")
+    @Test
+    void testLineElements_MatchText() throws BadLocationException {
+        PieceTableDocument document = new PieceTableDocument("first\nsecond\nthird");
+
+        Element root = document.getDefaultRootElement();
+
+        assertThat(document.getLength()).isEqualTo(18);
+        assertThat(root.getElementCount()).isEqualTo(3);
+        assertThat(root.getElement(1).getStartOffset()).isEqualTo(6);
+        assertThat(root.getElement(1).getEndOffset()).isEqualTo(13);
+        assertThat(root.getElement(2).getEndOffset()).isEqualTo(19);
+        assertThat(root.getElementIndex(7)).isEqualTo(1);
+        assertThat(document.getText(6, 6)).isEqualTo("second");
+    }
+
+    @DisplayName("Insert with line breaks: reports the line change")
+    @Test
+    void testInsertWithLineBreaks_ReportsLineChange() throws BadLocationException {
+        PieceTableDocument document = new PieceTableDocument("first\nsecond");
+        List<DocumentEvent> events = new ArrayList<>();
+        document.addDocumentListener(new RecordingListener(events));
+
+        document.insertString(8, "x\ny\nz", null);
+
+        DocumentEvent.ElementChange change = events.getFirst().getChange(document.getDefaultRootElement());
+        assertThat(change).isNotNull();
+        assertThat(change.getIndex()).isEqualTo(1);
+        assertThat(change.getChildrenRemoved()).hasSize(1);
+        assertThat(change.getChildrenAdded()).hasSize(3);
+        assertThat(document.getDefaultRootElement().getElementCount()).isEqualTo(4);
+    }
+
+    @DisplayName("Undo and redo: restore text and lines")
+    @Test
+    void testUndoAndRedo_RestoreTextAndLines() throws BadLocationException {
+        PieceTableDocument document = new PieceTableDocument("alpha\nbeta\ngamma");
+        UndoManager undoManager = new UndoManager();
+        document.addUndoableEditListener(undoManager);
+
+        document.remove(3, 8);
+        document.insertString(3, "!\n", null);
+        assertThat(document.getText(0, document.getLength())).isEqualTo("alp!\ngamma");
+
+        undoManager.undo();
+        undoManager.undo();
+        assertThat(document.getText(0, document.getLength())).isEqualTo("alpha\nbeta\ngamma");
+        assertThat(document.getDefaultRootElement().getElementCount()).isEqualTo(3);
+
+        undoManager.redo();
+        assertThat(document.getText(0, document.getLength())).isEqualTo("alpgamma");
+        assertThat(document.getDefaultRootElement().getElementCount()).isEqualTo(1);
+    }
+
+    @DisplayName("Positions: follow edits")
+    @Test
+    void testPositions_FollowEdits() throws BadLocationException {
+        PieceTableDocument document = new PieceTableDocument("0123456789");
+        Position position = document.createPosition(5);
+
+        document.insertString(2, "ab", null);
+        assertThat(position.getOffset()).isEqualTo(7);
+
+        document.remove(6, 3);
+        assertThat(position.getOffset()).isEqualTo(6);
+    }
+
+    @DisplayName("Large file: edits stay within heap and latency bounds")
+    @Test
+    void testLargeFile_EditsStayWithinBounds() throws BadLocationException {
+        Runtime runtime = Runtime.getRuntime();
+        long heapBefore = usedHeap(runtime);
+
+        PieceTableDocument document = new PieceTableDocument(new SyntheticText(LARGE_FILE_SIZE, LINE_LENGTH));
+        Random random = new Random(7);
+        int edits = 20_000;
+        long slowest = 0;
+        long total = 0;
+        for (int i = 0; i < edits; i++) {
+            int offset = random.nextInt(document.getLength());
+            long start = System.nanoTime();
+            if (i % 3 == 0) {
+                document.remove(offset, Math.min(16, document.getLength() - offset));
+            } else {
+                document.insertString(offset, i % 10 == 0 ? "new line\n" : "typed", null);
+            }
+            long elapsed = System.nanoTime() - start;
+            total += elapsed;
+            if (i > 1_000) {
+                slowest = Math.max(slowest, elapsed);
+            }
+        }
+        long heapAfter = usedHeap(runtime);
+
+        assertThat(document.getDefaultRootElement().getElementCount()).isGreaterThan(LARGE_FILE_SIZE / LINE_LENGTH);
+        // The line break index of the original buffer is 4 bytes per line; everything else is edits
+        assertThat(heapAfter - heapBefore).isLessThan(64L * 1024 * 1024);
+        assertThat(total / edits).isLessThan(200_000L);
+        assertThat(slowest).isLessThan(50_000_000L);
+    }
+
+    @DisplayName("Line index: matches the text after random edits")
+    @Test
+    void testLineIndex_MatchesTextAfterRandomEdits() throws BadLocationException {
+        PieceTableDocument document = new PieceTableDocument("one\ntwo\n\nthree");
+        Random random = new Random(11);
+        String[] inserts = {"x", "\n", "ab\ncd", "\n\n", "tail\n"};
+        for (int i = 0; i < 500; i++) {
+            int offset = random.nextInt(document.getLength() + 1);
+            if (random.nextInt(3) == 0 && offset < document.getLength()) {
+                document.remove(offset, Math.min(1 + random.nextInt(4), document.getLength() - offset));
+            } else {
+                document.insertString(offset, inserts[random.nextInt(inserts.length)], null);
+            }
+
+            String text = document.getText(0, document.getLength());
+            List<Integer> lineStarts = new ArrayList<>(List.of(0));
+            for (int j = 0; j < text.length(); j++) {
+                if (text.charAt(j) == '\n') {
+                    lineStarts.add(j + 1);
+                }
+            }
+            assertThat(document.getLineCount()).isEqualTo(lineStarts.size());
+            int line = random.nextInt(lineStarts.size());
+            assertThat(document.getLineStartOffset(line)).isEqualTo(lineStarts.get(line));
+            int probe = random.nextInt(text.length() + 1);
+            int expectedLine = (int) text.substring(0, probe).chars().filter(c -> c == '\n').count();
+            assertThat(document.getLineOfOffset(probe)).isEqualTo(expectedLine);
+            assertThat(document.getColumnOfOffset(probe)).isEqualTo(probe - lineStarts.get(expectedLine));
+        }
+    }
+
+    @DisplayName("Line index over ten million lines: caret queries stay fast")
+    @Test
+    void testLineIndexOverTenMillionLines_CaretQueriesStayFast() throws BadLocationException {
+        int lineLength = 16;
+        int lines = 10_000_000;
+        PieceTableDocument document = new PieceTableDocument(new SyntheticText(lines * lineLength, lineLength));
+        Random random = new Random(13);
+
+        for (int i = 0; i < 1_000; i++) {
+            int offset = random.nextInt(document.getLength());
+            document.insertString(offset, i % 4 == 0 ? "\n" : "typed", null);
+        }
+        int lineCount = document.getLineCount();
+        assertThat(lineCount).isEqualTo(lines + 1 + 250);
+
+        int queries = 1_000_000;
+        long checksum = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < queries; i++) {
+            int offset = random.nextInt(document.getLength() + 1);
+            int line = document.getLineOfOffset(offset);
+            checksum += offset - document.getLineStartOffset(line);
+        }
+        long elapsed = System.nanoTime() - start;
+
+        assertThat(checksum).isPositive();
+        assertThat(elapsed / queries).isLessThan(20_000L);
+        for (int i = 0; i < 1_000; i++) {
+            int line = random.nextInt(lineCount);
+            int lineStart = document.getLineStartOffset(line);
+            assertThat(document.getLineOfOffset(lineStart)).isEqualTo(line);
+            if (line > 0) {
+                assertThat(document.getText(lineStart - 1, 1)).isEqualTo("\n");
+            }
+        }
+    }
+
+    private static long usedHeap(Runtime runtime) {
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Generates file-like text on the fly so the test measures the document, not the fixture.
+     */
+    private record SyntheticText(int length, int lineLength) implements CharSequence {
+
+        @Override
+        public char charAt(int index) {
+            int column = index % lineLength;
+            return column == lineLength - 1 ? '\n' : (char) ('a' + column % 26);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            StringBuilder builder = new StringBuilder(end - start);
+            for (int i = start; i < end; i++) {
+                builder.append(charAt(i));
+            }
+            return builder.toString();
+        }
+
+        @Override
+        public String toString() {
+            return "SyntheticText[" + length + "]";
+        }
+    }
+
+    private record RecordingListener(List<DocumentEvent> events) implements DocumentListener {
+
+        @Override
+        public void insertUpdate(DocumentEvent e) {
+            events.add(e);
+        }
+
+        @Override
+        public void removeUpdate(DocumentEvent e) {
+            events.add(e);
+        }
+
+        @Override
+        public void changedUpdate(DocumentEvent e) {
+            events.add(e);
+        }
+    }
+}
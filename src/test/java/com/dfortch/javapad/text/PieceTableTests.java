@@ -0,0 +1,195 @@
+package com.dfortch.javapad.text;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.swing.text.Segment;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PieceTableTests {
+
+    @DisplayName("New table: exposes original text")
+    @Test
+    void testNewTable_ExposesOriginalText() {
+        PieceTable table = new PieceTable("Hello\nWorld");
+
+        assertThat(table.length()).isEqualTo(11);
+        assertThat(table.getString(0, 11)).isEqualTo("Hello\nWorld");
+        assertThat(table.getPieceCount()).isEqualTo(1);
+        assertThat(table.getAddBufferLength()).isZero();
+    }
+
+    @DisplayName("Insert and remove: success")
+    @Test
+    void testInsertAndRemove_Success() {
+        PieceTable table = new PieceTable("Hello World");
+
+        table.insert(5, ",");
+        table.insert(12, "!");
+        table.remove(0, 1);
+        table.insert(0, "J");
+
+        assertThat(table.getString(0, table.length())).isEqualTo("Jello, World!");
+    }
+
+    @DisplayName("Consecutive typing: extends the last piece")
+    @Test
+    void testConsecutiveTyping_ExtendsLastPiece() {
+        PieceTable table = new PieceTable("abc");
+
+        table.insert(1, "x");
+        int pieces = table.getPieceCount();
+        table.insert(2, "y");
+        table.insert(3, "z");
+
+        assertThat(table.getPieceCount()).isEqualTo(pieces);
+        assertThat(table.getString(0, table.length())).isEqualTo("axyzbc");
+    }
+
+    @DisplayName("Count pieces: counts the pieces overlapping the range")
+    @Test
+    void testCountPieces_CountsOverlappingPieces() {
+        PieceTable table = new PieceTable("abcdef");
+        table.insert(2, "XY");
+        table.insert(6, "Z");
+
+        assertThat(table.getString(0, table.length())).isEqualTo("abXYcdZef");
+        assertThat(table.getPieceCount()).isEqualTo(5);
+        assertThat(table.countPieces(0, 2)).isEqualTo(1);
+        assertThat(table.countPieces(1, 2)).isEqualTo(2);
+        assertThat(table.countPieces(1, 7)).isEqualTo(5);
+        assertThat(table.countPieces(3, 0)).isZero();
+    }
+
+    @DisplayName("Remove and restore: puts detached pieces back")
+    @Test
+    void testRemoveAndRestore_Success() {
+        PieceTable table = new PieceTable("one\ntwo\nthree");
+
+        PieceTable.Piece removed = table.remove(2, 6);
+        assertThat(table.getString(0, table.length())).isEqualTo("onthree");
+        assertThat(removed.getTotalLength()).isEqualTo(6);
+
+        table.restore(2, removed);
+
+        assertThat(table.getString(0, table.length())).isEqualTo("one\ntwo\nthree");
+        assertThat(table.getLineCount()).isEqualTo(3);
+    }
+
+    @DisplayName("Line queries: success")
+    @Test
+    void testLineQueries_Success() {
+        PieceTable table = new PieceTable("a\nbb\n\nccc");
+        table.insert(2, "x\ny");
+
+        // a\nx\nybb\n\nccc
+        assertThat(table.getLineCount()).isEqualTo(5);
+        assertThat(table.getLineStartOffset(0)).isZero();
+        assertThat(table.getLineStartOffset(1)).isEqualTo(2);
+        assertThat(table.getLineStartOffset(2)).isEqualTo(4);
+        assertThat(table.getLineStartOffset(3)).isEqualTo(8);
+        assertThat(table.getLineStartOffset(4)).isEqualTo(9);
+        assertThat(table.getLineOfOffset(0)).isZero();
+        assertThat(table.getLineOfOffset(1)).isZero();
+        assertThat(table.getLineOfOffset(2)).isEqualTo(1);
+        assertThat(table.getLineOfOffset(7)).isEqualTo(2);
+        assertThat(table.getLineOfOffset(table.length())).isEqualTo(4);
+    }
+
+    @DisplayName("Get text: shares the add buffer for single piece ranges")
+    @Test
+    void testGetText_SharesBufferForSinglePiece() {
+        PieceTable table = new PieceTable("abc");
+        table.insert(3, "defgh");
+        Segment segment = new Segment();
+
+        table.getText(4, 3, segment);
+
+        assertThat(segment.toString()).isEqualTo("efg");
+        assertThat(segment.offset).isEqualTo(1);
+    }
+
+    @DisplayName("Get text with partial return: stops at the piece boundary")
+    @Test
+    void testGetTextPartialReturn_StopsAtPieceBoundary() {
+        PieceTable table = new PieceTable("abc");
+        table.insert(0, "xyz");
+        Segment segment = new Segment();
+        segment.setPartialReturn(true);
+
+        table.getText(1, 4, segment);
+
+        assertThat(segment.toString()).isEqualTo("yz");
+    }
+
+    @DisplayName("Random edits: match a StringBuilder")
+    @Test
+    void testRandomEdits_MatchStringBuilder() {
+        Random random = new Random(42);
+        StringBuilder expected = new StringBuilder("line 1\nline 2\nline 3\n");
+        PieceTable table = new PieceTable(expected.toString());
+
+        for (int i = 0; i < 5_000; i++) {
+            if (expected.length() > 0 && random.nextInt(3) == 0) {
+                int offset = random.nextInt(expected.length());
+                int length = random.nextInt(Math.min(20, expected.length() - offset) + 1);
+                table.remove(offset, length);
+                expected.delete(offset, offset + length);
+            } else {
+                int offset = random.nextInt(expected.length() + 1);
+                String text = random.nextInt(4) == 0 ? "\n" : "ab" + i;
+                table.insert(offset, text);
+                expected.insert(offset, text);
+            }
+        }
+
+        assertThat(table.getString(0, table.length())).isEqualTo(expected.toString());
+        assertThat(table.getLineCount()).isEqualTo(expected.toString().split("\n", -1).length);
+        for (int offset = 0; offset <= expected.length(); offset += 7) {
+            int line = table.getLineOfOffset(offset);
+            assertThat(line).isEqualTo(countLineBreaks(expected, offset));
+            int lineStart = table.getLineStartOffset(line);
+            assertThat(lineStart).isEqualTo(expected.lastIndexOf("\n", offset - 1) + 1);
+        }
+    }
+
+    @DisplayName("Snapshot: keeps its text while the table is edited")
+    @Test
+    void testSnapshot_KeepsTextWhileTableIsEdited() {
+        PieceTable table = new PieceTable("Hello World");
+        table.insert(5, ",");
+        table.insert(12, "!");
+        PieceTable.Snapshot snapshot = table.snapshot();
+
+        table.remove(0, 7);
+        table.insert(table.length(), "x".repeat(10_000));
+
+        assertThat(snapshot).hasToString("Hello, World!");
+        assertThat(snapshot.charAt(5)).isEqualTo(',');
+        char[] chars = new char[4];
+        snapshot.getChars(4, 8, chars, 0);
+        assertThat(new String(chars)).isEqualTo("o, W");
+    }
+
+    @DisplayName("Remove out of range: throws IndexOutOfBoundsException")
+    @Test
+    void testRemoveOutOfRange_ThrowsIndexOutOfBoundsException() {
+        PieceTable table = new PieceTable("abc");
+
+        assertThatThrownBy(() -> table.remove(2, 5))
+                .isInstanceOf(IndexOutOfBoundsException.class);
+    }
+
+    private static int countLineBreaks(CharSequence text, int end) {
+        int count = 0;
+        for (int i = 0; i < end; i++) {
+            if (text.charAt(i) == '\n') {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,169 @@
+package com.dfortch.javapad.text;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.swing.text.BadLocationException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UndoHistoryTests {
+
+    private long now;
+
+    private PieceTableDocument document;
+
+    private UndoHistory history;
+
+    private DocumentVersionTracker tracker;
+
+    @BeforeEach
+    void setUp() {
+        document = new PieceTableDocument();
+        history = new UndoHistory(1024 * 1024, () -> now);
+        tracker = new DocumentVersionTracker(document, history);
+    }
+
+    @DisplayName("Typing: undone a word at a time")
+    @Test
+    void testTyping_UndoneAWordAtATime() throws BadLocationException {
+        type("hello world");
+
+        history.undo();
+        assertThat(text()).isEqualTo("hello ");
+        history.undo();
+        assertThat(text()).isEmpty();
+        assertThat(history.canUndo()).isFalse();
+        assertThat(tracker.isDirty()).isFalse();
+
+        history.redo();
+        assertThat(text()).isEqualTo("hello ");
+    }
+
+    @DisplayName("Typing pause: starts a new step")
+    @Test
+    void testTypingPause_StartsNewStep() throws BadLocationException {
+        type("ab");
+        now += UndoHistory.TYPING_PAUSE_NANOS + 1;
+        type("cd");
+
+        history.undo();
+
+        assertThat(text()).isEqualTo("ab");
+    }
+
+    @DisplayName("Caret jump: starts a new step")
+    @Test
+    void testCaretJump_StartsNewStep() throws BadLocationException {
+        type("abc");
+        document.insertString(0, "x", null);
+
+        history.undo();
+
+        assertThat(text()).isEqualTo("abc");
+    }
+
+    @DisplayName("Backspace run: undone at once")
+    @Test
+    void testBackspaceRun_UndoneAtOnce() throws BadLocationException {
+        document.insertString(0, "hello world", null);
+        for (int i = 0; i < 5; i++) {
+            document.remove(document.getLength() - 1, 1);
+        }
+        assertThat(text()).isEqualTo("hello ");
+
+        history.undo();
+
+        assertThat(text()).isEqualTo("hello world");
+    }
+
+    @DisplayName("Typing after undo: not merged into the undone step")
+    @Test
+    void testTypingAfterUndo_StartsNewStep() throws BadLocationException {
+        type("abc");
+        history.undo();
+        type("xy");
+
+        history.undo();
+
+        assertThat(text()).isEmpty();
+        assertThat(history.canRedo()).isTrue();
+    }
+
+    @DisplayName("Memory budget exceeded: drops the oldest steps")
+    @Test
+    void testMemoryBudgetExceeded_DropsOldestSteps() throws BadLocationException {
+        history.setMemoryLimit(10 * UndoHistory.EDIT_BYTES);
+
+        for (int i = 0; i < 20; i++) {
+            document.insertString(document.getLength(), "line " + i + "\n", null);
+        }
+
+        assertThat(history.getMemoryUsage()).isLessThanOrEqualTo(10 * UndoHistory.EDIT_BYTES);
+        int undone = 0;
+        while (history.canUndo()) {
+            history.undo();
+            undone++;
+        }
+        assertThat(undone).isEqualTo(10);
+        assertThat(text()).startsWith("line 0\n").endsWith("line 9\n");
+    }
+
+    @DisplayName("Large removal: charged per piece, not per char")
+    @Test
+    void testLargeRemoval_ChargedPerPiece() throws BadLocationException {
+        PieceTableDocument large = new PieceTableDocument("x".repeat(1_000_000));
+        UndoHistory largeHistory = new UndoHistory(1024 * 1024, () -> now);
+        large.addUndoableEditListener(largeHistory);
+
+        large.remove(10, 999_000);
+
+        assertThat(largeHistory.getMemoryUsage()).isEqualTo(UndoHistory.EDIT_BYTES + UndoHistory.PIECE_BYTES);
+        largeHistory.undo();
+        assertThat(large.getLength()).isEqualTo(1_000_000);
+    }
+
+    @DisplayName("Compound edit: undone at once")
+    @Test
+    void testCompoundEdit_UndoneAtOnce() throws BadLocationException {
+        type("one two one");
+
+        history.beginCompoundEdit();
+        document.replace(8, 3, "1", null);
+        document.replace(0, 3, "1", null);
+        history.endCompoundEdit();
+        assertThat(text()).isEqualTo("1 two 1");
+
+        history.undo();
+
+        assertThat(text()).isEqualTo("one two one");
+        history.redo();
+        assertThat(text()).isEqualTo("1 two 1");
+    }
+
+    @DisplayName("Discard all edits: frees the memory and notifies listeners")
+    @Test
+    void testDiscardAllEdits_FreesMemoryAndNotifies() throws BadLocationException {
+        AtomicInteger notifications = new AtomicInteger();
+        history.addChangeListener(e -> notifications.incrementAndGet());
+        type("abc");
+        assertThat(history.getMemoryUsage()).isEqualTo(3 * UndoHistory.EDIT_BYTES);
+
+        history.discardAllEdits();
+
+        assertThat(history.getMemoryUsage()).isZero();
+        assertThat(notifications).hasValue(4);
+    }
+
+    private void type(String text) throws BadLocationException {
+        for (char c : text.toCharArray()) {
+            document.insertString(document.getLength(), String.valueOf(c), null);
+        }
+    }
+
+    private String text() throws BadLocationException {
+        return document.getText(0, document.getLength());
+    }
+}
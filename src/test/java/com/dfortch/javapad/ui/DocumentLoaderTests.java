@@ -0,0 +1,277 @@
+package com.dfortch.javapad.ui;
+
+import com.dfortch.javapad.io.StreamingTextReader;
+import com.dfortch.javapad.text.PieceTableDocument;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.swing.*;
+import javax.swing.text.BadLocationException;
+import java.awt.*;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DocumentLoaderTests {
+
+    private static final long FRAME_NANOS = 16_000_000L;
+
+    private TimingEventQueue eventQueue;
+
+    private JTextArea textArea;
+
+    @BeforeEach
+    void setUp() throws InterruptedException, InvocationTargetException {
+        eventQueue = new TimingEventQueue();
+        Toolkit.getDefaultToolkit().getSystemEventQueue().push(eventQueue);
+        SwingUtilities.invokeAndWait(() -> textArea = new JTextArea());
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException, InvocationTargetException {
+        SwingUtilities.invokeAndWait(eventQueue::pop);
+    }
+
+    @DisplayName("Load from slow stream: EDT never blocks longer than a frame")
+    @Test
+    void testLoadFromSlowStream_EdtNeverBlocksLongerThanAFrame() throws Exception {
+        // Warm up class loading and the JIT so the measured run sees steady state behaviour
+        load(createText(60_000), 64 * 1024, 0);
+
+        String text = createText(60_000);
+        eventQueue.reset();
+        RecordingListener listener = load(text, 16 * 1024, 1);
+
+        assertThat(listener.finished.getCount()).isZero();
+        assertThat(listener.firstScreenBeforeEnd).isTrue();
+        assertThat(documentText(listener.document)).isEqualTo(text);
+        assertThat(eventQueue.slowestDispatchNanos).isLessThan(FRAME_NANOS);
+    }
+
+    @DisplayName("Cancel: stops reading and reports cancellation")
+    @Test
+    void testCancel_StopsReading() throws Exception {
+        ThrottledInputStream stream = new ThrottledInputStream(createText(60_000).getBytes(StandardCharsets.UTF_8), 4 * 1024, 5);
+        RecordingListener listener = new RecordingListener(stream);
+        DocumentLoader loader = new DocumentLoader(
+                chunkListener -> new StreamingTextReader(StandardCharsets.UTF_8).read(stream, chunkListener), listener);
+
+        loader.start(stream.length());
+        assertThat(listener.created.await(5, TimeUnit.SECONDS)).isTrue();
+        SwingUtilities.invokeAndWait(loader::cancel);
+        int readAfterCancel = stream.position();
+        Thread.sleep(100);
+
+        assertThat(listener.cancelled).isTrue();
+        assertThat(listener.finished.getCount()).isEqualTo(1);
+        assertThat(stream.position()).isLessThanOrEqualTo(readAfterCancel + 4 * 1024);
+        assertThat(stream.position()).isLessThan(stream.length());
+    }
+
+    @DisplayName("Failing stream: reports the failure")
+    @Test
+    void testFailingStream_ReportsFailure() throws Exception {
+        RecordingListener listener = new RecordingListener(null);
+        DocumentLoader loader = new DocumentLoader(chunkListener -> {
+            chunkListener.onChunk("partial", 7);
+            throw new IOException("Disk gone");
+        }, listener);
+
+        loader.start(0);
+
+        assertThat(listener.finished.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(listener.failure.get()).hasMessage("Disk gone");
+    }
+
+    @DisplayName("Restarting source: text read before the restart is discarded")
+    @Test
+    void testRestartingSource_DiscardsTextReadBefore() throws Exception {
+        RecordingListener listener = new RecordingListener(null);
+        DocumentLoader loader = new DocumentLoader(chunkListener -> {
+            chunkListener.onChunk("caf\u00c3", 4);
+            chunkListener.onRestart();
+            chunkListener.onChunk("caf\u00e9", 4);
+        }, listener);
+
+        loader.start(0);
+
+        assertThat(listener.finished.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(listener.failure.get()).isNull();
+        assertThat(documentText(listener.document)).isEqualTo("caf\u00e9");
+    }
+
+    private RecordingListener load(String text, int readSize, long delayMillis) throws InterruptedException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        ThrottledInputStream stream = new ThrottledInputStream(bytes, readSize, delayMillis);
+        RecordingListener listener = new RecordingListener(stream);
+        DocumentLoader loader = new DocumentLoader(
+                chunkListener -> new StreamingTextReader(StandardCharsets.UTF_8).read(stream, chunkListener), listener);
+
+        loader.start(bytes.length);
+
+        assertThat(listener.finished.await(60, TimeUnit.SECONDS)).isTrue();
+        return listener;
+    }
+
+    private static String createText(int lines) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < lines; i++) {
+            builder.append("Line ").append(i).append(": the quick brown fox jumps over the lazy dog ñ\n");
+        }
+        return builder.toString();
+    }
+
+    private static String documentText(PieceTableDocument document) throws BadLocationException {
+        return document.getText(0, document.getLength());
+    }
+
+    private class RecordingListener implements DocumentLoader.Listener {
+
+        private final ThrottledInputStream stream;
+
+        private final CountDownLatch created = new CountDownLatch(1);
+
+        private final CountDownLatch finished = new CountDownLatch(1);
+
+        private final AtomicReference<IOException> failure = new AtomicReference<>();
+
+        private volatile PieceTableDocument document;
+
+        private volatile boolean firstScreenBeforeEnd;
+
+        private volatile boolean cancelled;
+
+        private RecordingListener(ThrottledInputStream stream) {
+            this.stream = stream;
+        }
+
+        @Override
+        public void onDocumentCreated(PieceTableDocument document) {
+            this.document = document;
+            textArea.setDocument(document);
+            created.countDown();
+        }
+
+        @Override
+        public void onProgress(long bytesRead) {
+            if (stream != null && !stream.isExhausted() && document.getLength() > 0) {
+                firstScreenBeforeEnd = true;
+            }
+        }
+
+        @Override
+        public void onFinished() {
+            finished.countDown();
+        }
+
+        @Override
+        public void onFailed(IOException e) {
+            failure.set(e);
+            finished.countDown();
+        }
+
+        @Override
+        public void onCancelled() {
+            cancelled = true;
+        }
+    }
+
+    /**
+     * Stand-in for a slow mount: returns at most {@code readSize} bytes per read and sleeps
+     * before each read.
+     */
+    private static class ThrottledInputStream extends InputStream {
+
+        private final ByteArrayInputStream delegate;
+
+        private final int length;
+
+        private final int readSize;
+
+        private final long delayMillis;
+
+        private final AtomicBoolean exhausted = new AtomicBoolean();
+
+        private ThrottledInputStream(byte[] bytes, int readSize, long delayMillis) {
+            this.delegate = new ByteArrayInputStream(bytes);
+            this.length = bytes.length;
+            this.readSize = readSize;
+            this.delayMillis = delayMillis;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (delayMillis > 0) {
+                try {
+                    Thread.sleep(delayMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while throttling");
+                }
+            }
+            int read = delegate.read(b, off, Math.min(len, readSize));
+            if (read < 0) {
+                exhausted.set(true);
+            }
+            return read;
+        }
+
+        private int length() {
+            return length;
+        }
+
+        private int position() {
+            return length - delegate.available();
+        }
+
+        private boolean isExhausted() {
+            return exhausted.get();
+        }
+    }
+
+    /**
+     * Measures how long every event keeps the EDT busy. CPU time is used rather than wall time so
+     * that the thread being descheduled on a loaded build machine does not count as blocking.
+     */
+    private static class TimingEventQueue extends EventQueue {
+
+        private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+        private volatile long slowestDispatchNanos;
+
+        @Override
+        protected void dispatchEvent(AWTEvent event) {
+            long start = threads.getCurrentThreadCpuTime();
+            super.dispatchEvent(event);
+            slowestDispatchNanos = Math.max(slowestDispatchNanos, threads.getCurrentThreadCpuTime() - start);
+        }
+
+        private void reset() {
+            slowestDispatchNanos = 0;
+        }
+
+        @Override
+        public void pop() {
+            super.pop();
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package com.dfortch.javapad.ui;
+
+import com.dfortch.javapad.io.MappedTextFile;
+import com.dfortch.javapad.text.PieceTableDocument;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.swing.text.BadLocationException;
+import javax.swing.text.View;
+import java.awt.*;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+
+class EditorTextAreaTests {
+
+    private static final int TAB_SIZE = 4;
+
+    private static final int MAPPED_LINES = 200_000;
+
+    @TempDir
+    Path directory;
+
+    private EditorTextArea area;
+
+    private int charWidth;
+
+    @BeforeEach
+    void setUp() {
+        area = new EditorTextArea();
+        area.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        area.setSize(800, 600);
+        charWidth = area.getFontMetrics(area.getFont()).charWidth('m');
+    }
+
+    @DisplayName("Monospaced font: shown by the monospaced view")
+    @Test
+    void testMonospacedFont_MonospacedView() {
+        show(new PieceTableDocument("text"));
+
+        assertThat(rootView()).isInstanceOf(MonospacedView.class);
+    }
+
+    @DisplayName("Tabs: positions are columns times the char width")
+    @Test
+    void testTabs_PositionsAreColumns() throws BadLocationException {
+        show(new PieceTableDocument("a\tbc\td\nxy"));
+
+        assertThat(x(1)).isEqualTo(1 * charWidth);
+        assertThat(x(2)).isEqualTo(4 * charWidth);
+        assertThat(x(5)).isEqualTo(8 * charWidth);
+        assertThat(x(8)).isEqualTo(1 * charWidth);
+        assertThat(area.viewToModel2D(new Point(4 * charWidth + 1, 1))).isEqualTo(2);
+        assertThat(rootView().getPreferredSpan(View.X_AXIS)).isEqualTo(9f * charWidth);
+    }
+
+    @DisplayName("Long line with tabs: positions match a scan from the line start")
+    @Test
+    void testLongLineWithTabs_PositionsMatchScan() throws BadLocationException {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 20 * MonospacedView.BLOCK_CHARS; i++) {
+            text.append(i % 37 == 0 ? '\t' : (char) ('a' + i % 26));
+        }
+        text.append("x".repeat(3 * MonospacedView.BLOCK_CHARS));
+        PieceTableDocument document = new PieceTableDocument(text);
+        show(document);
+
+        assertPositionsMatchScan(document);
+        document.insertString(5000, "\tq", null);
+        document.remove(text.length() - 10, 3);
+        document.insertString(text.length() - 100, "zz", null);
+
+        assertPositionsMatchScan(document);
+    }
+
+    @DisplayName("Long line without tabs: edits change the width by the chars typed")
+    @Test
+    void testLongLineWithoutTabs_EditsChangeWidth() throws BadLocationException {
+        int length = 1_000_000;
+        PieceTableDocument document = new PieceTableDocument("z".repeat(length) + "\nshort");
+        show(document);
+        assertThat(rootView().getPreferredSpan(View.X_AXIS)).isEqualTo((float) length * charWidth);
+
+        document.insertString(length / 2, "abc", null);
+        assertThat(rootView().getPreferredSpan(View.X_AXIS)).isEqualTo((float) (length + 3) * charWidth);
+
+        document.remove(0, 10);
+        assertThat(rootView().getPreferredSpan(View.X_AXIS)).isEqualTo((float) (length - 7) * charWidth);
+        assertThat(x(length - 7)).isEqualTo((length - 7) * charWidth);
+    }
+
+    @DisplayName("Removed lines: lines below keep their positions")
+    @Test
+    void testRemovedLines_LinesBelowKeepPositions() throws BadLocationException {
+        String longLine = "\t" + "y".repeat(2 * MonospacedView.LONG_LINE_CHARS);
+        PieceTableDocument document = new PieceTableDocument("one\ntwo\n" + longLine + "\nlast");
+        show(document);
+
+        document.remove(0, 8);
+
+        assertThat(x(3)).isEqualTo((TAB_SIZE + 2) * charWidth);
+        assertThat(x(longLine.length())).isEqualTo((TAB_SIZE + longLine.length() - 1) * charWidth);
+        assertThat(rootView().getPreferredSpan(View.X_AXIS)).isEqualTo((float) (TAB_SIZE + longLine.length() - 1) * charWidth);
+    }
+
+    @DisplayName("Proportional font: width follows the longest line when it gets shorter or is removed")
+    @Test
+    void testProportionalFont_WidthFollowsLongestLine() throws BadLocationException {
+        area.setFont(new Font(Font.SERIF, Font.PLAIN, 12));
+        assumeFalse(MonospacedView.isMonospaced(area), "No proportional font installed");
+        FontMetrics metrics = area.getFontMetrics(area.getFont());
+        PieceTableDocument document = new PieceTableDocument("middle line\n" + "W".repeat(200) + "\nshort");
+        show(document);
+        assertThat(rootView()).isNotInstanceOf(MonospacedView.class);
+        assertThat(rootView().getPreferredSpan(View.X_AXIS)).isEqualTo(metrics.stringWidth("W".repeat(200)));
+
+        document.remove(document.getLineStartOffset(1), 199);
+        assertThat(rootView().getPreferredSpan(View.X_AXIS)).isEqualTo(metrics.stringWidth("middle line"));
+
+        document.insertString(document.getLength(), "W".repeat(100), null);
+        assertThat(rootView().getPreferredSpan(View.X_AXIS)).isEqualTo(metrics.stringWidth("short" + "W".repeat(100)));
+
+        document.remove(document.getLineStartOffset(1), document.getLength() - document.getLineStartOffset(1));
+        assertThat(rootView().getPreferredSpan(View.X_AXIS)).isEqualTo(metrics.stringWidth("middle line"));
+    }
+
+    @DisplayName("Paint far out on a long line: draws the visible slice")
+    @Test
+    void testPaintFarOutOnLongLine_DrawsVisibleSlice() throws BadLocationException {
+        int length = 5_000_000;
+        PieceTableDocument document = new PieceTableDocument("-".repeat(length - 1) + "W");
+        show(document);
+        area.setSize(area.getPreferredSize());
+        Rectangle2D end = area.modelToView2D(length - 1);
+        BufferedImage image = new BufferedImage(200, 20, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.translate(-(int) end.getX() + 100, 0);
+        g.setClip((int) end.getX() - 100, 0, 200, 20);
+
+        area.paint(g);
+        g.dispose();
+
+        assertThat(hasForegroundPixel(image, 100, 100 + charWidth)).isTrue();
+    }
+
+    @DisplayName("Viewer: the first paint of a mapped file decodes only the visible windows")
+    @Test
+    void testViewer_FirstPaintDecodesVisibleWindows() throws IOException, BadLocationException {
+        try (MappedTextFile mapped = MappedTextFile.open(writeLines(), StandardCharsets.UTF_8)) {
+            area.setViewer(true);
+            show(new PieceTableDocument(mapped, mapped.getLineBreaks()));
+
+            assertThat(area.getPreferredSize().width).isGreaterThanOrEqualTo(60 * charWidth);
+            paint();
+
+            assertThat(mapped.getWindowsDecoded()).isLessThanOrEqualTo(1);
+            assertThat(rootView().getPreferredSpan(View.X_AXIS)).isEqualTo((float) (TAB_SIZE + 59) * charWidth);
+        }
+    }
+
+    @DisplayName("Viewer with a proportional font: laid out in a monospaced font without decoding the file")
+    @Test
+    void testViewerProportionalFont_LaidOutMonospaced() throws IOException {
+        area.setFont(new Font(Font.SERIF, Font.PLAIN, 12));
+        assumeFalse(MonospacedView.isMonospaced(area), "No proportional font installed");
+        try (MappedTextFile mapped = MappedTextFile.open(writeLines(), StandardCharsets.UTF_8)) {
+            area.setViewer(true);
+            show(new PieceTableDocument(mapped, mapped.getLineBreaks()));
+
+            assertThat(rootView()).isInstanceOf(MonospacedView.class);
+            area.getPreferredSize();
+            paint();
+
+            assertThat(mapped.getWindowsDecoded()).isLessThanOrEqualTo(1);
+        }
+    }
+
+    /**
+     * Writes {@link #MAPPED_LINES} lines of 60 chars, several windows of text, whose first line
+     * starts with a tab.
+     */
+    private File writeLines() throws IOException {
+        StringBuilder text = new StringBuilder();
+        text.append('\t').append("x".repeat(59)).append('\n');
+        for (int line = 1; line < MAPPED_LINES; line++) {
+            text.append(String.format("%059d", line)).append('\n');
+        }
+        Path file = directory.resolve("mapped.txt");
+        Files.writeString(file, text, StandardCharsets.UTF_8);
+        return file.toFile();
+    }
+
+    private void paint() {
+        BufferedImage image = new BufferedImage(800, 600, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setClip(0, 0, 800, 600);
+        area.paint(g);
+        g.dispose();
+    }
+
+    private void assertPositionsMatchScan(PieceTableDocument document) throws BadLocationException {
+        String text = document.getText(0, document.getLength());
+        int column = 0;
+        for (int offset = 0; offset <= text.length(); offset++) {
+            if (offset % 97 == 0 || offset == text.length()) {
+                assertThat(x(offset)).as("x of offset %d", offset).isEqualTo(column * charWidth);
+                assertThat(area.viewToModel2D(new Point(column * charWidth, 1))).as("offset at column %d", column)
+                        .isEqualTo(offset);
+            }
+            if (offset < text.length()) {
+                column = text.charAt(offset) == '\t' ? (column / TAB_SIZE + 1) * TAB_SIZE : column + 1;
+            }
+        }
+        assertThat(rootView().getPreferredSpan(View.X_AXIS)).isEqualTo((float) column * charWidth);
+    }
+
+    private boolean hasForegroundPixel(BufferedImage image, int fromX, int toX) {
+        int background = area.getBackground().getRGB() & 0xFFFFFF;
+        for (int x = fromX; x < toX; x++) {
+            for (int y = 0; y < image.getHeight(); y++) {
+                if ((image.getRGB(x, y) & 0xFFFFFF) != background) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Shows {@code document} with the test tab size, which is a property of the document.
+     */
+    private void show(PieceTableDocument document) {
+        area.setDocument(document);
+        area.setTabSize(TAB_SIZE);
+    }
+
+    private int x(int offset) throws BadLocationException {
+        return (int) area.modelToView2D(offset).getX() - area.getInsets().left;
+    }
+
+    private View rootView() {
+        return area.getUI().getRootView(area).getView(0);
+    }
+}
@@ -0,0 +1,87 @@
+package com.dfortch.javapad.ui;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FontCatalogTests {
+
+    @TempDir
+    Path directory;
+
+    private final AtomicInteger enumerations = new AtomicInteger();
+
+    private final AtomicReference<String> fingerprint = new AtomicReference<>("fonts-1");
+
+    private FontCatalog createCatalog(String... families) {
+        Supplier<String[]> enumerator = () -> {
+            enumerations.incrementAndGet();
+            return families;
+        };
+        return new FontCatalog(directory.resolve("cache").resolve("font_catalog"), enumerator, fingerprint::get);
+    }
+
+    @DisplayName("Load: families are enumerated once per catalogue")
+    @Test
+    void testLoad_EnumeratedOnce() throws Exception {
+        FontCatalog catalog = createCatalog("Serif", "Monospaced");
+
+        assertThat(catalog.load()).containsExactly("Serif", "Monospaced");
+        assertThat(catalog.load()).containsExactly("Serif", "Monospaced");
+        assertThat(catalog.getFamilies().get(5, TimeUnit.SECONDS)).containsExactly("Serif", "Monospaced");
+        assertThat(enumerations).hasValue(1);
+    }
+
+    @DisplayName("Load: a later run reads the families from the cache file")
+    @Test
+    void testLoad_SameFingerprint_ReadFromCache() {
+        createCatalog("Serif", "Monospaced").load();
+
+        assertThat(createCatalog("Other").load()).containsExactly("Serif", "Monospaced");
+        assertThat(enumerations).hasValue(1);
+    }
+
+    @DisplayName("Load: a changed fingerprint enumerates the families again")
+    @Test
+    void testLoad_ChangedFingerprint_EnumeratedAgain() {
+        createCatalog("Serif").load();
+        fingerprint.set("fonts-2");
+
+        assertThat(createCatalog("Serif", "Fira Code").load()).containsExactly("Serif", "Fira Code");
+        assertThat(enumerations).hasValue(2);
+    }
+
+    @DisplayName("Get families: loads on a thread of its own when nothing loaded them")
+    @Test
+    void testGetFamilies_NotLoaded_LoadsInBackground() throws Exception {
+        FontCatalog catalog = createCatalog("Serif");
+
+        assertThat(catalog.getFamilies().get(5, TimeUnit.SECONDS)).containsExactly("Serif");
+        assertThat(enumerations).hasValue(1);
+    }
+
+    @DisplayName("Fingerprint: changes when a font directory changes")
+    @Test
+    void testFingerprint_DirectoryChanged_Changes() throws Exception {
+        Path fonts = Files.createDirectories(directory.resolve("fonts").resolve("truetype"));
+        String before = FontCatalog.fingerprint(List.of(directory.resolve("fonts")));
+        assertThat(FontCatalog.fingerprint(List.of(directory.resolve("fonts")))).isEqualTo(before);
+
+        Files.createFile(fonts.resolve("new.ttf"));
+        Files.setLastModifiedTime(fonts, FileTime.from(
+                Files.getLastModifiedTime(fonts).toMillis() + 5000, TimeUnit.MILLISECONDS));
+
+        assertThat(FontCatalog.fingerprint(List.of(directory.resolve("fonts")))).isNotEqualTo(before);
+    }
+}
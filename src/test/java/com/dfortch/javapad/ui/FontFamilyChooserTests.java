@@ -0,0 +1,75 @@
+package com.dfortch.javapad.ui;
+
+import com.dfortch.javapad.i18n.MessageProvider;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.swing.*;
+import java.lang.reflect.InvocationTargetException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class FontFamilyChooserTests {
+
+    private FontFamilyChooser chooser;
+
+    @BeforeEach
+    void setUp() throws InterruptedException, InvocationTargetException {
+        MessageProvider messageProvider = mock(MessageProvider.class);
+        when(messageProvider.getMessage("preferences.editor.font.filter")).thenReturn("Filter fonts");
+        SwingUtilities.invokeAndWait(() -> chooser = new FontFamilyChooser(messageProvider));
+    }
+
+    @DisplayName("Set selected family: shown before the families are loaded")
+    @Test
+    void testSetSelectedFamily_NoFamilies_Shown() throws Exception {
+        SwingUtilities.invokeAndWait(() -> chooser.setSelectedFamily("Monospaced"));
+
+        assertThat(chooser.getSelectedFamily()).isEqualTo("Monospaced");
+        assertThat(chooser.getShownFamilies()).containsExactly("Monospaced");
+    }
+
+    @DisplayName("Set families: the selected family is kept")
+    @Test
+    void testSetFamilies_SelectionKept() throws Exception {
+        SwingUtilities.invokeAndWait(() -> {
+            chooser.setSelectedFamily("Monospaced");
+            chooser.setFamilies(List.of("Dialog", "Monospaced", "Serif"));
+        });
+
+        assertThat(chooser.getSelectedFamily()).isEqualTo("Monospaced");
+        assertThat(chooser.getShownFamilies()).containsExactly("Dialog", "Monospaced", "Serif");
+    }
+
+    @DisplayName("Set filter: shows the families containing it, ignoring case")
+    @Test
+    void testSetFilter_ShowsMatches() throws Exception {
+        SwingUtilities.invokeAndWait(() -> {
+            chooser.setFamilies(List.of("DejaVu Sans", "DejaVu Sans Mono", "Monospaced", "Serif"));
+            chooser.setFilter("MONO");
+        });
+
+        assertThat(chooser.getShownFamilies()).containsExactly("DejaVu Sans Mono", "Monospaced");
+
+        SwingUtilities.invokeAndWait(() -> chooser.setFilter(""));
+
+        assertThat(chooser.getShownFamilies()).hasSize(4);
+    }
+
+    @DisplayName("Select first match: selects the first family the filter shows")
+    @Test
+    void testSelectFirstMatch_SelectsFirstShown() throws Exception {
+        SwingUtilities.invokeAndWait(() -> {
+            chooser.setSelectedFamily("Serif");
+            chooser.setFamilies(List.of("Dialog", "Monospaced", "Serif"));
+            chooser.setFilter("mono");
+            chooser.selectFirstMatch();
+        });
+
+        assertThat(chooser.getSelectedFamily()).isEqualTo("Monospaced");
+    }
+}
@@ -0,0 +1,116 @@
+package com.dfortch.javapad.ui;
+
+import com.dfortch.javapad.JavapadConfiguration;
+import com.dfortch.javapad.i18n.MessageProvider;
+import com.dfortch.javapad.prefs.JavaPrefBasedJavapadUserPreferences;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.swing.*;
+import java.awt.*;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PreferencesDialogTests {
+
+    private static final int OPENINGS = 1000;
+
+    private static final long HEAP_TOLERANCE = 8L * 1024 * 1024;
+
+    @TempDir
+    Path directory;
+
+    private JavaPrefBasedJavapadUserPreferences preferences;
+
+    private PreferencesDialog dialog;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        assumeFalse(GraphicsEnvironment.isHeadless(), "The preferences dialog needs a display");
+        preferences = new JavaPrefBasedJavapadUserPreferences(new JavapadConfiguration().javapadUserPreferencesProperties());
+        MessageProvider messageProvider = mock(MessageProvider.class);
+        when(messageProvider.getMessage(anyString())).thenAnswer(invocation -> invocation.getArgument(0));
+        FontCatalog fontCatalog = new FontCatalog(directory.resolve("font_catalog"),
+                () -> new String[]{Font.MONOSPACED, Font.SERIF}, () -> "test");
+        SwingUtilities.invokeAndWait(() ->
+                dialog = new PreferencesDialog((Frame) null, messageProvider, preferences, fontCatalog));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (dialog != null) {
+            SwingUtilities.invokeAndWait(dialog::dispose);
+        }
+    }
+
+    @DisplayName("Change section: the panel is built when the section is first shown")
+    @Test
+    void testChangeSection_PanelBuiltOnFirstShow() throws Exception {
+        SwingUtilities.invokeAndWait(() -> {
+            assertThat(dialog.isSectionCreated(PreferencesSection.APPEARANCE)).isTrue();
+            assertThat(dialog.isSectionCreated(PreferencesSection.EDITOR)).isFalse();
+
+            dialog.changeSection(PreferencesSection.EDITOR);
+
+            assertThat(dialog.isSectionCreated(PreferencesSection.EDITOR)).isTrue();
+            assertThat(dialog.isSectionCreated(PreferencesSection.LOCALE)).isFalse();
+        });
+    }
+
+    @DisplayName("Open: opening the dialog many times keeps the heap and the listeners constant")
+    @Test
+    void testOpen_ManyTimes_HeapAndListenersConstant() throws Exception {
+        int listenersBefore = preferences.getPreferencesChangeListenerCount();
+        AtomicInteger listenersWhileOpen = new AtomicInteger();
+
+        long heapAfterWarmUp = 0;
+        int windowsAfterWarmUp = 0;
+        for (int i = 0; i < OPENINGS; i++) {
+            openAndCancel(listenersWhileOpen);
+            assertThat(listenersWhileOpen).hasValue(listenersBefore + PreferencesSection.values().length);
+            assertThat(preferences.getPreferencesChangeListenerCount()).isEqualTo(listenersBefore);
+            if (i == OPENINGS / 10) {
+                heapAfterWarmUp = getUsedHeapAfterGc();
+                windowsAfterWarmUp = Window.getWindows().length;
+            }
+        }
+
+        assertThat(getUsedHeapAfterGc()).isLessThan(heapAfterWarmUp + HEAP_TOLERANCE);
+        assertThat(Window.getWindows()).hasSize(windowsAfterWarmUp);
+    }
+
+    /**
+     * Opens the dialog, shows every section and cancels it. The dialog is modal, so it is
+     * cancelled by an event queued before it opens.
+     */
+    private void openAndCancel(AtomicInteger listenersWhileOpen) throws Exception {
+        SwingUtilities.invokeAndWait(() -> {
+            SwingUtilities.invokeLater(() -> {
+                for (PreferencesSection section : PreferencesSection.values()) {
+                    dialog.changeSection(section);
+                }
+                listenersWhileOpen.set(preferences.getPreferencesChangeListenerCount());
+                dialog.onCancel(null);
+            });
+            dialog.open();
+        });
+    }
+
+    private static long getUsedHeapAfterGc() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,93 @@
+package com.dfortch.javapad.ui;
+
+import com.dfortch.javapad.JavapadConfiguration;
+import com.dfortch.javapad.i18n.MessageProvider;
+import com.dfortch.javapad.prefs.JavaPrefBasedJavapadUserPreferences;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.swing.*;
+import java.awt.*;
+import java.lang.ref.WeakReference;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * The listener lifecycle of the panels of {@link PreferencesDialog}, which works without a display
+ * since the panels are lightweight: {@code addNotify} and {@code removeNotify} are what showing
+ * and disposing the dialog call on them.
+ */
+class PreferencesPanelsTests {
+
+    private static final int SHOWINGS = 1000;
+
+    @TempDir
+    Path directory;
+
+    private JavaPrefBasedJavapadUserPreferences preferences;
+
+    private MessageProvider messageProvider;
+
+    private FontCatalog fontCatalog;
+
+    @BeforeEach
+    void setUp() {
+        preferences = new JavaPrefBasedJavapadUserPreferences(new JavapadConfiguration().javapadUserPreferencesProperties());
+        messageProvider = mock(MessageProvider.class);
+        when(messageProvider.getMessage(anyString())).thenAnswer(invocation -> invocation.getArgument(0));
+        fontCatalog = new FontCatalog(directory.resolve("font_catalog"),
+                () -> new String[]{Font.MONOSPACED, Font.SERIF}, () -> "test");
+    }
+
+    @DisplayName("Show and hide: each panel listens only while shown")
+    @Test
+    void testShowAndHide_ListensOnlyWhileShown() throws Exception {
+        SwingUtilities.invokeAndWait(() -> {
+            int listenersBefore = preferences.getPreferencesChangeListenerCount();
+            List<JComponent> panels = createPanels();
+            assertThat(preferences.getPreferencesChangeListenerCount()).isEqualTo(listenersBefore);
+
+            for (int i = 0; i < SHOWINGS; i++) {
+                panels.forEach(JComponent::addNotify);
+                assertThat(preferences.getPreferencesChangeListenerCount()).isEqualTo(listenersBefore + panels.size());
+                panels.forEach(JComponent::removeNotify);
+                assertThat(preferences.getPreferencesChangeListenerCount()).isEqualTo(listenersBefore);
+            }
+        });
+    }
+
+    @DisplayName("Hidden panels: the preferences do not keep them alive")
+    @Test
+    void testHiddenPanels_NotKeptAlive() throws Exception {
+        List<WeakReference<JComponent>> references = new ArrayList<>();
+        SwingUtilities.invokeAndWait(() -> {
+            for (JComponent panel : createPanels()) {
+                panel.addNotify();
+                panel.removeNotify();
+                references.add(new WeakReference<>(panel));
+            }
+        });
+
+        for (int i = 0; i < 10 && references.stream().anyMatch(reference -> reference.get() != null); i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+
+        assertThat(references).allMatch(reference -> reference.get() == null);
+    }
+
+    private List<JComponent> createPanels() {
+        return List.of(new AppearancePreferencesPanel(messageProvider, preferences),
+                new EditorPreferencesPanel(messageProvider, preferences, fontCatalog),
+                new LocalePreferencesPanel(messageProvider, preferences),
+                new LoggingPreferencesPanel(messageProvider, preferences));
+    }
+}
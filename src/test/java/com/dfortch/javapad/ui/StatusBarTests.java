@@ -0,0 +1,123 @@
+package com.dfortch.javapad.ui;
+
+import com.dfortch.javapad.JavapadConstants;
+import com.dfortch.javapad.i18n.MessageProvider;
+import com.dfortch.javapad.i18n.ResourceBundleMessageProvider;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.swing.*;
+import java.lang.reflect.InvocationTargetException;
+import java.text.MessageFormat;
+import java.text.NumberFormat;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class StatusBarTests {
+
+    private static final Map<String, String> PATTERNS = Map.of(
+            "main.statusbar.linecol", "Line: {0}, Col: {1}",
+            "main.statusbar.characters", "{0} characters",
+            "main.statusbar.undo-memory", "Undo: {0} KB");
+
+    private StatusBar statusBar;
+
+    private JLabel lineColumnLabel;
+
+    private JLabel characterCountLabel;
+
+    @BeforeEach
+    void setUp() throws InterruptedException, InvocationTargetException {
+        MessageProvider messageProvider = mock(MessageProvider.class);
+        when(messageProvider.getMessage(anyString(), any(Object[].class))).thenAnswer(invocation -> {
+            Object[] arguments = invocation.getArguments();
+            return MessageFormat.format(PATTERNS.get((String) arguments[0]),
+                    Arrays.copyOfRange(arguments, 1, arguments.length));
+        });
+        when(messageProvider.getMessage("main.statusbar.cancel")).thenReturn("Cancel");
+        SwingUtilities.invokeAndWait(() -> {
+            statusBar = new StatusBar(1, 0, 0, "file.txt", messageProvider);
+            lineColumnLabel = (JLabel) statusBar.getComponent(0);
+            characterCountLabel = (JLabel) statusBar.getComponent(1);
+        });
+    }
+
+    @DisplayName("New status bar: shows the initial values")
+    @Test
+    void testNewStatusBar_ShowsInitialValues() {
+        assertThat(lineColumnLabel.getText()).isEqualTo("Line: 1, Col: 0");
+        assertThat(characterCountLabel.getText()).isEqualTo("0 characters");
+    }
+
+    @DisplayName("Burst of updates: shown once with the last values")
+    @Test
+    void testBurstOfUpdates_ShownOnceWithLastValues() throws Exception {
+        AtomicReference<String> textDuringBurst = new AtomicReference<>();
+        SwingUtilities.invokeAndWait(() -> {
+            for (int i = 1; i <= 100; i++) {
+                statusBar.setCurrentLineAndColumn(i, i % 7);
+                statusBar.setCharacterCount(i * 5);
+            }
+            textDuringBurst.set(lineColumnLabel.getText());
+        });
+
+        awaitRefresh();
+
+        assertThat(textDuringBurst.get()).isEqualTo("Line: 1, Col: 0");
+        assertThat(lineColumnLabel.getText()).isEqualTo("Line: 100, Col: 2");
+        assertThat(characterCountLabel.getText()).isEqualTo("500 characters");
+        assertThat(statusBar.getCoalescedUpdateCount()).isEqualTo(199);
+    }
+
+    @DisplayName("Unchanged values: labels are left alone")
+    @Test
+    void testUnchangedValues_LabelsLeftAlone() throws Exception {
+        String lineColumnText = lineColumnLabel.getText();
+        String characterCountText = characterCountLabel.getText();
+
+        SwingUtilities.invokeAndWait(() -> {
+            statusBar.setCurrentLineAndColumn(1, 0);
+            statusBar.setCharacterCount(0);
+        });
+        awaitRefresh();
+
+        assertThat(lineColumnLabel.getText()).isSameAs(lineColumnText);
+        assertThat(characterCountLabel.getText()).isSameAs(characterCountText);
+    }
+
+    @DisplayName("Provider in another locale: counts are formatted in the locale of the provider")
+    @Test
+    void testProviderInOtherLocale_CountsInProviderLocale() throws Exception {
+        Locale defaultLocale = Locale.getDefault();
+        Locale spanish = Locale.forLanguageTag("es");
+        Locale.setDefault(Locale.US);
+        try {
+            MessageProvider messageProvider =
+                    new ResourceBundleMessageProvider(JavapadConstants.MESSAGE_RESOURCE_BUNDLE_BASE_NAME, spanish);
+            AtomicReference<JLabel> label = new AtomicReference<>();
+            SwingUtilities.invokeAndWait(() -> {
+                StatusBar spanishStatusBar = new StatusBar(1, 0, 1_234_567, "file.txt", messageProvider);
+                label.set((JLabel) spanishStatusBar.getComponent(1));
+            });
+
+            assertThat(label.get().getText()).isEqualTo(NumberFormat.getInstance(spanish).format(1_234_567) + " caracteres");
+        } finally {
+            Locale.setDefault(defaultLocale);
+        }
+    }
+
+    private static void awaitRefresh() throws Exception {
+        Thread.sleep(StatusBar.REFRESH_DELAY_MILLIS * 10L);
+        SwingUtilities.invokeAndWait(() -> {
+        });
+    }
+}
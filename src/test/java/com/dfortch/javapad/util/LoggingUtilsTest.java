@@ -0,0 +1,58 @@
+package com.dfortch.javapad.util;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.core.async.AsyncLoggerContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LoggingUtilsTest {
+
+    private Level originalLevel;
+
+    @BeforeEach
+    void setUp() {
+        originalLevel = LoggingUtils.getApplicationLevel();
+    }
+
+    @AfterEach
+    void tearDown() {
+        LoggingUtils.setApplicationLevel(originalLevel);
+    }
+
+    @DisplayName("Set application level: applies to existing javapad loggers")
+    @Test
+    void testSetApplicationLevel_AppliesToExistingLoggers() {
+        Logger logger = LogManager.getLogger("com.dfortch.javapad.ui.MainFrame");
+
+        LoggingUtils.setApplicationLevel(Level.TRACE);
+        assertThat(logger.isTraceEnabled()).isTrue();
+
+        LoggingUtils.setApplicationLevel(Level.WARN);
+        assertThat(logger.isInfoEnabled()).isFalse();
+        assertThat(logger.isWarnEnabled()).isTrue();
+        assertThat(LoggingUtils.getApplicationLevel()).isEqualTo(Level.WARN);
+    }
+
+    @DisplayName("Set application level: other loggers keep their level")
+    @Test
+    void testSetApplicationLevel_OtherLoggersKeepLevel() {
+        Logger other = LogManager.getLogger("org.example.Library");
+        boolean infoEnabled = other.isInfoEnabled();
+
+        LoggingUtils.setApplicationLevel(Level.TRACE);
+
+        assertThat(other.isInfoEnabled()).isEqualTo(infoEnabled);
+    }
+
+    @DisplayName("Logger context: loggers are asynchronous")
+    @Test
+    void testLoggerContext_Asynchronous() {
+        assertThat(LogManager.getContext(false)).isInstanceOf(AsyncLoggerContext.class);
+    }
+}
@@ -0,0 +1,39 @@
+package com.dfortch.javapad.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StartupTimerTest {
+
+    @DisplayName("Mark: phases are recorded in order and add up to the total")
+    @Test
+    void testMark_PhasesAddUp() throws InterruptedException {
+        StartupTimer timer = new StartupTimer();
+
+        Thread.sleep(20);
+        timer.mark("first");
+        Thread.sleep(30);
+        timer.mark("second");
+        timer.finish();
+
+        assertThat(timer.getPhases()).extracting(StartupTimer.Phase::name).containsExactly("first", "second");
+        assertThat(timer.getPhases().get(0).getMillis()).isGreaterThanOrEqualTo(20);
+        assertThat(timer.getPhases().get(1).getMillis()).isGreaterThanOrEqualTo(30);
+        assertThat(timer.getTotalMillis()).isGreaterThanOrEqualTo(50);
+        assertThat(timer.isFinished()).isTrue();
+    }
+
+    @DisplayName("Since process start: the first phase is the JVM startup")
+    @Test
+    void testSinceProcessStart_JvmPhaseFirst() {
+        StartupTimer timer = StartupTimer.sinceProcessStart();
+        timer.mark("main");
+
+        assertThat(timer.getPhases()).extracting(StartupTimer.Phase::name).endsWith("main");
+        if (ProcessHandle.current().info().startInstant().isPresent()) {
+            assertThat(timer.getPhases().getFirst().name()).isEqualTo("jvm");
+        }
+    }
+}
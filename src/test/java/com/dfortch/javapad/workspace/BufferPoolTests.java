@@ -0,0 +1,165 @@
+package com.dfortch.javapad.workspace;
+
+import com.dfortch.javapad.io.FileOperationsImpl;
+import com.dfortch.javapad.text.PieceTableDocument;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.swing.text.BadLocationException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BufferPoolTests {
+
+    private static final int TEXT_LENGTH = 100_000;
+
+    /**
+     * Room for two buffers of {@link #TEXT_LENGTH} chars but not three.
+     */
+    private static final long BUDGET = 5L * TEXT_LENGTH;
+
+    @TempDir
+    Path swapDirectory;
+
+    private final FileOperationsImpl fileOperations = new FileOperationsImpl();
+
+    private final List<Runnable> swaps = new ArrayList<>();
+
+    private BufferPool pool;
+
+    @BeforeEach
+    void setUp() {
+        pool = new BufferPool(fileOperations, swapDirectory, BUDGET, swaps::add, Runnable::run);
+    }
+
+    @DisplayName("Over budget: releases the least recently viewed clean buffer")
+    @Test
+    void testOverBudget_ReleasesLeastRecentlyViewed() {
+        DocumentBuffer first = addBuffer('a');
+        DocumentBuffer second = addBuffer('b');
+        DocumentBuffer third = addBuffer('c');
+        pool.touch(first);
+
+        pool.trim(third);
+
+        assertThat(second.isResident()).isFalse();
+        assertThat(first.isResident()).isTrue();
+        assertThat(third.isResident()).isTrue();
+        assertThat(pool.getMemoryUsage()).isLessThanOrEqualTo(BUDGET);
+        assertThat(swaps).isEmpty();
+    }
+
+    @DisplayName("Active buffer: kept even when over budget")
+    @Test
+    void testActiveBuffer_Kept() {
+        pool.setMemoryBudget(1);
+        DocumentBuffer first = addBuffer('a');
+        DocumentBuffer second = addBuffer('b');
+
+        pool.trim(first);
+
+        assertThat(first.isResident()).isTrue();
+        assertThat(second.isResident()).isFalse();
+    }
+
+    @DisplayName("Dirty buffer: swapped out with its unsaved text")
+    @Test
+    void testDirtyBuffer_SwappedOut() throws BadLocationException, IOException {
+        DocumentBuffer dirty = addBuffer('a');
+        dirty.getDocument().insertString(0, "edited ", null);
+        addBuffer('b');
+        DocumentBuffer active = addBuffer('c');
+
+        pool.trim(active);
+        assertThat(dirty.isResident()).isTrue();
+        runSwaps();
+
+        assertThat(dirty.isResident()).isFalse();
+        assertThat(dirty.isDirty()).isTrue();
+        Path swapFile = dirty.getSwapFile();
+        assertThat(swapFile).exists().hasParent(swapDirectory);
+        assertThat(fileOperations.readFromFile(swapFile.toFile())).isEqualTo("edited " + "a".repeat(TEXT_LENGTH));
+    }
+
+    @DisplayName("Viewed while swapping: stays resident and the swap file is dropped")
+    @Test
+    void testViewedWhileSwapping_StaysResident() throws BadLocationException, IOException {
+        DocumentBuffer dirty = addBuffer('a');
+        dirty.getDocument().insertString(0, "edited ", null);
+        addBuffer('b');
+        DocumentBuffer active = addBuffer('c');
+        pool.trim(active);
+
+        pool.touch(dirty);
+        runSwaps();
+
+        assertThat(dirty.isResident()).isTrue();
+        assertThat(dirty.getSwapFile()).isNull();
+        try (var files = Files.list(swapDirectory)) {
+            assertThat(files).isEmpty();
+        }
+    }
+
+    @DisplayName("Restored from swap: dirty until saved and the swap file is deleted")
+    @Test
+    void testRestoredFromSwap_Dirty() throws BadLocationException, IOException {
+        DocumentBuffer dirty = addBuffer('a');
+        dirty.getDocument().insertString(0, "edited ", null);
+        addBuffer('b');
+        pool.trim(addBuffer('c'));
+        runSwaps();
+        Path swapFile = dirty.getSwapFile();
+
+        dirty.install(new PieceTableDocument(fileOperations.readFromFile(swapFile.toFile())), null);
+        dirty.track(1024);
+
+        assertThat(dirty.isDirty()).isTrue();
+        assertThat(dirty.getSwapFile()).isNull();
+        assertThat(swapFile).doesNotExist();
+    }
+
+    @DisplayName("Close: deletes the swap files")
+    @Test
+    void testClose_DeletesSwapFiles() throws BadLocationException {
+        DocumentBuffer dirty = addBuffer('a');
+        dirty.getDocument().insertString(0, "edited ", null);
+        addBuffer('b');
+        pool.trim(addBuffer('c'));
+        runSwaps();
+        Path swapFile = dirty.getSwapFile();
+
+        pool.close();
+
+        assertThat(swapFile).doesNotExist();
+        assertThat(dirty.getSwapFile()).isNull();
+    }
+
+    @DisplayName("Memory budget: must be positive")
+    @Test
+    void testMemoryBudget_MustBePositive() {
+        assertThatThrownBy(() -> pool.setMemoryBudget(0)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private DocumentBuffer addBuffer(char fill) {
+        DocumentBuffer buffer = new DocumentBuffer(new File("file-" + fill + ".txt"), 1024 * 1024);
+        buffer.install(new PieceTableDocument(String.valueOf(fill).repeat(TEXT_LENGTH)), null);
+        buffer.track(1024);
+        pool.add(buffer);
+        return buffer;
+    }
+
+    private void runSwaps() {
+        List<Runnable> pending = List.copyOf(swaps);
+        swaps.clear();
+        pending.forEach(Runnable::run);
+    }
+}
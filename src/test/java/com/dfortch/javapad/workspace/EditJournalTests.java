@@ -0,0 +1,190 @@
+package com.dfortch.javapad.workspace;
+
+import com.dfortch.javapad.io.TextEncoding;
+import com.dfortch.javapad.text.PieceTableDocument;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.swing.text.BadLocationException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EditJournalTests {
+
+    private static final long COMPACTION_BYTES = 4 * 1024;
+
+    @TempDir
+    Path directory;
+
+    private EditJournal journal;
+
+    @BeforeEach
+    void setUp() {
+        journal = new EditJournal(directory, 0, COMPACTION_BYTES);
+    }
+
+    @AfterEach
+    void tearDown() {
+        journal.close();
+    }
+
+    @DisplayName("Crash: unsaved edits are recovered")
+    @Test
+    void testCrash_UnsavedEditsRecovered() throws Exception {
+        DocumentBuffer buffer = openBuffer(new File("notes.txt"), "hello world");
+        PieceTableDocument document = buffer.getDocument();
+        buffer.setEncoding(new TextEncoding(StandardCharsets.ISO_8859_1, false));
+
+        document.insertString(5, ",", null);
+        document.remove(0, 1);
+        document.replace(0, 4, "Jell", null);
+        document.insertString(document.getLength(), "!\n\u00e9", null);
+
+        List<RecoveredBuffer> recovered = crashAndRecover();
+
+        assertThat(recovered).hasSize(1);
+        RecoveredBuffer result = recovered.getFirst();
+        assertThat(result.text().toString()).isEqualTo("Jell, world!\n\u00e9");
+        assertThat(result.file()).isEqualTo(new File("notes.txt"));
+        assertThat(result.encoding()).isEqualTo(new TextEncoding(StandardCharsets.ISO_8859_1, false));
+    }
+
+    @DisplayName("Clean buffer: nothing is written")
+    @Test
+    void testCleanBuffer_NothingWritten() throws Exception {
+        openBuffer(null, "unchanged");
+
+        assertThat(crashAndRecover()).isEmpty();
+    }
+
+    @DisplayName("Saved buffer: journal is deleted")
+    @Test
+    void testSavedBuffer_JournalDeleted() throws Exception {
+        DocumentBuffer buffer = openBuffer(null, "text");
+        buffer.getDocument().insertString(0, "more ", null);
+        journal.flush();
+        assertThat(buffer.getJournal().getFile()).exists();
+
+        buffer.getVersionTracker().markSaved();
+        journal.flush();
+
+        assertThat(buffer.getJournal().getFile()).doesNotExist();
+    }
+
+    @DisplayName("Undo to the saved text: journal is deleted")
+    @Test
+    void testUndoToSavedText_JournalDeleted() throws Exception {
+        DocumentBuffer buffer = openBuffer(null, "text");
+        buffer.getDocument().insertString(4, "!", null);
+
+        buffer.getUndoHistory().undo();
+
+        assertThat(crashAndRecover()).isEmpty();
+    }
+
+    @DisplayName("Closed buffer: journal is deleted")
+    @Test
+    void testClosedBuffer_JournalDeleted() throws Exception {
+        DocumentBuffer buffer = openBuffer(null, "text");
+        buffer.getDocument().insertString(0, "more ", null);
+
+        buffer.close();
+
+        assertThat(crashAndRecover()).isEmpty();
+    }
+
+    @DisplayName("Torn last record: recovered up to the last complete edit")
+    @Test
+    void testTornLastRecord_RecoveredUpToLastEdit() throws Exception {
+        DocumentBuffer buffer = openBuffer(null, "abc");
+        buffer.getDocument().insertString(3, "d", null);
+        buffer.getDocument().insertString(4, "e", null);
+        journal.flush();
+        Path file = buffer.getJournal().getFile();
+        byte[] bytes = Files.readAllBytes(file);
+
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 3));
+        Files.write(file, new byte[]{2, 0, 0}, StandardOpenOption.APPEND);
+
+        List<RecoveredBuffer> recovered = crashAndRecover();
+        assertThat(recovered).hasSize(1);
+        assertThat(recovered.getFirst().text().toString()).isEqualTo("abcd");
+    }
+
+    @DisplayName("Many edits: journal is compacted into a snapshot")
+    @Test
+    void testManyEdits_Compacted() throws Exception {
+        DocumentBuffer buffer = openBuffer(null, "");
+        PieceTableDocument document = buffer.getDocument();
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            String typed = String.valueOf((char) ('a' + i % 26));
+            document.insertString(document.getLength(), typed, null);
+            expected.append(typed);
+        }
+        journal.flush();
+
+        assertThat(Files.size(buffer.getJournal().getFile())).isLessThan(4 * COMPACTION_BYTES);
+        List<RecoveredBuffer> recovered = crashAndRecover();
+        assertThat(recovered.getFirst().text().toString()).isEqualTo(expected.toString());
+    }
+
+    @DisplayName("Swapped out buffer: journal is kept and follows the restored text")
+    @Test
+    void testSwappedOutBuffer_JournalFollowsRestoredText() throws Exception {
+        DocumentBuffer buffer = openBuffer(null, "text");
+        buffer.getDocument().insertString(4, "!", null);
+        Path swapFile = Files.writeString(directory.resolve("swap.swp"), "text!");
+        buffer.swappedOut(swapFile);
+
+        buffer.install(new PieceTableDocument("text!"), null);
+        buffer.track(1024);
+        buffer.getDocument().insertString(5, "?", null);
+
+        List<RecoveredBuffer> recovered = crashAndRecover();
+        assertThat(recovered).hasSize(1);
+        assertThat(recovered.getFirst().text().toString()).isEqualTo("text!?");
+    }
+
+    @DisplayName("Discard: deletes the recovered journals")
+    @Test
+    void testDiscard_DeletesRecoveredJournals() throws Exception {
+        DocumentBuffer buffer = openBuffer(null, "text");
+        buffer.getDocument().insertString(0, "more ", null);
+        List<RecoveredBuffer> recovered = crashAndRecover();
+
+        journal.discard(recovered);
+        journal.flush();
+
+        assertThat(recovered.getFirst().journalFile()).doesNotExist();
+    }
+
+    private DocumentBuffer openBuffer(File file, String text) {
+        DocumentBuffer buffer = new DocumentBuffer(file, 1024 * 1024);
+        buffer.setJournal(journal.create(buffer));
+        buffer.install(new PieceTableDocument(text), null);
+        buffer.track(1024);
+        return buffer;
+    }
+
+    /**
+     * Writes what is queued and reads the journals back as the next session would.
+     */
+    private List<RecoveredBuffer> crashAndRecover() throws InterruptedException, IOException {
+        journal.flush();
+        journal.close();
+        journal = new EditJournal(directory, 0, COMPACTION_BYTES);
+        return journal.recover();
+    }
+}